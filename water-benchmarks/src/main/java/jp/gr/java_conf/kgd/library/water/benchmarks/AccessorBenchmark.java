@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntVector3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * アクセサの呼び出し方法による差を計測するベンチマーク。
+ *
+ * フィールドの直接参照、インターフェース経由の呼び出し、
+ * トレイトのデフォルトメソッドによる型変換、非推奨のボクシングを伴うアクセサを比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessorBenchmark {
+
+    @Param({"1024"})
+    public int size;
+
+    private BareDoubleVector3[] bares;
+
+    private DoubleVector3[] vectors;
+
+    private IntVector3[] intVectors;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        bares = new BareDoubleVector3[size];
+        vectors = new DoubleVector3[size];
+        intVectors = new IntVector3[size];
+        for (int i = 0; i < size; i++) {
+            BareDoubleVector3 vector = new BareDoubleVector3(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            bares[i] = vector;
+            vectors[i] = vector;
+            intVectors[i] = vector;
+        }
+    }
+
+    @Benchmark
+    public double fieldAccess() {
+        double sum = 0;
+        for (BareDoubleVector3 vector : bares) {
+            sum += vector.x + vector.y + vector.z;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double primitiveAccessor() {
+        double sum = 0;
+        for (DoubleVector3 vector : vectors) {
+            sum += vector.getXAsDouble() + vector.getYAsDouble() + vector.getZAsDouble();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long traitDefaultAccessor() {
+        long sum = 0;
+        for (IntVector3 vector : intVectors) {
+            sum += vector.getXAsInt() + vector.getYAsInt() + vector.getZAsInt();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public double boxedAccessor() {
+        double sum = 0;
+        for (BareDoubleVector3 vector : bares) {
+            sum += vector.getX() + vector.getY() + vector.getZ();
+        }
+        return sum;
+    }
+}
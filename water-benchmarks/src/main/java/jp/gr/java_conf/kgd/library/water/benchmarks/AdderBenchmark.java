@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.concurrent.AtomicDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.concurrent.DoubleVector3Adder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 複数のスレッドから同じベクトルへ加算する場合を計測するベンチマーク。
+ *
+ * {@code synchronized}で保護した{@link BareDoubleVector3}と、{@link AtomicDoubleVector3}、{@link DoubleVector3Adder}を比較します。
+ * スレッド数を変えて計測する場合は、{@code -t}オプションを指定してください。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AdderBenchmark {
+
+    private final BareDoubleVector3 locked = new BareDoubleVector3();
+
+    private final AtomicDoubleVector3 atomic = new AtomicDoubleVector3();
+
+    private final DoubleVector3Adder adder = new DoubleVector3Adder();
+
+    @Benchmark
+    public void synchronizedAdd() {
+        synchronized (locked) {
+            locked.x += 1;
+            locked.y += 2;
+            locked.z += 3;
+        }
+    }
+
+    @Benchmark
+    public void atomicAdd() {
+        atomic.addAndGetX(1);
+        atomic.addAndGetY(2);
+        atomic.addAndGetZ(3);
+    }
+
+    @Benchmark
+    public void adderAdd() {
+        adder.add(1, 2, 3);
+    }
+}
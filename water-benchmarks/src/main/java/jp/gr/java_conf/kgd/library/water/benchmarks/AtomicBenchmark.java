@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareLongVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.concurrent.AtomicIntPoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.concurrent.AtomicLongVector3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 複数のスレッドから同じ値を更新する場合を計測するベンチマーク。
+ *
+ * {@code synchronized}で保護した{@link BareLongVector3}と、不可分に更新できる{@link AtomicLongVector3}・{@link AtomicIntPoint2}を比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AtomicBenchmark {
+
+    private final BareLongVector3 locked = new BareLongVector3();
+
+    private final AtomicLongVector3 atomic = new AtomicLongVector3();
+
+    private final AtomicIntPoint2 packed = new AtomicIntPoint2();
+
+    @Benchmark
+    public long synchronizedAdd() {
+        synchronized (locked) {
+            return locked.x += 1;
+        }
+    }
+
+    @Benchmark
+    public long atomicAdd() {
+        return atomic.addAndGetX(1);
+    }
+
+    @Benchmark
+    public int packedAdd() {
+        return packed.addAndGetX(1);
+    }
+
+    @Benchmark
+    public long atomicSnapshot() {
+        BareLongVector3 snapshot = new BareLongVector3();
+        atomic.snapshot(snapshot);
+        return snapshot.x;
+    }
+}
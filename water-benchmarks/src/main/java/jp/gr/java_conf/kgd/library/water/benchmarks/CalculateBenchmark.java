@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleBinaryOperator;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoubleVector3Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveBinaryOperators;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 演算子による一括計算を計測するベンチマーク。
+ *
+ * {@link PrimitiveBinaryOperators}の定数とラムダ式を、要素ごとの計算と配列への一括計算で比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CalculateBenchmark {
+
+    private static final DoubleBinaryOperator LAMBDA_PLUS = (left, right) -> left + right;
+
+    @Param({"1024"})
+    public int size;
+
+    private BareDoubleVector3[] vectors;
+
+    private DoubleVector3Array array;
+
+    private DoubleVector3Array operand;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        vectors = new BareDoubleVector3[size];
+        array = new DoubleVector3Array(size);
+        operand = new DoubleVector3Array(size);
+        for (int i = 0; i < size; i++) {
+            vectors[i] = new BareDoubleVector3(random.nextDouble(), random.nextDouble(), random.nextDouble());
+            array.add(vectors[i]);
+            operand.add(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        }
+    }
+
+    @Benchmark
+    public void elementOperator(Blackhole blackhole) {
+        for (BareDoubleVector3 vector : vectors) {
+            vector.calculate(PrimitiveBinaryOperators.PLUS, 1.0, 1.0, 1.0);
+        }
+        blackhole.consume(vectors);
+    }
+
+    @Benchmark
+    public void elementLambda(Blackhole blackhole) {
+        for (BareDoubleVector3 vector : vectors) {
+            vector.calculate(LAMBDA_PLUS, 1.0, 1.0, 1.0);
+        }
+        blackhole.consume(vectors);
+    }
+
+    @Benchmark
+    public void arrayOperator(Blackhole blackhole) {
+        array.calculate(PrimitiveBinaryOperators.PLUS, operand);
+        blackhole.consume(array);
+    }
+
+    @Benchmark
+    public void arrayLambda(Blackhole blackhole) {
+        array.calculate(LAMBDA_PLUS, operand);
+        blackhole.consume(array);
+    }
+}
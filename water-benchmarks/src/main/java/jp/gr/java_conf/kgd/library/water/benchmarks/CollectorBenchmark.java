@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoubleVector3Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.math.DoubleVector3Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DoubleVector3Array}のストリームの集約を計測するベンチマーク。
+ *
+ * 要素ごとにベクトルを生成する{@code map}と{@code reduce}による総和と、{@link DoubleVector3Collectors}による平均・範囲を、
+ * 逐次ストリームと並列ストリームで比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CollectorBenchmark {
+
+    @Param({"10000000"})
+    public int size;
+
+    private DoubleVector3Array array;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        array = new DoubleVector3Array(size);
+        for (int i = 0; i < size; i++) {
+            array.add(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        }
+    }
+
+    @Benchmark
+    public DoubleVector3 mapReduce() {
+        return array.cursorStream()
+                .map(ImmutableDoubleVector3::new)
+                .reduce(new ImmutableDoubleVector3(0, 0, 0), (left, right) -> new ImmutableDoubleVector3(
+                        left.getXAsDouble() + right.getXAsDouble(),
+                        left.getYAsDouble() + right.getYAsDouble(),
+                        left.getZAsDouble() + right.getZAsDouble()));
+    }
+
+    @Benchmark
+    public BareDoubleVector3 averaging() {
+        return array.cursorStream().collect(DoubleVector3Collectors.averaging());
+    }
+
+    @Benchmark
+    public BareDoubleVector3 parallelAveraging() {
+        return array.parallelCursorStream().collect(DoubleVector3Collectors.averaging());
+    }
+
+    @Benchmark
+    public DoubleVector3Collectors.Bounds parallelBounding() {
+        return array.parallelCursorStream().collect(DoubleVector3Collectors.bounding());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleColor3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareIntColor3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoubleColor3Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.IntColor3Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.math.ColorConversion;
+import jp.gr.java_conf.kgd.library.water.java.core.value.math.ColorSpace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 色空間の変換を計測するベンチマーク。
+ *
+ * 要素ごとに{@code Math.pow}で線形なsRGBにする場合と、{@link ColorConversion}による一括変換を比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColorConversionBenchmark {
+
+    @Param({"1048576"})
+    public int size;
+
+    private BareIntColor3[] colors;
+
+    private BareDoubleColor3[] linearColors;
+
+    private IntColor3Array array;
+
+    private DoubleColor3Array linearArray;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        colors = new BareIntColor3[size];
+        linearColors = new BareDoubleColor3[size];
+        array = new IntColor3Array(size);
+        linearArray = new DoubleColor3Array(size);
+        for (int i = 0; i < size; i++) {
+            colors[i] = new BareIntColor3(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+            linearColors[i] = new BareDoubleColor3();
+            array.add(colors[i]);
+            linearArray.add(0, 0, 0);
+        }
+    }
+
+    @Benchmark
+    public void elementPow(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            BareIntColor3 color = colors[i];
+            linearColors[i].set(
+                    toLinear(color.getRedAsDouble() / 255),
+                    toLinear(color.getGreenAsDouble() / 255),
+                    toLinear(color.getBlueAsDouble() / 255));
+        }
+        blackhole.consume(linearColors);
+    }
+
+    @Benchmark
+    public void bulkTable(Blackhole blackhole) {
+        ColorConversion.convert(ColorSpace.SRGB, ColorSpace.LINEAR_SRGB, array, linearArray, false);
+        blackhole.consume(linearArray);
+    }
+
+    @Benchmark
+    public void bulkLab(Blackhole blackhole) {
+        ColorConversion.convert(ColorSpace.SRGB, ColorSpace.LAB, array, linearArray, false);
+        blackhole.consume(linearArray);
+    }
+
+    private static double toLinear(double srgb) {
+        return srgb <= 0.04045 ? srgb / 12.92 : Math.pow((srgb + 0.055) / 1.055, 2.4);
+    }
+}
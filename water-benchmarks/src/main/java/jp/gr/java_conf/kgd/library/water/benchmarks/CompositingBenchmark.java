@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntBinaryOperator;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareIntColor4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.math.ColorCompositing;
+import jp.gr.java_conf.kgd.library.water.java.core.value.math.CompositeMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * 色の合成を計測するベンチマーク。
+ *
+ * 要素ごとの計算と{@link ColorCompositing}による一括合成を、4Kの画像1枚分で比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompositingBenchmark {
+
+    private static final IntBinaryOperator LAMBDA_MULTIPLY = (left, right) -> left * right / 255;
+
+    @Param({"8294400"})
+    public int size;
+
+    @Param({"SRC_OVER", "MULTIPLY"})
+    public CompositeMode mode;
+
+    private BareIntColor4[] colors;
+
+    private BareIntColor4 operand;
+
+    private int[] source;
+
+    private int[] destination;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        colors = new BareIntColor4[size];
+        operand = new BareIntColor4(128, 64, 32, 200);
+        source = new int[size];
+        destination = new int[size];
+        for (int i = 0; i < size; i++) {
+            colors[i] = new BareIntColor4(random.nextInt(256), random.nextInt(256), random.nextInt(256), 255);
+            source[i] = random.nextInt();
+            destination[i] = random.nextInt();
+        }
+        ColorCompositing.premultiply(source, 0, size);
+        ColorCompositing.premultiply(destination, 0, size);
+    }
+
+    @Benchmark
+    public void elementLambda(Blackhole blackhole) {
+        for (BareIntColor4 color : colors) {
+            color.calculate(LAMBDA_MULTIPLY, operand);
+        }
+        blackhole.consume(colors);
+    }
+
+    @Benchmark
+    public void bulk(Blackhole blackhole) {
+        ColorCompositing.composite(mode, source, 0, destination, 0, size, false);
+        blackhole.consume(destination);
+    }
+
+    @Benchmark
+    public void bulkParallel(Blackhole blackhole) {
+        ColorCompositing.composite(mode, source, 0, destination, 0, size, true);
+        blackhole.consume(destination);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareIntPoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableIntPoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.collection.IntPoint2ToIntMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link HashMap}のキーとして用いた場合の{@code equals}と{@code hashCode}を計測するベンチマーク。
+ *
+ * 生成された実装と、{@link DataObjectBase}によるリフレクションを用いた実装を比較します。
+ * また、キーを生成しない{@link IntPoint2ToIntMap}とも比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashMapBenchmark {
+
+    /**
+     * リフレクションで比較する点。
+     *
+     * 生成されたコードが{@link DataObjectBase}を継承していた頃の実装に相当します。
+     */
+    public static class ReflectiveIntPoint2 extends DataObjectBase {
+
+        private final int x;
+
+        private final int y;
+
+        public ReflectiveIntPoint2(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    @Param({"1024"})
+    public int size;
+
+    private Map<ImmutableIntPoint2, Integer> immutableMap;
+
+    private Map<BareIntPoint2, Integer> bareMap;
+
+    private Map<ReflectiveIntPoint2, Integer> reflectiveMap;
+
+    private IntPoint2ToIntMap primitiveMap;
+
+    private ImmutableIntPoint2[] immutableKeys;
+
+    private BareIntPoint2[] bareKeys;
+
+    private ReflectiveIntPoint2[] reflectiveKeys;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        immutableMap = new HashMap<>();
+        bareMap = new HashMap<>();
+        reflectiveMap = new HashMap<>();
+        primitiveMap = new IntPoint2ToIntMap();
+        immutableKeys = new ImmutableIntPoint2[size];
+        bareKeys = new BareIntPoint2[size];
+        reflectiveKeys = new ReflectiveIntPoint2[size];
+        for (int i = 0; i < size; i++) {
+            int x = random.nextInt(1 << 16);
+            int y = random.nextInt(1 << 16);
+            immutableMap.put(new ImmutableIntPoint2(x, y), i);
+            bareMap.put(new BareIntPoint2(x, y), i);
+            reflectiveMap.put(new ReflectiveIntPoint2(x, y), i);
+            primitiveMap.put(x, y, i);
+            // 同値な別インスタンスで引くことで、equalsが必ず呼ばれるようにする
+            immutableKeys[i] = new ImmutableIntPoint2(x, y);
+            bareKeys[i] = new BareIntPoint2(x, y);
+            reflectiveKeys[i] = new ReflectiveIntPoint2(x, y);
+        }
+    }
+
+    @Benchmark
+    public int immutableGet() {
+        int sum = 0;
+        for (ImmutableIntPoint2 key : immutableKeys) {
+            sum += immutableMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int bareGet() {
+        int sum = 0;
+        for (BareIntPoint2 key : bareKeys) {
+            sum += bareMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int reflectiveGet() {
+        int sum = 0;
+        for (ReflectiveIntPoint2 key : reflectiveKeys) {
+            sum += reflectiveMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int primitiveGet() {
+        int sum = 0;
+        for (BareIntPoint2 key : bareKeys) {
+            sum += primitiveMap.get(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public Map<ImmutableIntPoint2, Integer> immutablePut() {
+        Map<ImmutableIntPoint2, Integer> map = new HashMap<>();
+        for (int i = 0; i < immutableKeys.length; i++) {
+            map.put(immutableKeys[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<ReflectiveIntPoint2, Integer> reflectivePut() {
+        Map<ReflectiveIntPoint2, Integer> map = new HashMap<>();
+        for (int i = 0; i < reflectiveKeys.length; i++) {
+            map.put(reflectiveKeys[i], i);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public IntPoint2ToIntMap primitivePut() {
+        IntPoint2ToIntMap map = new IntPoint2ToIntMap();
+        for (int i = 0; i < bareKeys.length; i++) {
+            map.put(bareKeys[i], i);
+        }
+        return map;
+    }
+}
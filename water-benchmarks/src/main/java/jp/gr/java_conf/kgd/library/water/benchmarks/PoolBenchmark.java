@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.concurrent.DoubleVector3Pool;
+import jp.gr.java_conf.kgd.library.water.java.core.value.concurrent.ScratchArena;
+import jp.gr.java_conf.kgd.library.water.java.core.value.math.DoubleVector3Math;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 演算の一時的なインスタンスの確保を計測するベンチマーク。
+ *
+ * 毎回生成する場合と、{@link ScratchArena}・{@link DoubleVector3Pool}で使い回す場合を比較します。
+ * 確保量を比べる場合は、{@code -prof gc}オプションを指定してください。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PoolBenchmark {
+
+    private final DoubleVector3 left = new BareDoubleVector3(1, 2, 3);
+
+    private final DoubleVector3 right = new BareDoubleVector3(4, 5, 6);
+
+    private final DoubleVector3Pool pool = new DoubleVector3Pool(16);
+
+    @Benchmark
+    public double allocate() {
+        MutableDoubleVector3 temporary = new BareDoubleVector3();
+        return compute(temporary);
+    }
+
+    @Benchmark
+    public double scratch() {
+        ScratchArena arena = ScratchArena.current();
+        int mark = arena.mark();
+        try {
+            return compute(DoubleVector3Pool.scratch(arena));
+        } finally {
+            arena.reset(mark);
+        }
+    }
+
+    @Benchmark
+    public double pool() {
+        MutableDoubleVector3 temporary = pool.acquire();
+        try {
+            return compute(temporary);
+        } finally {
+            pool.release(temporary);
+        }
+    }
+
+    private double compute(MutableDoubleVector3 temporary) {
+        DoubleVector3Math.cross(left, right, temporary);
+        DoubleVector3Math.normalize(temporary);
+        return DoubleVector3Math.dot(temporary, left);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.SimpleObjectVector3;
+import jp.gr.java_conf.kgd.library.water.scala.core.value.SimpleVector3;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scala.math.Numeric;
+
+/**
+ * Scalaの{@link SimpleVector3}とJavaの実装を比較するベンチマーク。
+ *
+ * {@link SimpleVector3}は{@link Numeric}を経由して値を変換するため、その分の差を計測します。
+ * Javaから生成したインスタンスは特殊化されていない実装になる点に注意してください。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScalaVectorBenchmark {
+
+    @Param({"1024"})
+    public int size;
+
+    private DoubleVector3[] bares;
+
+    private DoubleVector3[] simpleObjects;
+
+    private DoubleVector3[] scalaVectors;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        bares = new DoubleVector3[size];
+        simpleObjects = new DoubleVector3[size];
+        scalaVectors = new DoubleVector3[size];
+        for (int i = 0; i < size; i++) {
+            double x = random.nextDouble();
+            double y = random.nextDouble();
+            double z = random.nextDouble();
+            bares[i] = new BareDoubleVector3(x, y, z);
+            simpleObjects[i] = new DoubleObjectVector3(x, y, z);
+            scalaVectors[i] = new SimpleVector3<Object>(x, y, z, Numeric.DoubleIsFractional$.MODULE$);
+        }
+    }
+
+    @Benchmark
+    public double bare() {
+        return sum(bares);
+    }
+
+    @Benchmark
+    public double simpleObject() {
+        return sum(simpleObjects);
+    }
+
+    @Benchmark
+    public double scala() {
+        return sum(scalaVectors);
+    }
+
+    private static double sum(DoubleVector3[] vectors) {
+        double sum = 0;
+        for (DoubleVector3 vector : vectors) {
+            sum += vector.getXAsDouble() + vector.getYAsDouble() + vector.getZAsDouble();
+        }
+        return sum;
+    }
+
+    /**
+     * ボクシングされた値を保持するJavaの実装。
+     */
+    private static class DoubleObjectVector3 extends SimpleObjectVector3<Double> implements DoubleVector3 {
+
+        DoubleObjectVector3(double x, double y, double z) {
+            super(x, y, z);
+        }
+
+        @Override
+        public double getXAsDouble() {
+            return getX();
+        }
+
+        @Override
+        public double getYAsDouble() {
+            return getY();
+        }
+
+        @Override
+        public double getZAsDouble() {
+            return getZ();
+        }
+    }
+}
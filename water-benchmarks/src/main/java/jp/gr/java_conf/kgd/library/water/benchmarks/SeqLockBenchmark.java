@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.concurrent.SeqLockDoubleVector4;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 1つのスレッドが書き込み、3つのスレッドが読み込む値の共有を計測するベンチマーク。
+ *
+ * {@code synchronized}で保護した{@link BareDoubleVector4}と、{@link SeqLockDoubleVector4}を比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class SeqLockBenchmark {
+
+    private final BareDoubleVector4 locked = new BareDoubleVector4();
+
+    private final SeqLockDoubleVector4 seqLock = new SeqLockDoubleVector4();
+
+    private double value;
+
+    @State(Scope.Thread)
+    public static class Reader {
+
+        final BareDoubleVector4 destination = new BareDoubleVector4();
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(1)
+    public void synchronizedWrite() {
+        double v = value += 1;
+        synchronized (locked) {
+            locked.set(v, v, v, v);
+        }
+    }
+
+    @Benchmark
+    @Group("synchronized")
+    @GroupThreads(3)
+    public double synchronizedRead(Reader reader) {
+        synchronized (locked) {
+            reader.destination.set(locked);
+        }
+        return reader.destination.x;
+    }
+
+    @Benchmark
+    @Group("seqLock")
+    @GroupThreads(1)
+    public void seqLockWrite() {
+        double v = value += 1;
+        seqLock.set(v, v, v, v);
+    }
+
+    @Benchmark
+    @Group("seqLock")
+    @GroupThreads(3)
+    public double seqLockRead(Reader reader) {
+        seqLock.readInto(reader.destination);
+        return reader.destination.x;
+    }
+}
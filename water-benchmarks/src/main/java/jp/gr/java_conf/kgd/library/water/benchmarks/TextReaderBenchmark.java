@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoublePoint3Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.io.DoublePoint3TextReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * XYZ形式の点群のテキストの読み込みを計測するベンチマーク。
+ *
+ * 行を{@link String}にして{@link String#split(String)}と{@link Double#parseDouble(String)}で読む場合と、
+ * {@link DoublePoint3TextReader}でバイト列から直接読む場合を比較します。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TextReaderBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    private byte[] text;
+
+    private DoublePoint3Array points;
+
+    private final DoublePoint3TextReader reader = new DoublePoint3TextReader();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            builder.append(String.format("%.4f %.4f %.4f %d %d %d%n",
+                    random.nextDouble() * 1000, random.nextDouble() * 1000, random.nextDouble() * 100,
+                    random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+        }
+        text = builder.toString().getBytes(StandardCharsets.US_ASCII);
+        points = new DoublePoint3Array(size);
+    }
+
+    @Benchmark
+    public void splitParseDouble(Blackhole blackhole) {
+        points.clear();
+        for (String line : new String(text, StandardCharsets.US_ASCII).split("\n")) {
+            String[] fields = line.trim().split("\\s+");
+            points.add(Double.parseDouble(fields[0]), Double.parseDouble(fields[1]), Double.parseDouble(fields[2]));
+        }
+        blackhole.consume(points);
+    }
+
+    @Benchmark
+    public void textReader(Blackhole blackhole) {
+        points.clear();
+        reader.read(ByteBuffer.wrap(text), points);
+        blackhole.consume(points);
+    }
+}
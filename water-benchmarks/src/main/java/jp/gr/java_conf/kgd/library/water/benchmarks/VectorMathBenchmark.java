@@ -0,0 +1,112 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.math.DoubleVector3Math;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DoubleVector3Math}の演算を計測するベンチマーク。
+ *
+ * 格納先を受け取る演算と、結果ごとに不変オブジェクトを生成する演算を比較します。
+ * 割り当て量は{@code -prof gc}を指定して確認してください。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class VectorMathBenchmark {
+
+    @Param({"1024"})
+    public int size;
+
+    private BareDoubleVector3[] vectors;
+
+    private final BareDoubleVector3 temporary = new BareDoubleVector3();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        vectors = new BareDoubleVector3[size];
+        for (int i = 0; i < size; i++) {
+            vectors[i] = new BareDoubleVector3(random.nextDouble(), random.nextDouble(), random.nextDouble());
+        }
+    }
+
+    @Benchmark
+    public double destination() {
+        double sum = 0;
+        for (int i = 1; i < vectors.length; i++) {
+            DoubleVector3Math.cross(vectors[i - 1], vectors[i], temporary);
+            DoubleVector3Math.normalize(temporary);
+            sum += DoubleVector3Math.dot(temporary, vectors[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double allocating() {
+        double sum = 0;
+        for (int i = 1; i < vectors.length; i++) {
+            DoubleVector3 normal = normalize(cross(vectors[i - 1], vectors[i]));
+            sum += DoubleVector3Math.dot(normal, vectors[i]);
+        }
+        return sum;
+    }
+
+    private static ImmutableDoubleVector3 cross(DoubleVector3 left, DoubleVector3 right) {
+        return new ImmutableDoubleVector3(
+                left.getYAsDouble() * right.getZAsDouble() - left.getZAsDouble() * right.getYAsDouble(),
+                left.getZAsDouble() * right.getXAsDouble() - left.getXAsDouble() * right.getZAsDouble(),
+                left.getXAsDouble() * right.getYAsDouble() - left.getYAsDouble() * right.getXAsDouble());
+    }
+
+    private static ImmutableDoubleVector3 normalize(DoubleVector3 vector) {
+        double length = DoubleVector3Math.length(vector);
+        return new ImmutableDoubleVector3(
+                vector.getXAsDouble() / length,
+                vector.getYAsDouble() / length,
+                vector.getZAsDouble() / length);
+    }
+}
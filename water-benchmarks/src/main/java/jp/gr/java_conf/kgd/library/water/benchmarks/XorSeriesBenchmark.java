@@ -0,0 +1,118 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.collection.DoubleVector3XorSeries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link DoubleVector3XorSeries}の追加と復元を計測するベンチマーク。
+ *
+ * 1kHzで取得した加速度を模して、16ビットで量子化した緩やかな変化に雑音を加えた値を用います。
+ *
+ * @author misakura
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XorSeriesBenchmark {
+
+    @Param({"1048576"})
+    public int size;
+
+    private double[] x;
+
+    private double[] y;
+
+    private double[] z;
+
+    private double[] decodedX;
+
+    private double[] decodedY;
+
+    private double[] decodedZ;
+
+    private DoubleVector3XorSeries series;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        x = new double[size];
+        y = new double[size];
+        z = new double[size];
+        decodedX = new double[size];
+        decodedY = new double[size];
+        decodedZ = new double[size];
+        for (int i = 0; i < size; i++) {
+            double time = i / 1000.0;
+            x[i] = quantize(Math.sin(time) * 2 + random.nextGaussian() * 0.01);
+            y[i] = quantize(Math.cos(time * 0.3) + random.nextGaussian() * 0.01);
+            z[i] = quantize(1 + random.nextGaussian() * 0.002);
+        }
+        series = new DoubleVector3XorSeries();
+        series.appendAll(x, y, z, 0, size);
+    }
+
+    @Benchmark
+    public void append(Blackhole blackhole) {
+        DoubleVector3XorSeries appended = new DoubleVector3XorSeries();
+        appended.appendAll(x, y, z, 0, size);
+        blackhole.consume(appended);
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        series.decode(0, size, decodedX, decodedY, decodedZ, 0);
+        blackhole.consume(decodedX);
+    }
+
+    @Benchmark
+    public void copy(Blackhole blackhole) {
+        System.arraycopy(x, 0, decodedX, 0, size);
+        System.arraycopy(y, 0, decodedY, 0, size);
+        System.arraycopy(z, 0, decodedZ, 0, size);
+        blackhole.consume(decodedX);
+    }
+
+    private static double quantize(double value) {
+        return Math.round(value * 2048) / 2048.0;
+    }
+}
@@ -39,5 +39,7 @@ class DimensionDefine {
     def fields
     def dimensionMin
     def dimensionMax
+    def geometric
+    def spatial
 }
 
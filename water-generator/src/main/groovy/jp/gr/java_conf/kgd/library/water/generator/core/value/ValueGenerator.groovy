@@ -35,6 +35,12 @@ class ValueGenerator {
     def generate() {
         def config = new ConfigSlurper().parse(getText("value/config.groovy"))
         def javaOutputPath = config.outputPath.java
+        def javaArrayOutputPath = config.outputPath.javaArray
+        def javaIoOutputPath = config.outputPath.javaIo
+        def javaMathOutputPath = config.outputPath.javaMath
+        def javaCollectionOutputPath = config.outputPath.javaCollection
+        def javaSpatialOutputPath = config.outputPath.javaSpatial
+        def javaConcurrentOutputPath = config.outputPath.javaConcurrent
         def scalaOutputPath = config.outputPath.scala
 
         def primitives = new PrimitiveTuple().getAll()
@@ -64,6 +70,44 @@ class ValueGenerator {
                     process("MutablePrimitiveDimensionTrait.ftl", root, javaOutputPath, {"Mutable${p.name}${it}Trait.java"})
                     process("BarePrimitiveDimension.ftl", root, javaOutputPath, {"Bare${p.name}${it}.java"})
                     process("ImmutablePrimitiveDimension.ftl", root, javaOutputPath, {"Immutable${p.name}${it}.java"})
+                    process("PrimitiveDimensionArray.ftl", root, javaArrayOutputPath, {"${p.name}${it}Array.java"})
+                    process("DirectPrimitiveDimensionBuffer.ftl", root, javaArrayOutputPath, {"Direct${p.name}${it}Buffer.java"})
+                    process("MappedPrimitiveDimensionFile.ftl", root, javaIoOutputPath, {"Mapped${p.name}${it}File.java"})
+                    process("PrimitiveDimensionCodec.ftl", root, javaIoOutputPath, {"${p.name}${it}Codec.java"})
+                    process("SeqLockPrimitiveDimension.ftl", root, javaConcurrentOutputPath, {"SeqLock${p.name}${it}.java"})
+                    process("PrimitiveDimensionPool.ftl", root, javaConcurrentOutputPath, {"${p.name}${it}Pool.java"})
+                    if (p.primitive == "double") {
+                        process("DoubleDimensionTextReader.ftl", root, javaIoOutputPath, {"${p.name}${it}TextReader.java"})
+                    }
+                    if (root.dd.geometric) {
+                        process("PrimitiveDimensionMath.ftl", root, javaMathOutputPath, {"${p.name}${it}Math.java"})
+                        process("PrimitiveDimensionCollectors.ftl", root, javaMathOutputPath, {"${p.name}${it}Collectors.java"})
+                        process("AtomicPrimitiveDimension.ftl", root, javaConcurrentOutputPath, {"Atomic${p.name}${it}.java"})
+                        if (!root.dd.spatial && p.primitive != "int") {
+                            process("PrimitiveDimensionAdder.ftl", root, javaConcurrentOutputPath, {"${p.name}${it}Adder.java"})
+                        }
+                        if (p.primitive == "int") {
+                            process("IntDimensionToIntMap.ftl", root, javaCollectionOutputPath, {"${p.name}${it}ToIntMap.java"})
+                            process("IntDimensionToObjectMap.ftl", root, javaCollectionOutputPath, {"${p.name}${it}ToObjectMap.java"})
+                            process("IntDimensionSet.ftl", root, javaCollectionOutputPath, {"${p.name}${it}Set.java"})
+                        }
+                        if (p.primitive == "double") {
+                            process("DoubleDimensionXorSeries.ftl", root, javaCollectionOutputPath, {"${p.name}${it}XorSeries.java"})
+                        }
+                        if (root.dd.spatial && p.primitive != "double") {
+                            process("IntegralDimensionDeltaCodec.ftl", root, javaIoOutputPath, {"${p.name}${it}DeltaCodec.java"})
+                        }
+                        if (root.dd.spatial && p.primitive == "double" && root.dimension <= 3) {
+                            process("DoubleDimensionSpatialHash.ftl", root, javaSpatialOutputPath, {"${p.name}${it}SpatialHash.java"})
+                            process("DoubleDimensionKdTree.ftl", root, javaSpatialOutputPath, {"${p.name}${it}KdTree.java"})
+                        }
+                        if (root.dd.spatial && root.dimension <= 3) {
+                            process("PrimitiveBoxRTree.ftl", root, javaSpatialOutputPath, {"${p.name}Box${root.dimension}RTree.java"})
+                            if (p.primitive != "double") {
+                                process("IntegralDimensionMorton.ftl", root, javaSpatialOutputPath, {"${p.name}${it}Morton.java"})
+                            }
+                        }
+                    }
                 }
 
                 process("ScalaDimension.ftl", root, scalaOutputPath, {"${it}.scala"})
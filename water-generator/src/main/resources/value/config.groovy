@@ -1,9 +1,21 @@
 outputPath {
     java = '../water-java-core/src/main/java/jp/gr/java_conf/kgd/library/water/java/core/value/'
+    javaArray = '../water-java-core/src/main/java/jp/gr/java_conf/kgd/library/water/java/core/value/array/'
+    javaIo = '../water-java-core/src/main/java/jp/gr/java_conf/kgd/library/water/java/core/value/io/'
+    javaMath = '../water-java-core/src/main/java/jp/gr/java_conf/kgd/library/water/java/core/value/math/'
+    javaCollection = '../water-java-core/src/main/java/jp/gr/java_conf/kgd/library/water/java/core/value/collection/'
+    javaSpatial = '../water-java-core/src/main/java/jp/gr/java_conf/kgd/library/water/java/core/value/spatial/'
+    javaConcurrent = '../water-java-core/src/main/java/jp/gr/java_conf/kgd/library/water/java/core/value/concurrent/'
     scala = '../water-scala-core/src/main/scala/jp/gr/java_conf/kgd/library/water/scala/core/value/'
 }
 
 packageLevel {
     java = 'jp.gr.java_conf.kgd.library.water.java.core.value'
+    javaArray = 'jp.gr.java_conf.kgd.library.water.java.core.value.array'
+    javaIo = 'jp.gr.java_conf.kgd.library.water.java.core.value.io'
+    javaMath = 'jp.gr.java_conf.kgd.library.water.java.core.value.math'
+    javaCollection = 'jp.gr.java_conf.kgd.library.water.java.core.value.collection'
+    javaSpatial = 'jp.gr.java_conf.kgd.library.water.java.core.value.spatial'
+    javaConcurrent = 'jp.gr.java_conf.kgd.library.water.java.core.value.concurrent'
     scala = 'jp.gr.java_conf.kgd.library.water.scala.core.value'
 }
\ No newline at end of file
@@ -17,7 +17,9 @@ point = dd(
     className: nt('Point', 'point'),
     fields: [ft('X', 'x', 'x座標'), ft('Y','y', 'y座標'), ft('Z','z', 'z座標'), ft('W','w', 'w座標')],
     dimensionMin: 2,
-    dimensionMax: 4
+    dimensionMax: 4,
+    geometric: true,
+    spatial: true
 )
 
 color = dd(
@@ -33,5 +35,6 @@ vector = dd(
     className: nt('Vector', 'vector'),
     fields: [ft('X', 'x', 'x成分'), ft('Y','y', 'y成分'), ft('Z','z', 'z成分'), ft('W','w', 'w成分')],
     dimensionMin: 2,
-    dimensionMax: 4
+    dimensionMax: 4,
+    geometric: true
 )
\ No newline at end of file
@@ -0,0 +1,445 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaConcurrent};
+<#assign type = "${p.name}${dd.className.upper}${dimension}">
+<#assign P = p.primitive>
+<#assign packed = P == "int" && dimension == 2>
+<#if P == "int">
+<#assign raw = "int">
+<#assign Raw = "Integer">
+<#else>
+<#assign raw = "long">
+<#assign Raw = "Long">
+</#if>
+
+<#if !packed && P == "int">
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+</#if>
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.${p.name}BinaryOperator;
+import java.util.function.${p.name}UnaryOperator;
+import ${packageLevel.java}.Bare${type};
+import ${packageLevel.java}.${type};
+import ${packageLevel.java}.Mutable${type};
+import ${packageLevel.java}.Mutable${type}Trait;
+
+/**
+ * 成分の更新を不可分に行える{@link Mutable${type}}の実装。
+ *
+<#if packed>
+ * 2つの成分を1つの{@code long}に詰めて保持し、成分ごとの更新も全体の更新も、その{@code long}の比較交換（CAS）で不可分に行います。
+ * {@link #compareAndSet(int, int, int, int)}で全体を比較交換でき、{@link #snapshot(Mutable${type})}は常に一貫した値を返します。
+<#else>
+ * 成分ごとに独立した{@code volatile}なフィールドを持ち、{@link #update${dd.fields[0].upper}(${p.name}UnaryOperator)}などの成分ごとの更新を比較交換（CAS）で不可分に行います。
+ * 全体を一度に比較交換することはできませんが、書き込み中の操作の数と完了した操作の数を持つ状態により、
+ * {@link #snapshot(Mutable${type})}は全ての成分が同時に持っていた値を返し、{@link #set(<#list 0..(dimension - 1) as i>${P}<#if i_has_next>, </#if></#list>)}の途中の値を返すことはありません。
+ * その代わり、全ての書き込みで状態を2回更新します。書き込みの多い間は{@link #snapshot(Mutable${type})}が再試行を繰り返すことがあります。
+</#if>
+<#if P == "double">
+ * 成分は{@link Double#doubleToRawLongBits(double)}によるビット列で保持し、比較交換もビット列で比較します。
+ * そのため{@code NaN}同士は等しく、{@code 0.0}と{@code -0.0}は等しくありません。
+</#if>
+ *
+ * 不可分なのはこのクラスで定義する操作と{@link #update${dd.fields[0].upper}(${p.name}UnaryOperator)}などの成分ごとの更新、
+ * {@link #set(<#list 0..(dimension - 1) as i>${P}<#if i_has_next>, </#if></#list>)}だけで、
+ * {@link #calculate(${p.name}UnaryOperator)}などインターフェースのデフォルトの実装による操作は不可分ではありません。
+ * {@link Object#equals(Object)}と{@link Object#hashCode()}は、{@link java.util.concurrent.atomic.AtomicLong}と同様に同一性に基づきます。
+ *
+ * @author misakura
+ */
+public class Atomic${type} implements Mutable${type}Trait {
+<#if packed>
+
+    private static final AtomicLongFieldUpdater<Atomic${type}> VALUE = AtomicLongFieldUpdater.newUpdater(Atomic${type}.class, "value");
+
+    /**
+     * 上位32ビットに${dd.fields[0].display}、下位32ビットに${dd.fields[1].display}を詰めた値。
+     */
+    private volatile long value;
+
+    /**
+     * コンストラクタ。
+     */
+    public Atomic${type}() {
+    }
+
+    /**
+     * コンストラクタ。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     */
+    public Atomic${type}(<#list 0..(dimension - 1) as i>${P} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        this.value = pack(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+    }
+<#else>
+
+    private static final AtomicLongFieldUpdater<Atomic${type}> STATE = AtomicLongFieldUpdater.newUpdater(Atomic${type}.class, "state");
+    <#list 0..(dimension - 1) as i>
+
+    private static final Atomic${Raw}FieldUpdater<Atomic${type}> ${dd.fields[i].upper?upper_case} = Atomic${Raw}FieldUpdater.newUpdater(Atomic${type}.class, "${dd.fields[i].lower}");
+    </#list>
+
+    /**
+     * 状態に書き込み中の操作を1つ加える時の増分。状態の下位32ビットが書き込み中の操作の数です。
+     */
+    private static final long BEGIN = 1;
+
+    /**
+     * 状態の書き込み中の操作を1つ完了にする時の増分。状態の上位32ビットが完了した操作の数です。
+     */
+    private static final long END = (1L << 32) - 1;
+    <#list 0..(dimension - 1) as i>
+
+    /**
+     * ${dd.fields[i].display}<#if P == "double">のビット列</#if>。
+     */
+    private volatile ${raw} ${dd.fields[i].lower};
+    </#list>
+
+    /**
+     * 下位32ビットに書き込み中の操作の数、上位32ビットに完了した操作の数を持つ状態。
+     */
+    private volatile long state;
+
+    /**
+     * コンストラクタ。
+     */
+    public Atomic${type}() {
+    }
+
+    /**
+     * コンストラクタ。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     */
+    public Atomic${type}(<#list 0..(dimension - 1) as i>${P} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        <#list 0..(dimension - 1) as i>
+        this.${dd.fields[i].lower} = <#if P == "double">Double.doubleToRawLongBits(${dd.fields[i].lower})<#else>${dd.fields[i].lower}</#if>;
+        </#list>
+    }
+</#if>
+
+    /**
+     * コンストラクタ。
+     *
+     * @param ${dd.className.lower} 設定値を取得する${dd.concept}。
+     */
+    public Atomic${type}(${type} ${dd.className.lower}) {
+        this(<#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
+    }
+<#list 0..(dimension - 1) as i>
+<#assign f = dd.fields[i].lower>
+<#assign F = dd.fields[i].upper>
+<#assign U = dd.fields[i].upper?upper_case>
+<#if packed>
+<#if i == 0>
+<#assign current = "(int) (current >>> 32)">
+<#assign replaced = "pack(next, (int) current)">
+<#else>
+<#assign current = "(int) current">
+<#assign replaced = "pack((int) (current >>> 32), next)">
+</#if>
+</#if>
+
+    @Override
+    public ${P} get${F}As${p.name}() {
+        <#if packed>
+        return <#if i == 0>(int) (value >>> 32)<#else>(int) value</#if>;
+        <#elseif P == "double">
+        return Double.longBitsToDouble(${f});
+        <#else>
+        return ${f};
+        </#if>
+    }
+
+    @Override
+    public void set${F}(${P} ${f}) {
+        <#if packed>
+        for (;;) {
+            long current = value;
+            int next = ${f};
+            if (VALUE.compareAndSet(this, current, ${replaced})) {
+                return;
+            }
+        }
+        <#else>
+        begin();
+        ${U}.set(this, <#if P == "double">Double.doubleToRawLongBits(${f})<#else>${f}</#if>);
+        end();
+        </#if>
+    }
+
+    /**
+     * このインスタンスの現在の${dd.fields[i].display}を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void update${F}(${p.name}UnaryOperator newValueOperator) {
+        updateAndGet${F}(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在の${dd.fields[i].display}を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public ${P} updateAndGet${F}(${p.name}UnaryOperator newValueOperator) {
+        <#if packed>
+        for (;;) {
+            long current = value;
+            int next = newValueOperator.applyAsInt(${current});
+            if (VALUE.compareAndSet(this, current, ${replaced})) {
+                return next;
+            }
+        }
+        <#else>
+        begin();
+        try {
+            for (;;) {
+                ${raw} current = ${f};
+                ${P} next = newValueOperator.applyAs${p.name}(<#if P == "double">Double.longBitsToDouble(current)<#else>current</#if>);
+                if (${U}.compareAndSet(this, current, <#if P == "double">Double.doubleToRawLongBits(next)<#else>next</#if>)) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+        </#if>
+    }
+
+    /**
+     * このインスタンスの現在の${dd.fields[i].display}と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param ${f} 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public ${P} accumulateAndGet${F}(${P} ${f}, ${p.name}BinaryOperator accumulatorFunction) {
+        <#if packed>
+        for (;;) {
+            long current = value;
+            int next = accumulatorFunction.applyAsInt(${current}, ${f});
+            if (VALUE.compareAndSet(this, current, ${replaced})) {
+                return next;
+            }
+        }
+        <#else>
+        begin();
+        try {
+            for (;;) {
+                ${raw} current = this.${f};
+                ${P} next = accumulatorFunction.applyAs${p.name}(<#if P == "double">Double.longBitsToDouble(current)<#else>current</#if>, ${f});
+                if (${U}.compareAndSet(this, current, <#if P == "double">Double.doubleToRawLongBits(next)<#else>next</#if>)) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+        </#if>
+    }
+
+    /**
+     * このインスタンスの${dd.fields[i].display}に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public ${P} addAndGet${F}(${P} delta) {
+        <#if packed>
+        for (;;) {
+            long current = value;
+            int next = ${current} + delta;
+            if (VALUE.compareAndSet(this, current, ${replaced})) {
+                return next;
+            }
+        }
+        <#elseif P == "double">
+        begin();
+        try {
+            for (;;) {
+                long current = ${f};
+                double next = Double.longBitsToDouble(current) + delta;
+                if (${U}.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+        <#else>
+        begin();
+        try {
+            return ${U}.addAndGet(this, delta);
+        } finally {
+            end();
+        }
+        </#if>
+    }
+
+    /**
+     * このインスタンスの${dd.fields[i].display}が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expected${F} 期待する値。
+     * @param new${F} 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSet${F}(${P} expected${F}, ${P} new${F}) {
+        <#if packed>
+        for (;;) {
+            long current = value;
+            if (${current} != expected${F}) {
+                return false;
+            }
+            int next = new${F};
+            if (VALUE.compareAndSet(this, current, ${replaced})) {
+                return true;
+            }
+        }
+        <#else>
+        begin();
+        try {
+            return ${U}.compareAndSet(this, <#if P == "double">Double.doubleToRawLongBits(expected${F}), Double.doubleToRawLongBits(new${F})<#else>expected${F}, new${F}</#if>);
+        } finally {
+            end();
+        }
+        </#if>
+    }
+</#list>
+
+    /**
+     * 全ての成分に値を不可分に設定する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}の値。
+    </#list>
+     */
+    @Override
+    public void set(<#list 0..(dimension - 1) as i>${P} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        <#if packed>
+        VALUE.set(this, pack(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>));
+        <#else>
+        begin();
+        <#list 0..(dimension - 1) as i>
+        ${dd.fields[i].upper?upper_case}.set(this, <#if P == "double">Double.doubleToRawLongBits(${dd.fields[i].lower})<#else>${dd.fields[i].lower}</#if>);
+        </#list>
+        end();
+        </#if>
+    }
+<#if packed>
+
+    /**
+     * 全ての成分が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param expected${dd.fields[i].upper} 期待する${dd.fields[i].display}。
+    </#list>
+    <#list 0..(dimension - 1) as i>
+     * @param new${dd.fields[i].upper} 新しい${dd.fields[i].display}。
+    </#list>
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSet(<#list 0..(dimension - 1) as i>int expected${dd.fields[i].upper}, </#list><#list 0..(dimension - 1) as i>int new${dd.fields[i].upper}<#if i_has_next>, </#if></#list>) {
+        return VALUE.compareAndSet(this, pack(<#list 0..(dimension - 1) as i>expected${dd.fields[i].upper}<#if i_has_next>, </#if></#list>), pack(<#list 0..(dimension - 1) as i>new${dd.fields[i].upper}<#if i_has_next>, </#if></#list>));
+    }
+</#if>
+
+    /**
+     * 全ての成分が同時に持っていた値を取得する。
+     *
+    <#if !packed>
+     * 書き込み中の操作がない間に全ての成分を読み、その間に書き込みがなかった場合の値を返します。書き込みがあった場合は読み直します。
+     *
+    </#if>
+     * @param destination 値の格納先。
+     */
+    public void snapshot(Mutable${type} destination) {
+        <#if packed>
+        long current = value;
+        destination.set((int) (current >>> 32), (int) current);
+        <#else>
+        for (;;) {
+            long before = state;
+            if ((int) before == 0) {
+                <#list 0..(dimension - 1) as i>
+                ${raw} ${dd.fields[i].lower} = this.${dd.fields[i].lower};
+                </#list>
+                if (state == before) {
+                    destination.set(<#list 0..(dimension - 1) as i><#if P == "double">Double.longBitsToDouble(${dd.fields[i].lower})<#else>${dd.fields[i].lower}</#if><#if i_has_next>, </#if></#list>);
+                    return;
+                }
+            }
+            Thread.yield();
+        }
+        </#if>
+    }
+
+    /**
+     * このインスタンスの文字列表現を返す。
+     *
+     * {@link #snapshot(Mutable${type})}で得た値を、{@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        Bare${type} current = new Bare${type}();
+        snapshot(current);
+        return new StringBuilder(${(32 + dimension * 24)?c})
+                .append("Atomic${type}[")
+                <#list 0..(dimension - 1) as i>
+                .append("<#if i != 0>,</#if>${dd.fields[i].lower}=").append(current.${dd.fields[i].lower})
+                </#list>
+                .append(']')
+                .toString();
+    }
+<#if packed>
+
+    private static long pack(int ${dd.fields[0].lower}, int ${dd.fields[1].lower}) {
+        return (long) ${dd.fields[0].lower} << 32 | ${dd.fields[1].lower} & 0xFFFFFFFFL;
+    }
+<#else>
+
+    private void begin() {
+        STATE.getAndAdd(this, BEGIN);
+    }
+
+    private void end() {
+        STATE.getAndAdd(this, END);
+    }
+</#if>
+}
@@ -23,7 +23,7 @@
  */
 package ${packageLevel.java};
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link Mutable${p.name}${dd.className.upper}${dimension}}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class Bare${p.name}${dd.className.upper}${dimension} extends DataObjectBase implements Mutable${p.name}${dd.className.upper}${dimension}Trait {
+public class Bare${p.name}${dd.className.upper}${dimension} implements Mutable${p.name}${dd.className.upper}${dimension}Trait {
     <#list 0..(dimension - 1) as i>
 
     /**
@@ -83,4 +83,59 @@ public class Bare${p.name}${dd.className.upper}${dimension} extends DataObjectBa
         this.${dd.fields[i].lower} = ${dd.fields[i].lower};
     }
     </#list>
+
+    /**
+     * 他のオブジェクトがこの${dd.concept}と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        Bare${p.name}${dd.className.upper}${dimension} other = (Bare${p.name}${dd.className.upper}${dimension}) obj;
+        return <#list 0..(dimension - 1) as i><#if p.primitive == "double">Double.doubleToLongBits(${dd.fields[i].lower}) == Double.doubleToLongBits(other.${dd.fields[i].lower})<#else>${dd.fields[i].lower} == other.${dd.fields[i].lower}</#if><#if i_has_next>
+                && </#if></#list>;
+    }
+
+    /**
+     * この${dd.concept}のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = ${p.type}.hashCode(${dd.fields[0].lower});
+        <#list 1..(dimension - 1) as i>
+        hash = PrimitiveHashCodes.combine(hash, ${p.type}.hashCode(${dd.fields[i].lower}));
+        </#list>
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * この${dd.concept}の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(${(32 + dimension * 24)?c})
+                .append("Bare${p.name}${dd.className.upper}${dimension}[")
+                <#list 0..(dimension - 1) as i>
+                .append("<#if i != 0>,</#if>${dd.fields[i].lower}=").append(${dd.fields[i].lower})
+                </#list>
+                .append(']')
+                .toString();
+    }
 }
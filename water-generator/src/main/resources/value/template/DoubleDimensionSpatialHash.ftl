@@ -0,0 +1,589 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaSpatial};
+<#assign type = "${p.name}${dd.className.upper}${dimension}">
+<#assign params = "">
+<#assign args = "">
+<#assign pointArgs = "">
+<#assign boxParams = "">
+<#assign paramTypes = "">
+<#list 0..(dimension - 1) as i>
+<#assign params = params + "double " + dd.fields[i].lower>
+<#assign args = args + dd.fields[i].lower>
+<#assign pointArgs = pointArgs + dd.className.lower + ".get" + dd.fields[i].upper + "AsDouble()">
+<#assign paramTypes = paramTypes + "double">
+<#if i_has_next>
+<#assign params = params + ", ">
+<#assign args = args + ", ">
+<#assign pointArgs = pointArgs + ", ">
+<#assign paramTypes = paramTypes + ", ">
+</#if>
+</#list>
+<#list 0..(dimension - 1) as i>
+<#assign boxParams = boxParams + "double min" + dd.fields[i].upper + ", ">
+</#list>
+<#list 0..(dimension - 1) as i>
+<#assign boxParams = boxParams + "double max" + dd.fields[i].upper>
+<#if i_has_next><#assign boxParams = boxParams + ", "></#if>
+</#list>
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import ${packageLevel.java}.${type};
+import ${packageLevel.javaArray}.${type}Array;
+import ${packageLevel.java}.helper.PrimitiveHashCodes;
+
+/**
+ * 空間を一様な格子に分割し、{@link ${type}}の位置を持つ要素をハッシュ表で管理する空間索引。
+ *
+ * 要素は呼び出し側が決める非負の整数IDで識別します。（{@link ${type}Array}の添字などを想定しています。）
+ * 格子の各セルはハッシュ表のバケットに対応付けられ、同じバケットの要素は連結リストでつながります。
+ * セルの大きさは、問い合わせる範囲の大きさと同程度にすると効率が良くなります。
+ *
+ * 移動する要素を多数扱う場合は、毎フレーム{@link #build(${type}Array)}で作り直すか、{@link #move(int, ${paramTypes})}で更新します。
+ * 範囲の問い合わせは見つかった要素のIDを{@link IntConsumer}に渡すため、リストを生成しません。
+ * 結果を配列で受け取る場合は、再利用可能な{@link IdBuffer}を渡します。
+ *
+ * 問い合わせは状態を変更しないため、更新と同時でなければ複数のスレッドから行えます。
+ *
+ * @author misakura
+ */
+public class ${type}SpatialHash {
+
+    /**
+     * 要素数を指定しなかった場合に想定する要素数。
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * ハッシュ表の最大の大きさ。
+     */
+    private static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+
+    /**
+     * セルの座標の上限。
+     *
+     * 範囲を走査する際に桁あふれしないよう、セルの座標をこの範囲に丸めます。
+     */
+    private static final int CELL_LIMIT = 1 << 30;
+
+    /**
+     * 要素が存在しないことを表す値。
+     */
+    private static final int NONE = -1;
+
+    /**
+     * セルの大きさ。
+     */
+    private final double cellSize;
+
+    /**
+     * セルの大きさの逆数。
+     */
+    private final double inverseCellSize;
+    <#list 0..(dimension - 1) as i>
+
+    /**
+     * IDごとの${dd.fields[i].display}。
+     */
+    private double[] ${dd.fields[i].lower};
+    </#list>
+
+    /**
+     * IDごとの、同じバケットの次の要素。
+     */
+    private int[] next;
+
+    /**
+     * IDごとの、同じバケットの前の要素。
+     */
+    private int[] previous;
+
+    /**
+     * IDごとの、所属するバケット。存在しない要素は{@link #NONE}。
+     */
+    private int[] bucketOf;
+
+    /**
+     * バケットごとの先頭の要素。
+     */
+    private int[] heads;
+
+    /**
+     * セルのハッシュ値からバケットを求めるためのマスク。
+     */
+    private int mask;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param cellSize セルの大きさ。
+     */
+    public ${type}SpatialHash(double cellSize) {
+        this(cellSize, DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param cellSize セルの大きさ。
+     * @param expectedSize 想定する要素数。
+     */
+    public ${type}SpatialHash(double cellSize, int expectedSize) {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("Illegal cell size: " + cellSize);
+        }
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1 / cellSize;
+        <#list 0..(dimension - 1) as i>
+        this.${dd.fields[i].lower} = new double[expectedSize];
+        </#list>
+        this.next = new int[expectedSize];
+        this.previous = new int[expectedSize];
+        this.bucketOf = new int[expectedSize];
+        Arrays.fill(bucketOf, NONE);
+        allocateTable(tableSize(expectedSize));
+    }
+
+    /**
+     * セルの大きさを返す。
+     *
+     * @return セルの大きさ。
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 要素が存在するかどうかを返す。
+     *
+     * @param id 要素のID。
+     * @return 要素が存在する場合は{@code true}。
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < bucketOf.length && bucketOf[id] != NONE;
+    }
+
+    /**
+     * 少なくとも指定した数のIDを扱えるよう、必要に応じて内部配列を拡張する。
+     *
+     * @param minCapacity 必要な容量。（IDの最大値より{@code 1}大きい値。）
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required capacity overflow");
+        }
+        int oldCapacity = bucketOf.length;
+        if (minCapacity <= oldCapacity) {
+            return;
+        }
+        int newCapacity = Math.max(oldCapacity + (oldCapacity >> 1), DEFAULT_EXPECTED_SIZE);
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = minCapacity;
+        }
+        <#list 0..(dimension - 1) as i>
+        ${dd.fields[i].lower} = Arrays.copyOf(${dd.fields[i].lower}, newCapacity);
+        </#list>
+        next = Arrays.copyOf(next, newCapacity);
+        previous = Arrays.copyOf(previous, newCapacity);
+        bucketOf = Arrays.copyOf(bucketOf, newCapacity);
+        Arrays.fill(bucketOf, oldCapacity, newCapacity, NONE);
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param id 要素のID。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     */
+    public void insert(int id, ${params}) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Illegal id: " + id);
+        }
+        ensureCapacity(id + 1);
+        if (bucketOf[id] != NONE) {
+            throw new IllegalArgumentException("Already exists: " + id);
+        }
+        <#list 0..(dimension - 1) as i>
+        this.${dd.fields[i].lower}[id] = ${dd.fields[i].lower};
+        </#list>
+        link(id, bucket(${args}));
+        if (++size > heads.length && heads.length < MAXIMUM_TABLE_SIZE) {
+            rehash(heads.length << 1);
+        }
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param id 要素のID。
+     * @param ${dd.className.lower} 位置。
+     */
+    public void insert(int id, ${type} ${dd.className.lower}) {
+        insert(id, ${pointArgs});
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * @param id 要素のID。
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        unlink(id);
+        bucketOf[id] = NONE;
+        size--;
+        return true;
+    }
+
+    /**
+     * 要素を移動する。
+     *
+     * 移動先が同じバケットであれば、連結リストは更新しません。
+     *
+     * @param id 要素のID。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 移動先の${dd.fields[i].display}。
+    </#list>
+     */
+    public void move(int id, ${params}) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("Not found: " + id);
+        }
+        <#list 0..(dimension - 1) as i>
+        this.${dd.fields[i].lower}[id] = ${dd.fields[i].lower};
+        </#list>
+        int bucket = bucket(${args});
+        if (bucket != bucketOf[id]) {
+            unlink(id);
+            link(id, bucket);
+        }
+    }
+
+    /**
+     * 要素を移動する。
+     *
+     * @param id 要素のID。
+     * @param ${dd.className.lower} 移動先。
+     */
+    public void move(int id, ${type} ${dd.className.lower}) {
+        move(id, ${pointArgs});
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * 内部配列とハッシュ表の大きさは変わりません。
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(heads, NONE);
+        Arrays.fill(bucketOf, NONE);
+        size = 0;
+    }
+
+    /**
+     * 全ての要素を削除し、配列の先頭から指定した数の要素で索引を作り直す。
+     *
+     * 各要素のIDは配列の添字になります。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}の配列。
+    </#list>
+     * @param length 要素数。
+     */
+    public void build(<#list 0..(dimension - 1) as i>double[] ${dd.fields[i].lower}, </#list>int length) {
+        if (length < 0<#list 0..(dimension - 1) as i> || ${dd.fields[i].lower}.length < length</#list>) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+        clear();
+        ensureCapacity(length);
+        int tableSize = tableSize(length);
+        if (tableSize > heads.length) {
+            allocateTable(tableSize);
+        }
+        <#list 0..(dimension - 1) as i>
+        System.arraycopy(${dd.fields[i].lower}, 0, this.${dd.fields[i].lower}, 0, length);
+        </#list>
+        for (int id = 0; id < length; id++) {
+            bucketOf[id] = bucket(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}[id]<#if i_has_next>, </#if></#list>);
+        }
+        linkAll(length);
+    }
+
+    /**
+     * 全ての要素を削除し、コンテナの全ての要素で索引を作り直す。
+     *
+     * 各要素のIDはコンテナの添字になります。
+     *
+     * @param array 要素の位置を格納したコンテナ。
+     */
+    public void build(${type}Array array) {
+        build(<#list 0..(dimension - 1) as i>array.get${dd.fields[i].upper}Array(), </#list>array.size());
+    }
+
+    /**
+     * 全ての要素を削除し、配列の全ての要素で索引を作り直す。
+     *
+     * 各要素のIDは配列の添字になります。
+     *
+     * @param ${dd.className.lower}s 要素の位置の配列。
+     */
+    public void build(${type}[] ${dd.className.lower}s) {
+        clear();
+        ensureCapacity(${dd.className.lower}s.length);
+        int tableSize = tableSize(${dd.className.lower}s.length);
+        if (tableSize > heads.length) {
+            allocateTable(tableSize);
+        }
+        for (int id = 0; id < ${dd.className.lower}s.length; id++) {
+            ${type} ${dd.className.lower} = ${dd.className.lower}s[id];
+            <#list 0..(dimension - 1) as i>
+            ${dd.fields[i].lower}[id] = ${dd.className.lower}.get${dd.fields[i].upper}AsDouble();
+            </#list>
+            bucketOf[id] = bucket(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}[id]<#if i_has_next>, </#if></#list>);
+        }
+        linkAll(${dd.className.lower}s.length);
+    }
+
+    /**
+     * 直方体の範囲（境界を含む）にある要素を探す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param min${dd.fields[i].upper} 範囲の${dd.fields[i].display}の最小値。
+    </#list>
+    <#list 0..(dimension - 1) as i>
+     * @param max${dd.fields[i].upper} 範囲の${dd.fields[i].display}の最大値。
+    </#list>
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int queryBox(${boxParams}, IntConsumer action) {
+        return search(<#list 0..(dimension - 1) as i>min${dd.fields[i].upper}, </#list><#list 0..(dimension - 1) as i>max${dd.fields[i].upper}, </#list><#list 0..(dimension - 1) as i>0, </#list>Double.POSITIVE_INFINITY, action);
+    }
+
+    /**
+     * 中心からの距離が半径以下の要素を探す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 中心の${dd.fields[i].display}。
+    </#list>
+     * @param radius 半径。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int queryRadius(${params}, double radius, IntConsumer action) {
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException("Illegal radius: " + radius);
+        }
+        return search(<#list 0..(dimension - 1) as i>${dd.fields[i].lower} - radius, </#list><#list 0..(dimension - 1) as i>${dd.fields[i].lower} + radius, </#list>${args}, radius * radius, action);
+    }
+
+    /**
+     * 中心からの距離が半径以下の要素を探す。
+     *
+     * @param center 中心。
+     * @param radius 半径。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int queryRadius(${type} center, double radius, IntConsumer action) {
+        return queryRadius(<#list 0..(dimension - 1) as i>center.get${dd.fields[i].upper}AsDouble(), </#list>radius, action);
+    }
+
+    /**
+     * 範囲にあり、中心からの距離の2乗が上限以下の要素を探す。
+     *
+     * 範囲が覆うセルの数がバケット数より多い場合は、セルを辿らずに全てのバケットを走査します。
+     * ハッシュ値が衝突したセルの要素を重複して報告しないよう、要素が現在のセルにあることも確かめます。
+     */
+    private int search(${boxParams}, <#list 0..(dimension - 1) as i>double center${dd.fields[i].upper}, </#list>double radiusSquared, IntConsumer action) {
+        Objects.requireNonNull(action);
+        if (size == 0<#list 0..(dimension - 1) as i> || !(min${dd.fields[i].upper} <= max${dd.fields[i].upper})</#list>) {
+            return 0;
+        }
+        <#list 0..(dimension - 1) as i>
+        int minCell${dd.fields[i].upper} = cell(min${dd.fields[i].upper});
+        int maxCell${dd.fields[i].upper} = cell(max${dd.fields[i].upper});
+        </#list>
+        double cellCount = <#list 0..(dimension - 1) as i>((double) maxCell${dd.fields[i].upper} - minCell${dd.fields[i].upper} + 1)<#if i_has_next> * </#if></#list>;
+        int count = 0;
+        if (cellCount > heads.length) {
+            for (int bucket = 0; bucket < heads.length; bucket++) {
+                for (int id = heads[bucket]; id != NONE; id = next[id]) {
+                    if (<#list 0..(dimension - 1) as i>${dd.fields[i].lower}[id] >= min${dd.fields[i].upper} && ${dd.fields[i].lower}[id] <= max${dd.fields[i].upper}<#if i_has_next>
+                            && </#if></#list>
+                            && distanceSquared(id, <#list 0..(dimension - 1) as i>center${dd.fields[i].upper}<#if i_has_next>, </#if></#list>) <= radiusSquared) {
+                        action.accept(id);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+        <#list 0..(dimension - 1) as i>
+        ${""?left_pad(i * 4)}for (int cell${dd.fields[i].upper} = minCell${dd.fields[i].upper}; cell${dd.fields[i].upper} <= maxCell${dd.fields[i].upper}; cell${dd.fields[i].upper}++) {
+        </#list>
+        <#assign indent = ""?left_pad((dimension - 1) * 4)>
+        ${indent}    for (int id = heads[bucket(<#list 0..(dimension - 1) as i>cell${dd.fields[i].upper}<#if i_has_next>, </#if></#list>)]; id != NONE; id = next[id]) {
+        ${indent}        if (<#list 0..(dimension - 1) as i>${dd.fields[i].lower}[id] >= min${dd.fields[i].upper} && ${dd.fields[i].lower}[id] <= max${dd.fields[i].upper}<#if i_has_next>
+        ${indent}                && </#if></#list>
+        ${indent}                && <#list 0..(dimension - 1) as i>cell(${dd.fields[i].lower}[id]) == cell${dd.fields[i].upper}<#if i_has_next> && </#if></#list>
+        ${indent}                && distanceSquared(id, <#list 0..(dimension - 1) as i>center${dd.fields[i].upper}<#if i_has_next>, </#if></#list>) <= radiusSquared) {
+        ${indent}            action.accept(id);
+        ${indent}            count++;
+        ${indent}        }
+        ${indent}    }
+        <#list (dimension - 1)..0 as i>
+        ${""?left_pad(i * 4)}}
+        </#list>
+        return count;
+    }
+
+    private double distanceSquared(int id, ${params}) {
+        <#list 0..(dimension - 1) as i>
+        double d${dd.fields[i].lower} = this.${dd.fields[i].lower}[id] - ${dd.fields[i].lower};
+        </#list>
+        return <#list 0..(dimension - 1) as i>d${dd.fields[i].lower} * d${dd.fields[i].lower}<#if i_has_next> + </#if></#list>;
+    }
+
+    private void link(int id, int bucket) {
+        int head = heads[bucket];
+        next[id] = head;
+        previous[id] = NONE;
+        if (head != NONE) {
+            previous[head] = id;
+        }
+        heads[bucket] = id;
+        bucketOf[id] = bucket;
+    }
+
+    /**
+     * 先頭から指定した数の要素を、{@link #bucketOf}に設定済みのバケットにつなげる。
+     *
+     * バケットの計算と連結を分けることで、連結の際のランダムアクセスを減らしています。
+     * 後ろから連結するため、各バケットの要素はIDの昇順に並びます。
+     *
+     * @param length 要素数。
+     */
+    private void linkAll(int length) {
+        for (int id = length; id-- != 0;) {
+            int bucket = bucketOf[id];
+            int head = heads[bucket];
+            next[id] = head;
+            previous[id] = NONE;
+            if (head != NONE) {
+                previous[head] = id;
+            }
+            heads[bucket] = id;
+        }
+        size = length;
+    }
+
+    private void unlink(int id) {
+        int before = previous[id];
+        int after = next[id];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            heads[bucketOf[id]] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+    }
+
+    private void rehash(int newTableSize) {
+        allocateTable(newTableSize);
+        for (int id = 0; id < bucketOf.length; id++) {
+            if (bucketOf[id] != NONE) {
+                link(id, bucket(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}[id]<#if i_has_next>, </#if></#list>));
+            }
+        }
+    }
+
+    private void allocateTable(int tableSize) {
+        heads = new int[tableSize];
+        Arrays.fill(heads, NONE);
+        mask = tableSize - 1;
+    }
+
+    private int cell(double value) {
+        double cell = Math.floor(value * inverseCellSize);
+        return (int) Math.max(-CELL_LIMIT, Math.min(CELL_LIMIT, cell));
+    }
+
+    private int bucket(${params}) {
+        return bucket(<#list 0..(dimension - 1) as i>cell(${dd.fields[i].lower})<#if i_has_next>, </#if></#list>);
+    }
+
+    private int bucket(<#list 0..(dimension - 1) as i>int cell${dd.fields[i].upper}<#if i_has_next>, </#if></#list>) {
+        int hash = cell${dd.fields[0].upper};
+        <#list 1..(dimension - 1) as i>
+        hash = PrimitiveHashCodes.combine(hash, cell${dd.fields[i].upper});
+        </#list>
+        return PrimitiveHashCodes.finish(hash) & mask;
+    }
+
+    private static int tableSize(int expectedSize) {
+        if (expectedSize >= MAXIMUM_TABLE_SIZE) {
+            return MAXIMUM_TABLE_SIZE;
+        }
+        return Math.max(Integer.highestOneBit(Math.max(expectedSize, 1) - 1) << 1, DEFAULT_EXPECTED_SIZE);
+    }
+}
@@ -22,8 +22,19 @@
  * THE SOFTWARE.
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
+<#if dimension == 2>
+<#assign defaultLow = -16>
+<#assign defaultHigh = 47>
+<#elseif dimension == 3>
+<#assign defaultLow = -4>
+<#assign defaultHigh = 11>
+<#else>
+<#assign defaultLow = -2>
+<#assign defaultHigh = 5>
+</#if>
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.WeakInterner;
 
 /**
  * 不変であり、かつ、フィールドに直接アクセス可能な{@link ${p.name}${dd.className.upper}${dimension}}の実装。
@@ -33,7 +44,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class Immutable${p.name}${dd.className.upper}${dimension} extends DataObjectBase implements ${p.name}${dd.className.upper}${dimension}Trait {
+public class Immutable${p.name}${dd.className.upper}${dimension} implements ${p.name}${dd.className.upper}${dimension}Trait {
 
     /**
      * 全ての値が{@code 0}である${dd.concept}。
@@ -57,6 +68,11 @@ public class Immutable${p.name}${dd.className.upper}${dimension} extends DataObj
     public final ${p.primitive} ${dd.fields[i].lower};
     </#list>
 
+    /**
+     * ハッシュ値のキャッシュ。未計算の場合は{@code 0}。
+     */
+    private int hash;
+
     /**
      * コンストラクタ。
      *
@@ -79,6 +95,38 @@ public class Immutable${p.name}${dd.className.upper}${dimension} extends DataObj
         this(<#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
     }
 
+    /**
+     * 指定した値を持つ${dd.concept}を返す。
+     *
+     * 全ての値がキャッシュ範囲内の整数である場合は、キャッシュされたインスタンスを返します。（{@link #ZERO}などの定数も含みます。）
+     * それ以外の場合は新しいインスタンスを生成します。
+     * キャッシュ範囲は既定で{@code ${defaultLow?c}}から{@code ${defaultHigh?c}}までで、
+     * システムプロパティ{@code ${packageLevel.java}.Immutable${p.name}${dd.className.upper}${dimension}.cache.low}及び{@code ～.cache.high}で変更できます。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     * @return 指定した値を持つ${dd.concept}。
+     */
+    public static Immutable${p.name}${dd.className.upper}${dimension} of(<#list 0..(dimension - 1) as i>${p.primitive} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        int index = Cache.indexOf(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+        return index < 0 ? new Immutable${p.name}${dd.className.upper}${dimension}(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) : Cache.VALUES[index];
+    }
+
+    /**
+     * この${dd.concept}と等価な正準インスタンスを返す。
+     *
+     * キャッシュ範囲内であれば{@link #of(<#list 0..(dimension - 1) as i>${p.primitive}<#if i_has_next>, </#if></#list>)}と同じインスタンスを返します。
+     * 範囲外の場合は弱参照のインターナに登録し、等価なインスタンスが既にあればそれを返します。
+     * 正準インスタンス同士は{@code ==}で比較できます。
+     *
+     * @return 等価な正準インスタンス。
+     */
+    public Immutable${p.name}${dd.className.upper}${dimension} intern() {
+        int index = Cache.indexOf(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+        return index < 0 ? Interner.INSTANCE.intern(this) : Cache.VALUES[index];
+    }
+
     <#list 0..(dimension - 1) as i>
 
     @Override
@@ -86,4 +134,168 @@ public class Immutable${p.name}${dd.className.upper}${dimension} extends DataObj
         return ${dd.fields[i].lower};
     }
     </#list>
+
+    /**
+     * 他のオブジェクトがこの${dd.concept}と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        Immutable${p.name}${dd.className.upper}${dimension} other = (Immutable${p.name}${dd.className.upper}${dimension}) obj;
+        return <#list 0..(dimension - 1) as i><#if p.primitive == "double">Double.doubleToLongBits(${dd.fields[i].lower}) == Double.doubleToLongBits(other.${dd.fields[i].lower})<#else>${dd.fields[i].lower} == other.${dd.fields[i].lower}</#if><#if i_has_next>
+                && </#if></#list>;
+    }
+
+    /**
+     * この${dd.concept}のハッシュ値を返す。
+     *
+     * 値が不変であるため、初回の呼び出しで計算したハッシュ値をキャッシュします。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = ${p.type}.hashCode(${dd.fields[0].lower});
+            <#list 1..(dimension - 1) as i>
+            h = PrimitiveHashCodes.combine(h, ${p.type}.hashCode(${dd.fields[i].lower}));
+            </#list>
+            h = PrimitiveHashCodes.finish(h);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * この${dd.concept}の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(${(32 + dimension * 24)?c})
+                .append("Immutable${p.name}${dd.className.upper}${dimension}[")
+                <#list 0..(dimension - 1) as i>
+                .append("<#if i != 0>,</#if>${dd.fields[i].lower}=").append(${dd.fields[i].lower})
+                </#list>
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * {@link #of(<#list 0..(dimension - 1) as i>${p.primitive}<#if i_has_next>, </#if></#list>)}が返すインスタンスのキャッシュ。
+     *
+     * 初めて使われた時点で範囲内の全てのインスタンスを生成します。
+     */
+    private static final class Cache {
+
+        private static final int DEFAULT_LOW = ${defaultLow?c};
+
+        private static final int DEFAULT_HIGH = ${defaultHigh?c};
+
+        /**
+         * キャッシュするインスタンス数の上限。
+         */
+        private static final long MAX_SIZE = 1 << 24;
+
+        static final int LOW;
+
+        static final int HIGH;
+
+        static final int SPAN;
+
+        static final Immutable${p.name}${dd.className.upper}${dimension}[] VALUES;
+
+        static {
+            String prefix = Immutable${p.name}${dd.className.upper}${dimension}.class.getName() + ".cache.";
+            int low = Integer.getInteger(prefix + "low", DEFAULT_LOW);
+            int high = Integer.getInteger(prefix + "high", DEFAULT_HIGH);
+            long span = Math.max(0L, (long) high - low + 1);
+            // 次元ごとに掛けて確かめることで、long の桁あふれを避けます。
+            if (<#list 0..(dimension - 1) as k><#list 0..k as i>span<#if i_has_next> * </#if></#list> > MAX_SIZE<#if k_has_next> || </#if></#list>) {
+                low = DEFAULT_LOW;
+                high = DEFAULT_HIGH;
+                span = high - low + 1;
+            }
+            LOW = low;
+            HIGH = high;
+            SPAN = (int) span;
+            VALUES = new Immutable${p.name}${dd.className.upper}${dimension}[<#list 0..(dimension - 1) as i>SPAN<#if i_has_next> * </#if></#list>];
+            for (int index = 0; index < VALUES.length; index++) {
+                int rest = index;
+                <#list (dimension - 1)..1 as i>
+                int ${dd.fields[i].lower} = LOW + rest % SPAN;
+                rest /= SPAN;
+                </#list>
+                int ${dd.fields[0].lower} = LOW + rest;
+                VALUES[index] = new Immutable${p.name}${dd.className.upper}${dimension}(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+            }
+            share(ZERO);
+            share(ONE);
+            share(MINUS);
+        }
+
+        private Cache() {
+        }
+
+        /**
+         * 値に対応するキャッシュ上の位置を返す。
+         *
+        <#list 0..(dimension - 1) as i>
+         * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+        </#list>
+         * @return キャッシュ上の位置。キャッシュ範囲外の場合は{@code -1}。
+         */
+        static int indexOf(<#list 0..(dimension - 1) as i>${p.primitive} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+            if (<#list 0..(dimension - 1) as i>!contains(${dd.fields[i].lower})<#if i_has_next> || </#if></#list>) {
+                return -1;
+            }
+            int index = <#if p.primitive != "int">(int) (${dd.fields[0].lower} - LOW)<#else>${dd.fields[0].lower} - LOW</#if>;
+            <#list 1..(dimension - 1) as i>
+            index = index * SPAN + <#if p.primitive != "int">(int) (${dd.fields[i].lower} - LOW)<#else>(${dd.fields[i].lower} - LOW)</#if>;
+            </#list>
+            return index;
+        }
+
+        private static boolean contains(${p.primitive} value) {
+            <#if p.primitive == "double">
+            // -0.0はequalsで0.0と区別されるため、キャッシュしない。
+            return value >= LOW && value <= HIGH && value == Math.rint(value)
+                    && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0);
+            <#else>
+            return value >= LOW && value <= HIGH;
+            </#if>
+        }
+
+        private static void share(Immutable${p.name}${dd.className.upper}${dimension} constant) {
+            int index = indexOf(<#list 0..(dimension - 1) as i>constant.${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+            if (index >= 0) {
+                VALUES[index] = constant;
+            }
+        }
+    }
+
+    /**
+     * {@link #intern()}が用いるインターナ。
+     */
+    private static final class Interner {
+
+        static final WeakInterner<Immutable${p.name}${dd.className.upper}${dimension}> INSTANCE = new WeakInterner<>();
+
+        private Interner() {
+        }
+    }
 }
@@ -0,0 +1,462 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaCollection};
+<#assign type = "${p.name}${dd.className.upper}${dimension}">
+<#assign wide = dimension gt 2>
+<#assign params = "">
+<#assign args = "">
+<#assign zeroTest = "">
+<#assign unpacked = "">
+<#list 0..(dimension - 1) as i>
+<#assign params = params + "int " + dd.fields[i].lower>
+<#assign args = args + dd.fields[i].lower>
+<#assign zeroTest = zeroTest + dd.fields[i].lower + " == 0">
+<#if i lt 2><#assign word = "key"><#else><#assign word = "secondKey"></#if>
+<#if i % 2 == 0><#assign unpacked = unpacked + "(int) (" + word + " >>> 32)"><#else><#assign unpacked = unpacked + "(int) " + word></#if>
+<#if i_has_next>
+<#assign params = params + ", ">
+<#assign args = args + ", ">
+<#assign zeroTest = zeroTest + " && ">
+<#assign unpacked = unpacked + ", ">
+</#if>
+</#list>
+<#assign packKey = "pack(" + dd.fields[0].lower + ", " + dd.fields[1].lower + ")">
+<#if dimension == 3>
+<#assign packSecondKey = "pack(" + dd.fields[2].lower + ", 0)">
+<#elseif dimension == 4>
+<#assign packSecondKey = "pack(" + dd.fields[2].lower + ", " + dd.fields[3].lower + ")">
+</#if>
+<#if wide>
+<#assign packedParams = "long key, long secondKey">
+<#assign packedArgs = "key, secondKey">
+<#else>
+<#assign packedParams = "long key">
+<#assign packedArgs = "key">
+</#if>
+<#assign elementArgs = "">
+<#list 0..(dimension - 1) as i>
+<#assign elementArgs = elementArgs + dd.className.lower + ".get" + dd.fields[i].upper + "AsInt()">
+<#if i_has_next><#assign elementArgs = elementArgs + ", "></#if>
+</#list>
+
+import java.util.Arrays;
+import java.util.Objects;
+import ${packageLevel.java}.${type};
+import ${packageLevel.java}.helper.PrimitiveHashCodes;
+
+/**
+ * {@link ${type}}の集合。
+ *
+ * オープンアドレス法（線形探索）によるハッシュ表で、要素の成分を{@code long}に詰めてプリミティブ配列に格納します。
+ * 要素ごとにオブジェクトを生成しないため、{@link java.util.HashSet}と比べてメモリ使用量が大幅に少なくなります。
+ * 要素は成分を直接渡すか、任意の{@link ${type}}の実装を渡します。どちらの場合も要素のためのインスタンスは生成しません。
+ *
+ * このクラスはスレッドセーフではありません。
+ *
+ * @author misakura
+ */
+public class ${type}Set {
+
+    /**
+     * 要素数を指定しなかった場合に想定する要素数。
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * 負荷係数を指定しなかった場合の負荷係数。
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * ハッシュ表の最大の大きさ。
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 負荷係数。
+     */
+    private final float loadFactor;
+
+    /**
+     * ${dd.fields[0].display}と${dd.fields[1].display}を詰めたキーの配列。
+     *
+     * 全ての成分が{@code 0}であるスロットは空きを表します。
+     */
+    private long[] keys;
+    <#if wide>
+
+    /**
+     * ${dd.fields[2].display}<#if dimension gt 3>と${dd.fields[3].display}</#if>を詰めたキーの配列。
+     */
+    private long[] secondKeys;
+    </#if>
+
+    /**
+     * 全ての成分が{@code 0}の要素を格納しているかどうか。
+     */
+    private boolean containsZeroKey;
+
+    /**
+     * ハッシュ値からスロットを求めるためのマスク。
+     */
+    private int mask;
+
+    /**
+     * ハッシュ表を拡張せずに格納できる要素数。
+     */
+    private int maxFill;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     */
+    public ${type}Set() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param expectedSize 想定する要素数。
+     */
+    public ${type}Set(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param expectedSize 想定する要素数。
+     * @param loadFactor 負荷係数。{@code 0}より大きく{@code 1}より小さい値。
+     */
+    public ${type}Set(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSize(expectedSize, loadFactor));
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 要素が存在するかどうかを返す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 要素の${dd.fields[i].display}。
+    </#list>
+     * @return 要素が存在する場合は{@code true}。
+     */
+    public boolean contains(${params}) {
+        if (${zeroTest}) {
+            return containsZeroKey;
+        }
+        return find(${packKey}<#if wide>, ${packSecondKey}</#if>) >= 0;
+    }
+
+    /**
+     * 要素が存在するかどうかを返す。
+     *
+     * @param ${dd.className.lower} 要素。
+     * @return 要素が存在する場合は{@code true}。
+     */
+    public boolean contains(${type} ${dd.className.lower}) {
+        return contains(${elementArgs});
+    }
+
+    /**
+     * 要素を追加する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 要素の${dd.fields[i].display}。
+    </#list>
+     * @return 要素が存在しなかった場合は{@code true}。
+     */
+    public boolean add(${params}) {
+        if (${zeroTest}) {
+            if (containsZeroKey) {
+                return false;
+            }
+            containsZeroKey = true;
+            size++;
+            return true;
+        }
+        long key = ${packKey};
+        <#if wide>
+        long secondKey = ${packSecondKey};
+        </#if>
+        int pos = find(${packedArgs});
+        if (pos >= 0) {
+            return false;
+        }
+        insert(-pos - 1, ${packedArgs});
+        return true;
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param ${dd.className.lower} 要素。
+     * @return 要素が存在しなかった場合は{@code true}。
+     */
+    public boolean add(${type} ${dd.className.lower}) {
+        return add(${elementArgs});
+    }
+
+    /**
+     * 要素を削除する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 要素の${dd.fields[i].display}。
+    </#list>
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(${params}) {
+        if (${zeroTest}) {
+            if (!containsZeroKey) {
+                return false;
+            }
+            containsZeroKey = false;
+            size--;
+            return true;
+        }
+        int pos = find(${packKey}<#if wide>, ${packSecondKey}</#if>);
+        if (pos < 0) {
+            return false;
+        }
+        size--;
+        shiftKeys(pos);
+        return true;
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * @param ${dd.className.lower} 要素。
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(${type} ${dd.className.lower}) {
+        return remove(${elementArgs});
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * ハッシュ表の大きさは変わりません。
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        size = 0;
+        containsZeroKey = false;
+        Arrays.fill(keys, 0);
+        <#if wide>
+        Arrays.fill(secondKeys, 0);
+        </#if>
+    }
+
+    /**
+     * 少なくとも指定した要素数を格納できるよう、必要に応じてハッシュ表を拡張する。
+     *
+     * @param expectedSize 想定する要素数。
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSize(expectedSize, loadFactor);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * 全ての要素に対して処理を行う。
+     *
+     * 順序は不定です。処理中にこの集合を変更してはいけません。
+     *
+     * @param action 処理。
+     */
+    public void forEach(ElementConsumer action) {
+        Objects.requireNonNull(action);
+        if (containsZeroKey) {
+            action.accept(<#list 0..(dimension - 1) as i>0<#if i_has_next>, </#if></#list>);
+        }
+        for (int pos = keys.length; pos-- != 0;) {
+            long key = keys[pos];
+            <#if wide>
+            long secondKey = secondKeys[pos];
+            </#if>
+            if (<#if wide>(key | secondKey)<#else>key</#if> != 0) {
+                action.accept(${unpacked});
+            }
+        }
+    }
+
+    /**
+     * 要素の成分を受け取る処理。
+     */
+    @FunctionalInterface
+    public interface ElementConsumer {
+
+        /**
+         * 処理を行う。
+         *
+        <#list 0..(dimension - 1) as i>
+         * @param ${dd.fields[i].lower} 要素の${dd.fields[i].display}。
+        </#list>
+         */
+        void accept(${params});
+    }
+
+    private int find(${packedParams}) {
+        int pos = hash(${packedArgs}) & mask;
+        while (<#if wide>(keys[pos] | secondKeys[pos])<#else>keys[pos]</#if> != 0) {
+            if (keys[pos] == key<#if wide> && secondKeys[pos] == secondKey</#if>) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -pos - 1;
+    }
+
+    private void insert(int pos, ${packedParams}) {
+        keys[pos] = key;
+        <#if wide>
+        secondKeys[pos] = secondKey;
+        </#if>
+        if (++size > maxFill) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 削除したスロットを埋めるように、後続のキーを詰める。
+     *
+     * 線形探索のため、削除済みの印を残さずに済みます。
+     *
+     * @param pos 削除したスロット。
+     */
+    private void shiftKeys(int pos) {
+        for (;;) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            for (;;) {
+                if (<#if wide>(keys[pos] | secondKeys[pos])<#else>keys[pos]</#if> == 0) {
+                    keys[last] = 0;
+                    <#if wide>
+                    secondKeys[last] = 0;
+                    </#if>
+                    return;
+                }
+                int slot = hash(keys[pos]<#if wide>, secondKeys[pos]</#if>) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+            <#if wide>
+            secondKeys[last] = secondKeys[pos];
+            </#if>
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Capacity exceeded: " + newCapacity);
+        }
+        long[] oldKeys = keys;
+        <#if wide>
+        long[] oldSecondKeys = secondKeys;
+        </#if>
+        allocate(newCapacity);
+        for (int i = oldKeys.length; i-- != 0;) {
+            long key = oldKeys[i];
+            <#if wide>
+            long secondKey = oldSecondKeys[i];
+            </#if>
+            if (<#if wide>(key | secondKey)<#else>key</#if> != 0) {
+                int pos = hash(${packedArgs}) & mask;
+                while (<#if wide>(keys[pos] | secondKeys[pos])<#else>keys[pos]</#if> != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+                <#if wide>
+                secondKeys[pos] = secondKey;
+                </#if>
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        <#if wide>
+        secondKeys = new long[capacity];
+        </#if>
+        mask = capacity - 1;
+        maxFill = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    private static int tableSize(int expectedSize, float loadFactor) {
+        long required = Math.max(2, (long) Math.ceil(expectedSize / (double) loadFactor));
+        if (required > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Too large expected size: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static int hash(${packedParams}) {
+        <#if wide>
+        return PrimitiveHashCodes.mix(key * 0x9E3779B97F4A7C15L + secondKey);
+        <#else>
+        return PrimitiveHashCodes.mix(key);
+        </#if>
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,579 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaCollection};
+<#assign type = "${p.name}${dd.className.upper}${dimension}">
+<#assign wide = dimension gt 2>
+<#assign params = "">
+<#assign args = "">
+<#assign keyArgs = "">
+<#assign zeroTest = "">
+<#assign unpacked = "">
+<#list 0..(dimension - 1) as i>
+<#assign params = params + "int " + dd.fields[i].lower>
+<#assign args = args + dd.fields[i].lower>
+<#assign keyArgs = keyArgs + "key.get" + dd.fields[i].upper + "AsInt()">
+<#assign zeroTest = zeroTest + dd.fields[i].lower + " == 0">
+<#if i lt 2><#assign word = "key"><#else><#assign word = "secondKey"></#if>
+<#if i % 2 == 0><#assign unpacked = unpacked + "(int) (" + word + " >>> 32)"><#else><#assign unpacked = unpacked + "(int) " + word></#if>
+<#if i_has_next>
+<#assign params = params + ", ">
+<#assign args = args + ", ">
+<#assign keyArgs = keyArgs + ", ">
+<#assign zeroTest = zeroTest + " && ">
+<#assign unpacked = unpacked + ", ">
+</#if>
+</#list>
+<#assign packKey = "pack(" + dd.fields[0].lower + ", " + dd.fields[1].lower + ")">
+<#if dimension == 3>
+<#assign packSecondKey = "pack(" + dd.fields[2].lower + ", 0)">
+<#elseif dimension == 4>
+<#assign packSecondKey = "pack(" + dd.fields[2].lower + ", " + dd.fields[3].lower + ")">
+</#if>
+<#if wide>
+<#assign packedParams = "long key, long secondKey">
+<#assign packedArgs = "key, secondKey">
+<#else>
+<#assign packedParams = "long key">
+<#assign packedArgs = "key">
+</#if>
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Supplier;
+import ${packageLevel.java}.${type};
+import ${packageLevel.java}.helper.PrimitiveHashCodes;
+
+/**
+ * {@link ${type}}をキーとし、任意の参照型を値とするマップ。
+ *
+ * オープンアドレス法（線形探索）によるハッシュ表で、キーの成分を{@code long}に詰めてプリミティブ配列に格納します。
+ * エントリごとにオブジェクトを生成しないため、{@link java.util.HashMap}と比べてメモリ使用量が大幅に少なくなります。
+ * キーは成分を直接渡すか、任意の{@link ${type}}の実装を渡します。どちらの場合もキーのためのインスタンスは生成しません。
+ *
+ * 値に{@code null}を格納することはできますが、値が存在しない場合と区別できなくなるため推奨しません。
+ * このクラスはスレッドセーフではありません。
+ *
+ * @author misakura
+ * @param <V> 値の型。
+ */
+public class ${type}ToObjectMap<V> {
+
+    /**
+     * 要素数を指定しなかった場合に想定する要素数。
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * 負荷係数を指定しなかった場合の負荷係数。
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * ハッシュ表の最大の大きさ。
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 負荷係数。
+     */
+    private final float loadFactor;
+
+    /**
+     * ${dd.fields[0].display}と${dd.fields[1].display}を詰めたキーの配列。
+     *
+     * 全ての成分が{@code 0}であるスロットは空きを表します。
+     */
+    private long[] keys;
+    <#if wide>
+
+    /**
+     * ${dd.fields[2].display}<#if dimension gt 3>と${dd.fields[3].display}</#if>を詰めたキーの配列。
+     */
+    private long[] secondKeys;
+    </#if>
+
+    /**
+     * 値の配列。
+     */
+    private Object[] values;
+
+    /**
+     * 全ての成分が{@code 0}のキーを格納しているかどうか。
+     */
+    private boolean containsZeroKey;
+
+    /**
+     * 全ての成分が{@code 0}のキーに対応する値。
+     */
+    private V zeroValue;
+
+    /**
+     * ハッシュ値からスロットを求めるためのマスク。
+     */
+    private int mask;
+
+    /**
+     * ハッシュ表を拡張せずに格納できる要素数。
+     */
+    private int maxFill;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     */
+    public ${type}ToObjectMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param expectedSize 想定する要素数。
+     */
+    public ${type}ToObjectMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param expectedSize 想定する要素数。
+     * @param loadFactor 負荷係数。{@code 0}より大きく{@code 1}より小さい値。
+     */
+    public ${type}ToObjectMap(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSize(expectedSize, loadFactor));
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * キーが存在するかどうかを返す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} キーの${dd.fields[i].display}。
+    </#list>
+     * @return キーが存在する場合は{@code true}。
+     */
+    public boolean containsKey(${params}) {
+        if (${zeroTest}) {
+            return containsZeroKey;
+        }
+        return find(${packKey}<#if wide>, ${packSecondKey}</#if>) >= 0;
+    }
+
+    /**
+     * キーが存在するかどうかを返す。
+     *
+     * @param key キー。
+     * @return キーが存在する場合は{@code true}。
+     */
+    public boolean containsKey(${type} key) {
+        return containsKey(${keyArgs});
+    }
+
+    /**
+     * キーに対応する値を返す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} キーの${dd.fields[i].display}。
+    </#list>
+     * @return キーに対応する値。存在しない場合は{@code null}。
+     */
+    public V get(${params}) {
+        return getOrDefault(${args}, null);
+    }
+
+    /**
+     * キーに対応する値を返す。
+     *
+     * @param key キー。
+     * @return キーに対応する値。存在しない場合は{@code null}。
+     */
+    public V get(${type} key) {
+        return getOrDefault(${keyArgs}, null);
+    }
+
+    /**
+     * キーに対応する値を返す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} キーの${dd.fields[i].display}。
+    </#list>
+     * @param defaultValue キーが存在しない場合に返す値。
+     * @return キーに対応する値。存在しない場合は{@code defaultValue}。
+     */
+    public V getOrDefault(${params}, V defaultValue) {
+        if (${zeroTest}) {
+            return containsZeroKey ? zeroValue : defaultValue;
+        }
+        int pos = find(${packKey}<#if wide>, ${packSecondKey}</#if>);
+        return pos >= 0 ? valueAt(pos) : defaultValue;
+    }
+
+    /**
+     * キーに値を対応付ける。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} キーの${dd.fields[i].display}。
+    </#list>
+     * @param value 値。
+     * @return 以前の値。存在しなかった場合は{@code null}。
+     */
+    public V put(${params}, V value) {
+        if (${zeroTest}) {
+            V old = zeroValue;
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return old;
+        }
+        long key = ${packKey};
+        <#if wide>
+        long secondKey = ${packSecondKey};
+        </#if>
+        int pos = find(${packedArgs});
+        if (pos >= 0) {
+            V old = valueAt(pos);
+            values[pos] = value;
+            return old;
+        }
+        insert(-pos - 1, ${packedArgs}, value);
+        return null;
+    }
+
+    /**
+     * キーに値を対応付ける。
+     *
+     * @param key キー。
+     * @param value 値。
+     * @return 以前の値。存在しなかった場合は{@code null}。
+     */
+    public V put(${type} key, V value) {
+        return put(${keyArgs}, value);
+    }
+
+    /**
+     * キーに対応する値を返す。キーが存在しない場合は、生成した値を対応付けてから返す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} キーの${dd.fields[i].display}。
+    </#list>
+     * @param valueSupplier キーが存在しない場合に値を生成する関数。
+     * @return キーに対応する値。
+     */
+    public V computeIfAbsent(${params}, Supplier<? extends V> valueSupplier) {
+        Objects.requireNonNull(valueSupplier);
+        if (${zeroTest}) {
+            if (!containsZeroKey) {
+                zeroValue = valueSupplier.get();
+                containsZeroKey = true;
+                size++;
+            }
+            return zeroValue;
+        }
+        long key = ${packKey};
+        <#if wide>
+        long secondKey = ${packSecondKey};
+        </#if>
+        int pos = find(${packedArgs});
+        if (pos >= 0) {
+            return valueAt(pos);
+        }
+        V value = valueSupplier.get();
+        insert(-pos - 1, ${packedArgs}, value);
+        return value;
+    }
+
+    /**
+     * キーに対応する値を返す。キーが存在しない場合は、生成した値を対応付けてから返す。
+     *
+     * @param key キー。
+     * @param valueSupplier キーが存在しない場合に値を生成する関数。
+     * @return キーに対応する値。
+     */
+    public V computeIfAbsent(${type} key, Supplier<? extends V> valueSupplier) {
+        return computeIfAbsent(${keyArgs}, valueSupplier);
+    }
+
+    /**
+     * キーを削除する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} キーの${dd.fields[i].display}。
+    </#list>
+     * @return 削除した値。存在しなかった場合は{@code null}。
+     */
+    public V remove(${params}) {
+        if (${zeroTest}) {
+            if (!containsZeroKey) {
+                return null;
+            }
+            V old = zeroValue;
+            containsZeroKey = false;
+            zeroValue = null;
+            size--;
+            return old;
+        }
+        int pos = find(${packKey}<#if wide>, ${packSecondKey}</#if>);
+        if (pos < 0) {
+            return null;
+        }
+        V old = valueAt(pos);
+        size--;
+        shiftKeys(pos);
+        return old;
+    }
+
+    /**
+     * キーを削除する。
+     *
+     * @param key キー。
+     * @return 削除した値。存在しなかった場合は{@code null}。
+     */
+    public V remove(${type} key) {
+        return remove(${keyArgs});
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * ハッシュ表の大きさは変わりません。
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        size = 0;
+        containsZeroKey = false;
+        zeroValue = null;
+        Arrays.fill(keys, 0);
+        <#if wide>
+        Arrays.fill(secondKeys, 0);
+        </#if>
+        Arrays.fill(values, null);
+    }
+
+    /**
+     * 少なくとも指定した要素数を格納できるよう、必要に応じてハッシュ表を拡張する。
+     *
+     * @param expectedSize 想定する要素数。
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSize(expectedSize, loadFactor);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * 全ての要素に対して処理を行う。
+     *
+     * 順序は不定です。処理中にこのマップを変更してはいけません。
+     *
+     * @param action 処理。
+     */
+    public void forEach(EntryConsumer<? super V> action) {
+        Objects.requireNonNull(action);
+        if (containsZeroKey) {
+            action.accept(<#list 0..(dimension - 1) as i>0, </#list>zeroValue);
+        }
+        for (int pos = keys.length; pos-- != 0;) {
+            long key = keys[pos];
+            <#if wide>
+            long secondKey = secondKeys[pos];
+            </#if>
+            if (<#if wide>(key | secondKey)<#else>key</#if> != 0) {
+                action.accept(${unpacked}, valueAt(pos));
+            }
+        }
+    }
+
+    /**
+     * キーの成分と値を受け取る処理。
+     *
+     * @param <V> 値の型。
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+
+        /**
+         * 処理を行う。
+         *
+        <#list 0..(dimension - 1) as i>
+         * @param ${dd.fields[i].lower} キーの${dd.fields[i].display}。
+        </#list>
+         * @param value 値。
+         */
+        void accept(${params}, V value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int pos) {
+        return (V) values[pos];
+    }
+
+    private int find(${packedParams}) {
+        int pos = hash(${packedArgs}) & mask;
+        while (<#if wide>(keys[pos] | secondKeys[pos])<#else>keys[pos]</#if> != 0) {
+            if (keys[pos] == key<#if wide> && secondKeys[pos] == secondKey</#if>) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -pos - 1;
+    }
+
+    private void insert(int pos, ${packedParams}, V value) {
+        keys[pos] = key;
+        <#if wide>
+        secondKeys[pos] = secondKey;
+        </#if>
+        values[pos] = value;
+        if (++size > maxFill) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 削除したスロットを埋めるように、後続のキーを詰める。
+     *
+     * 線形探索のため、削除済みの印を残さずに済みます。
+     *
+     * @param pos 削除したスロット。
+     */
+    private void shiftKeys(int pos) {
+        for (;;) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            for (;;) {
+                if (<#if wide>(keys[pos] | secondKeys[pos])<#else>keys[pos]</#if> == 0) {
+                    keys[last] = 0;
+                    <#if wide>
+                    secondKeys[last] = 0;
+                    </#if>
+                    values[last] = null;
+                    return;
+                }
+                int slot = hash(keys[pos]<#if wide>, secondKeys[pos]</#if>) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+            <#if wide>
+            secondKeys[last] = secondKeys[pos];
+            </#if>
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Capacity exceeded: " + newCapacity);
+        }
+        long[] oldKeys = keys;
+        <#if wide>
+        long[] oldSecondKeys = secondKeys;
+        </#if>
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = oldKeys.length; i-- != 0;) {
+            long key = oldKeys[i];
+            <#if wide>
+            long secondKey = oldSecondKeys[i];
+            </#if>
+            if (<#if wide>(key | secondKey)<#else>key</#if> != 0) {
+                int pos = hash(${packedArgs}) & mask;
+                while (<#if wide>(keys[pos] | secondKeys[pos])<#else>keys[pos]</#if> != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+                <#if wide>
+                secondKeys[pos] = secondKey;
+                </#if>
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        <#if wide>
+        secondKeys = new long[capacity];
+        </#if>
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxFill = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    private static int tableSize(int expectedSize, float loadFactor) {
+        long required = Math.max(2, (long) Math.ceil(expectedSize / (double) loadFactor));
+        if (required > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Too large expected size: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static int hash(${packedParams}) {
+        <#if wide>
+        return PrimitiveHashCodes.mix(key * 0x9E3779B97F4A7C15L + secondKey);
+        <#else>
+        return PrimitiveHashCodes.mix(key);
+        </#if>
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+}
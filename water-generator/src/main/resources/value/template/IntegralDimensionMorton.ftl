@@ -0,0 +1,542 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaSpatial};
+<#assign P = p.primitive>
+<#assign pointType = "${p.name}${dd.className.upper}${dimension}">
+<#assign sizeType = "${p.name}Size${dimension}">
+<#assign sizeFields = [["Width", "width", "幅"], ["Height", "height", "高さ"], ["Depth", "depth", "奥行"]]>
+<#assign fullRange = P == "int" && dimension == 2>
+<#if P == "int">
+<#assign widen = "(long) ">
+<#else>
+<#assign widen = "">
+</#if>
+<#assign pointParams = "">
+<#assign pointArgs = "">
+<#assign pointGetters = "">
+<#assign sizeGetters = "">
+<#assign boxParams = "">
+<#assign arrayParams = "">
+<#assign arrayArgs = "">
+<#assign interleave = "">
+<#list 0..(dimension - 1) as i>
+<#assign l = dd.fields[i].lower>
+<#assign pointParams = pointParams + P + " " + l>
+<#assign pointArgs = pointArgs + l>
+<#assign pointGetters = pointGetters + dd.className.lower + ".get" + dd.fields[i].upper + "As" + p.name + "()">
+<#assign sizeGetters = sizeGetters + "size.get" + sizeFields[i][0] + "As" + p.name + "()">
+<#assign boxParams = boxParams + P + " " + l + ", ">
+<#assign arrayParams = arrayParams + P + "[] " + l>
+<#assign arrayArgs = arrayArgs + l>
+<#if i == 0>
+<#assign interleave = "spread(" + widen + l + " - MIN_COORDINATE)">
+<#else>
+<#assign interleave = interleave + "\n                | spread(" + widen + l + " - MIN_COORDINATE) << ${i}">
+</#if>
+<#if i_has_next>
+<#assign pointParams = pointParams + ", ">
+<#assign pointArgs = pointArgs + ", ">
+<#assign pointGetters = pointGetters + ", ">
+<#assign sizeGetters = sizeGetters + ", ">
+<#assign arrayParams = arrayParams + ", ">
+<#assign arrayArgs = arrayArgs + ", ">
+</#if>
+</#list>
+<#list 0..(dimension - 1) as i>
+<#assign boxParams = boxParams + P + " " + sizeFields[i][1]>
+<#if i_has_next>
+<#assign boxParams = boxParams + ", ">
+</#if>
+</#list>
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import ${packageLevel.java}.Mutable${pointType};
+import ${packageLevel.java}.${pointType};
+import ${packageLevel.java}.${sizeType};
+import ${packageLevel.javaArray}.${pointType}Array;
+
+/**
+ * {@link ${pointType}}とモートン符号（Z階数）の変換と、モートン順による整列と検索。
+ *
+ * モートン符号は各軸の座標のビットを交互に並べた{@code long}値です。
+ * 符号の大小は{@code long}の通常の比較に一致するため、符号で整列した${dd.concept}の列は空間的に近いものが近くに並びます。
+ * そのため、近傍を走査する処理のキャッシュ効率が良くなり、ファイルや索引のキーとしても使えます。
+ *
+<#if fullRange>
+ * 座標は{@code ${P}}の全ての値を扱えます。
+<#else>
+ * 座標は{@link #MIN_COORDINATE}以上{@link #MAX_COORDINATE}以下である必要があります。
+</#if>
+ * 全ての変換は分岐のないビット演算で行います。
+ *
+ * @author misakura
+ */
+public final class ${pointType}Morton {
+
+    /**
+     * 符号化できる座標の最小値。
+     */
+<#if dimension == 2>
+    public static final ${P} MIN_COORDINATE = Integer.MIN_VALUE;
+<#else>
+    public static final ${P} MIN_COORDINATE = -(1 << 20);
+</#if>
+
+    /**
+     * 符号化できる座標の最大値。
+     */
+<#if dimension == 2>
+    public static final ${P} MAX_COORDINATE = Integer.MAX_VALUE;
+<#else>
+    public static final ${P} MAX_COORDINATE = (1 << 20) - 1;
+</#if>
+
+    /**
+     * 1軸あたりのビット数。
+     */
+<#if dimension == 2>
+    private static final int BITS_PER_AXIS = 32;
+<#else>
+    private static final int BITS_PER_AXIS = 21;
+</#if>
+
+    /**
+     * 符号全体のビット数。
+     */
+    private static final int BITS = BITS_PER_AXIS * ${dimension};
+
+    /**
+     * x座標のビットの位置。他の軸はこれを軸の番号だけずらした位置。
+     */
+<#if dimension == 2>
+    private static final long X_MASK = 0x5555555555555555L;
+<#else>
+    private static final long X_MASK = 0x1249249249249249L;
+</#if>
+<#if dimension == 2>
+
+    /**
+     * 符号の大小を{@code long}の比較に一致させるために反転するビット。
+     */
+    private static final long FLIP = Long.MIN_VALUE;
+</#if>
+
+    private ${pointType}Morton() {
+    }
+
+    /**
+     * 座標をモートン符号に変換する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     * @return モートン符号。
+     */
+    public static long encode(${pointParams}) {
+        <#if !fullRange>
+        <#list 0..(dimension - 1) as i>
+        checkCoordinate(${dd.fields[i].lower});
+        </#list>
+        </#if>
+        return <#if dimension == 2>(</#if>${interleave}<#if dimension == 2>) ^ FLIP</#if>;
+    }
+
+    /**
+     * ${dd.concept}をモートン符号に変換する。
+     *
+     * @param ${dd.className.lower} ${dd.concept}。
+     * @return モートン符号。
+     */
+    public static long encode(${pointType} ${dd.className.lower}) {
+        return encode(${pointGetters});
+    }
+    <#list 0..(dimension - 1) as i>
+
+    /**
+     * モートン符号から${dd.fields[i].display}を取り出す。
+     *
+     * @param code モートン符号。
+     * @return ${dd.fields[i].display}。
+     */
+    public static ${P} decode${dd.fields[i].upper}(long code) {
+        <#if P == "int">
+        return (int) (compact(<#if dimension == 2>(code ^ FLIP)<#else>code</#if><#if i gt 0> >>> ${i}</#if>) + MIN_COORDINATE);
+        <#else>
+        return compact(<#if dimension == 2>(code ^ FLIP)<#else>code</#if><#if i gt 0> >>> ${i}</#if>) + MIN_COORDINATE;
+        </#if>
+    }
+    </#list>
+
+    /**
+     * モートン符号を${dd.concept}に戻す。
+     *
+     * @param code モートン符号。
+     * @param destination 結果の設定先。
+     */
+    public static void decode(long code, Mutable${pointType} destination) {
+        destination.set(<#list 0..(dimension - 1) as i>decode${dd.fields[i].upper}(code)<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 配列の先頭から指定した数の座標をまとめてモートン符号に変換する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}の配列。
+    </#list>
+     * @param codes モートン符号の書き込み先。
+     * @param length 要素数。
+     */
+    public static void encode(${arrayParams}, long[] codes, int length) {
+        checkLength(length, <#list 0..(dimension - 1) as i>${dd.fields[i].lower}.length, </#list>codes.length);
+        for (int i = 0; i < length; i++) {
+            codes[i] = encode(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}[i]<#if i_has_next>, </#if></#list>);
+        }
+    }
+
+    /**
+     * 配列の全ての${dd.concept}をまとめてモートン符号に変換する。
+     *
+     * @param array ${dd.concept}の配列。
+     * @param codes モートン符号の書き込み先。長さは{@code array.size()}以上。
+     */
+    public static void encode(${pointType}Array array, long[] codes) {
+        encode(<#list 0..(dimension - 1) as i>array.get${dd.fields[i].upper}Array(), </#list>codes, array.size());
+    }
+
+    /**
+     * 配列の先頭から指定した数のモートン符号をまとめて座標に戻す。
+     *
+     * @param codes モートン符号の配列。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}の書き込み先。
+    </#list>
+     * @param length 要素数。
+     */
+    public static void decode(long[] codes, ${arrayParams}, int length) {
+        checkLength(length, <#list 0..(dimension - 1) as i>${dd.fields[i].lower}.length, </#list>codes.length);
+        for (int i = 0; i < length; i++) {
+            long code = codes[i];
+            <#list 0..(dimension - 1) as i>
+            ${dd.fields[i].lower}[i] = decode${dd.fields[i].upper}(code);
+            </#list>
+        }
+    }
+
+    /**
+     * 配列の先頭から指定した数の${dd.concept}をモートン順に並べ替える。
+     *
+     * 並べ替えた${dd.concept}のモートン符号を{@code codes}に書き込むため、そのまま{@link #searchBox}に使えます。
+     * 符号は基数ソートで整列し、全ての要素で等しい桁は飛ばします。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}の配列。
+    </#list>
+     * @param codes モートン符号の書き込み先。
+     * @param length 要素数。
+     */
+    public static void sort(${arrayParams}, long[] codes, int length) {
+        encode(${arrayArgs}, codes, length);
+        int[] order = new int[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        radixSort(codes, order, length);
+        <#list 0..(dimension - 1) as i>
+        permute(${dd.fields[i].lower}, order, length);
+        </#list>
+    }
+
+    /**
+     * 配列の全ての${dd.concept}をモートン順に並べ替える。
+     *
+     * @param array ${dd.concept}の配列。
+     * @return 並べ替えた${dd.concept}のモートン符号。
+     */
+    public static long[] sort(${pointType}Array array) {
+        long[] codes = new long[array.size()];
+        sort(<#list 0..(dimension - 1) as i>array.get${dd.fields[i].upper}Array(), </#list>codes, array.size());
+        return codes;
+    }
+
+    /**
+     * 昇順に整列したモートン符号の範囲から、箱に含まれる符号を探す。
+     *
+     * 箱は位置を最小の角とし、各軸の大きさだけ広がる閉区間の直積です。
+     * 箱の外に出た符号からは、箱の中で次に大きい符号（BIGMIN）を求めて二分探索で読み飛ばすため、
+     * 箱の角の符号の間にある全ての符号を調べることはありません。
+     *
+     * @param codes 昇順に整列したモートン符号の配列。
+     * @param from 範囲の先頭の添字。（この添字を含む。）
+     * @param to 範囲の末尾の添字。（この添字を含まない。）
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 位置の${dd.fields[i].display}。
+    </#list>
+    <#list 0..(dimension - 1) as i>
+     * @param ${sizeFields[i][1]} ${sizeFields[i][2]}。
+    </#list>
+     * @param action 見つかった符号の添字を受け取る処理。
+     * @return 見つかった符号の数。
+     */
+    public static int searchBox(long[] codes, int from, int to, ${boxParams}, IntConsumer action) {
+        if (from < 0 || to > codes.length || from > to) {
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), Length: " + codes.length);
+        }
+        Objects.requireNonNull(action);
+        <#list 0..(dimension - 1) as i>
+        <#assign l = dd.fields[i].lower>
+        <#assign u = dd.fields[i].upper>
+        long lower${u} = Math.max(${l}, MIN_COORDINATE);
+        <#if P == "int">
+        long upper${u} = Math.min((long) ${l} + ${sizeFields[i][1]}, MAX_COORDINATE);
+        <#else>
+        long upper${u} = Math.min(saturatedAdd(${l}, ${sizeFields[i][1]}), MAX_COORDINATE);
+        </#if>
+        </#list>
+        if (<#list 0..(dimension - 1) as i>lower${dd.fields[i].upper} > upper${dd.fields[i].upper}<#if i_has_next> || </#if></#list>) {
+            return 0;
+        }
+        // 符号を反転する前の値で扱う
+        long zmin = <#list 0..(dimension - 1) as i>spread(lower${dd.fields[i].upper} - MIN_COORDINATE)<#if i gt 0> << ${i}</#if><#if i_has_next> | </#if></#list>;
+        long zmax = <#list 0..(dimension - 1) as i>spread(upper${dd.fields[i].upper} - MIN_COORDINATE)<#if i gt 0> << ${i}</#if><#if i_has_next> | </#if></#list>;
+        long last = zmax<#if dimension == 2> ^ FLIP</#if>;
+
+        int found = 0;
+        int index = lowerBound(codes, from, to, zmin<#if dimension == 2> ^ FLIP</#if>);
+        while (index < to && codes[index] <= last) {
+            long current = codes[index]<#if dimension == 2> ^ FLIP</#if>;
+            if (contains(current, zmin, zmax)) {
+                action.accept(index);
+                found++;
+                index++;
+            } else {
+                index = lowerBound(codes, index + 1, to, nextInBox(current, zmin, zmax)<#if dimension == 2> ^ FLIP</#if>);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 昇順に整列したモートン符号の配列から、箱に含まれる符号を探す。
+     *
+     * @param codes 昇順に整列したモートン符号の配列。
+     * @param ${dd.className.lower} 位置。
+     * @param size 大きさ。
+     * @param action 見つかった符号の添字を受け取る処理。
+     * @return 見つかった符号の数。
+     */
+    public static int searchBox(long[] codes, ${pointType} ${dd.className.lower}, ${sizeType} size, IntConsumer action) {
+        return searchBox(codes, 0, codes.length, ${pointGetters}, ${sizeGetters}, action);
+    }
+    <#if P == "long">
+
+    /**
+     * 桁あふれする場合は{@code long}の最小値か最大値に飽和させて加算する。
+     */
+    private static long saturatedAdd(long left, long right) {
+        long sum = left + right;
+        if (((left ^ sum) & (right ^ sum)) < 0) {
+            return left < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return sum;
+    }
+    </#if>
+    <#if !fullRange>
+
+    private static void checkCoordinate(${P} coordinate) {
+        if (coordinate < MIN_COORDINATE || coordinate > MAX_COORDINATE) {
+            throw new IllegalArgumentException("Illegal coordinate: " + coordinate);
+        }
+    }
+    </#if>
+
+    private static void checkLength(int length, <#list 0..(dimension - 1) as i>int ${dd.fields[i].lower}Length, </#list>int codesLength) {
+        if (length < 0<#list 0..(dimension - 1) as i> || ${dd.fields[i].lower}Length < length</#list> || codesLength < length) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+    }
+
+    /**
+     * 下位{@link #BITS_PER_AXIS}ビットを${dimension}ビットおきに広げる。
+     */
+    private static long spread(long value) {
+    <#if dimension == 2>
+        value &= 0xFFFFFFFFL;
+        value = (value | value << 16) & 0x0000FFFF0000FFFFL;
+        value = (value | value << 8) & 0x00FF00FF00FF00FFL;
+        value = (value | value << 4) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | value << 2) & 0x3333333333333333L;
+        value = (value | value << 1) & 0x5555555555555555L;
+    <#else>
+        value &= 0x1FFFFFL;
+        value = (value | value << 32) & 0x001F00000000FFFFL;
+        value = (value | value << 16) & 0x001F0000FF0000FFL;
+        value = (value | value << 8) & 0x100F00F00F00F00FL;
+        value = (value | value << 4) & 0x10C30C30C30C30C3L;
+        value = (value | value << 2) & 0x1249249249249249L;
+    </#if>
+        return value;
+    }
+
+    /**
+     * {@link #spread(long)}の逆変換。
+     */
+    private static long compact(long value) {
+    <#if dimension == 2>
+        value &= 0x5555555555555555L;
+        value = (value | value >>> 1) & 0x3333333333333333L;
+        value = (value | value >>> 2) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | value >>> 4) & 0x00FF00FF00FF00FFL;
+        value = (value | value >>> 8) & 0x0000FFFF0000FFFFL;
+        value = (value | value >>> 16) & 0x00000000FFFFFFFFL;
+    <#else>
+        value &= 0x1249249249249249L;
+        value = (value | value >>> 2) & 0x10C30C30C30C30C3L;
+        value = (value | value >>> 4) & 0x100F00F00F00F00FL;
+        value = (value | value >>> 8) & 0x001F0000FF0000FFL;
+        value = (value | value >>> 16) & 0x001F00000000FFFFL;
+        value = (value | value >>> 32) & 0x00000000001FFFFFL;
+    </#if>
+        return value;
+    }
+
+    /**
+     * 反転前の符号が、反転前の2つの角の符号で表される箱に含まれるかどうかを返す。
+     */
+    private static boolean contains(long z, long zmin, long zmax) {
+        <#list 0..(dimension - 1) as i>
+        long ${dd.fields[i].lower}Mask = X_MASK<#if i gt 0> << ${i}</#if>;
+        </#list>
+        return <#list 0..(dimension - 1) as i><#assign m = dd.fields[i].lower + "Mask">Long.compareUnsigned(z & ${m}, zmin & ${m}) >= 0
+                && Long.compareUnsigned(z & ${m}, zmax & ${m}) <= 0<#if i_has_next>
+                && </#if></#list>;
+    }
+
+    /**
+     * 箱の外にある反転前の符号より大きく、箱に含まれる最小の反転前の符号（BIGMIN）を返す。
+     *
+     * Tropf and Herzog, "Multidimensional Range Search in Dynamically Balanced Trees" (1981)の方法です。
+     */
+    private static long nextInBox(long z, long zmin, long zmax) {
+        long bigmin = 0;
+        for (int bit = BITS - 1; bit >= 0; bit--) {
+            long mask = 1L << bit;
+            // 同じ軸の下位ビット
+            long lower = X_MASK << (bit % ${dimension}) & (mask - 1);
+            boolean minBit = (zmin & mask) != 0;
+            boolean maxBit = (zmax & mask) != 0;
+            if ((z & mask) == 0) {
+                if (minBit) {
+                    return zmin;
+                }
+                if (maxBit) {
+                    bigmin = zmin & ~(mask | lower) | mask;
+                    zmax = zmax & ~(mask | lower) | lower;
+                }
+            } else {
+                if (!maxBit) {
+                    return bigmin;
+                }
+                if (!minBit) {
+                    zmin = zmin & ~(mask | lower) | mask;
+                }
+            }
+        }
+        return bigmin;
+    }
+
+    /**
+     * 範囲で{@code key}以上となる最初の添字を返す。
+     */
+    private static int lowerBound(long[] codes, int from, int to, long key) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (codes[middle] < key) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * 符号と添字を、符号の昇順に8ビットずつの基数ソートで並べ替える。
+     */
+    private static void radixSort(long[] codes, int[] order, int length) {
+        if (length < 2) {
+            return;
+        }
+        long differentBits = 0;
+        for (int i = 1; i < length; i++) {
+            differentBits |= codes[i] ^ codes[0];
+        }
+        long[] codeBuffer = new long[length];
+        int[] orderBuffer = new int[length];
+        long[] sourceCodes = codes;
+        int[] sourceOrder = order;
+        int[] counts = new int[256];
+        for (int shift = 0; shift < 64; shift += 8) {
+            if ((differentBits >>> shift & 0xFF) == 0) {
+                continue;
+            }
+            // 最上位の桁は符号ビットを反転して数える
+            int flip = shift == 56 ? 0x80 : 0;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < length; i++) {
+                counts[(int) (sourceCodes[i] >>> shift) & 0xFF ^ flip]++;
+            }
+            int offset = 0;
+            for (int digit = 0; digit < 256; digit++) {
+                int count = counts[digit];
+                counts[digit] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < length; i++) {
+                int position = counts[(int) (sourceCodes[i] >>> shift) & 0xFF ^ flip]++;
+                codeBuffer[position] = sourceCodes[i];
+                orderBuffer[position] = sourceOrder[i];
+            }
+            long[] swapCodes = sourceCodes;
+            sourceCodes = codeBuffer;
+            codeBuffer = swapCodes;
+            int[] swapOrder = sourceOrder;
+            sourceOrder = orderBuffer;
+            orderBuffer = swapOrder;
+        }
+        if (sourceCodes != codes) {
+            System.arraycopy(sourceCodes, 0, codes, 0, length);
+            System.arraycopy(sourceOrder, 0, order, 0, length);
+        }
+    }
+
+    private static void permute(${P}[] values, int[] order, int length) {
+        ${P}[] permuted = new ${P}[length];
+        for (int i = 0; i < length; i++) {
+            permuted[i] = values[order[i]];
+        }
+        System.arraycopy(permuted, 0, values, 0, length);
+    }
+}
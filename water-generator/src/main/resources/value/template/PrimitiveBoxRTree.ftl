@@ -0,0 +1,1352 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaSpatial};
+<#assign P = p.primitive>
+<#if P == "double">
+<#assign widen = "">
+<#else>
+<#assign widen = "(double) ">
+</#if>
+<#assign type = "${p.name}Box${dimension}">
+<#assign pointType = "${p.name}${dd.className.upper}${dimension}">
+<#assign sizeType = "${p.name}Size${dimension}">
+<#assign sizeFields = [["Width", "width", "幅"], ["Height", "height", "高さ"], ["Depth", "depth", "奥行"]]>
+<#assign boxParams = "">
+<#assign boxArgs = "">
+<#assign boxTypes = "">
+<#assign pointParams = "">
+<#assign pointArgs = "">
+<#assign pointSizeArgs = "">
+<#assign boundsParams = "">
+<#assign boundsArgs = "">
+<#assign boundsFromBox = "">
+<#assign scratchArgs = "">
+<#list 0..(dimension - 1) as i>
+<#assign boxParams = boxParams + P + " " + dd.fields[i].lower + ", ">
+<#assign boxArgs = boxArgs + dd.fields[i].lower + ", ">
+<#assign boxTypes = boxTypes + P + ", ">
+<#assign pointParams = pointParams + P + " " + dd.fields[i].lower>
+<#assign pointArgs = pointArgs + dd.fields[i].lower>
+<#assign pointSizeArgs = pointSizeArgs + dd.className.lower + ".get" + dd.fields[i].upper + "As" + p.name + "(), ">
+<#assign boundsParams = boundsParams + P + " lower" + dd.fields[i].upper + ", ">
+<#assign boundsArgs = boundsArgs + "lower" + dd.fields[i].upper + ", ">
+<#assign boundsFromBox = boundsFromBox + dd.fields[i].lower + ", ">
+<#assign scratchArgs = scratchArgs + "min" + dd.fields[i].upper + "[SCRATCH], ">
+<#if i_has_next>
+<#assign pointParams = pointParams + ", ">
+<#assign pointArgs = pointArgs + ", ">
+</#if>
+</#list>
+<#list 0..(dimension - 1) as i>
+<#assign boxParams = boxParams + P + " " + sizeFields[i][1]>
+<#assign boxArgs = boxArgs + sizeFields[i][1]>
+<#assign boxTypes = boxTypes + P>
+<#assign pointSizeArgs = pointSizeArgs + "size.get" + sizeFields[i][0] + "As" + p.name + "()">
+<#assign boundsParams = boundsParams + P + " upper" + dd.fields[i].upper>
+<#assign boundsArgs = boundsArgs + "upper" + dd.fields[i].upper>
+<#if P == "double">
+<#assign boundsFromBox = boundsFromBox + dd.fields[i].lower + " + " + sizeFields[i][1]>
+<#else>
+<#assign boundsFromBox = boundsFromBox + "upperBound(" + dd.fields[i].lower + ", " + sizeFields[i][1] + ")">
+</#if>
+<#assign scratchArgs = scratchArgs + "max" + dd.fields[i].upper + "[SCRATCH]">
+<#if i_has_next>
+<#assign boxParams = boxParams + ", ">
+<#assign boxArgs = boxArgs + ", ">
+<#assign boxTypes = boxTypes + ", ">
+<#assign pointSizeArgs = pointSizeArgs + ", ">
+<#assign boundsParams = boundsParams + ", ">
+<#assign boundsArgs = boundsArgs + ", ">
+<#assign boundsFromBox = boundsFromBox + ", ">
+<#assign scratchArgs = scratchArgs + ", ">
+</#if>
+</#list>
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import ${packageLevel.java}.${pointType};
+import ${packageLevel.java}.${sizeType};
+
+/**
+ * {@link ${pointType}}と{@link ${sizeType}}で表される箱を索引付けするR木。
+ *
+ * 箱は位置を最小の角とし、各軸の大きさだけ広がる閉区間の直積です。
+<#if P != "double">
+ * 位置と大きさの和が{@code ${P}}の範囲を超える箱は、範囲の端で打ち切った箱として扱います。
+</#if>
+ * 要素は呼び出し側が決める非負の整数IDで識別し、箱とともに登録します。
+ *
+ * 静的なデータは{@link #load}でSTR（Sort-Tile-Recursive）法により一括構築し、
+ * 動的なデータは{@link #insert}でR*木と同じ方法（重なりを考慮した部分木の選択、強制再挿入、周長に基づく分割）により追加します。
+ * 節点は固定長のスロットとしてプリミティブ配列に詰めて格納するため、走査時のキャッシュ効率が良くなります。
+ *
+ * 問い合わせは見つかった要素のIDを{@link IntConsumer}に渡すか、呼び出し側が用意した配列に書き込むため、結果ごとにインスタンスを生成しません。
+ * 問い合わせは状態を変更しないため、更新と同時でなければ複数のスレッドから行えます。
+ *
+ * @author misakura
+ */
+public class ${type}RTree {
+
+    /**
+     * 節点が持つスロットの最大数。
+     */
+    public static final int MAX_ENTRIES = 16;
+
+    /**
+     * 根以外の節点が持つスロットの最小数。
+     */
+    private static final int MIN_ENTRIES = 6;
+
+    /**
+     * 溢れた節点から強制再挿入するスロットの数。
+     */
+    private static final int REINSERT_COUNT = 5;
+
+    /**
+     * 節点の初期容量。
+     */
+    private static final int DEFAULT_NODE_CAPACITY = 16;
+
+    /**
+     * 節点やスロットが存在しないことを表す値。
+     */
+    private static final int NONE = -1;
+
+    /**
+     * 境界を一時的に計算するための予約されたスロット。（節点{@code 0}の先頭。）
+     */
+    private static final int SCRATCH = 0;
+    <#list 0..(dimension - 1) as i>
+
+    /**
+     * スロットごとの${dd.fields[i].display}の最小値。
+     */
+    private ${P}[] min${dd.fields[i].upper};
+
+    /**
+     * スロットごとの${dd.fields[i].display}の最大値。
+     */
+    private ${P}[] max${dd.fields[i].upper};
+    </#list>
+
+    /**
+     * スロットごとの子。葉では要素のID、それ以外では子の節点。
+     */
+    private int[] children;
+
+    /**
+     * 節点ごとの使用中のスロット数。
+     */
+    private int[] counts;
+
+    /**
+     * 節点ごとの高さ。葉は{@code 0}。
+     */
+    private int[] levels;
+
+    /**
+     * 節点ごとの親。解放済みの節点では次の空き節点。
+     */
+    private int[] parents;
+
+    /**
+     * 一度でも使った節点の数。
+     */
+    private int nodeCount;
+
+    /**
+     * 空き節点のリストの先頭。
+     */
+    private int freeNode;
+
+    /**
+     * 根。
+     */
+    private int root;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * 現在の挿入で強制再挿入を行った高さのビット集合。
+     */
+    private int reinsertedLevels;
+
+    /**
+     * コンストラクタ。
+     */
+    public ${type}RTree() {
+        allocateNodes(DEFAULT_NODE_CAPACITY);
+        clear();
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * 内部配列の大きさは変わりません。
+     */
+    public void clear() {
+        nodeCount = 1;
+        freeNode = NONE;
+        size = 0;
+        root = newNode(0);
+    }
+
+    /**
+     * 全ての要素を削除し、配列の先頭から指定した数の箱で索引を一括構築する。
+     *
+     * 各要素のIDは配列の添字になります。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 位置の${dd.fields[i].display}の配列。
+    </#list>
+    <#list 0..(dimension - 1) as i>
+     * @param ${sizeFields[i][1]} ${sizeFields[i][2]}の配列。
+    </#list>
+     * @param length 要素数。
+     */
+    public void load(<#list 0..(dimension - 1) as i>${P}[] ${dd.fields[i].lower}, </#list><#list 0..(dimension - 1) as i>${P}[] ${sizeFields[i][1]}, </#list>int length) {
+        if (length < 0<#list 0..(dimension - 1) as i> || ${dd.fields[i].lower}.length < length || ${sizeFields[i][1]}.length < length</#list>) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+        EntryList entries = new EntryList(length);
+        for (int i = 0; i < length; i++) {
+            checkSize(<#list 0..(dimension - 1) as i>${sizeFields[i][1]}[i]<#if i_has_next>, </#if></#list>);
+            entries.add(i, <#list 0..(dimension - 1) as i>${dd.fields[i].lower}[i], </#list><#list 0..(dimension - 1) as i>${dd.fields[i].lower}[i] + ${sizeFields[i][1]}[i]<#if i_has_next>, </#if></#list>, 0);
+        }
+        load(entries);
+    }
+
+    /**
+     * 全ての要素を削除し、配列の全ての箱で索引を一括構築する。
+     *
+     * 各要素のIDは配列の添字になります。
+     *
+     * @param ${dd.className.lower}s 位置の配列。
+     * @param sizes 大きさの配列。{@code ${dd.className.lower}s}と同じ長さ。
+     */
+    public void load(${pointType}[] ${dd.className.lower}s, ${sizeType}[] sizes) {
+        if (${dd.className.lower}s.length != sizes.length) {
+            throw new IllegalArgumentException("Arrays differ in length");
+        }
+        EntryList entries = new EntryList(${dd.className.lower}s.length);
+        for (int i = 0; i < ${dd.className.lower}s.length; i++) {
+            ${pointType} ${dd.className.lower} = ${dd.className.lower}s[i];
+            ${sizeType} size = sizes[i];
+            <#list 0..(dimension - 1) as i>
+            ${P} ${dd.fields[i].lower} = ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}();
+            </#list>
+            <#list 0..(dimension - 1) as i>
+            ${P} ${sizeFields[i][1]} = size.get${sizeFields[i][0]}As${p.name}();
+            </#list>
+            checkSize(<#list 0..(dimension - 1) as i>${sizeFields[i][1]}<#if i_has_next>, </#if></#list>);
+            entries.add(i, ${boundsFromBox}, 0);
+        }
+        load(entries);
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param id 要素のID。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 位置の${dd.fields[i].display}。
+    </#list>
+    <#list 0..(dimension - 1) as i>
+     * @param ${sizeFields[i][1]} ${sizeFields[i][2]}。
+    </#list>
+     */
+    public void insert(int id, ${boxParams}) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Illegal id: " + id);
+        }
+        checkSize(<#list 0..(dimension - 1) as i>${sizeFields[i][1]}<#if i_has_next>, </#if></#list>);
+        reinsertedLevels = 0;
+        insert(id, ${boundsFromBox}, 0);
+        size++;
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param id 要素のID。
+     * @param ${dd.className.lower} 位置。
+     * @param size 大きさ。
+     */
+    public void insert(int id, ${pointType} ${dd.className.lower}, ${sizeType} size) {
+        insert(id, ${pointSizeArgs});
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * 追加した時と同じIDと箱を指定します。
+     * 節点の要素数が下限を下回った場合は、その節点を取り除いて残りを再挿入します。
+     *
+     * @param id 要素のID。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 位置の${dd.fields[i].display}。
+    </#list>
+    <#list 0..(dimension - 1) as i>
+     * @param ${sizeFields[i][1]} ${sizeFields[i][2]}。
+    </#list>
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(int id, ${boxParams}) {
+        int slot = findEntry(root, id, ${boundsFromBox});
+        if (slot == NONE) {
+            return false;
+        }
+        int leaf = slot / MAX_ENTRIES;
+        removeSlot(leaf, slot);
+        condense(leaf);
+        size--;
+        return true;
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * @param id 要素のID。
+     * @param ${dd.className.lower} 位置。
+     * @param size 大きさ。
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(int id, ${pointType} ${dd.className.lower}, ${sizeType} size) {
+        return remove(id, ${pointSizeArgs});
+    }
+
+    /**
+     * 箱と交差する（境界の接触を含む）要素を探す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 位置の${dd.fields[i].display}。
+    </#list>
+    <#list 0..(dimension - 1) as i>
+     * @param ${sizeFields[i][1]} ${sizeFields[i][2]}。
+    </#list>
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchIntersecting(${boxParams}, IntConsumer action) {
+        return searchIntersecting(root, ${boundsFromBox}, Objects.requireNonNull(action));
+    }
+
+    /**
+     * 箱と交差する（境界の接触を含む）要素を探す。
+     *
+     * @param ${dd.className.lower} 位置。
+     * @param size 大きさ。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchIntersecting(${pointType} ${dd.className.lower}, ${sizeType} size, IntConsumer action) {
+        return searchIntersecting(${pointSizeArgs}, action);
+    }
+
+    /**
+     * 箱に含まれる要素を探す。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 位置の${dd.fields[i].display}。
+    </#list>
+    <#list 0..(dimension - 1) as i>
+     * @param ${sizeFields[i][1]} ${sizeFields[i][2]}。
+    </#list>
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchContained(${boxParams}, IntConsumer action) {
+        return searchContained(root, ${boundsFromBox}, Objects.requireNonNull(action));
+    }
+
+    /**
+     * 箱に含まれる要素を探す。
+     *
+     * @param ${dd.className.lower} 位置。
+     * @param size 大きさ。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchContained(${pointType} ${dd.className.lower}, ${sizeType} size, IntConsumer action) {
+        return searchContained(${pointSizeArgs}, action);
+    }
+
+    /**
+     * ${dd.concept}を含む要素を探す。（当たり判定。）
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchContaining(${pointParams}, IntConsumer action) {
+        return searchContaining(root, ${pointArgs}, Objects.requireNonNull(action));
+    }
+
+    /**
+     * ${dd.concept}を含む要素を探す。（当たり判定。）
+     *
+     * @param ${dd.className.lower} ${dd.concept}。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchContaining(${pointType} ${dd.className.lower}, IntConsumer action) {
+        return searchContaining(<#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}(), </#list>action);
+    }
+
+    /**
+     * ${dd.concept}に最も近い要素を探す。
+     *
+     * ${dd.concept}を含む箱の距離は{@code 0}です。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     * @return 最も近い要素のID。要素が存在しない場合は{@code -1}。
+     */
+    public int nearest(${pointParams}) {
+        int slot = searchNearest(root, ${pointArgs}, NONE);
+        return slot == NONE ? NONE : children[slot];
+    }
+
+    /**
+     * ${dd.concept}に最も近い要素を探す。
+     *
+     * @param ${dd.className.lower} ${dd.concept}。
+     * @return 最も近い要素のID。要素が存在しない場合は{@code -1}。
+     */
+    public int nearest(${pointType} ${dd.className.lower}) {
+        return nearest(<#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * ${dd.concept}に近い順に{@code k}個の要素を探す。
+     *
+     * 結果は距離の昇順に、配列の先頭から書き込みます。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     * @param k 探す要素数。
+     * @param resultIds 見つかった要素のIDの書き込み先。長さは{@code k}以上。
+     * @param resultDistancesSquared 見つかった要素までの距離の2乗の書き込み先。長さは{@code k}以上。
+     * @return 見つかった要素数。（{@code k}と要素数の小さい方。）
+     */
+    public int nearest(${pointParams}, int k, int[] resultIds, double[] resultDistancesSquared) {
+        if (k < 0 || resultIds.length < k || resultDistancesSquared.length < k) {
+            throw new IllegalArgumentException("Illegal k: " + k);
+        }
+        if (k == 0) {
+            return 0;
+        }
+        int count = searchNearest(root, ${pointArgs}, k, resultIds, resultDistancesSquared, 0);
+        // 最大ヒープを整列し、昇順にする
+        for (int end = count - 1; end > 0; end--) {
+            swap(resultIds, resultDistancesSquared, 0, end);
+            siftDown(resultIds, resultDistancesSquared, 0, end);
+        }
+        return count;
+    }
+
+    /**
+     * ${dd.concept}に近い順に{@code k}個の要素を探す。
+     *
+     * @param ${dd.className.lower} ${dd.concept}。
+     * @param k 探す要素数。
+     * @param resultIds 見つかった要素のIDの書き込み先。長さは{@code k}以上。
+     * @param resultDistancesSquared 見つかった要素までの距離の2乗の書き込み先。長さは{@code k}以上。
+     * @return 見つかった要素数。（{@code k}と要素数の小さい方。）
+     */
+    public int nearest(${pointType} ${dd.className.lower}, int k, int[] resultIds, double[] resultDistancesSquared) {
+        return nearest(<#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}(), </#list>k, resultIds, resultDistancesSquared);
+    }
+<#assign intersects = "">
+<#assign contained = "">
+<#assign containsPoint = "">
+<#assign containsBounds = "">
+<#assign equalsBounds = "">
+<#list 0..(dimension - 1) as i>
+<#assign u = dd.fields[i].upper>
+<#assign intersects = intersects + "min${u}[slot] <= upper${u} && max${u}[slot] >= lower${u}">
+<#assign contained = contained + "min${u}[slot] >= lower${u} && max${u}[slot] <= upper${u}">
+<#assign containsPoint = containsPoint + "min${u}[slot] <= ${dd.fields[i].lower} && max${u}[slot] >= ${dd.fields[i].lower}">
+<#assign containsBounds = containsBounds + "min${u}[slot] <= lower${u} && max${u}[slot] >= upper${u}">
+<#assign equalsBounds = equalsBounds + "min${u}[slot] == lower${u} && max${u}[slot] == upper${u}">
+<#if i_has_next>
+<#assign intersects = intersects + "\n                    && ">
+<#assign contained = contained + "\n                    && ">
+<#assign containsPoint = containsPoint + "\n                    && ">
+<#assign containsBounds = containsBounds + "\n                    && ">
+<#assign equalsBounds = equalsBounds + "\n                    && ">
+</#if>
+</#list>
+
+    private static void checkSize(<#list 0..(dimension - 1) as i>${P} ${sizeFields[i][1]}<#if i_has_next>, </#if></#list>) {
+        <#list 0..(dimension - 1) as i>
+        if (!(${sizeFields[i][1]} >= 0)) {
+            throw new IllegalArgumentException("Illegal ${sizeFields[i][1]}: " + ${sizeFields[i][1]});
+        }
+        </#list>
+    }
+
+    <#if P != "double">
+    /**
+     * 位置に大きさを加えて上端を求める。桁あふれする場合は{@code ${P}}の最小値か最大値に飽和させる。
+     */
+    private static ${P} upperBound(${P} position, ${P} size) {
+        <#if P == "int">
+        return (int) Math.max(Integer.MIN_VALUE, Math.min((long) position + size, Integer.MAX_VALUE));
+        <#else>
+        long sum = position + size;
+        if (((position ^ sum) & (size ^ sum)) < 0) {
+            return position < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return sum;
+        </#if>
+    }
+
+    </#if>
+    private void allocateNodes(int capacity) {
+        <#list 0..(dimension - 1) as i>
+        min${dd.fields[i].upper} = new ${P}[capacity * MAX_ENTRIES];
+        max${dd.fields[i].upper} = new ${P}[capacity * MAX_ENTRIES];
+        </#list>
+        children = new int[capacity * MAX_ENTRIES];
+        counts = new int[capacity];
+        levels = new int[capacity];
+        parents = new int[capacity];
+    }
+
+    private void growNodes() {
+        int capacity = counts.length + (counts.length >> 1);
+        <#list 0..(dimension - 1) as i>
+        min${dd.fields[i].upper} = Arrays.copyOf(min${dd.fields[i].upper}, capacity * MAX_ENTRIES);
+        max${dd.fields[i].upper} = Arrays.copyOf(max${dd.fields[i].upper}, capacity * MAX_ENTRIES);
+        </#list>
+        children = Arrays.copyOf(children, capacity * MAX_ENTRIES);
+        counts = Arrays.copyOf(counts, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+    }
+
+    private int newNode(int level) {
+        int node;
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = parents[node];
+        } else {
+            if (nodeCount == counts.length) {
+                growNodes();
+            }
+            node = nodeCount++;
+        }
+        counts[node] = 0;
+        levels[node] = level;
+        parents[node] = NONE;
+        return node;
+    }
+
+    private void releaseNode(int node) {
+        counts[node] = 0;
+        parents[node] = freeNode;
+        freeNode = node;
+    }
+
+    private void setSlot(int slot, int child, ${boundsParams}) {
+        children[slot] = child;
+        <#list 0..(dimension - 1) as i>
+        min${dd.fields[i].upper}[slot] = lower${dd.fields[i].upper};
+        max${dd.fields[i].upper}[slot] = upper${dd.fields[i].upper};
+        </#list>
+    }
+
+    private void copySlot(int from, int to) {
+        children[to] = children[from];
+        <#list 0..(dimension - 1) as i>
+        min${dd.fields[i].upper}[to] = min${dd.fields[i].upper}[from];
+        max${dd.fields[i].upper}[to] = max${dd.fields[i].upper}[from];
+        </#list>
+    }
+
+    /**
+     * 空きのある節点にスロットを追加する。
+     */
+    private void addEntry(int node, int child, ${boundsParams}) {
+        setSlot(node * MAX_ENTRIES + counts[node]++, child, ${boundsArgs});
+        if (levels[node] > 0) {
+            parents[child] = node;
+        }
+    }
+
+    private void removeSlot(int node, int slot) {
+        int last = node * MAX_ENTRIES + --counts[node];
+        if (slot != last) {
+            copySlot(last, slot);
+        }
+    }
+
+    private int slotOf(int parent, int node) {
+        int slot = parent * MAX_ENTRIES;
+        while (children[slot] != node) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * 節点の全てのスロットを囲む境界を指定したスロットに書き込む。
+     */
+    private void computeBounds(int node, int slot) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        <#list 0..(dimension - 1) as i>
+        ${P} lower${dd.fields[i].upper} = min${dd.fields[i].upper}[from];
+        ${P} upper${dd.fields[i].upper} = max${dd.fields[i].upper}[from];
+        </#list>
+        for (int i = from + 1; i < to; i++) {
+            <#list 0..(dimension - 1) as i>
+            lower${dd.fields[i].upper} = Math.min(lower${dd.fields[i].upper}, min${dd.fields[i].upper}[i]);
+            upper${dd.fields[i].upper} = Math.max(upper${dd.fields[i].upper}, max${dd.fields[i].upper}[i]);
+            </#list>
+        }
+        <#list 0..(dimension - 1) as i>
+        min${dd.fields[i].upper}[slot] = lower${dd.fields[i].upper};
+        max${dd.fields[i].upper}[slot] = upper${dd.fields[i].upper};
+        </#list>
+    }
+
+    /**
+     * 節点から根までの境界を、追加された境界を含むように広げる。
+     */
+    private void enlargeUpward(int node, ${boundsParams}) {
+        while (node != root) {
+            int parent = parents[node];
+            int slot = slotOf(parent, node);
+            if (${containsBounds}) {
+                return;
+            }
+            <#list 0..(dimension - 1) as i>
+            min${dd.fields[i].upper}[slot] = Math.min(min${dd.fields[i].upper}[slot], lower${dd.fields[i].upper});
+            max${dd.fields[i].upper}[slot] = Math.max(max${dd.fields[i].upper}[slot], upper${dd.fields[i].upper});
+            </#list>
+            node = parent;
+        }
+    }
+
+    /**
+     * 節点から根までの境界を計算し直す。
+     */
+    private void refreshUpward(int node) {
+        while (node != root) {
+            int parent = parents[node];
+            computeBounds(node, slotOf(parent, node));
+            node = parent;
+        }
+    }
+
+    private void insert(int child, ${boundsParams}, int level) {
+        int node = root;
+        while (levels[node] > level) {
+            node = children[chooseSubtree(node, ${boundsArgs})];
+        }
+        if (counts[node] < MAX_ENTRIES) {
+            addEntry(node, child, ${boundsArgs});
+            enlargeUpward(node, ${boundsArgs});
+        } else {
+            overflow(node, child, ${boundsArgs});
+        }
+    }
+
+    /**
+     * 境界を追加する子のスロットを選ぶ。
+     *
+     * 子が葉の場合は兄弟との重なりの増加が最小のものを、それ以外では面積の増加が最小のものを選びます。
+     */
+    private int chooseSubtree(int node, ${boundsParams}) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        boolean leafParent = levels[node] == 1;
+        int best = from;
+        double bestOverlap = Double.POSITIVE_INFINITY;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (int slot = from; slot < to; slot++) {
+            double area = 1;
+            double enlarged = 1;
+            <#list 0..(dimension - 1) as i>
+            <#assign u = dd.fields[i].upper>
+            ${P} grownLower${u} = Math.min(min${u}[slot], lower${u});
+            ${P} grownUpper${u} = Math.max(max${u}[slot], upper${u});
+            area *= ${widen}max${u}[slot] - min${u}[slot];
+            enlarged *= ${widen}grownUpper${u} - grownLower${u};
+            </#list>
+            double enlargement = enlarged - area;
+            double overlap = 0;
+            // 広げる必要がなければ重なりも増えない
+            if (leafParent && enlargement > 0) {
+                for (int other = from; other < to; other++) {
+                    if (other != slot) {
+                        overlap += overlap(other, <#list 0..(dimension - 1) as i>grownLower${dd.fields[i].upper}, </#list><#list 0..(dimension - 1) as i>grownUpper${dd.fields[i].upper}<#if i_has_next>, </#if></#list>)
+                                - overlap(other, <#list 0..(dimension - 1) as i>min${dd.fields[i].upper}[slot], </#list><#list 0..(dimension - 1) as i>max${dd.fields[i].upper}[slot]<#if i_has_next>, </#if></#list>);
+                    }
+                }
+            }
+            if (overlap < bestOverlap
+                    || overlap == bestOverlap && (enlargement < bestEnlargement
+                    || enlargement == bestEnlargement && area < bestArea)) {
+                best = slot;
+                bestOverlap = overlap;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * スロットと境界が重なる部分の面積を返す。
+     */
+    private double overlap(int slot, ${boundsParams}) {
+        double overlap = 1;
+        <#list 0..(dimension - 1) as i>
+        <#assign u = dd.fields[i].upper>
+        overlap *= Math.max(0, ${widen}Math.min(max${u}[slot], upper${u}) - Math.max(min${u}[slot], lower${u}));
+        </#list>
+        return overlap;
+    }
+
+    /**
+     * 満杯の節点への追加を、強制再挿入か分割で処理する。
+     *
+     * 強制再挿入は1回の挿入につき高さごとに1度だけ行います。
+     */
+    private void overflow(int node, int child, ${boundsParams}) {
+        int level = levels[node];
+        if (node != root && (reinsertedLevels & (1 << level)) == 0) {
+            reinsertedLevels |= 1 << level;
+            reinsert(node, child, ${boundsArgs});
+        } else {
+            split(node, child, ${boundsArgs});
+        }
+    }
+
+    private EntryList gather(int node, int child, ${boundsParams}) {
+        EntryList entries = new EntryList(MAX_ENTRIES + 1);
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        for (int slot = from; slot < to; slot++) {
+            entries.add(children[slot], <#list 0..(dimension - 1) as i>min${dd.fields[i].upper}[slot], </#list><#list 0..(dimension - 1) as i>max${dd.fields[i].upper}[slot]<#if i_has_next>, </#if></#list>, 0);
+        }
+        entries.add(child, ${boundsArgs}, 0);
+        return entries;
+    }
+
+    /**
+     * 節点の中心から遠いスロットを取り除き、挿入し直す。
+     */
+    private void reinsert(int node, int child, ${boundsParams}) {
+        int level = levels[node];
+        EntryList entries = gather(node, child, ${boundsArgs});
+        int count = entries.count;
+        <#list 0..(dimension - 1) as i>
+        <#assign u = dd.fields[i].upper>
+        double center${u} = 0;
+        </#list>
+        for (int i = 0; i < count; i++) {
+            <#list 0..(dimension - 1) as i>
+            center${dd.fields[i].upper} += entries.center(i, ${i});
+            </#list>
+        }
+        int[] order = new int[count];
+        double[] keys = new double[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            <#list 0..(dimension - 1) as i>
+            double d${dd.fields[i].upper} = entries.center(i, ${i}) - center${dd.fields[i].upper} / count;
+            </#list>
+            keys[i] = <#list 0..(dimension - 1) as i>d${dd.fields[i].upper} * d${dd.fields[i].upper}<#if i_has_next> + </#if></#list>;
+        }
+        sort(order, keys, 0, count);
+
+        int keep = count - REINSERT_COUNT;
+        counts[node] = 0;
+        for (int i = 0; i < keep; i++) {
+            entries.addTo(this, node, order[i]);
+        }
+        refreshUpward(node);
+        // 中心に近いものから挿入し直す
+        for (int i = keep; i < count; i++) {
+            int e = order[i];
+            insert(entries.children[e], <#list 0..(dimension - 1) as i>entries.min${dd.fields[i].upper}[e], </#list><#list 0..(dimension - 1) as i>entries.max${dd.fields[i].upper}[e]<#if i_has_next>, </#if></#list>, level);
+        }
+    }
+
+    /**
+     * 節点を2つに分割し、新しい節点を親に追加する。
+     */
+    private void split(int node, int child, ${boundsParams}) {
+        int level = levels[node];
+        EntryList entries = gather(node, child, ${boundsArgs});
+        int[] order = new int[entries.count];
+        int splitIndex = entries.chooseSplit(order);
+
+        int sibling = newNode(level);
+        counts[node] = 0;
+        for (int i = 0; i < splitIndex; i++) {
+            entries.addTo(this, node, order[i]);
+        }
+        for (int i = splitIndex; i < entries.count; i++) {
+            entries.addTo(this, sibling, order[i]);
+        }
+
+        if (node == root) {
+            int newRoot = newNode(level + 1);
+            computeBounds(node, SCRATCH);
+            addEntry(newRoot, node, ${scratchArgs});
+            computeBounds(sibling, SCRATCH);
+            addEntry(newRoot, sibling, ${scratchArgs});
+            root = newRoot;
+            return;
+        }
+        int parent = parents[node];
+        computeBounds(node, slotOf(parent, node));
+        computeBounds(sibling, SCRATCH);
+        if (counts[parent] < MAX_ENTRIES) {
+            addEntry(parent, sibling, ${scratchArgs});
+            refreshUpward(parent);
+        } else {
+            overflow(parent, sibling, ${scratchArgs});
+        }
+    }
+
+    private int findEntry(int node, int id, ${boundsParams}) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        if (levels[node] == 0) {
+            for (int slot = from; slot < to; slot++) {
+                if (children[slot] == id
+                        && ${equalsBounds}) {
+                    return slot;
+                }
+            }
+        } else {
+            for (int slot = from; slot < to; slot++) {
+                if (${containsBounds}) {
+                    int found = findEntry(children[slot], id, ${boundsArgs});
+                    if (found != NONE) {
+                        return found;
+                    }
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 要素を削除した葉から根まで、下限を下回った節点を取り除いて境界を縮め、取り除いた節点のスロットを挿入し直す。
+     */
+    private void condense(int node) {
+        EntryList orphans = null;
+        while (node != root) {
+            int parent = parents[node];
+            int slot = slotOf(parent, node);
+            if (counts[node] < MIN_ENTRIES) {
+                if (orphans == null) {
+                    orphans = new EntryList(MAX_ENTRIES);
+                }
+                int from = node * MAX_ENTRIES;
+                int to = from + counts[node];
+                for (int s = from; s < to; s++) {
+                    orphans.add(children[s], <#list 0..(dimension - 1) as i>min${dd.fields[i].upper}[s], </#list><#list 0..(dimension - 1) as i>max${dd.fields[i].upper}[s]<#if i_has_next>, </#if></#list>, levels[node]);
+                }
+                removeSlot(parent, slot);
+                releaseNode(node);
+            } else {
+                computeBounds(node, slot);
+            }
+            node = parent;
+        }
+        if (levels[root] > 0 && counts[root] == 1) {
+            int oldRoot = root;
+            root = children[oldRoot * MAX_ENTRIES];
+            parents[root] = NONE;
+            releaseNode(oldRoot);
+        }
+        if (orphans != null) {
+            // 再挿入中は強制再挿入を行わない
+            reinsertedLevels = -1;
+            for (int i = 0; i < orphans.count; i++) {
+                insert(orphans.children[i], <#list 0..(dimension - 1) as i>orphans.min${dd.fields[i].upper}[i], </#list><#list 0..(dimension - 1) as i>orphans.max${dd.fields[i].upper}[i]<#if i_has_next>, </#if></#list>, orphans.levels[i]);
+            }
+        }
+    }
+
+    private int searchIntersecting(int node, ${boundsParams}, IntConsumer action) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        int found = 0;
+        if (levels[node] == 0) {
+            for (int slot = from; slot < to; slot++) {
+                if (${intersects}) {
+                    action.accept(children[slot]);
+                    found++;
+                }
+            }
+        } else {
+            for (int slot = from; slot < to; slot++) {
+                if (${intersects}) {
+                    found += searchIntersecting(children[slot], ${boundsArgs}, action);
+                }
+            }
+        }
+        return found;
+    }
+
+    private int searchContained(int node, ${boundsParams}, IntConsumer action) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        int found = 0;
+        if (levels[node] == 0) {
+            for (int slot = from; slot < to; slot++) {
+                if (${contained}) {
+                    action.accept(children[slot]);
+                    found++;
+                }
+            }
+        } else {
+            for (int slot = from; slot < to; slot++) {
+                if (${intersects}) {
+                    found += searchContained(children[slot], ${boundsArgs}, action);
+                }
+            }
+        }
+        return found;
+    }
+
+    private int searchContaining(int node, ${pointParams}, IntConsumer action) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        int found = 0;
+        if (levels[node] == 0) {
+            for (int slot = from; slot < to; slot++) {
+                if (${containsPoint}) {
+                    action.accept(children[slot]);
+                    found++;
+                }
+            }
+        } else {
+            for (int slot = from; slot < to; slot++) {
+                if (${containsPoint}) {
+                    found += searchContaining(children[slot], ${pointArgs}, action);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * スロットの境界と${dd.concept}の距離の2乗を返す。
+     */
+    private double distanceSquared(int slot, ${pointParams}) {
+        <#list 0..(dimension - 1) as i>
+        <#assign u = dd.fields[i].upper>
+        <#assign l = dd.fields[i].lower>
+        double d${u} = Math.max(0, Math.max(${widen}min${u}[slot] - ${l}, ${widen}${l} - max${u}[slot]));
+        </#list>
+        return <#list 0..(dimension - 1) as i>d${dd.fields[i].upper} * d${dd.fields[i].upper}<#if i_has_next> + </#if></#list>;
+    }
+
+    /**
+     * 最も近い要素のスロットを探す。
+     */
+    private int searchNearest(int node, ${pointParams}, int best) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        boolean leaf = levels[node] == 0;
+        double bestDistance = best == NONE ? Double.POSITIVE_INFINITY : distanceSquared(best, ${pointArgs});
+        for (int slot = from; slot < to; slot++) {
+            double d = distanceSquared(slot, ${pointArgs});
+            if (d < bestDistance) {
+                if (leaf) {
+                    best = slot;
+                    bestDistance = d;
+                } else {
+                    int candidate = searchNearest(children[slot], ${pointArgs}, best);
+                    if (candidate != best) {
+                        best = candidate;
+                        bestDistance = distanceSquared(best, ${pointArgs});
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 近い要素を最大ヒープに集める。
+     */
+    private int searchNearest(int node, ${pointParams}, int k, int[] ids, double[] distances, int count) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        boolean leaf = levels[node] == 0;
+        for (int slot = from; slot < to; slot++) {
+            double d = distanceSquared(slot, ${pointArgs});
+            if (count == k && d >= distances[0]) {
+                continue;
+            }
+            if (!leaf) {
+                count = searchNearest(children[slot], ${pointArgs}, k, ids, distances, count);
+            } else if (count < k) {
+                ids[count] = children[slot];
+                distances[count] = d;
+                siftUp(ids, distances, count++);
+            } else {
+                ids[0] = children[slot];
+                distances[0] = d;
+                siftDown(ids, distances, 0, count);
+            }
+        }
+        return count;
+    }
+
+    private static void siftUp(int[] ids, double[] distances, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (distances[parent] >= distances[index]) {
+                return;
+            }
+            swap(ids, distances, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] ids, double[] distances, int index, int count) {
+        while (true) {
+            int child = (index << 1) + 1;
+            if (child >= count) {
+                return;
+            }
+            if (child + 1 < count && distances[child + 1] > distances[child]) {
+                child++;
+            }
+            if (distances[index] >= distances[child]) {
+                return;
+            }
+            swap(ids, distances, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] ids, double[] distances, int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+    }
+
+    /**
+     * STR法で索引を構築する。
+     */
+    private void load(EntryList entries) {
+        clear();
+        int total = entries.count;
+        int level = 0;
+        while (entries.count > MAX_ENTRIES) {
+            int count = entries.count;
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            tile(entries, order, new double[count], 0, count, 0);
+
+            EntryList parentEntries = new EntryList((count + MAX_ENTRIES - 1) / MAX_ENTRIES);
+            for (int start = 0; start < count; start += MAX_ENTRIES) {
+                int node = newNode(level);
+                int end = Math.min(start + MAX_ENTRIES, count);
+                for (int i = start; i < end; i++) {
+                    entries.addTo(this, node, order[i]);
+                }
+                computeBounds(node, SCRATCH);
+                parentEntries.add(node, ${scratchArgs}, 0);
+            }
+            entries = parentEntries;
+            level++;
+        }
+        levels[root] = level;
+        for (int i = 0; i < entries.count; i++) {
+            entries.addTo(this, root, i);
+        }
+        size = total;
+    }
+
+    /**
+     * 範囲の要素を軸ごとの中心で整列し、{@link #MAX_ENTRIES}個ずつの組がまとまるようにスライスへ分ける。
+     */
+    private static void tile(EntryList entries, int[] order, double[] keys, int from, int to, int axis) {
+        for (int i = from; i < to; i++) {
+            keys[i] = entries.center(order[i], axis);
+        }
+        sort(order, keys, from, to);
+        if (axis == ${dimension - 1}) {
+            return;
+        }
+        int pages = (to - from + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        int slices = (int) Math.ceil(Math.pow(pages, 1.0 / (${dimension} - axis)));
+        int sliceSize = MAX_ENTRIES * ((pages + slices - 1) / slices);
+        for (int start = from; start < to; start += sliceSize) {
+            tile(entries, order, keys, start, Math.min(start + sliceSize, to), axis + 1);
+        }
+    }
+
+    /**
+     * キーの昇順に、キーと添字を並べ替える。
+     */
+    private static void sort(int[] order, double[] keys, int from, int to) {
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            // 3つの中央値を枢軸にする
+            if (keys[middle] < keys[from]) {
+                swap(order, keys, middle, from);
+            }
+            if (keys[to - 1] < keys[from]) {
+                swap(order, keys, to - 1, from);
+            }
+            if (keys[to - 1] < keys[middle]) {
+                swap(order, keys, to - 1, middle);
+            }
+            double pivot = keys[middle];
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(order, keys, i++, j--);
+                }
+            }
+            // 小さい方を再帰し、大きい方を繰り返す
+            if (j + 1 - from < to - i) {
+                sort(order, keys, from, j + 1);
+                from = i;
+            } else {
+                sort(order, keys, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            int index = order[i];
+            double key = keys[i];
+            int j = i - 1;
+            while (j >= from && keys[j] > key) {
+                order[j + 1] = order[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            order[j + 1] = index;
+            keys[j + 1] = key;
+        }
+    }
+
+    /**
+     * 節点の外で一時的に保持するスロットの列。
+     */
+    private static final class EntryList {
+
+        int[] children;
+        <#list 0..(dimension - 1) as i>
+        ${P}[] min${dd.fields[i].upper};
+        ${P}[] max${dd.fields[i].upper};
+        </#list>
+        int[] levels;
+        int count;
+
+        EntryList(int capacity) {
+            capacity = Math.max(capacity, 1);
+            children = new int[capacity];
+            <#list 0..(dimension - 1) as i>
+            min${dd.fields[i].upper} = new ${P}[capacity];
+            max${dd.fields[i].upper} = new ${P}[capacity];
+            </#list>
+            levels = new int[capacity];
+        }
+
+        void add(int child, ${boundsParams}, int level) {
+            if (count == children.length) {
+                int capacity = count + (count >> 1) + 1;
+                children = Arrays.copyOf(children, capacity);
+                <#list 0..(dimension - 1) as i>
+                min${dd.fields[i].upper} = Arrays.copyOf(min${dd.fields[i].upper}, capacity);
+                max${dd.fields[i].upper} = Arrays.copyOf(max${dd.fields[i].upper}, capacity);
+                </#list>
+                levels = Arrays.copyOf(levels, capacity);
+            }
+            children[count] = child;
+            <#list 0..(dimension - 1) as i>
+            min${dd.fields[i].upper}[count] = lower${dd.fields[i].upper};
+            max${dd.fields[i].upper}[count] = upper${dd.fields[i].upper};
+            </#list>
+            levels[count] = level;
+            count++;
+        }
+
+        void addTo(${type}RTree tree, int node, int i) {
+            tree.addEntry(node, children[i], <#list 0..(dimension - 1) as i>min${dd.fields[i].upper}[i], </#list><#list 0..(dimension - 1) as i>max${dd.fields[i].upper}[i]<#if i_has_next>, </#if></#list>);
+        }
+
+        double lower(int i, int axis) {
+            return <#list 0..(dimension - 2) as i>axis == ${i} ? min${dd.fields[i].upper}[i] : </#list>min${dd.fields[dimension - 1].upper}[i];
+        }
+
+        double upper(int i, int axis) {
+            return <#list 0..(dimension - 2) as i>axis == ${i} ? max${dd.fields[i].upper}[i] : </#list>max${dd.fields[dimension - 1].upper}[i];
+        }
+
+        double center(int i, int axis) {
+            return (lower(i, axis) + upper(i, axis)) * 0.5;
+        }
+
+        /**
+         * R*木の方法で分割を選ぶ。
+         *
+         * 周長の合計が最小の軸を選び、その軸で重なりが最小（同じなら面積の合計が最小）の分け方を選びます。
+         * {@code order}は選んだ順に並べ替えられ、先頭から戻り値の数だけが1つ目の組になります。
+         */
+        int chooseSplit(int[] order) {
+            double[] keys = new double[count];
+            int bestAxis = 0;
+            double bestMargin = Double.POSITIVE_INFINITY;
+            for (int axis = 0; axis < ${dimension}; axis++) {
+                double margin = 0;
+                for (int side = 0; side < 2; side++) {
+                    sortAlong(order, keys, axis, side == 1);
+                    for (int k = MIN_ENTRIES; k <= count - MIN_ENTRIES; k++) {
+                        margin += margin(bounds(order, 0, k)) + margin(bounds(order, k, count));
+                    }
+                }
+                if (margin < bestMargin) {
+                    bestMargin = margin;
+                    bestAxis = axis;
+                }
+            }
+
+            int bestSide = 0;
+            int bestIndex = MIN_ENTRIES;
+            double bestOverlap = Double.POSITIVE_INFINITY;
+            double bestArea = Double.POSITIVE_INFINITY;
+            for (int side = 0; side < 2; side++) {
+                sortAlong(order, keys, bestAxis, side == 1);
+                for (int k = MIN_ENTRIES; k <= count - MIN_ENTRIES; k++) {
+                    double[] first = bounds(order, 0, k);
+                    double[] second = bounds(order, k, count);
+                    double overlap = 1;
+                    for (int axis = 0; axis < ${dimension}; axis++) {
+                        overlap *= Math.max(0, Math.min(first[axis + ${dimension}], second[axis + ${dimension}])
+                                - Math.max(first[axis], second[axis]));
+                    }
+                    double area = area(first) + area(second);
+                    if (overlap < bestOverlap || overlap == bestOverlap && area < bestArea) {
+                        bestOverlap = overlap;
+                        bestArea = area;
+                        bestSide = side;
+                        bestIndex = k;
+                    }
+                }
+            }
+            sortAlong(order, keys, bestAxis, bestSide == 1);
+            return bestIndex;
+        }
+
+        private void sortAlong(int[] order, double[] keys, int axis, boolean byUpper) {
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+                keys[i] = byUpper ? upper(i, axis) : lower(i, axis);
+            }
+            sort(order, keys, 0, count);
+        }
+
+        /**
+         * 組を囲む境界を、各軸の最小値、各軸の最大値の順に返す。
+         */
+        private double[] bounds(int[] order, int from, int to) {
+            double[] bounds = new double[${dimension * 2}];
+            for (int axis = 0; axis < ${dimension}; axis++) {
+                bounds[axis] = Double.POSITIVE_INFINITY;
+                bounds[axis + ${dimension}] = Double.NEGATIVE_INFINITY;
+            }
+            for (int i = from; i < to; i++) {
+                int e = order[i];
+                for (int axis = 0; axis < ${dimension}; axis++) {
+                    bounds[axis] = Math.min(bounds[axis], lower(e, axis));
+                    bounds[axis + ${dimension}] = Math.max(bounds[axis + ${dimension}], upper(e, axis));
+                }
+            }
+            return bounds;
+        }
+
+        private static double margin(double[] bounds) {
+            double margin = 0;
+            for (int axis = 0; axis < ${dimension}; axis++) {
+                margin += bounds[axis + ${dimension}] - bounds[axis];
+            }
+            return margin;
+        }
+
+        private static double area(double[] bounds) {
+            double area = 1;
+            for (int axis = 0; axis < ${dimension}; axis++) {
+                area *= bounds[axis + ${dimension}] - bounds[axis];
+            }
+            return area;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaConcurrent};
+<#assign type = "${p.name}${dd.className.upper}${dimension}">
+<#assign P = p.primitive>
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
+import ${packageLevel.java}.Bare${type};
+import ${packageLevel.java}.${type};
+import ${packageLevel.java}.Mutable${type};
+
+/**
+ * 複数のスレッドから加算される{@link ${type}}の合計を保持する。
+ *
+ * {@link java.util.concurrent.atomic.${p.name}Adder}と同様に、加算が競合すると表のセルを増やし、スレッドごとに異なるセルへ分散して加算します。
+ * セルの数はプロセッサ数以上の最小の2の累乗まで増え、合計は{@link #sumInto(Mutable${type})}で全てのセルを足して求めます。
+ * 各セルは前後に128バイトの詰め物を持つ配列で、異なるセルの値が同じキャッシュラインに載らない（偽共有しない）ようにしています。
+ * セルを増やす時を除き、加算でインスタンスを生成しません。
+ *
+ * 成分ごとの加算はそれぞれ不可分ですが、全ての成分への加算を1つの操作として不可分に行うわけではありません。
+ * 加算と並行して合計を求めると、一部の成分だけが反映された加算を含むことがあるため、加算が全て終わってから合計を求めてください。
+<#if P == "double">
+ * また、浮動小数点数の加算は結合的でないため、合計は加算の順序によってわずかに異なることがあります。
+</#if>
+ *
+ * @author misakura
+ */
+public class ${type}Adder {
+
+    private static final AtomicIntegerFieldUpdater<${type}Adder> BUSY = AtomicIntegerFieldUpdater.newUpdater(${type}Adder.class, "busy");
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = ${dimension};
+
+    /**
+     * セルの配列の前後に置く詰め物の要素数。
+     */
+    private static final int PADDING = 16;
+
+    /**
+     * セルの配列の長さ。
+     */
+    private static final int CELL_LENGTH = PADDING * 2 + DIMENSION;
+
+    /**
+     * セルの最大数。
+     */
+    private static final int MAX_CELLS = maxCells();
+
+    /**
+     * セルの表。長さは2の累乗で、まだ作っていないセルは{@code null}です。
+     *
+     * セルは成分の値<#if P == "double">のビット列</#if>を添字{@link #PADDING}から順に持ちます。
+     */
+    private volatile AtomicLongArray[] cells = {new AtomicLongArray(CELL_LENGTH)};
+
+    /**
+     * セルの表を変更中の場合は{@code 1}。
+     */
+    private volatile int busy;
+
+    /**
+     * コンストラクタ。
+     *
+     * 合計は{@code 0}です。
+     */
+    public ${type}Adder() {
+    }
+
+    /**
+     * 値を加算する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 加算する${dd.fields[i].display}。
+    </#list>
+     */
+    public void add(<#list 0..(dimension - 1) as i>${P} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        AtomicLongArray[] cells = this.cells;
+        AtomicLongArray cell = cells.length == 1 ? cells[0] : cells[StripedProbe.current()[0] & (cells.length - 1)];
+        if (cell == null || !tryAdd(cell, <#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>)) {
+            addContended(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+        }
+    }
+
+    /**
+     * ${dd.concept}を加算する。
+     *
+     * @param ${dd.className.lower} 加算する${dd.concept}。
+     */
+    public void add(${type} ${dd.className.lower}) {
+        add(<#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 合計を求めて格納する。
+     *
+     * @param destination 合計の格納先。
+     */
+    public void sumInto(Mutable${type} destination) {
+        <#list 0..(dimension - 1) as i>
+        ${P} ${dd.fields[i].lower} = 0;
+        </#list>
+        for (AtomicLongArray cell : cells) {
+            if (cell != null) {
+                <#list 0..(dimension - 1) as i>
+                ${dd.fields[i].lower} += <#if P == "double">Double.longBitsToDouble(cell.get(PADDING + ${i}))<#else>cell.get(PADDING + ${i})</#if>;
+                </#list>
+            }
+        }
+        destination.set(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 合計を求めて格納し、合計を{@code 0}に戻す。
+     *
+     * 並行して加算された値は、格納した合計と戻した後の合計のどちらか一方に含まれます。
+     *
+     * @param destination 合計の格納先。
+     */
+    public void sumThenReset(Mutable${type} destination) {
+        <#list 0..(dimension - 1) as i>
+        ${P} ${dd.fields[i].lower} = 0;
+        </#list>
+        for (AtomicLongArray cell : cells) {
+            if (cell != null) {
+                <#list 0..(dimension - 1) as i>
+                ${dd.fields[i].lower} += <#if P == "double">Double.longBitsToDouble(cell.getAndSet(PADDING + ${i}, 0))<#else>cell.getAndSet(PADDING + ${i}, 0)</#if>;
+                </#list>
+            }
+        }
+        destination.set(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 合計を{@code 0}に戻す。
+     *
+     * 並行して加算された値が残ることがあります。
+     */
+    public void reset() {
+        for (AtomicLongArray cell : cells) {
+            if (cell != null) {
+                for (int i = PADDING; i < PADDING + DIMENSION; i++) {
+                    cell.set(i, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * この加算器の文字列表現を返す。
+     *
+     * {@link #sumInto(Mutable${type})}で求めた合計を、{@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        Bare${type} sum = new Bare${type}();
+        sumInto(sum);
+        return new StringBuilder(${(32 + dimension * 24)?c})
+                .append("${type}Adder[")
+                <#list 0..(dimension - 1) as i>
+                .append("<#if i != 0>,</#if>${dd.fields[i].lower}=").append(sum.${dd.fields[i].lower})
+                </#list>
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * 競合を検出した場合の加算。セルを作るか、表を広げるか、別のセルを選び直して再試行する。
+     */
+    private void addContended(<#list 0..(dimension - 1) as i>${P} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        int[] probe = StripedProbe.current();
+        for (;;) {
+            AtomicLongArray[] cells = this.cells;
+            int length = cells.length;
+            int index = probe[0] & (length - 1);
+            AtomicLongArray cell = cells[index];
+            if (cell == null) {
+                if (busy == 0 && BUSY.compareAndSet(this, 0, 1)) {
+                    try {
+                        if (this.cells == cells && cells[index] == null) {
+                            cells[index] = new AtomicLongArray(CELL_LENGTH);
+                        }
+                    } finally {
+                        busy = 0;
+                    }
+                    continue;
+                }
+            } else if (tryAdd(cell, <#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>)) {
+                return;
+            } else if (length < MAX_CELLS && busy == 0 && BUSY.compareAndSet(this, 0, 1)) {
+                try {
+                    if (this.cells == cells) {
+                        this.cells = Arrays.copyOf(cells, length << 1);
+                    }
+                } finally {
+                    busy = 0;
+                }
+            }
+            StripedProbe.advance(probe);
+        }
+    }
+
+    /**
+     * セルへ加算する。
+     *
+     * 最初の成分の比較交換に失敗した場合は、何も加算せずに{@code false}を返します。
+     */
+    private static boolean tryAdd(AtomicLongArray cell, <#list 0..(dimension - 1) as i>${P} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        long current = cell.get(PADDING);
+        if (!cell.compareAndSet(PADDING, current, <#if P == "double">Double.doubleToRawLongBits(Double.longBitsToDouble(current) + ${dd.fields[0].lower})<#else>current + ${dd.fields[0].lower}</#if>)) {
+            return false;
+        }
+        <#list 1..(dimension - 1) as i>
+        <#if P == "double">
+        add(cell, PADDING + ${i}, ${dd.fields[i].lower});
+        <#else>
+        cell.getAndAdd(PADDING + ${i}, ${dd.fields[i].lower});
+        </#if>
+        </#list>
+        return true;
+    }
+<#if P == "double">
+
+    private static void add(AtomicLongArray cell, int index, double value) {
+        for (;;) {
+            long current = cell.get(index);
+            if (cell.compareAndSet(index, current, Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value))) {
+                return;
+            }
+        }
+    }
+</#if>
+
+    private static int maxCells() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return processors <= 1 ? 1 : Integer.highestOneBit(processors - 1) << 1;
+    }
+}
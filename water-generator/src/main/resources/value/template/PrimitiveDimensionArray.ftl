@@ -0,0 +1,569 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaArray};
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.${p.name}BinaryOperator;
+import java.util.function.${p.name}UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import ${packageLevel.java}.${p.name}${dd.className.upper}${dimension};
+import ${packageLevel.java}.Mutable${p.name}${dd.className.upper}${dimension};
+import ${packageLevel.java}.Mutable${p.name}${dd.className.upper}${dimension}Trait;
+import ${packageLevel.java}.helper.PrimitiveArrayOperations;
+
+/**
+ * 多数の{@link ${p.name}${dd.className.upper}${dimension}}を、次元ごとのプリミティブ配列で保持する可変長のコンテナ。
+ *
+ * 要素ごとにオブジェクトを生成しないため、オブジェクトヘッダや参照の分だけメモリを節約でき、走査時のキャッシュ効率も良くなります。
+ * インターフェース経由で操作する場合は、添字を切り替えて使い回せる{@link Cursor}を使います。
+ * 速度が必要な箇所では、{@link #get${dd.fields[0].upper}Array()}などで内部配列を直接走査できます。
+ *
+ * @author misakura
+ */
+public class ${p.name}${dd.className.upper}${dimension}Array {
+
+    /**
+     * 容量を指定しなかった場合の初期容量。
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+    <#list 0..(dimension - 1) as i>
+
+    /**
+     * ${dd.fields[i].display}の配列。
+     */
+    private ${p.primitive}[] ${dd.fields[i].lower};
+    </#list>
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     */
+    public ${p.name}${dd.className.upper}${dimension}Array() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param initialCapacity 初期容量。
+     */
+    public ${p.name}${dd.className.upper}${dimension}Array(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        <#list 0..(dimension - 1) as i>
+        this.${dd.fields[i].lower} = new ${p.primitive}[initialCapacity];
+        </#list>
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 内部配列を拡張せずに格納できる要素数を返す。
+     *
+     * @return 容量。
+     */
+    public int capacity() {
+        return ${dd.fields[0].lower}.length;
+    }
+
+    /**
+     * 少なくとも指定した要素数を格納できるよう、必要に応じて内部配列を拡張する。
+     *
+     * @param minCapacity 必要な容量。
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required capacity overflow");
+        }
+        int oldCapacity = ${dd.fields[0].lower}.length;
+        if (minCapacity <= oldCapacity) {
+            return;
+        }
+        int newCapacity = Math.max(oldCapacity + (oldCapacity >> 1), DEFAULT_CAPACITY);
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = minCapacity;
+        }
+        <#list 0..(dimension - 1) as i>
+        ${dd.fields[i].lower} = Arrays.copyOf(${dd.fields[i].lower}, newCapacity);
+        </#list>
+    }
+
+    /**
+     * 内部配列の容量を現在の要素数まで縮小する。
+     */
+    public void trimToSize() {
+        if (size < ${dd.fields[0].lower}.length) {
+            <#list 0..(dimension - 1) as i>
+            ${dd.fields[i].lower} = Arrays.copyOf(${dd.fields[i].lower}, size);
+            </#list>
+        }
+    }
+
+    /**
+     * 全ての要素を取り除く。
+     *
+     * 内部配列の容量はそのまま残ります。
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 要素数を変更する。
+     *
+     * 要素数を増やした場合、追加された要素の全ての次元は{@code 0}になります。
+     *
+     * @param newSize 新しい要素数。
+     */
+    public void resize(int newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + newSize);
+        }
+        ensureCapacity(newSize);
+        if (newSize > size) {
+            <#list 0..(dimension - 1) as i>
+            Arrays.fill(${dd.fields[i].lower}, size, newSize, 0);
+            </#list>
+        }
+        size = newSize;
+    }
+
+    /**
+     * 末尾に要素を追加する。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     * @return 追加した要素の添字。
+     */
+    public int add(<#list 0..(dimension - 1) as i>${p.primitive} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        int index = size;
+        ensureCapacity(index + 1);
+        <#list 0..(dimension - 1) as i>
+        this.${dd.fields[i].lower}[index] = ${dd.fields[i].lower};
+        </#list>
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * 末尾に要素を追加する。
+     *
+     * @param ${dd.className.lower} 追加する値を取得する${dd.concept}。
+     * @return 追加した要素の添字。
+     */
+    public int add(${p.name}${dd.className.upper}${dimension} ${dd.className.lower}) {
+        return add(<#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 末尾に複数の要素を追加する。
+     *
+     * 各配列の{@code offset}から{@code length}個の値をまとめて複写します。
+     *
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}の配列。
+    </#list>
+     * @param offset 複写を開始する各配列の位置。
+     * @param length 追加する要素数。
+     */
+    public void addAll(<#list 0..(dimension - 1) as i>${p.primitive}[] ${dd.fields[i].lower}, </#list>int offset, int length) {
+        int index = size;
+        ensureCapacity(index + length);
+        <#list 0..(dimension - 1) as i>
+        System.arraycopy(${dd.fields[i].lower}, offset, this.${dd.fields[i].lower}, index, length);
+        </#list>
+        size = index + length;
+    }
+
+    /**
+     * 末尾に他のコンテナの全ての要素を追加する。
+     *
+     * @param array 追加する要素を持つコンテナ。
+     */
+    public void addAll(${p.name}${dd.className.upper}${dimension}Array array) {
+        addAll(<#list 0..(dimension - 1) as i>array.${dd.fields[i].lower}, </#list>0, array.size);
+    }
+
+    /**
+     * 末尾に複数の要素を追加する。
+     *
+     * @param ${dd.className.lower}s 追加する値を取得する${dd.concept}の配列。
+     */
+    public void addAll(${p.name}${dd.className.upper}${dimension}[] ${dd.className.lower}s) {
+        int index = size;
+        ensureCapacity(index + ${dd.className.lower}s.length);
+        for (${p.name}${dd.className.upper}${dimension} ${dd.className.lower} : ${dd.className.lower}s) {
+            <#list 0..(dimension - 1) as i>
+            this.${dd.fields[i].lower}[index] = ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}();
+            </#list>
+            index++;
+        }
+        size = index;
+    }
+    <#list 0..(dimension - 1) as i>
+
+    /**
+     * 指定した要素の${dd.fields[i].display}を返す。
+     *
+     * @param index 要素の添字。
+     * @return ${dd.fields[i].display}。
+     */
+    public ${p.primitive} get${dd.fields[i].upper}(int index) {
+        checkIndex(index);
+        return ${dd.fields[i].lower}[index];
+    }
+    </#list>
+    <#list 0..(dimension - 1) as i>
+
+    /**
+     * 指定した要素の${dd.fields[i].display}を設定する。
+     *
+     * @param index 要素の添字。
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+     */
+    public void set${dd.fields[i].upper}(int index, ${p.primitive} ${dd.fields[i].lower}) {
+        checkIndex(index);
+        this.${dd.fields[i].lower}[index] = ${dd.fields[i].lower};
+    }
+    </#list>
+
+    /**
+     * 指定した要素の全ての次元に値を設定する。
+     *
+     * @param index 要素の添字。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     */
+    public void set(int index, <#list 0..(dimension - 1) as i>${p.primitive} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        checkIndex(index);
+        <#list 0..(dimension - 1) as i>
+        this.${dd.fields[i].lower}[index] = ${dd.fields[i].lower};
+        </#list>
+    }
+
+    /**
+     * 他の${dd.concept}インスタンスから全ての次元の値を取得し、指定した要素へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param ${dd.className.lower} 設定値を取得する${dd.concept}。
+     */
+    public void set(int index, ${p.name}${dd.className.upper}${dimension} ${dd.className.lower}) {
+        set(index, <#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 指定した要素の値を、渡された${dd.concept}へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param destination 値の設定先。
+     */
+    public void get(int index, Mutable${p.name}${dd.className.upper}${dimension} destination) {
+        checkIndex(index);
+        destination.set(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}[index]<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 全ての要素に対して単項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(${p.name}UnaryOperator, ${p.primitive}[], ${p.primitive}[], int)}に委譲します。
+     *
+     * @param operator 現在の値を受け取り、新しい値を返す関数。
+     */
+    public void calculate(${p.name}UnaryOperator operator) {
+        <#list 0..(dimension - 1) as i>
+        PrimitiveArrayOperations.apply(operator, ${dd.fields[i].lower}, ${dd.fields[i].lower}, size);
+        </#list>
+    }
+
+    /**
+     * 全ての要素に対して、次元ごとの定数を右辺とする二項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(${p.name}BinaryOperator, ${p.primitive}[], ${p.primitive}, ${p.primitive}[], int)}に委譲します。
+     *
+     * @param operator 現在の値を左辺として受け取り、新しい値を返す関数。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} 右辺となる${dd.fields[i].display}の値。
+    </#list>
+     */
+    public void calculate(${p.name}BinaryOperator operator, <#list 0..(dimension - 1) as i>${p.primitive} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        <#list 0..(dimension - 1) as i>
+        PrimitiveArrayOperations.apply(operator, this.${dd.fields[i].lower}, ${dd.fields[i].lower}, this.${dd.fields[i].lower}, size);
+        </#list>
+    }
+
+    /**
+     * 全ての要素に対して、他のコンテナの同じ添字の要素を右辺とする二項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(${p.name}BinaryOperator, ${p.primitive}[], ${p.primitive}[], ${p.primitive}[], int)}に委譲します。
+     *
+     * @param operator 現在の値を左辺として受け取り、新しい値を返す関数。
+     * @param array 右辺となるコンテナ。要素数がこのコンテナと等しい必要があります。
+     */
+    public void calculate(${p.name}BinaryOperator operator, ${p.name}${dd.className.upper}${dimension}Array array) {
+        if (array.size != size) {
+            throw new IllegalArgumentException("Size mismatch: " + size + " and " + array.size);
+        }
+        <#list 0..(dimension - 1) as i>
+        PrimitiveArrayOperations.apply(operator, ${dd.fields[i].lower}, array.${dd.fields[i].lower}, ${dd.fields[i].lower}, size);
+        </#list>
+    }
+    <#list 0..(dimension - 1) as i>
+
+    /**
+     * ${dd.fields[i].display}の内部配列を返す。
+     *
+     * 防御的コピーを行いません。有効な値は{@link #size()}未満の添字のみです。
+     * 容量の拡張や縮小が起きると別の配列に置き換わるため、要素を追加した後は取得し直してください。
+     *
+     * @return ${dd.fields[i].display}の内部配列。
+     */
+    public ${p.primitive}[] get${dd.fields[i].upper}Array() {
+        return ${dd.fields[i].lower};
+    }
+    </#list>
+
+    /**
+     * 先頭の要素の直前を指す新しいカーソルを返す。
+     *
+     * {@code while (cursor.next())}の形で全要素を走査できます。
+     *
+     * @return カーソル。
+     */
+    public Cursor cursor() {
+        return new Cursor(-1);
+    }
+
+    /**
+     * 指定した要素を指す新しいカーソルを返す。
+     *
+     * @param index 要素の添字。
+     * @return カーソル。
+     */
+    public Cursor cursor(int index) {
+        return new Cursor(index);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で走査する{@link Spliterator}を返す。
+     *
+     * 要素として渡すのは、走査中の添字を指す{@link Cursor}です。1つの{@link Spliterator}は1つの{@link Cursor}を使い回すため、
+     * 要素ごとにインスタンスを生成しない代わりに、渡された要素は次の要素へ進むと別の要素を指します。
+     * 要素を保持する操作（{@code max}や{@code collect(Collectors.toList())}など）には使えず、
+     * 要素の値だけを読む集約（{@code value.math}パッケージの{@code Collectors}など）や{@code forEach}に使ってください。
+     * {@link Spliterator#trySplit()}は範囲を半分に分割し、{@link Spliterator#SIZED}と{@link Spliterator#SUBSIZED}を報告するため、
+     * 並列ストリームでも要素がスレッドに均等に割り振られます。
+     * 走査中に要素を追加・削除してはいけません。
+     *
+     * @return {@link Spliterator}。
+     */
+    public Spliterator<Cursor> cursorSpliterator() {
+        return new CursorSpliterator(0, size);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で順に流す{@link Stream}を返す。
+     *
+     * 要素は{@link #cursorSpliterator()}と同様に使い回される{@link Cursor}で、要素を保持する操作には使えません。
+     *
+     * @return {@link Stream}。
+     */
+    public Stream<Cursor> cursorStream() {
+        return StreamSupport.stream(cursorSpliterator(), false);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で流す並列の{@link Stream}を返す。
+     *
+     * 要素は{@link #cursorSpliterator()}と同様に使い回される{@link Cursor}で、要素を保持する操作には使えません。
+     *
+     * @return {@link Stream}。
+     */
+    public Stream<Cursor> parallelCursorStream() {
+        return StreamSupport.stream(cursorSpliterator(), true);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * 添字の範囲を{@link Cursor}で走査する{@link Spliterator}。
+     */
+    private final class CursorSpliterator implements Spliterator<Cursor> {
+
+        private final Cursor cursor = new Cursor(0);
+
+        /**
+         * 次に走査する添字。
+         */
+        private int index;
+
+        /**
+         * 走査する範囲の終わりの添字（この添字を含みません）。
+         */
+        private final int fence;
+
+        CursorSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Cursor> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(cursor.moveTo(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Cursor> action) {
+            Cursor cursor = this.cursor;
+            int fence = this.fence;
+            for (int i = index; i < fence; i++) {
+                action.accept(cursor.moveTo(i));
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator<Cursor> trySplit() {
+            int low = index;
+            int middle = (low + fence) >>> 1;
+            if (low >= middle) {
+                return null;
+            }
+            index = middle;
+            return new CursorSpliterator(low, middle);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    /**
+     * コンテナの1要素を{@link Mutable${p.name}${dd.className.upper}${dimension}}として扱うためのカーソル。
+     *
+     * 値を保持せず、指している添字の要素を読み書きします。
+     * {@link #moveTo(int)}や{@link #next()}で添字を切り替えることで、1つのインスタンスを使い回して全要素を走査できます。
+     * 添字の範囲は確認しないため、{@link #size()}未満の添字を指している間に限り使ってください。
+     */
+    public final class Cursor implements Mutable${p.name}${dd.className.upper}${dimension}Trait {
+
+        /**
+         * 指している要素の添字。
+         */
+        private int index;
+
+        private Cursor(int index) {
+            this.index = index;
+        }
+
+        /**
+         * 指している要素の添字を返す。
+         *
+         * @return 要素の添字。
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 指定した要素を指すよう移動する。
+         *
+         * @param index 要素の添字。
+         * @return このカーソル。
+         */
+        public Cursor moveTo(int index) {
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * 次の要素を指すよう移動する。
+         *
+         * @return 移動後の添字が{@link #size()}未満の場合は{@code true}。
+         */
+        public boolean next() {
+            return ++index < size;
+        }
+        <#list 0..(dimension - 1) as i>
+
+        @Override
+        public ${p.primitive} get${dd.fields[i].upper}As${p.name}() {
+            return ${dd.fields[i].lower}[index];
+        }
+        </#list>
+        <#list 0..(dimension - 1) as i>
+
+        @Override
+        public void set${dd.fields[i].upper}(${p.primitive} ${dd.fields[i].lower}) {
+            ${p.name}${dd.className.upper}${dimension}Array.this.${dd.fields[i].lower}[index] = ${dd.fields[i].lower};
+        }
+        </#list>
+
+        @Override
+        public void set(<#list 0..(dimension - 1) as i>${p.primitive} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+            <#list 0..(dimension - 1) as i>
+            ${p.name}${dd.className.upper}${dimension}Array.this.${dd.fields[i].lower}[index] = ${dd.fields[i].lower};
+            </#list>
+        }
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaIo};
+<#assign type = "${p.name}${dd.className.upper}${dimension}">
+<#if p.primitive == "int">
+<#assign bitsType = "int">
+<#assign bitsName = "Int">
+<#assign bitsBox = "Integer">
+<#assign toBitsOpen = "">
+<#assign toBitsClose = "">
+<#assign fromBitsOpen = "">
+<#assign fromBitsClose = "">
+<#elseif p.primitive == "long">
+<#assign bitsType = "long">
+<#assign bitsName = "Long">
+<#assign bitsBox = "Long">
+<#assign toBitsOpen = "">
+<#assign toBitsClose = "">
+<#assign fromBitsOpen = "">
+<#assign fromBitsClose = "">
+<#else>
+<#assign bitsType = "long">
+<#assign bitsName = "Long">
+<#assign bitsBox = "Long">
+<#assign toBitsOpen = "Double.doubleToRawLongBits(">
+<#assign toBitsClose = ")">
+<#assign fromBitsOpen = "Double.longBitsToDouble(">
+<#assign fromBitsClose = ")">
+</#if>
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.${p.name}Buffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import ${packageLevel.java}.${type};
+import ${packageLevel.java}.Mutable${type};
+import ${packageLevel.javaArray}.${type}Array;
+
+/**
+ * {@link ${type}}を、固定のリトルエンディアンのバイナリ形式で読み書きする。
+ *
+ * 1つの値は、<#list 0..(dimension - 1) as i>${dd.fields[i].display}<#if i_has_next>、</#if></#list>の順に各成分をリトルエンディアンで並べた{@link #BYTES}バイトです。
+ * {@link ${type}Array}の一括の読み書きでは、成分ごとに全要素の値を続けて並べます。
+ * （全要素の${dd.fields[0].display}、次に全要素の${dd.fields[1].display}、の順。）
+ * 一括の形式は{@code 要素数 * BYTES}バイトで、要素数自体は含まないため、必要なら呼び出し側で別に記録してください。
+ *
+ * {@link ByteBuffer}は、設定されたバイト順に関わらずリトルエンディアンで読み書きし、バイト順の設定は変更しません。
+ * 一括の読み書きは{@link ByteBuffer#as${p.name}Buffer()}のビューを通してまとめて複写します。
+ * どの操作も要素ごとにインスタンスを生成しません。
+ *
+ * @author misakura
+ */
+public final class ${type}Codec {
+
+    /**
+     * 1つの値のバイト数。
+     */
+    public static final int BYTES = ${dimension} * ${p.type}.BYTES;
+
+    private ${type}Codec() {
+    }
+
+    /**
+     * 1つの値を、バッファの現在の位置に書き込む。
+     *
+     * @param buffer 書き込み先のバッファ。位置は{@link #BYTES}だけ進みます。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     * @throws BufferOverflowException 残りが{@link #BYTES}未満の場合。（何も書き込みません。）
+     */
+    public static void write(ByteBuffer buffer, <#list 0..(dimension - 1) as i>${p.primitive} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) {
+        if (buffer.remaining() < BYTES) {
+            throw new BufferOverflowException();
+        }
+        boolean swap = buffer.order() != ByteOrder.LITTLE_ENDIAN;
+        <#list 0..(dimension - 1) as i>
+        buffer.put${bitsName}(order(${toBitsOpen}${dd.fields[i].lower}${toBitsClose}, swap));
+        </#list>
+    }
+
+    /**
+     * 1つの値を、バッファの現在の位置に書き込む。
+     *
+     * @param buffer 書き込み先のバッファ。位置は{@link #BYTES}だけ進みます。
+     * @param ${dd.className.lower} 書き込む${dd.concept}。
+     * @throws BufferOverflowException 残りが{@link #BYTES}未満の場合。（何も書き込みません。）
+     */
+    public static void write(ByteBuffer buffer, ${type} ${dd.className.lower}) {
+        write(buffer, <#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * バッファの現在の位置から1つの値を読み込む。
+     *
+     * @param buffer 読み込み元のバッファ。位置は{@link #BYTES}だけ進みます。
+     * @param destination 値の設定先。
+     * @throws BufferUnderflowException 残りが{@link #BYTES}未満の場合。（何も読み込みません。）
+     */
+    public static void read(ByteBuffer buffer, Mutable${type} destination) {
+        if (buffer.remaining() < BYTES) {
+            throw new BufferUnderflowException();
+        }
+        boolean swap = buffer.order() != ByteOrder.LITTLE_ENDIAN;
+        <#list 0..(dimension - 1) as i>
+        ${p.primitive} ${dd.fields[i].lower} = ${fromBitsOpen}order(buffer.get${bitsName}(), swap)${fromBitsClose};
+        </#list>
+        destination.set(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 1つの値を書き込む。
+     *
+     * @param output 書き込み先。
+    <#list 0..(dimension - 1) as i>
+     * @param ${dd.fields[i].lower} ${dd.fields[i].display}。
+    </#list>
+     * @throws IOException 書き込めなかった場合。
+     */
+    public static void write(DataOutput output, <#list 0..(dimension - 1) as i>${p.primitive} ${dd.fields[i].lower}<#if i_has_next>, </#if></#list>) throws IOException {
+        <#list 0..(dimension - 1) as i>
+        output.write${bitsName}(${bitsBox}.reverseBytes(${toBitsOpen}${dd.fields[i].lower}${toBitsClose}));
+        </#list>
+    }
+
+    /**
+     * 1つの値を書き込む。
+     *
+     * @param output 書き込み先。
+     * @param ${dd.className.lower} 書き込む${dd.concept}。
+     * @throws IOException 書き込めなかった場合。
+     */
+    public static void write(DataOutput output, ${type} ${dd.className.lower}) throws IOException {
+        write(output, <#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * 1つの値を読み込む。
+     *
+     * @param input 読み込み元。
+     * @param destination 値の設定先。
+     * @throws IOException 読み込めなかった場合。
+     */
+    public static void read(DataInput input, Mutable${type} destination) throws IOException {
+        <#list 0..(dimension - 1) as i>
+        ${p.primitive} ${dd.fields[i].lower} = ${fromBitsOpen}${bitsBox}.reverseBytes(input.read${bitsName}())${fromBitsClose};
+        </#list>
+        destination.set(<#list 0..(dimension - 1) as i>${dd.fields[i].lower}<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * コンテナの全ての要素を、バッファの現在の位置に書き込む。
+     *
+     * @param buffer 書き込み先のバッファ。位置は{@code array.size() * BYTES}だけ進みます。
+     * @param array 書き込む要素を持つコンテナ。
+     * @throws BufferOverflowException 残りが足りない場合。（何も書き込みません。）
+     */
+    public static void write(ByteBuffer buffer, ${type}Array array) {
+        int count = array.size();
+        if (buffer.remaining() < (long) count * BYTES) {
+            throw new BufferOverflowException();
+        }
+        ${p.name}Buffer view = view(buffer);
+        <#list 0..(dimension - 1) as i>
+        view.put(array.get${dd.fields[i].upper}Array(), 0, count);
+        </#list>
+        buffer.position(buffer.position() + count * BYTES);
+    }
+
+    /**
+     * バッファの現在の位置から指定した数の要素を読み込み、コンテナの末尾に追加する。
+     *
+     * @param buffer 読み込み元のバッファ。位置は{@code count * BYTES}だけ進みます。
+     * @param destination 要素の追加先。
+     * @param count 読み込む要素数。
+     * @throws BufferUnderflowException 残りが足りない場合。（何も読み込みません。）
+     */
+    public static void read(ByteBuffer buffer, ${type}Array destination, int count) {
+        checkCount(count);
+        if (buffer.remaining() < (long) count * BYTES) {
+            throw new BufferUnderflowException();
+        }
+        int index = destination.size();
+        destination.resize(index + count);
+        ${p.name}Buffer view = view(buffer);
+        <#list 0..(dimension - 1) as i>
+        view.get(destination.get${dd.fields[i].upper}Array(), index, count);
+        </#list>
+        buffer.position(buffer.position() + count * BYTES);
+    }
+
+    /**
+     * コンテナの全ての要素を書き込む。
+     *
+     * @param output 書き込み先。
+     * @param array 書き込む要素を持つコンテナ。
+     * @throws IOException 書き込めなかった場合。
+     */
+    public static void write(DataOutput output, ${type}Array array) throws IOException {
+        int count = array.size();
+        <#list 0..(dimension - 1) as i>
+        write(output, array.get${dd.fields[i].upper}Array(), count);
+        </#list>
+    }
+
+    /**
+     * 指定した数の要素を読み込み、コンテナの末尾に追加する。
+     *
+     * @param input 読み込み元。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @param count 読み込む要素数。
+     * @throws IOException 読み込めなかった場合。
+     */
+    public static void read(DataInput input, ${type}Array destination, int count) throws IOException {
+        checkCount(count);
+        int index = destination.size();
+        destination.resize(index + count);
+        try {
+            <#list 0..(dimension - 1) as i>
+            read(input, destination.get${dd.fields[i].upper}Array(), index, count);
+            </#list>
+        } catch (IOException | RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+    }
+
+    /**
+     * コンテナの全ての要素を、作業用のバッファを通してチャネルに書き込む。
+     *
+     * ブロッキングモードのチャネルを想定しています。
+     *
+     * @param channel 書き込み先のチャネル。
+     * @param array 書き込む要素を持つコンテナ。
+     * @param scratch 作業用のバッファ。内容は上書きされます。直接バッファを使うと、チャネルへの複写が1回減ります。
+     * @throws IOException 書き込めなかった場合。
+     */
+    public static void write(WritableByteChannel channel, ${type}Array array, ByteBuffer scratch) throws IOException {
+        ${p.name}Buffer view = scratchView(scratch);
+        int count = array.size();
+        <#list 0..(dimension - 1) as i>
+        write(channel, array.get${dd.fields[i].upper}Array(), count, scratch, view);
+        </#list>
+    }
+
+    /**
+     * 作業用のバッファを通してチャネルから指定した数の要素を読み込み、コンテナの末尾に追加する。
+     *
+     * ブロッキングモードのチャネルを想定しています。
+     *
+     * @param channel 読み込み元のチャネル。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @param count 読み込む要素数。
+     * @param scratch 作業用のバッファ。内容は上書きされます。
+     * @throws IOException 読み込めなかった場合。
+     * @throws EOFException 要素数分のデータを読み込む前にチャネルが終端に達した場合。
+     */
+    public static void read(ReadableByteChannel channel, ${type}Array destination, int count, ByteBuffer scratch) throws IOException {
+        checkCount(count);
+        ${p.name}Buffer view = scratchView(scratch);
+        int index = destination.size();
+        destination.resize(index + count);
+        try {
+            <#list 0..(dimension - 1) as i>
+            read(channel, destination.get${dd.fields[i].upper}Array(), index, count, scratch, view);
+            </#list>
+        } catch (IOException | RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+    }
+
+    private static ${bitsType} order(${bitsType} bits, boolean swap) {
+        return swap ? ${bitsBox}.reverseBytes(bits) : bits;
+    }
+
+    /**
+     * バッファの現在の位置からの、リトルエンディアンの型付きビューを返す。
+     */
+    private static ${p.name}Buffer view(ByteBuffer buffer) {
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).as${p.name}Buffer();
+    }
+
+    /**
+     * 作業用のバッファ全体の、リトルエンディアンの型付きビューを返す。
+     */
+    private static ${p.name}Buffer scratchView(ByteBuffer scratch) {
+        if (scratch.capacity() < ${p.type}.BYTES) {
+            throw new IllegalArgumentException("Illegal scratch capacity: " + scratch.capacity());
+        }
+        ByteBuffer whole = scratch.duplicate();
+        whole.clear();
+        return whole.order(ByteOrder.LITTLE_ENDIAN).as${p.name}Buffer();
+    }
+
+    private static void write(DataOutput output, ${p.primitive}[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            output.write${bitsName}(${bitsBox}.reverseBytes(${toBitsOpen}values[i]${toBitsClose}));
+        }
+    }
+
+    private static void read(DataInput input, ${p.primitive}[] values, int index, int count) throws IOException {
+        for (int i = index; i < index + count; i++) {
+            values[i] = ${fromBitsOpen}${bitsBox}.reverseBytes(input.read${bitsName}())${fromBitsClose};
+        }
+    }
+
+    private static void write(WritableByteChannel channel, ${p.primitive}[] values, int count,
+            ByteBuffer scratch, ${p.name}Buffer view) throws IOException {
+        int chunk = view.capacity();
+        for (int offset = 0; offset < count; offset += chunk) {
+            int length = Math.min(chunk, count - offset);
+            view.clear();
+            view.put(values, offset, length);
+            scratch.clear();
+            scratch.limit(length * ${p.type}.BYTES);
+            while (scratch.hasRemaining()) {
+                channel.write(scratch);
+            }
+        }
+    }
+
+    private static void read(ReadableByteChannel channel, ${p.primitive}[] values, int index, int count,
+            ByteBuffer scratch, ${p.name}Buffer view) throws IOException {
+        int chunk = view.capacity();
+        for (int offset = 0; offset < count; offset += chunk) {
+            int length = Math.min(chunk, count - offset);
+            scratch.clear();
+            scratch.limit(length * ${p.type}.BYTES);
+            while (scratch.hasRemaining()) {
+                if (channel.read(scratch) < 0) {
+                    throw new EOFException();
+                }
+            }
+            view.clear();
+            view.get(values, index + offset, length);
+        }
+    }
+
+    private static void checkCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Illegal count: " + count);
+        }
+    }
+}
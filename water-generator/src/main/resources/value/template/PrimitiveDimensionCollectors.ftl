@@ -0,0 +1,411 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaMath};
+<#assign type = "${p.name}${dd.className.upper}${dimension}">
+<#assign dtype = "Double${dd.className.upper}${dimension}">
+<#assign P = p.primitive>
+
+import java.util.stream.Collector;
+<#if P != "double">
+import ${packageLevel.java}.Bare${dtype};
+</#if>
+import ${packageLevel.java}.Bare${type};
+import ${packageLevel.java}.${type};
+import ${packageLevel.java}.Mutable${type};
+
+/**
+ * {@link ${type}}のストリームを集約する{@link Collector}。
+ *
+ * 途中の結果はプリミティブ配列に蓄え、要素ごとにインスタンスを生成しません。結果のインスタンスは集約の最後に1つだけ生成します。
+ * 全ての{@link Collector}は並列ストリームで使え、スレッドごとの途中の結果を結合します。
+ * {@link jp.gr.java_conf.kgd.library.water.java.core.value.array.${type}Array#parallelCursorStream()}と組み合わせると、
+ * 多数の${dd.concept}の集約を全てのプロセッサで行えます。
+ *
+ * 要素の{@link ${type}}は集約の間だけ参照するため、使い回されるインスタンスを流しても構いません。
+ *
+ * @author misakura
+ */
+public final class ${type}Collectors {
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = ${dimension};
+
+    private ${type}Collectors() {
+    }
+
+    /**
+     * 成分ごとの総和を求める{@link Collector}を返す。
+     *
+<#if P == "double">
+     * {@link java.util.stream.Collectors#summingDouble(java.util.function.ToDoubleFunction)}と同様に、補正付きの加算で丸め誤差を抑え、
+     * 無限大を含む場合は補正しない単純な総和を使います。
+<#else>
+     * {@link java.util.stream.Collectors#summing${p.name}(java.util.function.To${p.name}Function)}と同様に、桁あふれは検出しません。
+</#if>
+     *
+     * @return 総和を求める{@link Collector}。空のストリームの総和は全ての成分が{@code 0}です。
+     */
+    public static Collector<${type}, ?, Bare${type}> summing() {
+        return Collector.of(
+                () -> new ${P}[<#if P == "double">DIMENSION * 3<#else>DIMENSION</#if>],
+                (sum, ${dd.className.lower}) -> {
+                    <#list 0..(dimension - 1) as i>
+                    <#if P == "double">
+                    addToSum(sum, ${i}, ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}());
+                    <#else>
+                    sum[${i}] += ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}();
+                    </#if>
+                    </#list>
+                },
+                (left, right) -> {
+                    <#if P == "double">
+                    combineSums(left, right);
+                    <#else>
+                    for (int i = 0; i < DIMENSION; i++) {
+                        left[i] += right[i];
+                    }
+                    </#if>
+                    return left;
+                },
+                sum -> new Bare${type}(<#list 0..(dimension - 1) as i><#if P == "double">finalSum(sum, ${i})<#else>sum[${i}]</#if><#if i_has_next>, </#if></#list>),
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 成分ごとの平均<#if dd.className.upper == "Point">（重心）</#if>を求める{@link Collector}を返す。
+     *
+<#if P == "double">
+     * 総和は{@link #summing()}と同様に{@code double}の補正付きの加算で求め、無限大を含む場合は単純な総和を使います。
+<#else>
+     * 総和は{@link #summing()}と異なり{@code double}の補正付きの加算で求めるため、桁あふれしません。
+</#if>
+     *
+     * @return 平均を求める{@link Collector}。空のストリームの平均は全ての成分が{@code 0}です。
+     */
+    public static Collector<${type}, ?, Bare${dtype}> averaging() {
+        return Collector.of(
+                () -> new double[DIMENSION * 3 + 1],
+                (sum, ${dd.className.lower}) -> {
+                    <#list 0..(dimension - 1) as i>
+                    addToSum(sum, ${i}, ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}());
+                    </#list>
+                    sum[DIMENSION * 3]++;
+                },
+                (left, right) -> {
+                    combineSums(left, right);
+                    left[DIMENSION * 3] += right[DIMENSION * 3];
+                    return left;
+                },
+                sum -> {
+                    double count = sum[DIMENSION * 3];
+                    if (count == 0) {
+                        return new Bare${dtype}();
+                    }
+                    return new Bare${dtype}(<#list 0..(dimension - 1) as i>finalSum(sum, ${i}) / count<#if i_has_next>, </#if></#list>);
+                },
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 成分ごとの最小値を求める{@link Collector}を返す。
+     *
+     * 結果の各成分は、別々の要素から得た値のことがあります。
+     *
+     * @return 最小値を求める{@link Collector}。空のストリームの最小値は全ての成分が{@code ${p.type}.<#if P == "double">POSITIVE_INFINITY<#else>MAX_VALUE</#if>}です。
+     */
+    public static Collector<${type}, ?, Bare${type}> minimizing() {
+        return Collector.of(
+                ${type}Collectors::newMinimum,
+                ${type}Collectors::accumulateMinimum,
+                (left, right) -> {
+                    accumulateMinimum(left, right);
+                    return left;
+                },
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 成分ごとの最大値を求める{@link Collector}を返す。
+     *
+     * 結果の各成分は、別々の要素から得た値のことがあります。
+     *
+     * @return 最大値を求める{@link Collector}。空のストリームの最大値は全ての成分が{@code ${p.type}.<#if P == "double">NEGATIVE_INFINITY<#else>MIN_VALUE</#if>}です。
+     */
+    public static Collector<${type}, ?, Bare${type}> maximizing() {
+        return Collector.of(
+                ${type}Collectors::newMaximum,
+                ${type}Collectors::accumulateMaximum,
+                (left, right) -> {
+                    accumulateMaximum(left, right);
+                    return left;
+                },
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 全ての要素を含む、軸に沿った最小の範囲を求める{@link Collector}を返す。
+     *
+     * @return 範囲を求める{@link Collector}。
+     */
+    public static Collector<${type}, ?, Bounds> bounding() {
+        return Collector.of(
+                Bounds::new,
+                Bounds::accept,
+                Bounds::combine,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 成分ごとの母分散を求める{@link Collector}を返す。
+     *
+     * 平均との差の2乗和を逐次更新する方法（Welfordの方法）で求めるため、平均から離れた値が多い場合も桁落ちしにくくなっています。
+     * 途中の結果の結合には、要素数で重み付けした公式（Chanらの方法）を使います。
+     *
+     * @return 母分散を求める{@link Collector}。空のストリームの母分散は全ての成分が{@code NaN}です。
+     */
+    public static Collector<${type}, ?, Bare${dtype}> variance() {
+        return Collector.of(
+                () -> new double[DIMENSION * 2 + 1],
+                (moments, ${dd.className.lower}) -> {
+                    double count = ++moments[0];
+                    double delta;
+                    <#list 0..(dimension - 1) as i>
+                    delta = ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}() - moments[${i + 1}];
+                    moments[${i + 1}] += delta / count;
+                    moments[${i + 1 + dimension}] += delta * (${dd.className.lower}.get${dd.fields[i].upper}As${p.name}() - moments[${i + 1}]);
+                    </#list>
+                },
+                ${type}Collectors::combineMoments,
+                moments -> new Bare${dtype}(<#list 0..(dimension - 1) as i>moments[${i + 1 + dimension}] / moments[0]<#if i_has_next>, </#if></#list>),
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 全ての要素を含む、軸に沿った最小の範囲。
+     *
+     * {@link #bounding()}の結果です。
+     */
+    public static final class Bounds {
+
+        private final Bare${type} minimum = newMinimum();
+
+        private final Bare${type} maximum = newMaximum();
+
+        private long count;
+
+        Bounds() {
+        }
+
+        /**
+         * 範囲に含めた要素の数を返す。
+         *
+         * @return 要素の数。
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 範囲が空かどうかを返す。
+         *
+         * @return 要素を1つも含めていない場合は{@code true}。
+         */
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        /**
+         * 範囲の最小の角を取得する。
+         *
+         * 空の範囲の場合、全ての成分が{@code ${p.type}.<#if P == "double">POSITIVE_INFINITY<#else>MAX_VALUE</#if>}です。
+         *
+         * @param destination 値の格納先。
+         */
+        public void getMinimum(Mutable${type} destination) {
+            destination.set(minimum);
+        }
+
+        /**
+         * 範囲の最大の角を取得する。
+         *
+         * 空の範囲の場合、全ての成分が{@code ${p.type}.<#if P == "double">NEGATIVE_INFINITY<#else>MIN_VALUE</#if>}です。
+         *
+         * @param destination 値の格納先。
+         */
+        public void getMaximum(Mutable${type} destination) {
+            destination.set(maximum);
+        }
+
+        /**
+         * 範囲の大きさ（最大の角から最小の角を引いた値）を取得する。
+         *
+         * 空の範囲の場合、全ての成分が{@code 0}です。
+<#if P != "double">
+         * 大きさが{@code ${P}}で表せないほど広い成分は、{@code ${p.type}.MAX_VALUE}に飽和させます。
+</#if>
+         *
+         * @param destination 値の格納先。
+         */
+        public void getExtent(Mutable${type} destination) {
+            if (count == 0) {
+                destination.set(<#list 0..(dimension - 1) as i>0<#if i_has_next>, </#if></#list>);
+                return;
+            }
+            destination.set(<#list 0..(dimension - 1) as i><#if P == "double">maximum.${dd.fields[i].lower} - minimum.${dd.fields[i].lower}<#else>extent(minimum.${dd.fields[i].lower}, maximum.${dd.fields[i].lower})</#if><#if i_has_next>, </#if></#list>);
+        }
+        <#if P != "double">
+
+        /**
+         * 最小値から最大値までの大きさを求める。桁あふれする場合は{@code ${p.type}.MAX_VALUE}に飽和させる。
+         */
+        private static ${P} extent(${P} minimum, ${P} maximum) {
+            <#if P == "int">
+            return (int) Math.min((long) maximum - minimum, Integer.MAX_VALUE);
+            <#else>
+            long extent = maximum - minimum;
+            // 最大値は最小値以上のため、負になるのは桁あふれした場合だけです。
+            return extent < 0 ? Long.MAX_VALUE : extent;
+            </#if>
+        }
+        </#if>
+
+        void accept(${type} ${dd.className.lower}) {
+            accumulateMinimum(minimum, ${dd.className.lower});
+            accumulateMaximum(maximum, ${dd.className.lower});
+            count++;
+        }
+
+        Bounds combine(Bounds other) {
+            accumulateMinimum(minimum, other.minimum);
+            accumulateMaximum(maximum, other.maximum);
+            count += other.count;
+            return this;
+        }
+
+        /**
+         * この範囲の文字列表現を返す。
+         *
+         * @return 文字列表現。
+         */
+        @Override
+        public String toString() {
+            return "Bounds[minimum=" + minimum + ",maximum=" + maximum + ",count=" + count + "]";
+        }
+    }
+
+    private static Bare${type} newMinimum() {
+        ${P} value = ${p.type}.<#if P == "double">POSITIVE_INFINITY<#else>MAX_VALUE</#if>;
+        return new Bare${type}(<#list 0..(dimension - 1) as i>value<#if i_has_next>, </#if></#list>);
+    }
+
+    private static Bare${type} newMaximum() {
+        ${P} value = ${p.type}.<#if P == "double">NEGATIVE_INFINITY<#else>MIN_VALUE</#if>;
+        return new Bare${type}(<#list 0..(dimension - 1) as i>value<#if i_has_next>, </#if></#list>);
+    }
+
+    private static void accumulateMinimum(Bare${type} minimum, ${type} ${dd.className.lower}) {
+        <#list 0..(dimension - 1) as i>
+        minimum.${dd.fields[i].lower} = Math.min(minimum.${dd.fields[i].lower}, ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}());
+        </#list>
+    }
+
+    private static void accumulateMaximum(Bare${type} maximum, ${type} ${dd.className.lower}) {
+        <#list 0..(dimension - 1) as i>
+        maximum.${dd.fields[i].lower} = Math.max(maximum.${dd.fields[i].lower}, ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}());
+        </#list>
+    }
+
+    /**
+     * 総和を持つ配列に値を加える。
+     *
+     * 配列の添字{@code index}が補正付きの総和、{@code DIMENSION + index}が丸め誤差の補正値、
+     * {@code DIMENSION * 2 + index}が補正しない単純な総和です。
+     */
+    private static void addToSum(double[] sum, int index, double value) {
+        sumWithCompensation(sum, index, value);
+        sum[DIMENSION * 2 + index] += value;
+    }
+
+    /**
+     * {@link #addToSum(double[], int, double)}の配列を結合する。
+     */
+    private static void combineSums(double[] left, double[] right) {
+        for (int i = 0; i < DIMENSION; i++) {
+            sumWithCompensation(left, i, right[i]);
+            sumWithCompensation(left, i, -right[DIMENSION + i]);
+            left[DIMENSION * 2 + i] += right[DIMENSION * 2 + i];
+        }
+    }
+
+    /**
+     * {@link #addToSum(double[], int, double)}の配列から総和を求める。
+     *
+     * 無限大を加えると補正値が{@code NaN}になるため、{@link java.util.stream.Collectors#summingDouble(java.util.function.ToDoubleFunction)}と同様に、
+     * 補正付きの総和が{@code NaN}で単純な総和が無限大の場合は単純な総和を返します。
+     */
+    private static double finalSum(double[] sum, int index) {
+        double total = sum[index] - sum[DIMENSION + index];
+        if (Double.isNaN(total) && Double.isInfinite(sum[DIMENSION * 2 + index])) {
+            return sum[DIMENSION * 2 + index];
+        }
+        return total;
+    }
+
+    /**
+     * 補正付きの総和に値を加える。
+     *
+     * 配列の添字{@code index}が総和、{@code DIMENSION + index}が丸め誤差の補正値です。
+     */
+    private static void sumWithCompensation(double[] sum, int index, double value) {
+        double corrected = value - sum[DIMENSION + index];
+        double current = sum[index];
+        double next = current + corrected;
+        sum[DIMENSION + index] = (next - current) - corrected;
+        sum[index] = next;
+    }
+
+    /**
+     * 要素数、平均、平均との差の2乗和を持つ配列を結合する。
+     */
+    private static double[] combineMoments(double[] left, double[] right) {
+        double leftCount = left[0];
+        double rightCount = right[0];
+        if (rightCount == 0) {
+            return left;
+        }
+        if (leftCount == 0) {
+            return right;
+        }
+        double count = leftCount + rightCount;
+        for (int i = 1; i <= DIMENSION; i++) {
+            double delta = right[i] - left[i];
+            left[i] += delta * rightCount / count;
+            left[DIMENSION + i] += right[DIMENSION + i] + delta * delta * leftCount * rightCount / count;
+        }
+        left[0] = count;
+        return left;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package ${packageLevel.javaMath};
+<#if p.primitive == "int">
+<#assign wide = "long">
+<#assign cast = "(long) ">
+<#else>
+<#assign wide = p.primitive>
+<#assign cast = "">
+</#if>
+<#assign type = "${p.name}${dd.className.upper}${dimension}">
+
+import ${packageLevel.java}.${type};
+import ${packageLevel.java}.Mutable${type};
+
+/**
+ * {@link ${type}}に対する演算。
+ *
+ * 全ての演算はインスタンスを生成しません。
+ * 結果が${dd.concept}となる演算は、呼び出し側が用意した{@link Mutable${type}}に結果を設定するか、
+ * 第1引数の${dd.concept}をその場で書き換えます。
+ * 結果の設定先に引数と同じインスタンスを渡すこともできます。
+ *
+ * @author misakura
+ */
+public final class ${type}Math {
+
+    private ${type}Math() {
+    }
+
+    /**
+     * 2つの${dd.concept}の内積を返す。
+     *
+     * @param left 左辺の${dd.concept}。
+     * @param right 右辺の${dd.concept}。
+     * @return 内積。
+     */
+    public static ${wide} dot(${type} left, ${type} right) {
+        return <#list 0..(dimension - 1) as i>${cast}left.get${dd.fields[i].upper}As${p.name}() * right.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>
+                + </#if></#list>;
+    }
+
+    /**
+     * ${dd.concept}の長さの2乗を返す。
+     *
+     * @param ${dd.className.lower} 対象の${dd.concept}。
+     * @return 長さの2乗。
+     */
+    public static ${wide} lengthSquared(${type} ${dd.className.lower}) {
+        return dot(${dd.className.lower}, ${dd.className.lower});
+    }
+
+    /**
+     * ${dd.concept}の長さを返す。
+     *
+     * @param ${dd.className.lower} 対象の${dd.concept}。
+     * @return 長さ。
+     */
+    public static double length(${type} ${dd.className.lower}) {
+        return Math.sqrt(lengthSquared(${dd.className.lower}));
+    }
+
+    /**
+     * 2つの${dd.concept}の距離の2乗を返す。
+     *
+     * @param left 一方の${dd.concept}。
+     * @param right 他方の${dd.concept}。
+     * @return 距離の2乗。
+     */
+    public static ${wide} distanceSquared(${type} left, ${type} right) {
+        <#list 0..(dimension - 1) as i>
+        ${wide} d${dd.fields[i].lower} = ${cast}left.get${dd.fields[i].upper}As${p.name}() - right.get${dd.fields[i].upper}As${p.name}();
+        </#list>
+        return <#list 0..(dimension - 1) as i>d${dd.fields[i].lower} * d${dd.fields[i].lower}<#if i_has_next> + </#if></#list>;
+    }
+
+    /**
+     * 2つの${dd.concept}の距離を返す。
+     *
+     * @param left 一方の${dd.concept}。
+     * @param right 他方の${dd.concept}。
+     * @return 距離。
+     */
+    public static double distance(${type} left, ${type} right) {
+        return Math.sqrt(distanceSquared(left, right));
+    }
+
+    /**
+     * 2つの${dd.concept}の和を求める。
+     *
+     * @param left 左辺の${dd.concept}。
+     * @param right 右辺の${dd.concept}。
+     * @param destination 結果の設定先。
+     */
+    public static void add(${type} left, ${type} right, Mutable${type} destination) {
+        destination.set(<#list 0..(dimension - 1) as i>left.get${dd.fields[i].upper}As${p.name}() + right.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>,
+                </#if></#list>);
+    }
+
+    /**
+     * ${dd.concept}に他の${dd.concept}を加える。
+     *
+     * @param target 左辺であり、結果の設定先となる${dd.concept}。
+     * @param right 右辺の${dd.concept}。
+     */
+    public static void add(Mutable${type} target, ${type} right) {
+        add(target, right, target);
+    }
+
+    /**
+     * 2つの${dd.concept}の差を求める。
+     *
+     * @param left 左辺の${dd.concept}。
+     * @param right 右辺の${dd.concept}。
+     * @param destination 結果の設定先。
+     */
+    public static void subtract(${type} left, ${type} right, Mutable${type} destination) {
+        destination.set(<#list 0..(dimension - 1) as i>left.get${dd.fields[i].upper}As${p.name}() - right.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>,
+                </#if></#list>);
+    }
+
+    /**
+     * ${dd.concept}から他の${dd.concept}を引く。
+     *
+     * @param target 左辺であり、結果の設定先となる${dd.concept}。
+     * @param right 右辺の${dd.concept}。
+     */
+    public static void subtract(Mutable${type} target, ${type} right) {
+        subtract(target, right, target);
+    }
+
+    /**
+     * ${dd.concept}の全ての次元を定数倍する。
+     *
+     * @param ${dd.className.lower} 対象の${dd.concept}。
+     * @param factor 倍率。
+     * @param destination 結果の設定先。
+     */
+    public static void scale(${type} ${dd.className.lower}, ${p.primitive} factor, Mutable${type} destination) {
+        destination.set(<#list 0..(dimension - 1) as i>${dd.className.lower}.get${dd.fields[i].upper}As${p.name}() * factor<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * ${dd.concept}の全ての次元をその場で定数倍する。
+     *
+     * @param target 対象であり、結果の設定先となる${dd.concept}。
+     * @param factor 倍率。
+     */
+    public static void scale(Mutable${type} target, ${p.primitive} factor) {
+        scale(target, factor, target);
+    }
+
+    /**
+     * ${dd.concept}の全ての次元の符号を反転する。
+     *
+     * @param ${dd.className.lower} 対象の${dd.concept}。
+     * @param destination 結果の設定先。
+     */
+    public static void negate(${type} ${dd.className.lower}, Mutable${type} destination) {
+        destination.set(<#list 0..(dimension - 1) as i>-${dd.className.lower}.get${dd.fields[i].upper}As${p.name}()<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * ${dd.concept}の全ての次元の符号をその場で反転する。
+     *
+     * @param target 対象であり、結果の設定先となる${dd.concept}。
+     */
+    public static void negate(Mutable${type} target) {
+        negate(target, target);
+    }
+    <#if p.primitive == "double">
+
+    /**
+     * ${dd.concept}を長さ{@code 1}に正規化する。
+     *
+     * 長さが{@code 0}の場合は、全ての次元を{@code 0}とします。
+     *
+     * @param ${dd.className.lower} 対象の${dd.concept}。
+     * @param destination 結果の設定先。
+     */
+    public static void normalize(${type} ${dd.className.lower}, Mutable${type} destination) {
+        <#list 0..(dimension - 1) as i>
+        double ${dd.fields[i].lower} = ${dd.className.lower}.get${dd.fields[i].upper}As${p.name}();
+        </#list>
+        double lengthSquared = <#list 0..(dimension - 1) as i>${dd.fields[i].lower} * ${dd.fields[i].lower}<#if i_has_next> + </#if></#list>;
+        if (lengthSquared == 0) {
+            destination.set(<#list 0..(dimension - 1) as i>0<#if i_has_next>, </#if></#list>);
+            return;
+        }
+        double inverse = 1 / Math.sqrt(lengthSquared);
+        destination.set(<#list 0..(dimension - 1) as i>${dd.fields[i].lower} * inverse<#if i_has_next>, </#if></#list>);
+    }
+
+    /**
+     * ${dd.concept}をその場で長さ{@code 1}に正規化する。
+     *
+     * 長さが{@code 0}の場合は、全ての次元を{@code 0}とします。
+     *
+     * @param target 対象であり、結果の設定先となる${dd.concept}。
+     */
+    public static void normalize(Mutable${type} target) {
+        normalize(target, target);
+    }
+
+    /**
+     * 2つの${dd.concept}を線形補間する。
+     *
+     * @param from 補間の始点。（{@code t}が{@code 0}の場合の値。）
+     * @param to 補間の終点。（{@code t}が{@code 1}の場合の値。）
+     * @param t 補間係数。
+     * @param destination 結果の設定先。
+     */
+    public static void lerp(${type} from, ${type} to, double t, Mutable${type} destination) {
+        <#list 0..(dimension - 1) as i>
+        double ${dd.fields[i].lower} = from.get${dd.fields[i].upper}As${p.name}();
+        </#list>
+        destination.set(<#list 0..(dimension - 1) as i>${dd.fields[i].lower} + (to.get${dd.fields[i].upper}As${p.name}() - ${dd.fields[i].lower}) * t<#if i_has_next>,
+                </#if></#list>);
+    }
+
+    /**
+     * ${dd.concept}をその場で他の${dd.concept}に向けて線形補間する。
+     *
+     * @param target 補間の始点であり、結果の設定先となる${dd.concept}。
+     * @param to 補間の終点。
+     * @param t 補間係数。
+     */
+    public static void lerp(Mutable${type} target, ${type} to, double t) {
+        lerp(target, to, t, target);
+    }
+    </#if>
+    <#if dd.className.upper == "Vector" && dimension == 3>
+
+    /**
+     * 2つの${dd.concept}の外積を求める。
+     *
+     * @param left 左辺の${dd.concept}。
+     * @param right 右辺の${dd.concept}。
+     * @param destination 結果の設定先。
+     */
+    public static void cross(${type} left, ${type} right, Mutable${type} destination) {
+        ${p.primitive} lx = left.getXAs${p.name}();
+        ${p.primitive} ly = left.getYAs${p.name}();
+        ${p.primitive} lz = left.getZAs${p.name}();
+        ${p.primitive} rx = right.getXAs${p.name}();
+        ${p.primitive} ry = right.getYAs${p.name}();
+        ${p.primitive} rz = right.getZAs${p.name}();
+        destination.set(ly * rz - lz * ry, lz * rx - lx * rz, lx * ry - ly * rx);
+    }
+
+    /**
+     * ${dd.concept}をその場で他の${dd.concept}との外積に置き換える。
+     *
+     * @param target 左辺であり、結果の設定先となる${dd.concept}。
+     * @param right 右辺の${dd.concept}。
+     */
+    public static void cross(Mutable${type} target, ${type} right) {
+        cross(target, right, target);
+    }
+    </#if>
+}
@@ -23,7 +23,8 @@
  */
 package ${packageLevel.java};
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import java.util.Objects;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * 値の変更が可能な{@link MutableObjectSize2}の実装。
@@ -34,7 +35,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  * @author misakura
  * @param <T> 任意の型。
  */
-public class SimpleObject${dd.className.upper}${dimension}<T> extends DataObjectBase implements MutableObject${dd.className.upper}${dimension}<T> {
+public class SimpleObject${dd.className.upper}${dimension}<T> implements MutableObject${dd.className.upper}${dimension}<T> {
     <#list 0..(dimension - 1) as i>
 
     /**
@@ -102,4 +103,59 @@ public class SimpleObject${dd.className.upper}${dimension}<T> extends DataObject
         this.${dd.fields[i].lower} = ${dd.fields[i].lower};
     }
     </#list>
+
+    /**
+     * 他のオブジェクトがこの${dd.concept}と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が{@link Objects#equals(Object, Object)}で等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        SimpleObject${dd.className.upper}${dimension}<?> other = (SimpleObject${dd.className.upper}${dimension}<?>) obj;
+        return <#list 0..(dimension - 1) as i>Objects.equals(${dd.fields[i].lower}, other.${dd.fields[i].lower})<#if i_has_next>
+                && </#if></#list>;
+    }
+
+    /**
+     * この${dd.concept}のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Objects.hashCode(${dd.fields[0].lower});
+        <#list 1..(dimension - 1) as i>
+        hash = PrimitiveHashCodes.combine(hash, Objects.hashCode(${dd.fields[i].lower}));
+        </#list>
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * この${dd.concept}の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(${(32 + dimension * 24)?c})
+                .append("SimpleObject${dd.className.upper}${dimension}[")
+                <#list 0..(dimension - 1) as i>
+                .append("<#if i != 0>,</#if>${dd.fields[i].lower}=").append(${dd.fields[i].lower})
+                </#list>
+                .append(']')
+                .toString();
+    }
 }
@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableDoublePoint3}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareDoublePoint3 extends DataObjectBase implements MutableDoublePoint3Trait {
+public class BareDoublePoint3 implements MutableDoublePoint3Trait {
 
     /**
      * x座標
@@ -107,4 +107,59 @@ public class BareDoublePoint3 extends DataObjectBase implements MutableDoublePoi
     public void setZ(double z) {
         this.z = z;
     }
+
+    /**
+     * 他のオブジェクトがこの点と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareDoublePoint3 other = (BareDoublePoint3) obj;
+        return Double.doubleToLongBits(x) == Double.doubleToLongBits(other.x)
+                && Double.doubleToLongBits(y) == Double.doubleToLongBits(other.y)
+                && Double.doubleToLongBits(z) == Double.doubleToLongBits(other.z);
+    }
+
+    /**
+     * この点のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(x);
+        hash = PrimitiveHashCodes.combine(hash, Double.hashCode(y));
+        hash = PrimitiveHashCodes.combine(hash, Double.hashCode(z));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * この点の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("BareDoublePoint3[")
+                .append("x=").append(x)
+                .append(",y=").append(y)
+                .append(",z=").append(z)
+                .append(']')
+                .toString();
+    }
 }
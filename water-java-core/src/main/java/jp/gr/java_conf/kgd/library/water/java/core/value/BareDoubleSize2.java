@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableDoubleSize2}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareDoubleSize2 extends DataObjectBase implements MutableDoubleSize2Trait {
+public class BareDoubleSize2 implements MutableDoubleSize2Trait {
 
     /**
      * 幅
@@ -90,4 +90,56 @@ public class BareDoubleSize2 extends DataObjectBase implements MutableDoubleSize
     public void setHeight(double height) {
         this.height = height;
     }
+
+    /**
+     * 他のオブジェクトがこのサイズと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareDoubleSize2 other = (BareDoubleSize2) obj;
+        return Double.doubleToLongBits(width) == Double.doubleToLongBits(other.width)
+                && Double.doubleToLongBits(height) == Double.doubleToLongBits(other.height);
+    }
+
+    /**
+     * このサイズのハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(width);
+        hash = PrimitiveHashCodes.combine(hash, Double.hashCode(height));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * このサイズの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(80)
+                .append("BareDoubleSize2[")
+                .append("width=").append(width)
+                .append(",height=").append(height)
+                .append(']')
+                .toString();
+    }
 }
@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableDoubleSize3}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareDoubleSize3 extends DataObjectBase implements MutableDoubleSize3Trait {
+public class BareDoubleSize3 implements MutableDoubleSize3Trait {
 
     /**
      * 幅
@@ -107,4 +107,59 @@ public class BareDoubleSize3 extends DataObjectBase implements MutableDoubleSize
     public void setDepth(double depth) {
         this.depth = depth;
     }
+
+    /**
+     * 他のオブジェクトがこのサイズと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareDoubleSize3 other = (BareDoubleSize3) obj;
+        return Double.doubleToLongBits(width) == Double.doubleToLongBits(other.width)
+                && Double.doubleToLongBits(height) == Double.doubleToLongBits(other.height)
+                && Double.doubleToLongBits(depth) == Double.doubleToLongBits(other.depth);
+    }
+
+    /**
+     * このサイズのハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(width);
+        hash = PrimitiveHashCodes.combine(hash, Double.hashCode(height));
+        hash = PrimitiveHashCodes.combine(hash, Double.hashCode(depth));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * このサイズの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("BareDoubleSize3[")
+                .append("width=").append(width)
+                .append(",height=").append(height)
+                .append(",depth=").append(depth)
+                .append(']')
+                .toString();
+    }
 }
@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableDoubleVector2}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareDoubleVector2 extends DataObjectBase implements MutableDoubleVector2Trait {
+public class BareDoubleVector2 implements MutableDoubleVector2Trait {
 
     /**
      * x成分
@@ -90,4 +90,56 @@ public class BareDoubleVector2 extends DataObjectBase implements MutableDoubleVe
     public void setY(double y) {
         this.y = y;
     }
+
+    /**
+     * 他のオブジェクトがこのベクトルと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareDoubleVector2 other = (BareDoubleVector2) obj;
+        return Double.doubleToLongBits(x) == Double.doubleToLongBits(other.x)
+                && Double.doubleToLongBits(y) == Double.doubleToLongBits(other.y);
+    }
+
+    /**
+     * このベクトルのハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(x);
+        hash = PrimitiveHashCodes.combine(hash, Double.hashCode(y));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * このベクトルの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(80)
+                .append("BareDoubleVector2[")
+                .append("x=").append(x)
+                .append(",y=").append(y)
+                .append(']')
+                .toString();
+    }
 }
@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableIntPoint3}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareIntPoint3 extends DataObjectBase implements MutableIntPoint3Trait {
+public class BareIntPoint3 implements MutableIntPoint3Trait {
 
     /**
      * x座標
@@ -107,4 +107,59 @@ public class BareIntPoint3 extends DataObjectBase implements MutableIntPoint3Tra
     public void setZ(int z) {
         this.z = z;
     }
+
+    /**
+     * 他のオブジェクトがこの点と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareIntPoint3 other = (BareIntPoint3) obj;
+        return x == other.x
+                && y == other.y
+                && z == other.z;
+    }
+
+    /**
+     * この点のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Integer.hashCode(x);
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(y));
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(z));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * この点の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("BareIntPoint3[")
+                .append("x=").append(x)
+                .append(",y=").append(y)
+                .append(",z=").append(z)
+                .append(']')
+                .toString();
+    }
 }
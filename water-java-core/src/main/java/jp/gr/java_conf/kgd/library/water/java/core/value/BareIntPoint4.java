@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableIntPoint4}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareIntPoint4 extends DataObjectBase implements MutableIntPoint4Trait {
+public class BareIntPoint4 implements MutableIntPoint4Trait {
 
     /**
      * x座標
@@ -124,4 +124,62 @@ public class BareIntPoint4 extends DataObjectBase implements MutableIntPoint4Tra
     public void setW(int w) {
         this.w = w;
     }
+
+    /**
+     * 他のオブジェクトがこの点と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareIntPoint4 other = (BareIntPoint4) obj;
+        return x == other.x
+                && y == other.y
+                && z == other.z
+                && w == other.w;
+    }
+
+    /**
+     * この点のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Integer.hashCode(x);
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(y));
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(z));
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(w));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * この点の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(128)
+                .append("BareIntPoint4[")
+                .append("x=").append(x)
+                .append(",y=").append(y)
+                .append(",z=").append(z)
+                .append(",w=").append(w)
+                .append(']')
+                .toString();
+    }
 }
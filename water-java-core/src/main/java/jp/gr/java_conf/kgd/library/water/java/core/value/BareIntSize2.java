@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableIntSize2}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareIntSize2 extends DataObjectBase implements MutableIntSize2Trait {
+public class BareIntSize2 implements MutableIntSize2Trait {
 
     /**
      * 幅
@@ -90,4 +90,56 @@ public class BareIntSize2 extends DataObjectBase implements MutableIntSize2Trait
     public void setHeight(int height) {
         this.height = height;
     }
+
+    /**
+     * 他のオブジェクトがこのサイズと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareIntSize2 other = (BareIntSize2) obj;
+        return width == other.width
+                && height == other.height;
+    }
+
+    /**
+     * このサイズのハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Integer.hashCode(width);
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(height));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * このサイズの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(80)
+                .append("BareIntSize2[")
+                .append("width=").append(width)
+                .append(",height=").append(height)
+                .append(']')
+                .toString();
+    }
 }
@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableIntSize3}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareIntSize3 extends DataObjectBase implements MutableIntSize3Trait {
+public class BareIntSize3 implements MutableIntSize3Trait {
 
     /**
      * 幅
@@ -107,4 +107,59 @@ public class BareIntSize3 extends DataObjectBase implements MutableIntSize3Trait
     public void setDepth(int depth) {
         this.depth = depth;
     }
+
+    /**
+     * 他のオブジェクトがこのサイズと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareIntSize3 other = (BareIntSize3) obj;
+        return width == other.width
+                && height == other.height
+                && depth == other.depth;
+    }
+
+    /**
+     * このサイズのハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Integer.hashCode(width);
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(height));
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(depth));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * このサイズの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("BareIntSize3[")
+                .append("width=").append(width)
+                .append(",height=").append(height)
+                .append(",depth=").append(depth)
+                .append(']')
+                .toString();
+    }
 }
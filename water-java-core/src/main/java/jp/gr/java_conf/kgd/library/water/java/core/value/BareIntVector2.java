@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableIntVector2}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareIntVector2 extends DataObjectBase implements MutableIntVector2Trait {
+public class BareIntVector2 implements MutableIntVector2Trait {
 
     /**
      * x成分
@@ -90,4 +90,56 @@ public class BareIntVector2 extends DataObjectBase implements MutableIntVector2T
     public void setY(int y) {
         this.y = y;
     }
+
+    /**
+     * 他のオブジェクトがこのベクトルと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareIntVector2 other = (BareIntVector2) obj;
+        return x == other.x
+                && y == other.y;
+    }
+
+    /**
+     * このベクトルのハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Integer.hashCode(x);
+        hash = PrimitiveHashCodes.combine(hash, Integer.hashCode(y));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * このベクトルの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(80)
+                .append("BareIntVector2[")
+                .append("x=").append(x)
+                .append(",y=").append(y)
+                .append(']')
+                .toString();
+    }
 }
@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableLongColor4}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareLongColor4 extends DataObjectBase implements MutableLongColor4Trait {
+public class BareLongColor4 implements MutableLongColor4Trait {
 
     /**
      * 赤成分
@@ -124,4 +124,62 @@ public class BareLongColor4 extends DataObjectBase implements MutableLongColor4T
     public void setAlpha(long alpha) {
         this.alpha = alpha;
     }
+
+    /**
+     * 他のオブジェクトがこの色と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareLongColor4 other = (BareLongColor4) obj;
+        return red == other.red
+                && green == other.green
+                && blue == other.blue
+                && alpha == other.alpha;
+    }
+
+    /**
+     * この色のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Long.hashCode(red);
+        hash = PrimitiveHashCodes.combine(hash, Long.hashCode(green));
+        hash = PrimitiveHashCodes.combine(hash, Long.hashCode(blue));
+        hash = PrimitiveHashCodes.combine(hash, Long.hashCode(alpha));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * この色の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(128)
+                .append("BareLongColor4[")
+                .append("red=").append(red)
+                .append(",green=").append(green)
+                .append(",blue=").append(blue)
+                .append(",alpha=").append(alpha)
+                .append(']')
+                .toString();
+    }
 }
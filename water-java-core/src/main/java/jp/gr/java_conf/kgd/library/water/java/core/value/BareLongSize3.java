@@ -23,7 +23,7 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * フィールドに直接アクセス可能な{@link MutableLongSize3}の実装。
@@ -33,7 +33,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class BareLongSize3 extends DataObjectBase implements MutableLongSize3Trait {
+public class BareLongSize3 implements MutableLongSize3Trait {
 
     /**
      * 幅
@@ -107,4 +107,59 @@ public class BareLongSize3 extends DataObjectBase implements MutableLongSize3Tra
     public void setDepth(long depth) {
         this.depth = depth;
     }
+
+    /**
+     * 他のオブジェクトがこのサイズと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BareLongSize3 other = (BareLongSize3) obj;
+        return width == other.width
+                && height == other.height
+                && depth == other.depth;
+    }
+
+    /**
+     * このサイズのハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Long.hashCode(width);
+        hash = PrimitiveHashCodes.combine(hash, Long.hashCode(height));
+        hash = PrimitiveHashCodes.combine(hash, Long.hashCode(depth));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * このサイズの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("BareLongSize3[")
+                .append("width=").append(width)
+                .append(",height=").append(height)
+                .append(",depth=").append(depth)
+                .append(']')
+                .toString();
+    }
 }
@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PackedArgb;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+
+/**
+ * 成分を1つの{@code int}に詰めて保持し、フィールドに直接アクセス可能な{@link MutableIntColor4}の実装。
+ *
+ * 成分は{@link PackedArgb}の形式で格納するため、各成分は{@code 0}以上{@code 255}以下に限られます。
+ * 範囲外の値を設定しようとした場合は{@link IllegalArgumentException}を投げます。
+ * フィールドに直接アクセス可能なため、原則としてインターフェース部分に使ってはいけません。
+ *
+ * @author misakura
+ */
+public class BarePackedIntColor4 implements MutableIntColor4Trait {
+
+    /**
+     * ARGB形式の値。
+     */
+    public int argb;
+
+    /**
+     * コンストラクタ。
+     */
+    public BarePackedIntColor4() {
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @param alpha 透明度。
+     */
+    public BarePackedIntColor4(int red, int green, int blue, int alpha) {
+        this.argb = PackedArgb.pack(red, green, blue, alpha);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param color 設定値を取得する色。
+     */
+    public BarePackedIntColor4(IntColor4 color) {
+        this(color.getRedAsInt(), color.getGreenAsInt(), color.getBlueAsInt(), color.getAlphaAsInt());
+    }
+
+    /**
+     * ARGB形式の値を返す。
+     *
+     * @return ARGB形式の値。
+     */
+    public int getArgb() {
+        return argb;
+    }
+
+    /**
+     * ARGB形式の値を設定する。
+     *
+     * @param argb ARGB形式の値。
+     */
+    public void setArgb(int argb) {
+        this.argb = argb;
+    }
+
+    @Override
+    public int getRedAsInt() {
+        return PackedArgb.red(argb);
+    }
+
+    @Override
+    public int getGreenAsInt() {
+        return PackedArgb.green(argb);
+    }
+
+    @Override
+    public int getBlueAsInt() {
+        return PackedArgb.blue(argb);
+    }
+
+    @Override
+    public int getAlphaAsInt() {
+        return PackedArgb.alpha(argb);
+    }
+
+    @Override
+    public void setRed(int red) {
+        argb = PackedArgb.withRed(argb, red);
+    }
+
+    @Override
+    public void setGreen(int green) {
+        argb = PackedArgb.withGreen(argb, green);
+    }
+
+    @Override
+    public void setBlue(int blue) {
+        argb = PackedArgb.withBlue(argb, blue);
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        argb = PackedArgb.withAlpha(argb, alpha);
+    }
+
+    @Override
+    public void set(int red, int green, int blue, int alpha) {
+        argb = PackedArgb.pack(red, green, blue, alpha);
+    }
+
+    /**
+     * 他のオブジェクトがこの色と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        BarePackedIntColor4 other = (BarePackedIntColor4) obj;
+        return argb == other.argb;
+    }
+
+    /**
+     * この色のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        return PrimitiveHashCodes.finish(argb);
+    }
+
+    /**
+     * この色の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(128)
+                .append("BarePackedIntColor4[")
+                .append("red=").append(getRedAsInt())
+                .append(",green=").append(getGreenAsInt())
+                .append(",blue=").append(getBlueAsInt())
+                .append(",alpha=").append(getAlphaAsInt())
+                .append(']')
+                .toString();
+    }
+}
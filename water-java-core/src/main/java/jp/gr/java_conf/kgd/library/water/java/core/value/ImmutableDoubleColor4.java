@@ -23,7 +23,8 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.WeakInterner;
 
 /**
  * 不変であり、かつ、フィールドに直接アクセス可能な{@link DoubleColor4}の実装。
@@ -33,7 +34,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class ImmutableDoubleColor4 extends DataObjectBase implements DoubleColor4Trait {
+public class ImmutableDoubleColor4 implements DoubleColor4Trait {
 
     /**
      * 全ての値が{@code 0}である色。
@@ -70,6 +71,11 @@ public class ImmutableDoubleColor4 extends DataObjectBase implements DoubleColor
      */
     public final double alpha;
 
+    /**
+     * ハッシュ値のキャッシュ。未計算の場合は{@code 0}。
+     */
+    private int hash;
+
     /**
      * コンストラクタ。
      *
@@ -94,6 +100,39 @@ public class ImmutableDoubleColor4 extends DataObjectBase implements DoubleColor
         this(color.getRedAsDouble(), color.getGreenAsDouble(), color.getBlueAsDouble(), color.getAlphaAsDouble());
     }
 
+    /**
+     * 指定した値を持つ色を返す。
+     *
+     * 全ての値がキャッシュ範囲内の整数である場合は、キャッシュされたインスタンスを返します。（{@link #ZERO}などの定数も含みます。）
+     * それ以外の場合は新しいインスタンスを生成します。
+     * キャッシュ範囲は既定で{@code -2}から{@code 5}までで、
+     * システムプロパティ{@code jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableDoubleColor4.cache.low}及び{@code ～.cache.high}で変更できます。
+     *
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @param alpha 透明度。
+     * @return 指定した値を持つ色。
+     */
+    public static ImmutableDoubleColor4 of(double red, double green, double blue, double alpha) {
+        int index = Cache.indexOf(red, green, blue, alpha);
+        return index < 0 ? new ImmutableDoubleColor4(red, green, blue, alpha) : Cache.VALUES[index];
+    }
+
+    /**
+     * この色と等価な正準インスタンスを返す。
+     *
+     * キャッシュ範囲内であれば{@link #of(double, double, double, double)}と同じインスタンスを返します。
+     * 範囲外の場合は弱参照のインターナに登録し、等価なインスタンスが既にあればそれを返します。
+     * 正準インスタンス同士は{@code ==}で比較できます。
+     *
+     * @return 等価な正準インスタンス。
+     */
+    public ImmutableDoubleColor4 intern() {
+        int index = Cache.indexOf(red, green, blue, alpha);
+        return index < 0 ? Interner.INSTANCE.intern(this) : Cache.VALUES[index];
+    }
+
 
     @Override
     public double getRedAsDouble() {
@@ -114,4 +153,170 @@ public class ImmutableDoubleColor4 extends DataObjectBase implements DoubleColor
     public double getAlphaAsDouble() {
         return alpha;
     }
+
+    /**
+     * 他のオブジェクトがこの色と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableDoubleColor4 other = (ImmutableDoubleColor4) obj;
+        return Double.doubleToLongBits(red) == Double.doubleToLongBits(other.red)
+                && Double.doubleToLongBits(green) == Double.doubleToLongBits(other.green)
+                && Double.doubleToLongBits(blue) == Double.doubleToLongBits(other.blue)
+                && Double.doubleToLongBits(alpha) == Double.doubleToLongBits(other.alpha);
+    }
+
+    /**
+     * この色のハッシュ値を返す。
+     *
+     * 値が不変であるため、初回の呼び出しで計算したハッシュ値をキャッシュします。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Double.hashCode(red);
+            h = PrimitiveHashCodes.combine(h, Double.hashCode(green));
+            h = PrimitiveHashCodes.combine(h, Double.hashCode(blue));
+            h = PrimitiveHashCodes.combine(h, Double.hashCode(alpha));
+            h = PrimitiveHashCodes.finish(h);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * この色の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(128)
+                .append("ImmutableDoubleColor4[")
+                .append("red=").append(red)
+                .append(",green=").append(green)
+                .append(",blue=").append(blue)
+                .append(",alpha=").append(alpha)
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * {@link #of(double, double, double, double)}が返すインスタンスのキャッシュ。
+     *
+     * 初めて使われた時点で範囲内の全てのインスタンスを生成します。
+     */
+    private static final class Cache {
+
+        private static final int DEFAULT_LOW = -2;
+
+        private static final int DEFAULT_HIGH = 5;
+
+        /**
+         * キャッシュするインスタンス数の上限。
+         */
+        private static final long MAX_SIZE = 1 << 24;
+
+        static final int LOW;
+
+        static final int HIGH;
+
+        static final int SPAN;
+
+        static final ImmutableDoubleColor4[] VALUES;
+
+        static {
+            String prefix = ImmutableDoubleColor4.class.getName() + ".cache.";
+            int low = Integer.getInteger(prefix + "low", DEFAULT_LOW);
+            int high = Integer.getInteger(prefix + "high", DEFAULT_HIGH);
+            long span = Math.max(0L, (long) high - low + 1);
+            // 次元ごとに掛けて確かめることで、long の桁あふれを避けます。
+            if (span > MAX_SIZE || span * span > MAX_SIZE || span * span * span > MAX_SIZE || span * span * span * span > MAX_SIZE) {
+                low = DEFAULT_LOW;
+                high = DEFAULT_HIGH;
+                span = high - low + 1;
+            }
+            LOW = low;
+            HIGH = high;
+            SPAN = (int) span;
+            VALUES = new ImmutableDoubleColor4[SPAN * SPAN * SPAN * SPAN];
+            for (int index = 0; index < VALUES.length; index++) {
+                int rest = index;
+                int alpha = LOW + rest % SPAN;
+                rest /= SPAN;
+                int blue = LOW + rest % SPAN;
+                rest /= SPAN;
+                int green = LOW + rest % SPAN;
+                rest /= SPAN;
+                int red = LOW + rest;
+                VALUES[index] = new ImmutableDoubleColor4(red, green, blue, alpha);
+            }
+            share(ZERO);
+            share(ONE);
+            share(MINUS);
+        }
+
+        private Cache() {
+        }
+
+        /**
+         * 値に対応するキャッシュ上の位置を返す。
+         *
+         * @param red 赤成分。
+         * @param green 緑成分。
+         * @param blue 青成分。
+         * @param alpha 透明度。
+         * @return キャッシュ上の位置。キャッシュ範囲外の場合は{@code -1}。
+         */
+        static int indexOf(double red, double green, double blue, double alpha) {
+            if (!contains(red) || !contains(green) || !contains(blue) || !contains(alpha)) {
+                return -1;
+            }
+            int index = (int) (red - LOW);
+            index = index * SPAN + (int) (green - LOW);
+            index = index * SPAN + (int) (blue - LOW);
+            index = index * SPAN + (int) (alpha - LOW);
+            return index;
+        }
+
+        private static boolean contains(double value) {
+            // -0.0はequalsで0.0と区別されるため、キャッシュしない。
+            return value >= LOW && value <= HIGH && value == Math.rint(value)
+                    && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0);
+        }
+
+        private static void share(ImmutableDoubleColor4 constant) {
+            int index = indexOf(constant.red, constant.green, constant.blue, constant.alpha);
+            if (index >= 0) {
+                VALUES[index] = constant;
+            }
+        }
+    }
+
+    /**
+     * {@link #intern()}が用いるインターナ。
+     */
+    private static final class Interner {
+
+        static final WeakInterner<ImmutableDoubleColor4> INSTANCE = new WeakInterner<>();
+
+        private Interner() {
+        }
+    }
 }
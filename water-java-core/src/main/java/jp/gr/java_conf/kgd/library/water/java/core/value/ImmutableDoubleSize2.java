@@ -23,7 +23,8 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.WeakInterner;
 
 /**
  * 不変であり、かつ、フィールドに直接アクセス可能な{@link DoubleSize2}の実装。
@@ -33,7 +34,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class ImmutableDoubleSize2 extends DataObjectBase implements DoubleSize2Trait {
+public class ImmutableDoubleSize2 implements DoubleSize2Trait {
 
     /**
      * 全ての値が{@code 0}であるサイズ。
@@ -60,6 +61,11 @@ public class ImmutableDoubleSize2 extends DataObjectBase implements DoubleSize2T
      */
     public final double height;
 
+    /**
+     * ハッシュ値のキャッシュ。未計算の場合は{@code 0}。
+     */
+    private int hash;
+
     /**
      * コンストラクタ。
      *
@@ -80,6 +86,37 @@ public class ImmutableDoubleSize2 extends DataObjectBase implements DoubleSize2T
         this(size.getWidthAsDouble(), size.getHeightAsDouble());
     }
 
+    /**
+     * 指定した値を持つサイズを返す。
+     *
+     * 全ての値がキャッシュ範囲内の整数である場合は、キャッシュされたインスタンスを返します。（{@link #ZERO}などの定数も含みます。）
+     * それ以外の場合は新しいインスタンスを生成します。
+     * キャッシュ範囲は既定で{@code -16}から{@code 47}までで、
+     * システムプロパティ{@code jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableDoubleSize2.cache.low}及び{@code ～.cache.high}で変更できます。
+     *
+     * @param width 幅。
+     * @param height 高さ。
+     * @return 指定した値を持つサイズ。
+     */
+    public static ImmutableDoubleSize2 of(double width, double height) {
+        int index = Cache.indexOf(width, height);
+        return index < 0 ? new ImmutableDoubleSize2(width, height) : Cache.VALUES[index];
+    }
+
+    /**
+     * このサイズと等価な正準インスタンスを返す。
+     *
+     * キャッシュ範囲内であれば{@link #of(double, double)}と同じインスタンスを返します。
+     * 範囲外の場合は弱参照のインターナに登録し、等価なインスタンスが既にあればそれを返します。
+     * 正準インスタンス同士は{@code ==}で比較できます。
+     *
+     * @return 等価な正準インスタンス。
+     */
+    public ImmutableDoubleSize2 intern() {
+        int index = Cache.indexOf(width, height);
+        return index < 0 ? Interner.INSTANCE.intern(this) : Cache.VALUES[index];
+    }
+
 
     @Override
     public double getWidthAsDouble() {
@@ -90,4 +127,156 @@ public class ImmutableDoubleSize2 extends DataObjectBase implements DoubleSize2T
     public double getHeightAsDouble() {
         return height;
     }
+
+    /**
+     * 他のオブジェクトがこのサイズと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableDoubleSize2 other = (ImmutableDoubleSize2) obj;
+        return Double.doubleToLongBits(width) == Double.doubleToLongBits(other.width)
+                && Double.doubleToLongBits(height) == Double.doubleToLongBits(other.height);
+    }
+
+    /**
+     * このサイズのハッシュ値を返す。
+     *
+     * 値が不変であるため、初回の呼び出しで計算したハッシュ値をキャッシュします。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Double.hashCode(width);
+            h = PrimitiveHashCodes.combine(h, Double.hashCode(height));
+            h = PrimitiveHashCodes.finish(h);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * このサイズの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(80)
+                .append("ImmutableDoubleSize2[")
+                .append("width=").append(width)
+                .append(",height=").append(height)
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * {@link #of(double, double)}が返すインスタンスのキャッシュ。
+     *
+     * 初めて使われた時点で範囲内の全てのインスタンスを生成します。
+     */
+    private static final class Cache {
+
+        private static final int DEFAULT_LOW = -16;
+
+        private static final int DEFAULT_HIGH = 47;
+
+        /**
+         * キャッシュするインスタンス数の上限。
+         */
+        private static final long MAX_SIZE = 1 << 24;
+
+        static final int LOW;
+
+        static final int HIGH;
+
+        static final int SPAN;
+
+        static final ImmutableDoubleSize2[] VALUES;
+
+        static {
+            String prefix = ImmutableDoubleSize2.class.getName() + ".cache.";
+            int low = Integer.getInteger(prefix + "low", DEFAULT_LOW);
+            int high = Integer.getInteger(prefix + "high", DEFAULT_HIGH);
+            long span = Math.max(0L, (long) high - low + 1);
+            // 次元ごとに掛けて確かめることで、long の桁あふれを避けます。
+            if (span > MAX_SIZE || span * span > MAX_SIZE) {
+                low = DEFAULT_LOW;
+                high = DEFAULT_HIGH;
+                span = high - low + 1;
+            }
+            LOW = low;
+            HIGH = high;
+            SPAN = (int) span;
+            VALUES = new ImmutableDoubleSize2[SPAN * SPAN];
+            for (int index = 0; index < VALUES.length; index++) {
+                int rest = index;
+                int height = LOW + rest % SPAN;
+                rest /= SPAN;
+                int width = LOW + rest;
+                VALUES[index] = new ImmutableDoubleSize2(width, height);
+            }
+            share(ZERO);
+            share(ONE);
+            share(MINUS);
+        }
+
+        private Cache() {
+        }
+
+        /**
+         * 値に対応するキャッシュ上の位置を返す。
+         *
+         * @param width 幅。
+         * @param height 高さ。
+         * @return キャッシュ上の位置。キャッシュ範囲外の場合は{@code -1}。
+         */
+        static int indexOf(double width, double height) {
+            if (!contains(width) || !contains(height)) {
+                return -1;
+            }
+            int index = (int) (width - LOW);
+            index = index * SPAN + (int) (height - LOW);
+            return index;
+        }
+
+        private static boolean contains(double value) {
+            // -0.0はequalsで0.0と区別されるため、キャッシュしない。
+            return value >= LOW && value <= HIGH && value == Math.rint(value)
+                    && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0);
+        }
+
+        private static void share(ImmutableDoubleSize2 constant) {
+            int index = indexOf(constant.width, constant.height);
+            if (index >= 0) {
+                VALUES[index] = constant;
+            }
+        }
+    }
+
+    /**
+     * {@link #intern()}が用いるインターナ。
+     */
+    private static final class Interner {
+
+        static final WeakInterner<ImmutableDoubleSize2> INSTANCE = new WeakInterner<>();
+
+        private Interner() {
+        }
+    }
 }
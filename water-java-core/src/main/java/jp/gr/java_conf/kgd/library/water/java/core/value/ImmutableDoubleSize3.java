@@ -23,7 +23,8 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.WeakInterner;
 
 /**
  * 不変であり、かつ、フィールドに直接アクセス可能な{@link DoubleSize3}の実装。
@@ -33,7 +34,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class ImmutableDoubleSize3 extends DataObjectBase implements DoubleSize3Trait {
+public class ImmutableDoubleSize3 implements DoubleSize3Trait {
 
     /**
      * 全ての値が{@code 0}であるサイズ。
@@ -65,6 +66,11 @@ public class ImmutableDoubleSize3 extends DataObjectBase implements DoubleSize3T
      */
     public final double depth;
 
+    /**
+     * ハッシュ値のキャッシュ。未計算の場合は{@code 0}。
+     */
+    private int hash;
+
     /**
      * コンストラクタ。
      *
@@ -87,6 +93,38 @@ public class ImmutableDoubleSize3 extends DataObjectBase implements DoubleSize3T
         this(size.getWidthAsDouble(), size.getHeightAsDouble(), size.getDepthAsDouble());
     }
 
+    /**
+     * 指定した値を持つサイズを返す。
+     *
+     * 全ての値がキャッシュ範囲内の整数である場合は、キャッシュされたインスタンスを返します。（{@link #ZERO}などの定数も含みます。）
+     * それ以外の場合は新しいインスタンスを生成します。
+     * キャッシュ範囲は既定で{@code -4}から{@code 11}までで、
+     * システムプロパティ{@code jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableDoubleSize3.cache.low}及び{@code ～.cache.high}で変更できます。
+     *
+     * @param width 幅。
+     * @param height 高さ。
+     * @param depth 奥行。
+     * @return 指定した値を持つサイズ。
+     */
+    public static ImmutableDoubleSize3 of(double width, double height, double depth) {
+        int index = Cache.indexOf(width, height, depth);
+        return index < 0 ? new ImmutableDoubleSize3(width, height, depth) : Cache.VALUES[index];
+    }
+
+    /**
+     * このサイズと等価な正準インスタンスを返す。
+     *
+     * キャッシュ範囲内であれば{@link #of(double, double, double)}と同じインスタンスを返します。
+     * 範囲外の場合は弱参照のインターナに登録し、等価なインスタンスが既にあればそれを返します。
+     * 正準インスタンス同士は{@code ==}で比較できます。
+     *
+     * @return 等価な正準インスタンス。
+     */
+    public ImmutableDoubleSize3 intern() {
+        int index = Cache.indexOf(width, height, depth);
+        return index < 0 ? Interner.INSTANCE.intern(this) : Cache.VALUES[index];
+    }
+
 
     @Override
     public double getWidthAsDouble() {
@@ -102,4 +140,163 @@ public class ImmutableDoubleSize3 extends DataObjectBase implements DoubleSize3T
     public double getDepthAsDouble() {
         return depth;
     }
+
+    /**
+     * 他のオブジェクトがこのサイズと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableDoubleSize3 other = (ImmutableDoubleSize3) obj;
+        return Double.doubleToLongBits(width) == Double.doubleToLongBits(other.width)
+                && Double.doubleToLongBits(height) == Double.doubleToLongBits(other.height)
+                && Double.doubleToLongBits(depth) == Double.doubleToLongBits(other.depth);
+    }
+
+    /**
+     * このサイズのハッシュ値を返す。
+     *
+     * 値が不変であるため、初回の呼び出しで計算したハッシュ値をキャッシュします。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Double.hashCode(width);
+            h = PrimitiveHashCodes.combine(h, Double.hashCode(height));
+            h = PrimitiveHashCodes.combine(h, Double.hashCode(depth));
+            h = PrimitiveHashCodes.finish(h);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * このサイズの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("ImmutableDoubleSize3[")
+                .append("width=").append(width)
+                .append(",height=").append(height)
+                .append(",depth=").append(depth)
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * {@link #of(double, double, double)}が返すインスタンスのキャッシュ。
+     *
+     * 初めて使われた時点で範囲内の全てのインスタンスを生成します。
+     */
+    private static final class Cache {
+
+        private static final int DEFAULT_LOW = -4;
+
+        private static final int DEFAULT_HIGH = 11;
+
+        /**
+         * キャッシュするインスタンス数の上限。
+         */
+        private static final long MAX_SIZE = 1 << 24;
+
+        static final int LOW;
+
+        static final int HIGH;
+
+        static final int SPAN;
+
+        static final ImmutableDoubleSize3[] VALUES;
+
+        static {
+            String prefix = ImmutableDoubleSize3.class.getName() + ".cache.";
+            int low = Integer.getInteger(prefix + "low", DEFAULT_LOW);
+            int high = Integer.getInteger(prefix + "high", DEFAULT_HIGH);
+            long span = Math.max(0L, (long) high - low + 1);
+            // 次元ごとに掛けて確かめることで、long の桁あふれを避けます。
+            if (span > MAX_SIZE || span * span > MAX_SIZE || span * span * span > MAX_SIZE) {
+                low = DEFAULT_LOW;
+                high = DEFAULT_HIGH;
+                span = high - low + 1;
+            }
+            LOW = low;
+            HIGH = high;
+            SPAN = (int) span;
+            VALUES = new ImmutableDoubleSize3[SPAN * SPAN * SPAN];
+            for (int index = 0; index < VALUES.length; index++) {
+                int rest = index;
+                int depth = LOW + rest % SPAN;
+                rest /= SPAN;
+                int height = LOW + rest % SPAN;
+                rest /= SPAN;
+                int width = LOW + rest;
+                VALUES[index] = new ImmutableDoubleSize3(width, height, depth);
+            }
+            share(ZERO);
+            share(ONE);
+            share(MINUS);
+        }
+
+        private Cache() {
+        }
+
+        /**
+         * 値に対応するキャッシュ上の位置を返す。
+         *
+         * @param width 幅。
+         * @param height 高さ。
+         * @param depth 奥行。
+         * @return キャッシュ上の位置。キャッシュ範囲外の場合は{@code -1}。
+         */
+        static int indexOf(double width, double height, double depth) {
+            if (!contains(width) || !contains(height) || !contains(depth)) {
+                return -1;
+            }
+            int index = (int) (width - LOW);
+            index = index * SPAN + (int) (height - LOW);
+            index = index * SPAN + (int) (depth - LOW);
+            return index;
+        }
+
+        private static boolean contains(double value) {
+            // -0.0はequalsで0.0と区別されるため、キャッシュしない。
+            return value >= LOW && value <= HIGH && value == Math.rint(value)
+                    && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0);
+        }
+
+        private static void share(ImmutableDoubleSize3 constant) {
+            int index = indexOf(constant.width, constant.height, constant.depth);
+            if (index >= 0) {
+                VALUES[index] = constant;
+            }
+        }
+    }
+
+    /**
+     * {@link #intern()}が用いるインターナ。
+     */
+    private static final class Interner {
+
+        static final WeakInterner<ImmutableDoubleSize3> INSTANCE = new WeakInterner<>();
+
+        private Interner() {
+        }
+    }
 }
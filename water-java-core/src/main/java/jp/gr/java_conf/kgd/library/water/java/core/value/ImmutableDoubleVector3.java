@@ -23,7 +23,8 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.WeakInterner;
 
 /**
  * 不変であり、かつ、フィールドに直接アクセス可能な{@link DoubleVector3}の実装。
@@ -33,7 +34,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class ImmutableDoubleVector3 extends DataObjectBase implements DoubleVector3Trait {
+public class ImmutableDoubleVector3 implements DoubleVector3Trait {
 
     /**
      * 全ての値が{@code 0}であるベクトル。
@@ -65,6 +66,11 @@ public class ImmutableDoubleVector3 extends DataObjectBase implements DoubleVect
      */
     public final double z;
 
+    /**
+     * ハッシュ値のキャッシュ。未計算の場合は{@code 0}。
+     */
+    private int hash;
+
     /**
      * コンストラクタ。
      *
@@ -87,6 +93,38 @@ public class ImmutableDoubleVector3 extends DataObjectBase implements DoubleVect
         this(vector.getXAsDouble(), vector.getYAsDouble(), vector.getZAsDouble());
     }
 
+    /**
+     * 指定した値を持つベクトルを返す。
+     *
+     * 全ての値がキャッシュ範囲内の整数である場合は、キャッシュされたインスタンスを返します。（{@link #ZERO}などの定数も含みます。）
+     * それ以外の場合は新しいインスタンスを生成します。
+     * キャッシュ範囲は既定で{@code -4}から{@code 11}までで、
+     * システムプロパティ{@code jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableDoubleVector3.cache.low}及び{@code ～.cache.high}で変更できます。
+     *
+     * @param x x成分。
+     * @param y y成分。
+     * @param z z成分。
+     * @return 指定した値を持つベクトル。
+     */
+    public static ImmutableDoubleVector3 of(double x, double y, double z) {
+        int index = Cache.indexOf(x, y, z);
+        return index < 0 ? new ImmutableDoubleVector3(x, y, z) : Cache.VALUES[index];
+    }
+
+    /**
+     * このベクトルと等価な正準インスタンスを返す。
+     *
+     * キャッシュ範囲内であれば{@link #of(double, double, double)}と同じインスタンスを返します。
+     * 範囲外の場合は弱参照のインターナに登録し、等価なインスタンスが既にあればそれを返します。
+     * 正準インスタンス同士は{@code ==}で比較できます。
+     *
+     * @return 等価な正準インスタンス。
+     */
+    public ImmutableDoubleVector3 intern() {
+        int index = Cache.indexOf(x, y, z);
+        return index < 0 ? Interner.INSTANCE.intern(this) : Cache.VALUES[index];
+    }
+
 
     @Override
     public double getXAsDouble() {
@@ -102,4 +140,163 @@ public class ImmutableDoubleVector3 extends DataObjectBase implements DoubleVect
     public double getZAsDouble() {
         return z;
     }
+
+    /**
+     * 他のオブジェクトがこのベクトルと等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableDoubleVector3 other = (ImmutableDoubleVector3) obj;
+        return Double.doubleToLongBits(x) == Double.doubleToLongBits(other.x)
+                && Double.doubleToLongBits(y) == Double.doubleToLongBits(other.y)
+                && Double.doubleToLongBits(z) == Double.doubleToLongBits(other.z);
+    }
+
+    /**
+     * このベクトルのハッシュ値を返す。
+     *
+     * 値が不変であるため、初回の呼び出しで計算したハッシュ値をキャッシュします。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Double.hashCode(x);
+            h = PrimitiveHashCodes.combine(h, Double.hashCode(y));
+            h = PrimitiveHashCodes.combine(h, Double.hashCode(z));
+            h = PrimitiveHashCodes.finish(h);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * このベクトルの文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("ImmutableDoubleVector3[")
+                .append("x=").append(x)
+                .append(",y=").append(y)
+                .append(",z=").append(z)
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * {@link #of(double, double, double)}が返すインスタンスのキャッシュ。
+     *
+     * 初めて使われた時点で範囲内の全てのインスタンスを生成します。
+     */
+    private static final class Cache {
+
+        private static final int DEFAULT_LOW = -4;
+
+        private static final int DEFAULT_HIGH = 11;
+
+        /**
+         * キャッシュするインスタンス数の上限。
+         */
+        private static final long MAX_SIZE = 1 << 24;
+
+        static final int LOW;
+
+        static final int HIGH;
+
+        static final int SPAN;
+
+        static final ImmutableDoubleVector3[] VALUES;
+
+        static {
+            String prefix = ImmutableDoubleVector3.class.getName() + ".cache.";
+            int low = Integer.getInteger(prefix + "low", DEFAULT_LOW);
+            int high = Integer.getInteger(prefix + "high", DEFAULT_HIGH);
+            long span = Math.max(0L, (long) high - low + 1);
+            // 次元ごとに掛けて確かめることで、long の桁あふれを避けます。
+            if (span > MAX_SIZE || span * span > MAX_SIZE || span * span * span > MAX_SIZE) {
+                low = DEFAULT_LOW;
+                high = DEFAULT_HIGH;
+                span = high - low + 1;
+            }
+            LOW = low;
+            HIGH = high;
+            SPAN = (int) span;
+            VALUES = new ImmutableDoubleVector3[SPAN * SPAN * SPAN];
+            for (int index = 0; index < VALUES.length; index++) {
+                int rest = index;
+                int z = LOW + rest % SPAN;
+                rest /= SPAN;
+                int y = LOW + rest % SPAN;
+                rest /= SPAN;
+                int x = LOW + rest;
+                VALUES[index] = new ImmutableDoubleVector3(x, y, z);
+            }
+            share(ZERO);
+            share(ONE);
+            share(MINUS);
+        }
+
+        private Cache() {
+        }
+
+        /**
+         * 値に対応するキャッシュ上の位置を返す。
+         *
+         * @param x x成分。
+         * @param y y成分。
+         * @param z z成分。
+         * @return キャッシュ上の位置。キャッシュ範囲外の場合は{@code -1}。
+         */
+        static int indexOf(double x, double y, double z) {
+            if (!contains(x) || !contains(y) || !contains(z)) {
+                return -1;
+            }
+            int index = (int) (x - LOW);
+            index = index * SPAN + (int) (y - LOW);
+            index = index * SPAN + (int) (z - LOW);
+            return index;
+        }
+
+        private static boolean contains(double value) {
+            // -0.0はequalsで0.0と区別されるため、キャッシュしない。
+            return value >= LOW && value <= HIGH && value == Math.rint(value)
+                    && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0);
+        }
+
+        private static void share(ImmutableDoubleVector3 constant) {
+            int index = indexOf(constant.x, constant.y, constant.z);
+            if (index >= 0) {
+                VALUES[index] = constant;
+            }
+        }
+    }
+
+    /**
+     * {@link #intern()}が用いるインターナ。
+     */
+    private static final class Interner {
+
+        static final WeakInterner<ImmutableDoubleVector3> INSTANCE = new WeakInterner<>();
+
+        private Interner() {
+        }
+    }
 }
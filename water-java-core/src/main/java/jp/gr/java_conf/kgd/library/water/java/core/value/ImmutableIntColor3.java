@@ -23,7 +23,8 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.WeakInterner;
 
 /**
  * 不変であり、かつ、フィールドに直接アクセス可能な{@link IntColor3}の実装。
@@ -33,7 +34,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class ImmutableIntColor3 extends DataObjectBase implements IntColor3Trait {
+public class ImmutableIntColor3 implements IntColor3Trait {
 
     /**
      * 全ての値が{@code 0}である色。
@@ -65,6 +66,11 @@ public class ImmutableIntColor3 extends DataObjectBase implements IntColor3Trait
      */
     public final int blue;
 
+    /**
+     * ハッシュ値のキャッシュ。未計算の場合は{@code 0}。
+     */
+    private int hash;
+
     /**
      * コンストラクタ。
      *
@@ -87,6 +93,38 @@ public class ImmutableIntColor3 extends DataObjectBase implements IntColor3Trait
         this(color.getRedAsInt(), color.getGreenAsInt(), color.getBlueAsInt());
     }
 
+    /**
+     * 指定した値を持つ色を返す。
+     *
+     * 全ての値がキャッシュ範囲内の整数である場合は、キャッシュされたインスタンスを返します。（{@link #ZERO}などの定数も含みます。）
+     * それ以外の場合は新しいインスタンスを生成します。
+     * キャッシュ範囲は既定で{@code -4}から{@code 11}までで、
+     * システムプロパティ{@code jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableIntColor3.cache.low}及び{@code ～.cache.high}で変更できます。
+     *
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @return 指定した値を持つ色。
+     */
+    public static ImmutableIntColor3 of(int red, int green, int blue) {
+        int index = Cache.indexOf(red, green, blue);
+        return index < 0 ? new ImmutableIntColor3(red, green, blue) : Cache.VALUES[index];
+    }
+
+    /**
+     * この色と等価な正準インスタンスを返す。
+     *
+     * キャッシュ範囲内であれば{@link #of(int, int, int)}と同じインスタンスを返します。
+     * 範囲外の場合は弱参照のインターナに登録し、等価なインスタンスが既にあればそれを返します。
+     * 正準インスタンス同士は{@code ==}で比較できます。
+     *
+     * @return 等価な正準インスタンス。
+     */
+    public ImmutableIntColor3 intern() {
+        int index = Cache.indexOf(red, green, blue);
+        return index < 0 ? Interner.INSTANCE.intern(this) : Cache.VALUES[index];
+    }
+
 
     @Override
     public int getRedAsInt() {
@@ -102,4 +140,161 @@ public class ImmutableIntColor3 extends DataObjectBase implements IntColor3Trait
     public int getBlueAsInt() {
         return blue;
     }
+
+    /**
+     * 他のオブジェクトがこの色と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableIntColor3 other = (ImmutableIntColor3) obj;
+        return red == other.red
+                && green == other.green
+                && blue == other.blue;
+    }
+
+    /**
+     * この色のハッシュ値を返す。
+     *
+     * 値が不変であるため、初回の呼び出しで計算したハッシュ値をキャッシュします。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Integer.hashCode(red);
+            h = PrimitiveHashCodes.combine(h, Integer.hashCode(green));
+            h = PrimitiveHashCodes.combine(h, Integer.hashCode(blue));
+            h = PrimitiveHashCodes.finish(h);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * この色の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("ImmutableIntColor3[")
+                .append("red=").append(red)
+                .append(",green=").append(green)
+                .append(",blue=").append(blue)
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * {@link #of(int, int, int)}が返すインスタンスのキャッシュ。
+     *
+     * 初めて使われた時点で範囲内の全てのインスタンスを生成します。
+     */
+    private static final class Cache {
+
+        private static final int DEFAULT_LOW = -4;
+
+        private static final int DEFAULT_HIGH = 11;
+
+        /**
+         * キャッシュするインスタンス数の上限。
+         */
+        private static final long MAX_SIZE = 1 << 24;
+
+        static final int LOW;
+
+        static final int HIGH;
+
+        static final int SPAN;
+
+        static final ImmutableIntColor3[] VALUES;
+
+        static {
+            String prefix = ImmutableIntColor3.class.getName() + ".cache.";
+            int low = Integer.getInteger(prefix + "low", DEFAULT_LOW);
+            int high = Integer.getInteger(prefix + "high", DEFAULT_HIGH);
+            long span = Math.max(0L, (long) high - low + 1);
+            // 次元ごとに掛けて確かめることで、long の桁あふれを避けます。
+            if (span > MAX_SIZE || span * span > MAX_SIZE || span * span * span > MAX_SIZE) {
+                low = DEFAULT_LOW;
+                high = DEFAULT_HIGH;
+                span = high - low + 1;
+            }
+            LOW = low;
+            HIGH = high;
+            SPAN = (int) span;
+            VALUES = new ImmutableIntColor3[SPAN * SPAN * SPAN];
+            for (int index = 0; index < VALUES.length; index++) {
+                int rest = index;
+                int blue = LOW + rest % SPAN;
+                rest /= SPAN;
+                int green = LOW + rest % SPAN;
+                rest /= SPAN;
+                int red = LOW + rest;
+                VALUES[index] = new ImmutableIntColor3(red, green, blue);
+            }
+            share(ZERO);
+            share(ONE);
+            share(MINUS);
+        }
+
+        private Cache() {
+        }
+
+        /**
+         * 値に対応するキャッシュ上の位置を返す。
+         *
+         * @param red 赤成分。
+         * @param green 緑成分。
+         * @param blue 青成分。
+         * @return キャッシュ上の位置。キャッシュ範囲外の場合は{@code -1}。
+         */
+        static int indexOf(int red, int green, int blue) {
+            if (!contains(red) || !contains(green) || !contains(blue)) {
+                return -1;
+            }
+            int index = red - LOW;
+            index = index * SPAN + (green - LOW);
+            index = index * SPAN + (blue - LOW);
+            return index;
+        }
+
+        private static boolean contains(int value) {
+            return value >= LOW && value <= HIGH;
+        }
+
+        private static void share(ImmutableIntColor3 constant) {
+            int index = indexOf(constant.red, constant.green, constant.blue);
+            if (index >= 0) {
+                VALUES[index] = constant;
+            }
+        }
+    }
+
+    /**
+     * {@link #intern()}が用いるインターナ。
+     */
+    private static final class Interner {
+
+        static final WeakInterner<ImmutableIntColor3> INSTANCE = new WeakInterner<>();
+
+        private Interner() {
+        }
+    }
 }
@@ -23,7 +23,8 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.WeakInterner;
 
 /**
  * 不変であり、かつ、フィールドに直接アクセス可能な{@link IntPoint2}の実装。
@@ -33,7 +34,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  *
  * @author misakura
  */
-public class ImmutableIntPoint2 extends DataObjectBase implements IntPoint2Trait {
+public class ImmutableIntPoint2 implements IntPoint2Trait {
 
     /**
      * 全ての値が{@code 0}である点。
@@ -60,6 +61,11 @@ public class ImmutableIntPoint2 extends DataObjectBase implements IntPoint2Trait
      */
     public final int y;
 
+    /**
+     * ハッシュ値のキャッシュ。未計算の場合は{@code 0}。
+     */
+    private int hash;
+
     /**
      * コンストラクタ。
      *
@@ -80,6 +86,37 @@ public class ImmutableIntPoint2 extends DataObjectBase implements IntPoint2Trait
         this(point.getXAsInt(), point.getYAsInt());
     }
 
+    /**
+     * 指定した値を持つ点を返す。
+     *
+     * 全ての値がキャッシュ範囲内の整数である場合は、キャッシュされたインスタンスを返します。（{@link #ZERO}などの定数も含みます。）
+     * それ以外の場合は新しいインスタンスを生成します。
+     * キャッシュ範囲は既定で{@code -16}から{@code 47}までで、
+     * システムプロパティ{@code jp.gr.java_conf.kgd.library.water.java.core.value.ImmutableIntPoint2.cache.low}及び{@code ～.cache.high}で変更できます。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @return 指定した値を持つ点。
+     */
+    public static ImmutableIntPoint2 of(int x, int y) {
+        int index = Cache.indexOf(x, y);
+        return index < 0 ? new ImmutableIntPoint2(x, y) : Cache.VALUES[index];
+    }
+
+    /**
+     * この点と等価な正準インスタンスを返す。
+     *
+     * キャッシュ範囲内であれば{@link #of(int, int)}と同じインスタンスを返します。
+     * 範囲外の場合は弱参照のインターナに登録し、等価なインスタンスが既にあればそれを返します。
+     * 正準インスタンス同士は{@code ==}で比較できます。
+     *
+     * @return 等価な正準インスタンス。
+     */
+    public ImmutableIntPoint2 intern() {
+        int index = Cache.indexOf(x, y);
+        return index < 0 ? Interner.INSTANCE.intern(this) : Cache.VALUES[index];
+    }
+
 
     @Override
     public int getXAsInt() {
@@ -90,4 +127,154 @@ public class ImmutableIntPoint2 extends DataObjectBase implements IntPoint2Trait
     public int getYAsInt() {
         return y;
     }
+
+    /**
+     * 他のオブジェクトがこの点と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutableIntPoint2 other = (ImmutableIntPoint2) obj;
+        return x == other.x
+                && y == other.y;
+    }
+
+    /**
+     * この点のハッシュ値を返す。
+     *
+     * 値が不変であるため、初回の呼び出しで計算したハッシュ値をキャッシュします。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Integer.hashCode(x);
+            h = PrimitiveHashCodes.combine(h, Integer.hashCode(y));
+            h = PrimitiveHashCodes.finish(h);
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * この点の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(80)
+                .append("ImmutableIntPoint2[")
+                .append("x=").append(x)
+                .append(",y=").append(y)
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * {@link #of(int, int)}が返すインスタンスのキャッシュ。
+     *
+     * 初めて使われた時点で範囲内の全てのインスタンスを生成します。
+     */
+    private static final class Cache {
+
+        private static final int DEFAULT_LOW = -16;
+
+        private static final int DEFAULT_HIGH = 47;
+
+        /**
+         * キャッシュするインスタンス数の上限。
+         */
+        private static final long MAX_SIZE = 1 << 24;
+
+        static final int LOW;
+
+        static final int HIGH;
+
+        static final int SPAN;
+
+        static final ImmutableIntPoint2[] VALUES;
+
+        static {
+            String prefix = ImmutableIntPoint2.class.getName() + ".cache.";
+            int low = Integer.getInteger(prefix + "low", DEFAULT_LOW);
+            int high = Integer.getInteger(prefix + "high", DEFAULT_HIGH);
+            long span = Math.max(0L, (long) high - low + 1);
+            // 次元ごとに掛けて確かめることで、long の桁あふれを避けます。
+            if (span > MAX_SIZE || span * span > MAX_SIZE) {
+                low = DEFAULT_LOW;
+                high = DEFAULT_HIGH;
+                span = high - low + 1;
+            }
+            LOW = low;
+            HIGH = high;
+            SPAN = (int) span;
+            VALUES = new ImmutableIntPoint2[SPAN * SPAN];
+            for (int index = 0; index < VALUES.length; index++) {
+                int rest = index;
+                int y = LOW + rest % SPAN;
+                rest /= SPAN;
+                int x = LOW + rest;
+                VALUES[index] = new ImmutableIntPoint2(x, y);
+            }
+            share(ZERO);
+            share(ONE);
+            share(MINUS);
+        }
+
+        private Cache() {
+        }
+
+        /**
+         * 値に対応するキャッシュ上の位置を返す。
+         *
+         * @param x x座標。
+         * @param y y座標。
+         * @return キャッシュ上の位置。キャッシュ範囲外の場合は{@code -1}。
+         */
+        static int indexOf(int x, int y) {
+            if (!contains(x) || !contains(y)) {
+                return -1;
+            }
+            int index = x - LOW;
+            index = index * SPAN + (y - LOW);
+            return index;
+        }
+
+        private static boolean contains(int value) {
+            return value >= LOW && value <= HIGH;
+        }
+
+        private static void share(ImmutableIntPoint2 constant) {
+            int index = indexOf(constant.x, constant.y);
+            if (index >= 0) {
+                VALUES[index] = constant;
+            }
+        }
+    }
+
+    /**
+     * {@link #intern()}が用いるインターナ。
+     */
+    private static final class Interner {
+
+        static final WeakInterner<ImmutableIntPoint2> INSTANCE = new WeakInterner<>();
+
+        private Interner() {
+        }
+    }
 }
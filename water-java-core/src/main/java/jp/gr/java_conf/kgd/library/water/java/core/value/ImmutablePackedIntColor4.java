@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PackedArgb;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+
+/**
+ * 不変であり、成分を1つの{@code int}に詰めて保持する{@link IntColor4}の実装。
+ *
+ * 成分は{@link PackedArgb}の形式で格納するため、各成分は{@code 0}以上{@code 255}以下に限られます。
+ * 4つの{@code int}を持つ{@link ImmutableIntColor4}と比べて、インスタンスあたりのメモリが半分になります。
+ * インスタンスを小さく保つため、ハッシュ値はキャッシュしません。
+ *
+ * @author misakura
+ */
+public class ImmutablePackedIntColor4 implements IntColor4Trait {
+
+    /**
+     * 全ての値が{@code 0}である色。
+     */
+    public static final ImmutablePackedIntColor4 ZERO = new ImmutablePackedIntColor4(0, 0, 0, 0);
+
+    /**
+     * ARGB形式の値。
+     */
+    public final int argb;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @param alpha 透明度。
+     */
+    public ImmutablePackedIntColor4(int red, int green, int blue, int alpha) {
+        this.argb = PackedArgb.pack(red, green, blue, alpha);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param color 設定値を取得する色。
+     */
+    public ImmutablePackedIntColor4(IntColor4 color) {
+        this(color.getRedAsInt(), color.getGreenAsInt(), color.getBlueAsInt(), color.getAlphaAsInt());
+    }
+
+    private ImmutablePackedIntColor4(int argb) {
+        this.argb = argb;
+    }
+
+    /**
+     * ARGB形式の値を持つ色を返す。
+     *
+     * @param argb ARGB形式の値。
+     * @return 指定した値を持つ色。
+     */
+    public static ImmutablePackedIntColor4 ofArgb(int argb) {
+        return argb == 0 ? ZERO : new ImmutablePackedIntColor4(argb);
+    }
+
+    /**
+     * ARGB形式の値を返す。
+     *
+     * @return ARGB形式の値。
+     */
+    public int getArgb() {
+        return argb;
+    }
+
+    @Override
+    public int getRedAsInt() {
+        return PackedArgb.red(argb);
+    }
+
+    @Override
+    public int getGreenAsInt() {
+        return PackedArgb.green(argb);
+    }
+
+    @Override
+    public int getBlueAsInt() {
+        return PackedArgb.blue(argb);
+    }
+
+    @Override
+    public int getAlphaAsInt() {
+        return PackedArgb.alpha(argb);
+    }
+
+    /**
+     * 他のオブジェクトがこの色と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ImmutablePackedIntColor4 other = (ImmutablePackedIntColor4) obj;
+        return argb == other.argb;
+    }
+
+    /**
+     * この色のハッシュ値を返す。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        return PrimitiveHashCodes.finish(argb);
+    }
+
+    /**
+     * この色の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(128)
+                .append("ImmutablePackedIntColor4[")
+                .append("red=").append(getRedAsInt())
+                .append(",green=").append(getGreenAsInt())
+                .append(",blue=").append(getBlueAsInt())
+                .append(",alpha=").append(getAlphaAsInt())
+                .append(']')
+                .toString();
+    }
+}
@@ -23,7 +23,8 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import java.util.Objects;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * 値の変更が可能な{@link MutableObjectSize2}の実装。
@@ -34,7 +35,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  * @author misakura
  * @param <T> 任意の型。
  */
-public class SimpleObjectColor4<T> extends DataObjectBase implements MutableObjectColor4<T> {
+public class SimpleObjectColor4<T> implements MutableObjectColor4<T> {
 
     /**
      * 赤成分。
@@ -185,4 +186,62 @@ public class SimpleObjectColor4<T> extends DataObjectBase implements MutableObje
     public void setAlpha(T alpha) {
         this.alpha = alpha;
     }
+
+    /**
+     * 他のオブジェクトがこの色と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が{@link Objects#equals(Object, Object)}で等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        SimpleObjectColor4<?> other = (SimpleObjectColor4<?>) obj;
+        return Objects.equals(red, other.red)
+                && Objects.equals(green, other.green)
+                && Objects.equals(blue, other.blue)
+                && Objects.equals(alpha, other.alpha);
+    }
+
+    /**
+     * この色のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Objects.hashCode(red);
+        hash = PrimitiveHashCodes.combine(hash, Objects.hashCode(green));
+        hash = PrimitiveHashCodes.combine(hash, Objects.hashCode(blue));
+        hash = PrimitiveHashCodes.combine(hash, Objects.hashCode(alpha));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * この色の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(128)
+                .append("SimpleObjectColor4[")
+                .append("red=").append(red)
+                .append(",green=").append(green)
+                .append(",blue=").append(blue)
+                .append(",alpha=").append(alpha)
+                .append(']')
+                .toString();
+    }
 }
@@ -23,7 +23,8 @@
  */
 package jp.gr.java_conf.kgd.library.water.java.core.value;
 
-import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
+import java.util.Objects;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
 
 /**
  * 値の変更が可能な{@link MutableObjectSize2}の実装。
@@ -34,7 +35,7 @@ import jp.gr.java_conf.kgd.library.water.java.core.template.DataObjectBase;
  * @author misakura
  * @param <T> 任意の型。
  */
-public class SimpleObjectPoint3<T> extends DataObjectBase implements MutableObjectPoint3<T> {
+public class SimpleObjectPoint3<T> implements MutableObjectPoint3<T> {
 
     /**
      * x座標。
@@ -154,4 +155,59 @@ public class SimpleObjectPoint3<T> extends DataObjectBase implements MutableObje
     public void setZ(T z) {
         this.z = z;
     }
+
+    /**
+     * 他のオブジェクトがこの点と等しいかどうかを返す。
+     *
+     * 同じクラスのインスタンスであり、全ての次元の値が{@link Objects#equals(Object, Object)}で等しい場合に{@code true}を返します。
+     *
+     * @param obj 比較するオブジェクト。
+     * @return 等しい場合は{@code true}。
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        SimpleObjectPoint3<?> other = (SimpleObjectPoint3<?>) obj;
+        return Objects.equals(x, other.x)
+                && Objects.equals(y, other.y)
+                && Objects.equals(z, other.z);
+    }
+
+    /**
+     * この点のハッシュ値を返す。
+     *
+     * 値が変更可能なため、ハッシュ値はキャッシュせず呼び出しの度に計算します。
+     *
+     * @return ハッシュ値。
+     */
+    @Override
+    public int hashCode() {
+        int hash = Objects.hashCode(x);
+        hash = PrimitiveHashCodes.combine(hash, Objects.hashCode(y));
+        hash = PrimitiveHashCodes.combine(hash, Objects.hashCode(z));
+        return PrimitiveHashCodes.finish(hash);
+    }
+
+    /**
+     * この点の文字列表現を返す。
+     *
+     * {@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        return new StringBuilder(104)
+                .append("SimpleObjectPoint3[")
+                .append("x=").append(x)
+                .append(",y=").append(y)
+                .append(",z=").append(z)
+                .append(']')
+                .toString();
+    }
 }
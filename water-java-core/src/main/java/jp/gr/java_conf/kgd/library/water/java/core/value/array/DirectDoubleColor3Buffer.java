@@ -0,0 +1,464 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.array;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleColor3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleColor3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleColor3Trait;
+
+/**
+ * 多数の{@link DoubleColor3}を、ヒープ外のダイレクトバッファで保持する固定長のコンテナ。
+ *
+ * 値がGCの管理対象外に置かれるため、巨大なデータを保持してもGCの停止時間に影響しません。
+ * 要素の並びは{@link BufferLayout}で選択できます。
+ * 1本のバッファに収まらない要素数の場合は、{@code 2^24}要素ごとのセグメントに分割して確保します。
+ *
+ * 使い終わったら{@link #release()}を呼び出してネイティブメモリを解放してください。
+ * 解放後に、このコンテナから取得したカーソルやバッファを使ってはいけません。
+ *
+ * @author misakura
+ */
+public class DirectDoubleColor3Buffer implements AutoCloseable {
+
+    /**
+     * 1セグメントあたりの要素数の2を底とする対数。
+     */
+    private static final int SEGMENT_SHIFT = 24;
+
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = 3;
+
+    /**
+     * 要素数。
+     */
+    private final int size;
+
+    /**
+     * 要素の並び。
+     */
+    private final BufferLayout layout;
+
+    /**
+     * 隣り合う要素の間隔。
+     */
+    private final int elementStride;
+
+    /**
+     * セグメントごとの、隣り合う次元の間隔。
+     */
+    private final int[] componentStrides;
+
+    /**
+     * セグメントごとの確保したメモリ。解放後は{@code null}。
+     */
+    private ByteBuffer[] memories;
+
+    /**
+     * セグメントごとの型付きビュー。解放後は{@code null}。
+     */
+    private DoubleBuffer[] segments;
+
+    /**
+     * コンストラクタ。
+     *
+     * 全ての値は{@code 0}で初期化されます。
+     *
+     * @param size 要素数。
+     * @param layout 要素の並び。
+     */
+    public DirectDoubleColor3Buffer(int size, BufferLayout layout) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
+        this.size = size;
+        this.layout = layout;
+        this.elementStride = layout == BufferLayout.INTERLEAVED ? DIMENSION : 1;
+
+        int segmentCount = (int) (((long) size + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        this.componentStrides = new int[segmentCount];
+        this.memories = new ByteBuffer[segmentCount];
+        this.segments = new DoubleBuffer[segmentCount];
+        for (int segment = 0; segment < segmentCount; segment++) {
+            int elements = Math.min(SEGMENT_SIZE, size - (segment << SEGMENT_SHIFT));
+            ByteBuffer memory = DirectBuffers.allocate(elements * DIMENSION * Double.BYTES);
+            componentStrides[segment] = layout == BufferLayout.INTERLEAVED ? 1 : elements;
+            memories[segment] = memory;
+            segments[segment] = memory.asDoubleBuffer();
+        }
+    }
+
+    /**
+     * 要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素の並びを返す。
+     *
+     * @return 要素の並び。
+     */
+    public BufferLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * セグメントの数を返す。
+     *
+     * @return セグメントの数。
+     */
+    public int getSegmentCount() {
+        return componentStrides.length;
+    }
+
+    /**
+     * 指定したセグメントの型付きビューを返す。
+     *
+     * 防御的コピーを行いません。ネイティブコードなどへ渡すために使います。
+     * 並びは{@link #getLayout()}に従い、{@link BufferLayout#PLANAR}の場合はセグメントごとに次元が分かれます。
+     *
+     * @param segment セグメントの番号。
+     * @return 型付きビュー。
+     */
+    public DoubleBuffer getSegment(int segment) {
+        return segments()[segment];
+    }
+
+    /**
+     * ネイティブメモリが解放済みかどうかを返す。
+     *
+     * @return 解放済みの場合は{@code true}。
+     */
+    public boolean isReleased() {
+        return segments == null;
+    }
+
+    /**
+     * ネイティブメモリを解放する。
+     *
+     * 解放後の操作は{@link IllegalStateException}を投げます。既に解放済みの場合は何もしません。
+     */
+    public void release() {
+        ByteBuffer[] released = memories;
+        if (released == null) {
+            return;
+        }
+        segments = null;
+        memories = null;
+        for (ByteBuffer memory : released) {
+            DirectBuffers.free(memory);
+        }
+    }
+
+    /**
+     * {@link #release()}に委譲する。
+     */
+    @Override
+    public void close() {
+        release();
+    }
+
+    /**
+     * 指定した要素の赤成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 赤成分。
+     */
+    public double getRed(int index) {
+        checkIndex(index);
+        int segment = index >>> SEGMENT_SHIFT;
+        return segments()[segment].get((index & SEGMENT_MASK) * elementStride);
+    }
+
+    /**
+     * 指定した要素の緑成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 緑成分。
+     */
+    public double getGreen(int index) {
+        checkIndex(index);
+        int segment = index >>> SEGMENT_SHIFT;
+        return segments()[segment].get((index & SEGMENT_MASK) * elementStride + 1 * componentStrides[segment]);
+    }
+
+    /**
+     * 指定した要素の青成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 青成分。
+     */
+    public double getBlue(int index) {
+        checkIndex(index);
+        int segment = index >>> SEGMENT_SHIFT;
+        return segments()[segment].get((index & SEGMENT_MASK) * elementStride + 2 * componentStrides[segment]);
+    }
+
+    /**
+     * 指定した要素の赤成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param red 赤成分。
+     */
+    public void setRed(int index, double red) {
+        checkIndex(index);
+        int segment = index >>> SEGMENT_SHIFT;
+        segments()[segment].put((index & SEGMENT_MASK) * elementStride, red);
+    }
+
+    /**
+     * 指定した要素の緑成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param green 緑成分。
+     */
+    public void setGreen(int index, double green) {
+        checkIndex(index);
+        int segment = index >>> SEGMENT_SHIFT;
+        segments()[segment].put((index & SEGMENT_MASK) * elementStride + 1 * componentStrides[segment], green);
+    }
+
+    /**
+     * 指定した要素の青成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param blue 青成分。
+     */
+    public void setBlue(int index, double blue) {
+        checkIndex(index);
+        int segment = index >>> SEGMENT_SHIFT;
+        segments()[segment].put((index & SEGMENT_MASK) * elementStride + 2 * componentStrides[segment], blue);
+    }
+
+    /**
+     * 指定した要素の全ての次元に値を設定する。
+     *
+     * @param index 要素の添字。
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     */
+    public void set(int index, double red, double green, double blue) {
+        checkIndex(index);
+        int segment = index >>> SEGMENT_SHIFT;
+        DoubleBuffer buffer = segments()[segment];
+        int base = (index & SEGMENT_MASK) * elementStride;
+        int componentStride = componentStrides[segment];
+        buffer.put(base, red);
+        buffer.put(base + 1 * componentStride, green);
+        buffer.put(base + 2 * componentStride, blue);
+    }
+
+    /**
+     * 他の色インスタンスから全ての次元の値を取得し、指定した要素へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param color 設定値を取得する色。
+     */
+    public void set(int index, DoubleColor3 color) {
+        set(index, color.getRedAsDouble(), color.getGreenAsDouble(), color.getBlueAsDouble());
+    }
+
+    /**
+     * 指定した要素の値を、渡された色へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param destination 値の設定先。
+     */
+    public void get(int index, MutableDoubleColor3 destination) {
+        checkIndex(index);
+        int segment = index >>> SEGMENT_SHIFT;
+        DoubleBuffer buffer = segments()[segment];
+        int base = (index & SEGMENT_MASK) * elementStride;
+        int componentStride = componentStrides[segment];
+        destination.set(buffer.get(base), buffer.get(base + 1 * componentStride), buffer.get(base + 2 * componentStride));
+    }
+
+    /**
+     * 先頭の要素の直前を指す新しいカーソルを返す。
+     *
+     * {@code while (cursor.next())}の形で全要素を走査できます。
+     *
+     * @return カーソル。
+     */
+    public Cursor cursor() {
+        return new Cursor(-1);
+    }
+
+    /**
+     * 指定した要素を指す新しいカーソルを返す。
+     *
+     * @param index 要素の添字。
+     * @return カーソル。
+     */
+    public Cursor cursor(int index) {
+        return new Cursor(index);
+    }
+
+    private DoubleBuffer[] segments() {
+        DoubleBuffer[] current = segments;
+        if (current == null) {
+            throw new IllegalStateException("Already released");
+        }
+        return current;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * コンテナの1要素を{@link MutableDoubleColor3}として扱うためのカーソル。
+     *
+     * 値を保持せず、指している添字の要素を読み書きします。
+     * {@link #moveTo(int)}や{@link #next()}で添字を切り替えることで、1つのインスタンスを使い回して全要素を走査できます。
+     * 添字の範囲は移動時にのみ確認し、範囲外を指している間の読み書きは{@link IndexOutOfBoundsException}を投げます。
+     * {@link #release()}の後の読み書きは、解放前に移動したカーソルでも{@link IllegalStateException}を投げます。
+     */
+    public final class Cursor implements MutableDoubleColor3Trait {
+
+        /**
+         * 指している要素の添字。
+         */
+        private int index;
+
+        /**
+         * 指している要素を含むセグメント。範囲外を指している場合は{@code null}。
+         */
+        private DoubleBuffer buffer;
+
+        /**
+         * セグメント内での要素の位置。
+         */
+        private int base;
+
+        /**
+         * セグメント内での、隣り合う次元の間隔。
+         */
+        private int componentStride;
+
+        private Cursor(int index) {
+            moveTo(index);
+        }
+
+        /**
+         * 指している要素の添字を返す。
+         *
+         * @return 要素の添字。
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 指定した要素を指すよう移動する。
+         *
+         * @param index 要素の添字。
+         * @return このカーソル。
+         */
+        public Cursor moveTo(int index) {
+            this.index = index;
+            if (index < 0 || index >= size) {
+                buffer = null;
+                return this;
+            }
+            int segment = index >>> SEGMENT_SHIFT;
+            buffer = segments()[segment];
+            base = (index & SEGMENT_MASK) * elementStride;
+            componentStride = componentStrides[segment];
+            return this;
+        }
+
+        /**
+         * 次の要素を指すよう移動する。
+         *
+         * @return 移動後の添字が{@link #size()}未満の場合は{@code true}。
+         */
+        public boolean next() {
+            moveTo(index + 1);
+            return buffer != null;
+        }
+
+        @Override
+        public double getRedAsDouble() {
+            return buffer().get(base);
+        }
+
+        @Override
+        public double getGreenAsDouble() {
+            return buffer().get(base + 1 * componentStride);
+        }
+
+        @Override
+        public double getBlueAsDouble() {
+            return buffer().get(base + 2 * componentStride);
+        }
+
+        @Override
+        public void setRed(double red) {
+            buffer().put(base, red);
+        }
+
+        @Override
+        public void setGreen(double green) {
+            buffer().put(base + 1 * componentStride, green);
+        }
+
+        @Override
+        public void setBlue(double blue) {
+            buffer().put(base + 2 * componentStride, blue);
+        }
+
+        @Override
+        public void set(double red, double green, double blue) {
+            DoubleBuffer current = buffer();
+            current.put(base, red);
+            current.put(base + 1 * componentStride, green);
+            current.put(base + 2 * componentStride, blue);
+        }
+
+        private DoubleBuffer buffer() {
+            // 解放前に移動したカーソルも、解放済みのメモリを読み書きしないよう確認します。
+            segments();
+            DoubleBuffer current = buffer;
+            if (current == null) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return current;
+        }
+    }
+}
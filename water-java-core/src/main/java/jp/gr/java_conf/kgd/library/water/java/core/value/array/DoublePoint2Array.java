@@ -0,0 +1,590 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.array;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint2Trait;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveArrayOperations;
+
+/**
+ * 多数の{@link DoublePoint2}を、次元ごとのプリミティブ配列で保持する可変長のコンテナ。
+ *
+ * 要素ごとにオブジェクトを生成しないため、オブジェクトヘッダや参照の分だけメモリを節約でき、走査時のキャッシュ効率も良くなります。
+ * インターフェース経由で操作する場合は、添字を切り替えて使い回せる{@link Cursor}を使います。
+ * 速度が必要な箇所では、{@link #getXArray()}などで内部配列を直接走査できます。
+ *
+ * @author misakura
+ */
+public class DoublePoint2Array {
+
+    /**
+     * 容量を指定しなかった場合の初期容量。
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * x座標の配列。
+     */
+    private double[] x;
+
+    /**
+     * y座標の配列。
+     */
+    private double[] y;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     */
+    public DoublePoint2Array() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param initialCapacity 初期容量。
+     */
+    public DoublePoint2Array(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.x = new double[initialCapacity];
+        this.y = new double[initialCapacity];
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 内部配列を拡張せずに格納できる要素数を返す。
+     *
+     * @return 容量。
+     */
+    public int capacity() {
+        return x.length;
+    }
+
+    /**
+     * 少なくとも指定した要素数を格納できるよう、必要に応じて内部配列を拡張する。
+     *
+     * @param minCapacity 必要な容量。
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required capacity overflow");
+        }
+        int oldCapacity = x.length;
+        if (minCapacity <= oldCapacity) {
+            return;
+        }
+        int newCapacity = Math.max(oldCapacity + (oldCapacity >> 1), DEFAULT_CAPACITY);
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = minCapacity;
+        }
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+    }
+
+    /**
+     * 内部配列の容量を現在の要素数まで縮小する。
+     */
+    public void trimToSize() {
+        if (size < x.length) {
+            x = Arrays.copyOf(x, size);
+            y = Arrays.copyOf(y, size);
+        }
+    }
+
+    /**
+     * 全ての要素を取り除く。
+     *
+     * 内部配列の容量はそのまま残ります。
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 要素数を変更する。
+     *
+     * 要素数を増やした場合、追加された要素の全ての次元は{@code 0}になります。
+     *
+     * @param newSize 新しい要素数。
+     */
+    public void resize(int newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + newSize);
+        }
+        ensureCapacity(newSize);
+        if (newSize > size) {
+            Arrays.fill(x, size, newSize, 0);
+            Arrays.fill(y, size, newSize, 0);
+        }
+        size = newSize;
+    }
+
+    /**
+     * 末尾に要素を追加する。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @return 追加した要素の添字。
+     */
+    public int add(double x, double y) {
+        int index = size;
+        ensureCapacity(index + 1);
+        this.x[index] = x;
+        this.y[index] = y;
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * 末尾に要素を追加する。
+     *
+     * @param point 追加する値を取得する点。
+     * @return 追加した要素の添字。
+     */
+    public int add(DoublePoint2 point) {
+        return add(point.getXAsDouble(), point.getYAsDouble());
+    }
+
+    /**
+     * 末尾に複数の要素を追加する。
+     *
+     * 各配列の{@code offset}から{@code length}個の値をまとめて複写します。
+     *
+     * @param x x座標の配列。
+     * @param y y座標の配列。
+     * @param offset 複写を開始する各配列の位置。
+     * @param length 追加する要素数。
+     */
+    public void addAll(double[] x, double[] y, int offset, int length) {
+        int index = size;
+        ensureCapacity(index + length);
+        System.arraycopy(x, offset, this.x, index, length);
+        System.arraycopy(y, offset, this.y, index, length);
+        size = index + length;
+    }
+
+    /**
+     * 末尾に他のコンテナの全ての要素を追加する。
+     *
+     * @param array 追加する要素を持つコンテナ。
+     */
+    public void addAll(DoublePoint2Array array) {
+        addAll(array.x, array.y, 0, array.size);
+    }
+
+    /**
+     * 末尾に複数の要素を追加する。
+     *
+     * @param points 追加する値を取得する点の配列。
+     */
+    public void addAll(DoublePoint2[] points) {
+        int index = size;
+        ensureCapacity(index + points.length);
+        for (DoublePoint2 point : points) {
+            this.x[index] = point.getXAsDouble();
+            this.y[index] = point.getYAsDouble();
+            index++;
+        }
+        size = index;
+    }
+
+    /**
+     * 指定した要素のx座標を返す。
+     *
+     * @param index 要素の添字。
+     * @return x座標。
+     */
+    public double getX(int index) {
+        checkIndex(index);
+        return x[index];
+    }
+
+    /**
+     * 指定した要素のy座標を返す。
+     *
+     * @param index 要素の添字。
+     * @return y座標。
+     */
+    public double getY(int index) {
+        checkIndex(index);
+        return y[index];
+    }
+
+    /**
+     * 指定した要素のx座標を設定する。
+     *
+     * @param index 要素の添字。
+     * @param x x座標。
+     */
+    public void setX(int index, double x) {
+        checkIndex(index);
+        this.x[index] = x;
+    }
+
+    /**
+     * 指定した要素のy座標を設定する。
+     *
+     * @param index 要素の添字。
+     * @param y y座標。
+     */
+    public void setY(int index, double y) {
+        checkIndex(index);
+        this.y[index] = y;
+    }
+
+    /**
+     * 指定した要素の全ての次元に値を設定する。
+     *
+     * @param index 要素の添字。
+     * @param x x座標。
+     * @param y y座標。
+     */
+    public void set(int index, double x, double y) {
+        checkIndex(index);
+        this.x[index] = x;
+        this.y[index] = y;
+    }
+
+    /**
+     * 他の点インスタンスから全ての次元の値を取得し、指定した要素へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param point 設定値を取得する点。
+     */
+    public void set(int index, DoublePoint2 point) {
+        set(index, point.getXAsDouble(), point.getYAsDouble());
+    }
+
+    /**
+     * 指定した要素の値を、渡された点へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param destination 値の設定先。
+     */
+    public void get(int index, MutableDoublePoint2 destination) {
+        checkIndex(index);
+        destination.set(x[index], y[index]);
+    }
+
+    /**
+     * 全ての要素に対して単項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(DoubleUnaryOperator, double[], double[], int)}に委譲します。
+     *
+     * @param operator 現在の値を受け取り、新しい値を返す関数。
+     */
+    public void calculate(DoubleUnaryOperator operator) {
+        PrimitiveArrayOperations.apply(operator, x, x, size);
+        PrimitiveArrayOperations.apply(operator, y, y, size);
+    }
+
+    /**
+     * 全ての要素に対して、次元ごとの定数を右辺とする二項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(DoubleBinaryOperator, double[], double, double[], int)}に委譲します。
+     *
+     * @param operator 現在の値を左辺として受け取り、新しい値を返す関数。
+     * @param x 右辺となるx座標の値。
+     * @param y 右辺となるy座標の値。
+     */
+    public void calculate(DoubleBinaryOperator operator, double x, double y) {
+        PrimitiveArrayOperations.apply(operator, this.x, x, this.x, size);
+        PrimitiveArrayOperations.apply(operator, this.y, y, this.y, size);
+    }
+
+    /**
+     * 全ての要素に対して、他のコンテナの同じ添字の要素を右辺とする二項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(DoubleBinaryOperator, double[], double[], double[], int)}に委譲します。
+     *
+     * @param operator 現在の値を左辺として受け取り、新しい値を返す関数。
+     * @param array 右辺となるコンテナ。要素数がこのコンテナと等しい必要があります。
+     */
+    public void calculate(DoubleBinaryOperator operator, DoublePoint2Array array) {
+        if (array.size != size) {
+            throw new IllegalArgumentException("Size mismatch: " + size + " and " + array.size);
+        }
+        PrimitiveArrayOperations.apply(operator, x, array.x, x, size);
+        PrimitiveArrayOperations.apply(operator, y, array.y, y, size);
+    }
+
+    /**
+     * x座標の内部配列を返す。
+     *
+     * 防御的コピーを行いません。有効な値は{@link #size()}未満の添字のみです。
+     * 容量の拡張や縮小が起きると別の配列に置き換わるため、要素を追加した後は取得し直してください。
+     *
+     * @return x座標の内部配列。
+     */
+    public double[] getXArray() {
+        return x;
+    }
+
+    /**
+     * y座標の内部配列を返す。
+     *
+     * 防御的コピーを行いません。有効な値は{@link #size()}未満の添字のみです。
+     * 容量の拡張や縮小が起きると別の配列に置き換わるため、要素を追加した後は取得し直してください。
+     *
+     * @return y座標の内部配列。
+     */
+    public double[] getYArray() {
+        return y;
+    }
+
+    /**
+     * 先頭の要素の直前を指す新しいカーソルを返す。
+     *
+     * {@code while (cursor.next())}の形で全要素を走査できます。
+     *
+     * @return カーソル。
+     */
+    public Cursor cursor() {
+        return new Cursor(-1);
+    }
+
+    /**
+     * 指定した要素を指す新しいカーソルを返す。
+     *
+     * @param index 要素の添字。
+     * @return カーソル。
+     */
+    public Cursor cursor(int index) {
+        return new Cursor(index);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で走査する{@link Spliterator}を返す。
+     *
+     * 要素として渡すのは、走査中の添字を指す{@link Cursor}です。1つの{@link Spliterator}は1つの{@link Cursor}を使い回すため、
+     * 要素ごとにインスタンスを生成しない代わりに、渡された要素は次の要素へ進むと別の要素を指します。
+     * 要素を保持する操作（{@code max}や{@code collect(Collectors.toList())}など）には使えず、
+     * 要素の値だけを読む集約（{@code value.math}パッケージの{@code Collectors}など）や{@code forEach}に使ってください。
+     * {@link Spliterator#trySplit()}は範囲を半分に分割し、{@link Spliterator#SIZED}と{@link Spliterator#SUBSIZED}を報告するため、
+     * 並列ストリームでも要素がスレッドに均等に割り振られます。
+     * 走査中に要素を追加・削除してはいけません。
+     *
+     * @return {@link Spliterator}。
+     */
+    public Spliterator<Cursor> cursorSpliterator() {
+        return new CursorSpliterator(0, size);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で順に流す{@link Stream}を返す。
+     *
+     * 要素は{@link #cursorSpliterator()}と同様に使い回される{@link Cursor}で、要素を保持する操作には使えません。
+     *
+     * @return {@link Stream}。
+     */
+    public Stream<Cursor> cursorStream() {
+        return StreamSupport.stream(cursorSpliterator(), false);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で流す並列の{@link Stream}を返す。
+     *
+     * 要素は{@link #cursorSpliterator()}と同様に使い回される{@link Cursor}で、要素を保持する操作には使えません。
+     *
+     * @return {@link Stream}。
+     */
+    public Stream<Cursor> parallelCursorStream() {
+        return StreamSupport.stream(cursorSpliterator(), true);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * 添字の範囲を{@link Cursor}で走査する{@link Spliterator}。
+     */
+    private final class CursorSpliterator implements Spliterator<Cursor> {
+
+        private final Cursor cursor = new Cursor(0);
+
+        /**
+         * 次に走査する添字。
+         */
+        private int index;
+
+        /**
+         * 走査する範囲の終わりの添字（この添字を含みません）。
+         */
+        private final int fence;
+
+        CursorSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Cursor> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(cursor.moveTo(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Cursor> action) {
+            Cursor cursor = this.cursor;
+            int fence = this.fence;
+            for (int i = index; i < fence; i++) {
+                action.accept(cursor.moveTo(i));
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator<Cursor> trySplit() {
+            int low = index;
+            int middle = (low + fence) >>> 1;
+            if (low >= middle) {
+                return null;
+            }
+            index = middle;
+            return new CursorSpliterator(low, middle);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    /**
+     * コンテナの1要素を{@link MutableDoublePoint2}として扱うためのカーソル。
+     *
+     * 値を保持せず、指している添字の要素を読み書きします。
+     * {@link #moveTo(int)}や{@link #next()}で添字を切り替えることで、1つのインスタンスを使い回して全要素を走査できます。
+     * 添字の範囲は確認しないため、{@link #size()}未満の添字を指している間に限り使ってください。
+     */
+    public final class Cursor implements MutableDoublePoint2Trait {
+
+        /**
+         * 指している要素の添字。
+         */
+        private int index;
+
+        private Cursor(int index) {
+            this.index = index;
+        }
+
+        /**
+         * 指している要素の添字を返す。
+         *
+         * @return 要素の添字。
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 指定した要素を指すよう移動する。
+         *
+         * @param index 要素の添字。
+         * @return このカーソル。
+         */
+        public Cursor moveTo(int index) {
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * 次の要素を指すよう移動する。
+         *
+         * @return 移動後の添字が{@link #size()}未満の場合は{@code true}。
+         */
+        public boolean next() {
+            return ++index < size;
+        }
+
+        @Override
+        public double getXAsDouble() {
+            return x[index];
+        }
+
+        @Override
+        public double getYAsDouble() {
+            return y[index];
+        }
+
+        @Override
+        public void setX(double x) {
+            DoublePoint2Array.this.x[index] = x;
+        }
+
+        @Override
+        public void setY(double y) {
+            DoublePoint2Array.this.y[index] = y;
+        }
+
+        @Override
+        public void set(double x, double y) {
+            DoublePoint2Array.this.x[index] = x;
+            DoublePoint2Array.this.y[index] = y;
+        }
+    }
+}
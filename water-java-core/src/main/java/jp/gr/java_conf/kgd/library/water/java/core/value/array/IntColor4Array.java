@@ -0,0 +1,720 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.array;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntColor4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntColor4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntColor4Trait;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveArrayOperations;
+
+/**
+ * 多数の{@link IntColor4}を、次元ごとのプリミティブ配列で保持する可変長のコンテナ。
+ *
+ * 要素ごとにオブジェクトを生成しないため、オブジェクトヘッダや参照の分だけメモリを節約でき、走査時のキャッシュ効率も良くなります。
+ * インターフェース経由で操作する場合は、添字を切り替えて使い回せる{@link Cursor}を使います。
+ * 速度が必要な箇所では、{@link #getRedArray()}などで内部配列を直接走査できます。
+ *
+ * @author misakura
+ */
+public class IntColor4Array {
+
+    /**
+     * 容量を指定しなかった場合の初期容量。
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * 赤成分の配列。
+     */
+    private int[] red;
+
+    /**
+     * 緑成分の配列。
+     */
+    private int[] green;
+
+    /**
+     * 青成分の配列。
+     */
+    private int[] blue;
+
+    /**
+     * 透明度の配列。
+     */
+    private int[] alpha;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     */
+    public IntColor4Array() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param initialCapacity 初期容量。
+     */
+    public IntColor4Array(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.red = new int[initialCapacity];
+        this.green = new int[initialCapacity];
+        this.blue = new int[initialCapacity];
+        this.alpha = new int[initialCapacity];
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 内部配列を拡張せずに格納できる要素数を返す。
+     *
+     * @return 容量。
+     */
+    public int capacity() {
+        return red.length;
+    }
+
+    /**
+     * 少なくとも指定した要素数を格納できるよう、必要に応じて内部配列を拡張する。
+     *
+     * @param minCapacity 必要な容量。
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required capacity overflow");
+        }
+        int oldCapacity = red.length;
+        if (minCapacity <= oldCapacity) {
+            return;
+        }
+        int newCapacity = Math.max(oldCapacity + (oldCapacity >> 1), DEFAULT_CAPACITY);
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = minCapacity;
+        }
+        red = Arrays.copyOf(red, newCapacity);
+        green = Arrays.copyOf(green, newCapacity);
+        blue = Arrays.copyOf(blue, newCapacity);
+        alpha = Arrays.copyOf(alpha, newCapacity);
+    }
+
+    /**
+     * 内部配列の容量を現在の要素数まで縮小する。
+     */
+    public void trimToSize() {
+        if (size < red.length) {
+            red = Arrays.copyOf(red, size);
+            green = Arrays.copyOf(green, size);
+            blue = Arrays.copyOf(blue, size);
+            alpha = Arrays.copyOf(alpha, size);
+        }
+    }
+
+    /**
+     * 全ての要素を取り除く。
+     *
+     * 内部配列の容量はそのまま残ります。
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 要素数を変更する。
+     *
+     * 要素数を増やした場合、追加された要素の全ての次元は{@code 0}になります。
+     *
+     * @param newSize 新しい要素数。
+     */
+    public void resize(int newSize) {
+        if (newSize < 0) {
+            throw new IllegalArgumentException("Illegal size: " + newSize);
+        }
+        ensureCapacity(newSize);
+        if (newSize > size) {
+            Arrays.fill(red, size, newSize, 0);
+            Arrays.fill(green, size, newSize, 0);
+            Arrays.fill(blue, size, newSize, 0);
+            Arrays.fill(alpha, size, newSize, 0);
+        }
+        size = newSize;
+    }
+
+    /**
+     * 末尾に要素を追加する。
+     *
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @param alpha 透明度。
+     * @return 追加した要素の添字。
+     */
+    public int add(int red, int green, int blue, int alpha) {
+        int index = size;
+        ensureCapacity(index + 1);
+        this.red[index] = red;
+        this.green[index] = green;
+        this.blue[index] = blue;
+        this.alpha[index] = alpha;
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * 末尾に要素を追加する。
+     *
+     * @param color 追加する値を取得する色。
+     * @return 追加した要素の添字。
+     */
+    public int add(IntColor4 color) {
+        return add(color.getRedAsInt(), color.getGreenAsInt(), color.getBlueAsInt(), color.getAlphaAsInt());
+    }
+
+    /**
+     * 末尾に複数の要素を追加する。
+     *
+     * 各配列の{@code offset}から{@code length}個の値をまとめて複写します。
+     *
+     * @param red 赤成分の配列。
+     * @param green 緑成分の配列。
+     * @param blue 青成分の配列。
+     * @param alpha 透明度の配列。
+     * @param offset 複写を開始する各配列の位置。
+     * @param length 追加する要素数。
+     */
+    public void addAll(int[] red, int[] green, int[] blue, int[] alpha, int offset, int length) {
+        int index = size;
+        ensureCapacity(index + length);
+        System.arraycopy(red, offset, this.red, index, length);
+        System.arraycopy(green, offset, this.green, index, length);
+        System.arraycopy(blue, offset, this.blue, index, length);
+        System.arraycopy(alpha, offset, this.alpha, index, length);
+        size = index + length;
+    }
+
+    /**
+     * 末尾に他のコンテナの全ての要素を追加する。
+     *
+     * @param array 追加する要素を持つコンテナ。
+     */
+    public void addAll(IntColor4Array array) {
+        addAll(array.red, array.green, array.blue, array.alpha, 0, array.size);
+    }
+
+    /**
+     * 末尾に複数の要素を追加する。
+     *
+     * @param colors 追加する値を取得する色の配列。
+     */
+    public void addAll(IntColor4[] colors) {
+        int index = size;
+        ensureCapacity(index + colors.length);
+        for (IntColor4 color : colors) {
+            this.red[index] = color.getRedAsInt();
+            this.green[index] = color.getGreenAsInt();
+            this.blue[index] = color.getBlueAsInt();
+            this.alpha[index] = color.getAlphaAsInt();
+            index++;
+        }
+        size = index;
+    }
+
+    /**
+     * 指定した要素の赤成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 赤成分。
+     */
+    public int getRed(int index) {
+        checkIndex(index);
+        return red[index];
+    }
+
+    /**
+     * 指定した要素の緑成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 緑成分。
+     */
+    public int getGreen(int index) {
+        checkIndex(index);
+        return green[index];
+    }
+
+    /**
+     * 指定した要素の青成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 青成分。
+     */
+    public int getBlue(int index) {
+        checkIndex(index);
+        return blue[index];
+    }
+
+    /**
+     * 指定した要素の透明度を返す。
+     *
+     * @param index 要素の添字。
+     * @return 透明度。
+     */
+    public int getAlpha(int index) {
+        checkIndex(index);
+        return alpha[index];
+    }
+
+    /**
+     * 指定した要素の赤成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param red 赤成分。
+     */
+    public void setRed(int index, int red) {
+        checkIndex(index);
+        this.red[index] = red;
+    }
+
+    /**
+     * 指定した要素の緑成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param green 緑成分。
+     */
+    public void setGreen(int index, int green) {
+        checkIndex(index);
+        this.green[index] = green;
+    }
+
+    /**
+     * 指定した要素の青成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param blue 青成分。
+     */
+    public void setBlue(int index, int blue) {
+        checkIndex(index);
+        this.blue[index] = blue;
+    }
+
+    /**
+     * 指定した要素の透明度を設定する。
+     *
+     * @param index 要素の添字。
+     * @param alpha 透明度。
+     */
+    public void setAlpha(int index, int alpha) {
+        checkIndex(index);
+        this.alpha[index] = alpha;
+    }
+
+    /**
+     * 指定した要素の全ての次元に値を設定する。
+     *
+     * @param index 要素の添字。
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @param alpha 透明度。
+     */
+    public void set(int index, int red, int green, int blue, int alpha) {
+        checkIndex(index);
+        this.red[index] = red;
+        this.green[index] = green;
+        this.blue[index] = blue;
+        this.alpha[index] = alpha;
+    }
+
+    /**
+     * 他の色インスタンスから全ての次元の値を取得し、指定した要素へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param color 設定値を取得する色。
+     */
+    public void set(int index, IntColor4 color) {
+        set(index, color.getRedAsInt(), color.getGreenAsInt(), color.getBlueAsInt(), color.getAlphaAsInt());
+    }
+
+    /**
+     * 指定した要素の値を、渡された色へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param destination 値の設定先。
+     */
+    public void get(int index, MutableIntColor4 destination) {
+        checkIndex(index);
+        destination.set(red[index], green[index], blue[index], alpha[index]);
+    }
+
+    /**
+     * 全ての要素に対して単項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(IntUnaryOperator, int[], int[], int)}に委譲します。
+     *
+     * @param operator 現在の値を受け取り、新しい値を返す関数。
+     */
+    public void calculate(IntUnaryOperator operator) {
+        PrimitiveArrayOperations.apply(operator, red, red, size);
+        PrimitiveArrayOperations.apply(operator, green, green, size);
+        PrimitiveArrayOperations.apply(operator, blue, blue, size);
+        PrimitiveArrayOperations.apply(operator, alpha, alpha, size);
+    }
+
+    /**
+     * 全ての要素に対して、次元ごとの定数を右辺とする二項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(IntBinaryOperator, int[], int, int[], int)}に委譲します。
+     *
+     * @param operator 現在の値を左辺として受け取り、新しい値を返す関数。
+     * @param red 右辺となる赤成分の値。
+     * @param green 右辺となる緑成分の値。
+     * @param blue 右辺となる青成分の値。
+     * @param alpha 右辺となる透明度の値。
+     */
+    public void calculate(IntBinaryOperator operator, int red, int green, int blue, int alpha) {
+        PrimitiveArrayOperations.apply(operator, this.red, red, this.red, size);
+        PrimitiveArrayOperations.apply(operator, this.green, green, this.green, size);
+        PrimitiveArrayOperations.apply(operator, this.blue, blue, this.blue, size);
+        PrimitiveArrayOperations.apply(operator, this.alpha, alpha, this.alpha, size);
+    }
+
+    /**
+     * 全ての要素に対して、他のコンテナの同じ添字の要素を右辺とする二項演算を行う。
+     *
+     * 次元ごとに{@link PrimitiveArrayOperations#apply(IntBinaryOperator, int[], int[], int[], int)}に委譲します。
+     *
+     * @param operator 現在の値を左辺として受け取り、新しい値を返す関数。
+     * @param array 右辺となるコンテナ。要素数がこのコンテナと等しい必要があります。
+     */
+    public void calculate(IntBinaryOperator operator, IntColor4Array array) {
+        if (array.size != size) {
+            throw new IllegalArgumentException("Size mismatch: " + size + " and " + array.size);
+        }
+        PrimitiveArrayOperations.apply(operator, red, array.red, red, size);
+        PrimitiveArrayOperations.apply(operator, green, array.green, green, size);
+        PrimitiveArrayOperations.apply(operator, blue, array.blue, blue, size);
+        PrimitiveArrayOperations.apply(operator, alpha, array.alpha, alpha, size);
+    }
+
+    /**
+     * 赤成分の内部配列を返す。
+     *
+     * 防御的コピーを行いません。有効な値は{@link #size()}未満の添字のみです。
+     * 容量の拡張や縮小が起きると別の配列に置き換わるため、要素を追加した後は取得し直してください。
+     *
+     * @return 赤成分の内部配列。
+     */
+    public int[] getRedArray() {
+        return red;
+    }
+
+    /**
+     * 緑成分の内部配列を返す。
+     *
+     * 防御的コピーを行いません。有効な値は{@link #size()}未満の添字のみです。
+     * 容量の拡張や縮小が起きると別の配列に置き換わるため、要素を追加した後は取得し直してください。
+     *
+     * @return 緑成分の内部配列。
+     */
+    public int[] getGreenArray() {
+        return green;
+    }
+
+    /**
+     * 青成分の内部配列を返す。
+     *
+     * 防御的コピーを行いません。有効な値は{@link #size()}未満の添字のみです。
+     * 容量の拡張や縮小が起きると別の配列に置き換わるため、要素を追加した後は取得し直してください。
+     *
+     * @return 青成分の内部配列。
+     */
+    public int[] getBlueArray() {
+        return blue;
+    }
+
+    /**
+     * 透明度の内部配列を返す。
+     *
+     * 防御的コピーを行いません。有効な値は{@link #size()}未満の添字のみです。
+     * 容量の拡張や縮小が起きると別の配列に置き換わるため、要素を追加した後は取得し直してください。
+     *
+     * @return 透明度の内部配列。
+     */
+    public int[] getAlphaArray() {
+        return alpha;
+    }
+
+    /**
+     * 先頭の要素の直前を指す新しいカーソルを返す。
+     *
+     * {@code while (cursor.next())}の形で全要素を走査できます。
+     *
+     * @return カーソル。
+     */
+    public Cursor cursor() {
+        return new Cursor(-1);
+    }
+
+    /**
+     * 指定した要素を指す新しいカーソルを返す。
+     *
+     * @param index 要素の添字。
+     * @return カーソル。
+     */
+    public Cursor cursor(int index) {
+        return new Cursor(index);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で走査する{@link Spliterator}を返す。
+     *
+     * 要素として渡すのは、走査中の添字を指す{@link Cursor}です。1つの{@link Spliterator}は1つの{@link Cursor}を使い回すため、
+     * 要素ごとにインスタンスを生成しない代わりに、渡された要素は次の要素へ進むと別の要素を指します。
+     * 要素を保持する操作（{@code max}や{@code collect(Collectors.toList())}など）には使えず、
+     * 要素の値だけを読む集約（{@code value.math}パッケージの{@code Collectors}など）や{@code forEach}に使ってください。
+     * {@link Spliterator#trySplit()}は範囲を半分に分割し、{@link Spliterator#SIZED}と{@link Spliterator#SUBSIZED}を報告するため、
+     * 並列ストリームでも要素がスレッドに均等に割り振られます。
+     * 走査中に要素を追加・削除してはいけません。
+     *
+     * @return {@link Spliterator}。
+     */
+    public Spliterator<Cursor> cursorSpliterator() {
+        return new CursorSpliterator(0, size);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で順に流す{@link Stream}を返す。
+     *
+     * 要素は{@link #cursorSpliterator()}と同様に使い回される{@link Cursor}で、要素を保持する操作には使えません。
+     *
+     * @return {@link Stream}。
+     */
+    public Stream<Cursor> cursorStream() {
+        return StreamSupport.stream(cursorSpliterator(), false);
+    }
+
+    /**
+     * 全要素を{@link Cursor}で流す並列の{@link Stream}を返す。
+     *
+     * 要素は{@link #cursorSpliterator()}と同様に使い回される{@link Cursor}で、要素を保持する操作には使えません。
+     *
+     * @return {@link Stream}。
+     */
+    public Stream<Cursor> parallelCursorStream() {
+        return StreamSupport.stream(cursorSpliterator(), true);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * 添字の範囲を{@link Cursor}で走査する{@link Spliterator}。
+     */
+    private final class CursorSpliterator implements Spliterator<Cursor> {
+
+        private final Cursor cursor = new Cursor(0);
+
+        /**
+         * 次に走査する添字。
+         */
+        private int index;
+
+        /**
+         * 走査する範囲の終わりの添字（この添字を含みません）。
+         */
+        private final int fence;
+
+        CursorSpliterator(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Cursor> action) {
+            if (index >= fence) {
+                return false;
+            }
+            action.accept(cursor.moveTo(index++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Cursor> action) {
+            Cursor cursor = this.cursor;
+            int fence = this.fence;
+            for (int i = index; i < fence; i++) {
+                action.accept(cursor.moveTo(i));
+            }
+            index = fence;
+        }
+
+        @Override
+        public Spliterator<Cursor> trySplit() {
+            int low = index;
+            int middle = (low + fence) >>> 1;
+            if (low >= middle) {
+                return null;
+            }
+            index = middle;
+            return new CursorSpliterator(low, middle);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+
+    /**
+     * コンテナの1要素を{@link MutableIntColor4}として扱うためのカーソル。
+     *
+     * 値を保持せず、指している添字の要素を読み書きします。
+     * {@link #moveTo(int)}や{@link #next()}で添字を切り替えることで、1つのインスタンスを使い回して全要素を走査できます。
+     * 添字の範囲は確認しないため、{@link #size()}未満の添字を指している間に限り使ってください。
+     */
+    public final class Cursor implements MutableIntColor4Trait {
+
+        /**
+         * 指している要素の添字。
+         */
+        private int index;
+
+        private Cursor(int index) {
+            this.index = index;
+        }
+
+        /**
+         * 指している要素の添字を返す。
+         *
+         * @return 要素の添字。
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 指定した要素を指すよう移動する。
+         *
+         * @param index 要素の添字。
+         * @return このカーソル。
+         */
+        public Cursor moveTo(int index) {
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * 次の要素を指すよう移動する。
+         *
+         * @return 移動後の添字が{@link #size()}未満の場合は{@code true}。
+         */
+        public boolean next() {
+            return ++index < size;
+        }
+
+        @Override
+        public int getRedAsInt() {
+            return red[index];
+        }
+
+        @Override
+        public int getGreenAsInt() {
+            return green[index];
+        }
+
+        @Override
+        public int getBlueAsInt() {
+            return blue[index];
+        }
+
+        @Override
+        public int getAlphaAsInt() {
+            return alpha[index];
+        }
+
+        @Override
+        public void setRed(int red) {
+            IntColor4Array.this.red[index] = red;
+        }
+
+        @Override
+        public void setGreen(int green) {
+            IntColor4Array.this.green[index] = green;
+        }
+
+        @Override
+        public void setBlue(int blue) {
+            IntColor4Array.this.blue[index] = blue;
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+            IntColor4Array.this.alpha[index] = alpha;
+        }
+
+        @Override
+        public void set(int red, int green, int blue, int alpha) {
+            IntColor4Array.this.red[index] = red;
+            IntColor4Array.this.green[index] = green;
+            IntColor4Array.this.blue[index] = blue;
+            IntColor4Array.this.alpha[index] = alpha;
+        }
+    }
+}
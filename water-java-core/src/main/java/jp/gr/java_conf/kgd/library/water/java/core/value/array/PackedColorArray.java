@@ -0,0 +1,506 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.array;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntColor4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntColor4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntColor4Trait;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PackedArgb;
+
+/**
+ * 多数の{@link IntColor4}を、1要素1つの{@code int}に詰めて保持する固定長のコンテナ。
+ *
+ * 各要素は{@link PackedArgb}の形式（{@code 0xAARRGGBB}）で格納するため、各成分は{@code 0}以上{@code 255}以下に限られます。
+ * 成分ごとに{@code int}を持つ{@link IntColor4Array}の4分の1のメモリで済みます。
+ *
+ * 内部の記憶域は{@code int}配列か{@link IntBuffer}です。
+ * 既存の配列やバッファを包んで作ることもできるため、例えば{@code java.awt.image.DataBufferInt#getData()}の配列を
+ * 変換せずにそのまま読み書きできます。
+ * インターフェース経由で操作する場合は、添字を切り替えて使い回せる{@link Cursor}を使います。
+ *
+ * @author misakura
+ */
+public class PackedColorArray {
+
+    /**
+     * 要素数。
+     */
+    private final int size;
+
+    /**
+     * 内部のバッファ。位置{@code 0}が先頭の要素。
+     */
+    private final IntBuffer buffer;
+
+    /**
+     * 内部の配列。配列を持たないバッファの場合は{@code null}。
+     */
+    private final int[] array;
+
+    /**
+     * 内部の配列での先頭の要素の位置。
+     */
+    private final int arrayOffset;
+
+    /**
+     * コンストラクタ。
+     *
+     * 全ての値は{@code 0}（透明な黒）で初期化されます。
+     *
+     * @param size 要素数。
+     */
+    public PackedColorArray(int size) {
+        this(new int[checkSize(size)]);
+    }
+
+    /**
+     * 配列を包むコンストラクタ。
+     *
+     * 配列はコピーせず、このコンテナへの変更は配列に反映されます。
+     *
+     * @param argb ARGB形式の値の配列。
+     */
+    public PackedColorArray(int[] argb) {
+        this(IntBuffer.wrap(argb));
+    }
+
+    /**
+     * バッファを包むコンストラクタ。
+     *
+     * バッファの現在位置から上限までを要素とします。
+     * バッファはコピーせず、このコンテナへの変更はバッファに反映されます。
+     *
+     * @param buffer ARGB形式の値のバッファ。
+     */
+    public PackedColorArray(IntBuffer buffer) {
+        this.buffer = buffer.slice();
+        this.size = this.buffer.remaining();
+        if (this.buffer.hasArray()) {
+            this.array = this.buffer.array();
+            this.arrayOffset = this.buffer.arrayOffset();
+        } else {
+            this.array = null;
+            this.arrayOffset = 0;
+        }
+    }
+
+    /**
+     * ヒープ外のダイレクトバッファを記憶域とするコンテナを生成する。
+     *
+     * 全ての値は{@code 0}（透明な黒）で初期化されます。
+     *
+     * @param size 要素数。
+     * @return 生成したコンテナ。
+     */
+    public static PackedColorArray allocateDirect(int size) {
+        if (checkSize(size) > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
+        return new PackedColorArray(DirectBuffers.allocate(size * Integer.BYTES).asIntBuffer());
+    }
+
+    private static int checkSize(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
+        return size;
+    }
+
+    /**
+     * 要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 指定した要素のARGB形式の値を返す。
+     *
+     * @param index 要素の添字。
+     * @return ARGB形式の値。
+     */
+    public int getArgb(int index) {
+        checkIndex(index);
+        return read(index);
+    }
+
+    /**
+     * 指定した要素にARGB形式の値を設定する。
+     *
+     * @param index 要素の添字。
+     * @param argb ARGB形式の値。
+     */
+    public void setArgb(int index, int argb) {
+        checkIndex(index);
+        write(index, argb);
+    }
+
+    /**
+     * 指定した要素の赤成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 赤成分。
+     */
+    public int getRed(int index) {
+        return PackedArgb.red(getArgb(index));
+    }
+
+    /**
+     * 指定した要素の緑成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 緑成分。
+     */
+    public int getGreen(int index) {
+        return PackedArgb.green(getArgb(index));
+    }
+
+    /**
+     * 指定した要素の青成分を返す。
+     *
+     * @param index 要素の添字。
+     * @return 青成分。
+     */
+    public int getBlue(int index) {
+        return PackedArgb.blue(getArgb(index));
+    }
+
+    /**
+     * 指定した要素の透明度を返す。
+     *
+     * @param index 要素の添字。
+     * @return 透明度。
+     */
+    public int getAlpha(int index) {
+        return PackedArgb.alpha(getArgb(index));
+    }
+
+    /**
+     * 指定した要素の赤成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param red 赤成分。
+     */
+    public void setRed(int index, int red) {
+        setArgb(index, PackedArgb.withRed(getArgb(index), red));
+    }
+
+    /**
+     * 指定した要素の緑成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param green 緑成分。
+     */
+    public void setGreen(int index, int green) {
+        setArgb(index, PackedArgb.withGreen(getArgb(index), green));
+    }
+
+    /**
+     * 指定した要素の青成分を設定する。
+     *
+     * @param index 要素の添字。
+     * @param blue 青成分。
+     */
+    public void setBlue(int index, int blue) {
+        setArgb(index, PackedArgb.withBlue(getArgb(index), blue));
+    }
+
+    /**
+     * 指定した要素の透明度を設定する。
+     *
+     * @param index 要素の添字。
+     * @param alpha 透明度。
+     */
+    public void setAlpha(int index, int alpha) {
+        setArgb(index, PackedArgb.withAlpha(getArgb(index), alpha));
+    }
+
+    /**
+     * 指定した要素の値を設定する。
+     *
+     * @param index 要素の添字。
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @param alpha 透明度。
+     */
+    public void set(int index, int red, int green, int blue, int alpha) {
+        setArgb(index, PackedArgb.pack(red, green, blue, alpha));
+    }
+
+    /**
+     * 指定した要素の値を設定する。
+     *
+     * @param index 要素の添字。
+     * @param color 設定値を取得する色。
+     */
+    public void set(int index, IntColor4 color) {
+        set(index, color.getRedAsInt(), color.getGreenAsInt(), color.getBlueAsInt(), color.getAlphaAsInt());
+    }
+
+    /**
+     * 指定した要素の値を、渡された色へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param destination 値の設定先。
+     */
+    public void get(int index, MutableIntColor4 destination) {
+        int argb = getArgb(index);
+        destination.set(PackedArgb.red(argb), PackedArgb.green(argb), PackedArgb.blue(argb), PackedArgb.alpha(argb));
+    }
+
+    /**
+     * 全ての要素にARGB形式の値を設定する。
+     *
+     * @param argb ARGB形式の値。
+     */
+    public void fill(int argb) {
+        if (array != null) {
+            Arrays.fill(array, arrayOffset, arrayOffset + size, argb);
+        } else {
+            for (int i = 0; i < size; i++) {
+                buffer.put(i, argb);
+            }
+        }
+    }
+
+    /**
+     * 内部の配列を持つかどうかを返す。
+     *
+     * @return {@link #getArray()}が使える場合は{@code true}。
+     */
+    public boolean hasArray() {
+        return array != null;
+    }
+
+    /**
+     * 内部の配列を返す。
+     *
+     * 防御的コピーを行いません。先頭の要素は{@link #getArrayOffset()}の位置にあります。
+     *
+     * @return 内部の配列。
+     * @throws UnsupportedOperationException 内部の配列を持たない場合。
+     */
+    public int[] getArray() {
+        if (array == null) {
+            throw new UnsupportedOperationException("No backing array");
+        }
+        return array;
+    }
+
+    /**
+     * 内部の配列での先頭の要素の位置を返す。
+     *
+     * @return 先頭の要素の位置。
+     * @throws UnsupportedOperationException 内部の配列を持たない場合。
+     */
+    public int getArrayOffset() {
+        if (array == null) {
+            throw new UnsupportedOperationException("No backing array");
+        }
+        return arrayOffset;
+    }
+
+    /**
+     * 内部のバッファを返す。
+     *
+     * 防御的コピーを行いません。位置{@code 0}が先頭の要素です。
+     * 位置や上限を変更する場合は{@link IntBuffer#duplicate()}したものを使ってください。
+     *
+     * @return 内部のバッファ。
+     */
+    public IntBuffer getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * 先頭の要素の直前を指す新しいカーソルを返す。
+     *
+     * {@code while (cursor.next())}の形で全要素を走査できます。
+     *
+     * @return カーソル。
+     */
+    public Cursor cursor() {
+        return new Cursor(-1);
+    }
+
+    /**
+     * 指定した要素を指す新しいカーソルを返す。
+     *
+     * @param index 要素の添字。
+     * @return カーソル。
+     */
+    public Cursor cursor(int index) {
+        return new Cursor(index);
+    }
+
+    private int read(int index) {
+        return array != null ? array[arrayOffset + index] : buffer.get(index);
+    }
+
+    private void write(int index, int argb) {
+        if (array != null) {
+            array[arrayOffset + index] = argb;
+        } else {
+            buffer.put(index, argb);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * コンテナの1要素を{@link MutableIntColor4}として扱うためのカーソル。
+     *
+     * 値を保持せず、指している添字の要素を読み書きします。
+     * {@link #moveTo(int)}や{@link #next()}で添字を切り替えることで、1つのインスタンスを使い回して全要素を走査できます。
+     * 範囲外の添字を指している間の読み書きは{@link IndexOutOfBoundsException}を投げます。
+     * （切り出したバッファを包んでいる場合も、範囲外の元の配列を読み書きすることはありません。）
+     */
+    public final class Cursor implements MutableIntColor4Trait {
+
+        /**
+         * 指している要素の添字。
+         */
+        private int index;
+
+        private Cursor(int index) {
+            this.index = index;
+        }
+
+        /**
+         * 指している要素の添字を返す。
+         *
+         * @return 要素の添字。
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 指定した要素を指すよう移動する。
+         *
+         * @param index 要素の添字。
+         * @return このカーソル。
+         */
+        public Cursor moveTo(int index) {
+            this.index = index;
+            return this;
+        }
+
+        /**
+         * 次の要素を指すよう移動する。
+         *
+         * @return 移動後の添字が{@link #size()}未満の場合は{@code true}。
+         */
+        public boolean next() {
+            return ++index < size;
+        }
+
+        /**
+         * 指している要素のARGB形式の値を返す。
+         *
+         * @return ARGB形式の値。
+         */
+        public int getArgb() {
+            return read(position());
+        }
+
+        /**
+         * 指している要素にARGB形式の値を設定する。
+         *
+         * @param argb ARGB形式の値。
+         */
+        public void setArgb(int argb) {
+            write(position(), argb);
+        }
+
+        @Override
+        public int getRedAsInt() {
+            return PackedArgb.red(read(position()));
+        }
+
+        @Override
+        public int getGreenAsInt() {
+            return PackedArgb.green(read(position()));
+        }
+
+        @Override
+        public int getBlueAsInt() {
+            return PackedArgb.blue(read(position()));
+        }
+
+        @Override
+        public int getAlphaAsInt() {
+            return PackedArgb.alpha(read(position()));
+        }
+
+        @Override
+        public void setRed(int red) {
+            int position = position();
+            write(position, PackedArgb.withRed(read(position), red));
+        }
+
+        @Override
+        public void setGreen(int green) {
+            int position = position();
+            write(position, PackedArgb.withGreen(read(position), green));
+        }
+
+        @Override
+        public void setBlue(int blue) {
+            int position = position();
+            write(position, PackedArgb.withBlue(read(position), blue));
+        }
+
+        @Override
+        public void setAlpha(int alpha) {
+            int position = position();
+            write(position, PackedArgb.withAlpha(read(position), alpha));
+        }
+
+        @Override
+        public void set(int red, int green, int blue, int alpha) {
+            write(position(), PackedArgb.pack(red, green, blue, alpha));
+        }
+
+        /**
+         * 添字を確認して、指している要素の添字を返す。
+         *
+         * @return 要素の添字。
+         * @throws IndexOutOfBoundsException 範囲外の添字を指している場合。
+         */
+        private int position() {
+            checkIndex(index);
+            return index;
+        }
+    }
+}
@@ -0,0 +1,506 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.collection;
+
+import java.util.Arrays;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoublePoint3Array;
+
+/**
+ * {@link DoublePoint3}の時系列を、成分ごとに直前の値との排他的論理和を取って圧縮して保持する。
+ *
+ * 成分ごとに独立したビット列を持ち、各値を以下のいずれかで符号化します（Facebook Gorillaの浮動小数点数の圧縮と同じ方式です）。
+ * <ul>
+ * <li>{@code 0} 直前の値と同じ。</li>
+ * <li>{@code 10} 直前の値との排他的論理和の有効なビットが、直前に用いた範囲に収まる。続けてその範囲のビットを書きます。</li>
+ * <li>{@code 11} 続けて上位の{@code 0}の数（{@code 31}で打ち切り）を5ビット、有効なビットの数を6ビット、有効なビットを書きます。</li>
+ * </ul>
+ * 各ブロックの先頭の値はそのまま64ビットで書きます。
+ * 変化の緩やかな値や、量子化された値ほどよく圧縮されます。
+ * {@code NaN}のビット列も含めて、追加した値をそのまま復元します。
+ *
+ * 要素は末尾への追加のみ行え、決まった要素数ごとにブロックに分けて保持します。
+ * 満たされたブロックの配列は切り詰められ、以降は変更されません。
+ * 古いブロックは{@link #removeFirstBlocks(int)}で先頭から破棄でき、保持する期間を区切るのに使えます。
+ * 復元は成分ごとのプリミティブ配列、または{@link DoublePoint3Array}に対して行い、要素ごとにインスタンスを生成しません。
+ *
+ * このクラスはスレッドセーフではありません。
+ *
+ * @author misakura
+ */
+public final class DoublePoint3XorSeries {
+
+    /**
+     * 既定のブロックの要素数。
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    /**
+     * ブロックの要素数の最大値。
+     */
+    public static final int MAX_BLOCK_SIZE = 1 << 20;
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = 3;
+
+    /**
+     * ブロックを作る時のビット列の配列の長さ。
+     */
+    private static final int INITIAL_WORDS = 4;
+
+    /**
+     * 上位の{@code 0}の数として書ける最大値。
+     */
+    private static final int MAX_LEADING_ZEROS = 31;
+
+    /**
+     * ブロックの要素数。
+     */
+    private final int blockSize;
+
+    /**
+     * ブロックの配列。最後のブロック以外は満たされています。
+     */
+    private Block[] blocks = new Block[4];
+
+    /**
+     * ブロックの数。
+     */
+    private int blockCount;
+
+    /**
+     * 要素数。
+     */
+    private long size;
+
+    /**
+     * 最後のブロックの、成分ごとのビット列の長さ。
+     */
+    private final int[] positions = new int[DIMENSION];
+
+    /**
+     * 成分ごとの直前の値のビット列。
+     */
+    private final long[] previousBits = new long[DIMENSION];
+
+    /**
+     * 成分ごとの直前に用いた範囲の上位の{@code 0}の数。
+     */
+    private final int[] leadingZeros = new int[DIMENSION];
+
+    /**
+     * 成分ごとの直前に用いた範囲の下位の{@code 0}の数。
+     */
+    private final int[] trailingZeros = new int[DIMENSION];
+
+    /**
+     * コンストラクタ。
+     *
+     * ブロックの要素数は{@link #DEFAULT_BLOCK_SIZE}です。
+     */
+    public DoublePoint3XorSeries() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param blockSize ブロックの要素数。
+     */
+    public DoublePoint3XorSeries(int blockSize) {
+        if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * 末尾に要素を追加する。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @param z z座標。
+     */
+    public void append(double x, double y, double z) {
+        Block block = openBlock();
+        boolean first = block.count == 0;
+        encode(block, 0, Double.doubleToRawLongBits(x), first);
+        encode(block, 1, Double.doubleToRawLongBits(y), first);
+        encode(block, 2, Double.doubleToRawLongBits(z), first);
+        size++;
+        if (++block.count == blockSize) {
+            block.trim(positions);
+        }
+    }
+
+    /**
+     * 末尾に要素を追加する。
+     *
+     * @param point 追加する点。
+     */
+    public void append(DoublePoint3 point) {
+        append(point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble());
+    }
+
+    /**
+     * 末尾にコンテナの全ての要素を追加する。
+     *
+     * @param points 追加する要素を持つコンテナ。
+     */
+    public void appendAll(DoublePoint3Array points) {
+        appendAll(points.getXArray(), points.getYArray(), points.getZArray(), 0, points.size());
+    }
+
+    /**
+     * 末尾に成分ごとの配列の範囲の要素を追加する。
+     *
+     * @param x x座標の配列。
+     * @param y y座標の配列。
+     * @param z z座標の配列。
+     * @param offset 配列の中での最初の要素の添字。
+     * @param length 追加する要素数。
+     */
+    public void appendAll(double[] x, double[] y, double[] z, int offset, int length) {
+        checkRange(x.length, offset, length);
+        checkRange(y.length, offset, length);
+        checkRange(z.length, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            append(x[i], y[i], z[i]);
+        }
+    }
+
+    /**
+     * 指定した範囲の要素を復元し、コンテナの末尾に追加する。
+     *
+     * @param from 最初の要素の添字。
+     * @param count 復元する要素数。
+     * @param destination 要素の追加先。
+     * @throws IndexOutOfBoundsException 範囲が要素数を超える場合。
+     */
+    public void decode(long from, int count, DoublePoint3Array destination) {
+        checkRange(from, count);
+        int index = destination.size();
+        destination.resize(index + count);
+        decode(from, count, destination.getXArray(), destination.getYArray(), destination.getZArray(), index);
+    }
+
+    /**
+     * 指定した範囲の要素を復元し、成分ごとの配列に書き込む。
+     *
+     * @param from 最初の要素の添字。
+     * @param count 復元する要素数。
+     * @param x x座標の書き込み先。
+     * @param y y座標の書き込み先。
+     * @param z z座標の書き込み先。
+     * @param offset 書き込み先の配列の中での最初の要素の添字。
+     * @throws IndexOutOfBoundsException 範囲が要素数や、配列の長さを超える場合。
+     */
+    public void decode(long from, int count, double[] x, double[] y, double[] z, int offset) {
+        checkRange(from, count);
+        checkRange(x.length, offset, count);
+        checkRange(y.length, offset, count);
+        checkRange(z.length, offset, count);
+        int index = (int) (from / blockSize);
+        int skip = (int) (from % blockSize);
+        while (count > 0) {
+            Block block = blocks[index++];
+            int take = Math.min(block.count - skip, count);
+            decodeBlock(block, skip, skip + take, x, y, z, offset);
+            offset += take;
+            count -= take;
+            skip = 0;
+        }
+    }
+
+    /**
+     * 先頭から指定した数のブロックを破棄する。
+     *
+     * 残った要素の添字は、破棄した要素数だけ小さくなります。
+     *
+     * @param count 破棄するブロックの数。
+     * @throws IllegalArgumentException ブロックの数が負か、{@link #blockCount()}より大きい場合。
+     */
+    public void removeFirstBlocks(int count) {
+        if (count < 0 || count > blockCount) {
+            throw new IllegalArgumentException("Illegal count: " + count);
+        }
+        if (count == blockCount) {
+            clear();
+            return;
+        }
+        size -= (long) count * blockSize;
+        System.arraycopy(blocks, count, blocks, 0, blockCount - count);
+        Arrays.fill(blocks, blockCount - count, blockCount, null);
+        blockCount -= count;
+    }
+
+    /**
+     * 全ての要素を破棄する。
+     */
+    public void clear() {
+        Arrays.fill(blocks, 0, blockCount, null);
+        blockCount = 0;
+        size = 0;
+    }
+
+    /**
+     * 要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * ブロックの要素数を返す。
+     *
+     * @return ブロックの要素数。
+     */
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * ブロックの数を返す。
+     *
+     * @return ブロックの数。
+     */
+    public int blockCount() {
+        return blockCount;
+    }
+
+    /**
+     * 圧縮したビット列を保持している配列のバイト数の合計を返す。
+     *
+     * @return バイト数。
+     */
+    public long compressedBytes() {
+        long words = 0;
+        for (int i = 0; i < blockCount; i++) {
+            for (long[] stream : blocks[i].streams) {
+                words += stream.length;
+            }
+        }
+        return words * Long.BYTES;
+    }
+
+    /**
+     * 要素を追加するブロックを返す。最後のブロックが満たされていれば、新しいブロックを作る。
+     */
+    private Block openBlock() {
+        if (blockCount > 0 && blocks[blockCount - 1].count < blockSize) {
+            return blocks[blockCount - 1];
+        }
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blocks.length + (blocks.length >> 1));
+        }
+        Block block = new Block();
+        blocks[blockCount++] = block;
+        Arrays.fill(positions, 0);
+        return block;
+    }
+
+    private void encode(Block block, int component, long bits, boolean first) {
+        if (first) {
+            previousBits[component] = bits;
+            leadingZeros[component] = Long.SIZE;
+            trailingZeros[component] = 0;
+            writeBits(block, component, bits, Long.SIZE);
+            return;
+        }
+        long xor = bits ^ previousBits[component];
+        previousBits[component] = bits;
+        if (xor == 0) {
+            writeBits(block, component, 0, 1);
+            return;
+        }
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+        int trailing = Long.numberOfTrailingZeros(xor);
+        if (leading >= leadingZeros[component] && trailing >= trailingZeros[component]) {
+            writeBits(block, component, 0b10, 2);
+            writeBits(block, component, xor >>> trailingZeros[component], Long.SIZE - leadingZeros[component] - trailingZeros[component]);
+        } else {
+            int length = Long.SIZE - leading - trailing;
+            writeBits(block, component, 0b11 << 11 | leading << 6 | length & 0x3F, 13);
+            writeBits(block, component, xor >>> trailing, length);
+            leadingZeros[component] = leading;
+            trailingZeros[component] = trailing;
+        }
+    }
+
+    /**
+     * 右詰めの{@code length}ビットの値をビット列の末尾に書き込む。
+     */
+    private void writeBits(Block block, int component, long value, int length) {
+        int position = positions[component];
+        int word = position >>> 6;
+        long[] words = block.streams[component];
+        if (word + 2 > words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 2, words.length + (words.length >> 1)));
+            block.streams[component] = words;
+        }
+        int free = Long.SIZE - (position & 63);
+        if (length <= free) {
+            words[word] |= value << (free - length);
+        } else {
+            words[word] |= value >>> (length - free);
+            words[word + 1] = value << (Long.SIZE - length + free);
+        }
+        positions[component] = position + length;
+    }
+
+    /**
+     * ブロックの先頭から{@code end}個の要素を復元し、{@code skip}個目以降を配列に書き込む。
+     *
+     * 1つのビット列の復元は直前の値の長さに依存して逐次的になるため、成分ごとのビット列を1つのループで並行して復元します。
+     */
+    private static void decodeBlock(Block block, int skip, int end, double[] x, double[] y, double[] z, int offset) {
+        long[] xWords = block.streams[0];
+        long xValue = peek(xWords, 0);
+        int xPosition = Long.SIZE;
+        int xLeading = 0;
+        int xTrailing = 0;
+        long[] yWords = block.streams[1];
+        long yValue = peek(yWords, 0);
+        int yPosition = Long.SIZE;
+        int yLeading = 0;
+        int yTrailing = 0;
+        long[] zWords = block.streams[2];
+        long zValue = peek(zWords, 0);
+        int zPosition = Long.SIZE;
+        int zLeading = 0;
+        int zTrailing = 0;
+        if (skip == 0) {
+            x[offset] = Double.longBitsToDouble(xValue);
+            y[offset] = Double.longBitsToDouble(yValue);
+            z[offset] = Double.longBitsToDouble(zValue);
+        }
+        for (int i = 1; i < end; i++) {
+            long xControl = peek(xWords, xPosition);
+            if (xControl >= 0) {
+                xPosition++;
+            } else {
+                if (xControl << 1 < 0) {
+                    xLeading = (int) (xControl >>> 57) & 0x1F;
+                    xTrailing = Long.SIZE - xLeading - ((((int) (xControl >>> 51) & 0x3F) - 1 & 0x3F) + 1);
+                    xPosition += 13;
+                } else {
+                    xPosition += 2;
+                }
+                int xLength = Long.SIZE - xLeading - xTrailing;
+                xValue ^= peek(xWords, xPosition) >>> (Long.SIZE - xLength) << xTrailing;
+                xPosition += xLength;
+            }
+            long yControl = peek(yWords, yPosition);
+            if (yControl >= 0) {
+                yPosition++;
+            } else {
+                if (yControl << 1 < 0) {
+                    yLeading = (int) (yControl >>> 57) & 0x1F;
+                    yTrailing = Long.SIZE - yLeading - ((((int) (yControl >>> 51) & 0x3F) - 1 & 0x3F) + 1);
+                    yPosition += 13;
+                } else {
+                    yPosition += 2;
+                }
+                int yLength = Long.SIZE - yLeading - yTrailing;
+                yValue ^= peek(yWords, yPosition) >>> (Long.SIZE - yLength) << yTrailing;
+                yPosition += yLength;
+            }
+            long zControl = peek(zWords, zPosition);
+            if (zControl >= 0) {
+                zPosition++;
+            } else {
+                if (zControl << 1 < 0) {
+                    zLeading = (int) (zControl >>> 57) & 0x1F;
+                    zTrailing = Long.SIZE - zLeading - ((((int) (zControl >>> 51) & 0x3F) - 1 & 0x3F) + 1);
+                    zPosition += 13;
+                } else {
+                    zPosition += 2;
+                }
+                int zLength = Long.SIZE - zLeading - zTrailing;
+                zValue ^= peek(zWords, zPosition) >>> (Long.SIZE - zLength) << zTrailing;
+                zPosition += zLength;
+            }
+            if (i >= skip) {
+                x[offset + i - skip] = Double.longBitsToDouble(xValue);
+                y[offset + i - skip] = Double.longBitsToDouble(yValue);
+                z[offset + i - skip] = Double.longBitsToDouble(zValue);
+            }
+        }
+    }
+
+    /**
+     * ビット列の指定した位置から64ビットを左詰めで返す。
+     */
+    private static long peek(long[] words, int position) {
+        int word = position >>> 6;
+        int shift = position & 63;
+        return words[word] << shift | words[word + 1] >>> 1 >>> (63 - shift);
+    }
+
+    private void checkRange(long from, int count) {
+        if (from < 0 || count < 0 || from + count > size) {
+            throw new IndexOutOfBoundsException("From: " + from + ", Count: " + count + ", Size: " + size);
+        }
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + length + ", Array length: " + arrayLength);
+        }
+    }
+
+    /**
+     * ブロック。
+     */
+    private static final class Block {
+
+        /**
+         * 成分ごとのビット列。
+         *
+         * 読み出しで次の要素を先読みするため、末尾に{@code 0}の要素を1つ余分に持ちます。
+         */
+        final long[][] streams = new long[DIMENSION][INITIAL_WORDS];
+
+        /**
+         * 要素数。
+         */
+        int count;
+
+        /**
+         * ビット列の配列を、使っている長さに切り詰める。
+         */
+        void trim(int[] positions) {
+            for (int i = 0; i < DIMENSION; i++) {
+                int length = ((positions[i] + 63) >>> 6) + 1;
+                if (streams[i].length > length) {
+                    streams[i] = Arrays.copyOf(streams[i], length);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.collection;
+
+import java.util.Arrays;
+import java.util.Objects;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntPoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+
+/**
+ * {@link IntPoint2}の集合。
+ *
+ * オープンアドレス法（線形探索）によるハッシュ表で、要素の成分を{@code long}に詰めてプリミティブ配列に格納します。
+ * 要素ごとにオブジェクトを生成しないため、{@link java.util.HashSet}と比べてメモリ使用量が大幅に少なくなります。
+ * 要素は成分を直接渡すか、任意の{@link IntPoint2}の実装を渡します。どちらの場合も要素のためのインスタンスは生成しません。
+ *
+ * このクラスはスレッドセーフではありません。
+ *
+ * @author misakura
+ */
+public class IntPoint2Set {
+
+    /**
+     * 要素数を指定しなかった場合に想定する要素数。
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * 負荷係数を指定しなかった場合の負荷係数。
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * ハッシュ表の最大の大きさ。
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 負荷係数。
+     */
+    private final float loadFactor;
+
+    /**
+     * x座標とy座標を詰めたキーの配列。
+     *
+     * 全ての成分が{@code 0}であるスロットは空きを表します。
+     */
+    private long[] keys;
+
+    /**
+     * 全ての成分が{@code 0}の要素を格納しているかどうか。
+     */
+    private boolean containsZeroKey;
+
+    /**
+     * ハッシュ値からスロットを求めるためのマスク。
+     */
+    private int mask;
+
+    /**
+     * ハッシュ表を拡張せずに格納できる要素数。
+     */
+    private int maxFill;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     */
+    public IntPoint2Set() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param expectedSize 想定する要素数。
+     */
+    public IntPoint2Set(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param expectedSize 想定する要素数。
+     * @param loadFactor 負荷係数。{@code 0}より大きく{@code 1}より小さい値。
+     */
+    public IntPoint2Set(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSize(expectedSize, loadFactor));
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 要素が存在するかどうかを返す。
+     *
+     * @param x 要素のx座標。
+     * @param y 要素のy座標。
+     * @return 要素が存在する場合は{@code true}。
+     */
+    public boolean contains(int x, int y) {
+        if (x == 0 && y == 0) {
+            return containsZeroKey;
+        }
+        return find(pack(x, y)) >= 0;
+    }
+
+    /**
+     * 要素が存在するかどうかを返す。
+     *
+     * @param point 要素。
+     * @return 要素が存在する場合は{@code true}。
+     */
+    public boolean contains(IntPoint2 point) {
+        return contains(point.getXAsInt(), point.getYAsInt());
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param x 要素のx座標。
+     * @param y 要素のy座標。
+     * @return 要素が存在しなかった場合は{@code true}。
+     */
+    public boolean add(int x, int y) {
+        if (x == 0 && y == 0) {
+            if (containsZeroKey) {
+                return false;
+            }
+            containsZeroKey = true;
+            size++;
+            return true;
+        }
+        long key = pack(x, y);
+        int pos = find(key);
+        if (pos >= 0) {
+            return false;
+        }
+        insert(-pos - 1, key);
+        return true;
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param point 要素。
+     * @return 要素が存在しなかった場合は{@code true}。
+     */
+    public boolean add(IntPoint2 point) {
+        return add(point.getXAsInt(), point.getYAsInt());
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * @param x 要素のx座標。
+     * @param y 要素のy座標。
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(int x, int y) {
+        if (x == 0 && y == 0) {
+            if (!containsZeroKey) {
+                return false;
+            }
+            containsZeroKey = false;
+            size--;
+            return true;
+        }
+        int pos = find(pack(x, y));
+        if (pos < 0) {
+            return false;
+        }
+        size--;
+        shiftKeys(pos);
+        return true;
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * @param point 要素。
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(IntPoint2 point) {
+        return remove(point.getXAsInt(), point.getYAsInt());
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * ハッシュ表の大きさは変わりません。
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        size = 0;
+        containsZeroKey = false;
+        Arrays.fill(keys, 0);
+    }
+
+    /**
+     * 少なくとも指定した要素数を格納できるよう、必要に応じてハッシュ表を拡張する。
+     *
+     * @param expectedSize 想定する要素数。
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSize(expectedSize, loadFactor);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * 全ての要素に対して処理を行う。
+     *
+     * 順序は不定です。処理中にこの集合を変更してはいけません。
+     *
+     * @param action 処理。
+     */
+    public void forEach(ElementConsumer action) {
+        Objects.requireNonNull(action);
+        if (containsZeroKey) {
+            action.accept(0, 0);
+        }
+        for (int pos = keys.length; pos-- != 0;) {
+            long key = keys[pos];
+            if (key != 0) {
+                action.accept((int) (key >>> 32), (int) key);
+            }
+        }
+    }
+
+    /**
+     * 要素の成分を受け取る処理。
+     */
+    @FunctionalInterface
+    public interface ElementConsumer {
+
+        /**
+         * 処理を行う。
+         *
+         * @param x 要素のx座標。
+         * @param y 要素のy座標。
+         */
+        void accept(int x, int y);
+    }
+
+    private int find(long key) {
+        int pos = hash(key) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == key) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -pos - 1;
+    }
+
+    private void insert(int pos, long key) {
+        keys[pos] = key;
+        if (++size > maxFill) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 削除したスロットを埋めるように、後続のキーを詰める。
+     *
+     * 線形探索のため、削除済みの印を残さずに済みます。
+     *
+     * @param pos 削除したスロット。
+     */
+    private void shiftKeys(int pos) {
+        for (;;) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            for (;;) {
+                if (keys[pos] == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = hash(keys[pos]) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Capacity exceeded: " + newCapacity);
+        }
+        long[] oldKeys = keys;
+        allocate(newCapacity);
+        for (int i = oldKeys.length; i-- != 0;) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int pos = hash(key) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        maxFill = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    private static int tableSize(int expectedSize, float loadFactor) {
+        long required = Math.max(2, (long) Math.ceil(expectedSize / (double) loadFactor));
+        if (required > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Too large expected size: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static int hash(long key) {
+        return PrimitiveHashCodes.mix(key);
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+}
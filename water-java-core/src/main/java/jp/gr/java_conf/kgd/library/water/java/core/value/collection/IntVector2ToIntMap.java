@@ -0,0 +1,506 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.collection;
+
+import java.util.Arrays;
+import java.util.Objects;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntVector2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+
+/**
+ * {@link IntVector2}をキーとし、{@code int}を値とするマップ。
+ *
+ * オープンアドレス法（線形探索）によるハッシュ表で、キーの成分を{@code long}に詰めてプリミティブ配列に格納します。
+ * エントリごとにオブジェクトを生成しないため、{@link java.util.HashMap}と比べてメモリ使用量が大幅に少なくなります。
+ * キーは成分を直接渡すか、任意の{@link IntVector2}の実装を渡します。どちらの場合もキーのためのインスタンスは生成しません。
+ *
+ * 値が存在しない場合に返す値は{@link #setDefaultReturnValue(int)}で変更できます。（初期値は{@code 0}です。）
+ * このクラスはスレッドセーフではありません。
+ *
+ * @author misakura
+ */
+public class IntVector2ToIntMap {
+
+    /**
+     * 要素数を指定しなかった場合に想定する要素数。
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * 負荷係数を指定しなかった場合の負荷係数。
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * ハッシュ表の最大の大きさ。
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * 負荷係数。
+     */
+    private final float loadFactor;
+
+    /**
+     * x成分とy成分を詰めたキーの配列。
+     *
+     * 全ての成分が{@code 0}であるスロットは空きを表します。
+     */
+    private long[] keys;
+
+    /**
+     * 値の配列。
+     */
+    private int[] values;
+
+    /**
+     * 全ての成分が{@code 0}のキーを格納しているかどうか。
+     */
+    private boolean containsZeroKey;
+
+    /**
+     * 全ての成分が{@code 0}のキーに対応する値。
+     */
+    private int zeroValue;
+
+    /**
+     * ハッシュ値からスロットを求めるためのマスク。
+     */
+    private int mask;
+
+    /**
+     * ハッシュ表を拡張せずに格納できる要素数。
+     */
+    private int maxFill;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * 値が存在しない場合に返す値。
+     */
+    private int defaultReturnValue;
+
+    /**
+     * コンストラクタ。
+     */
+    public IntVector2ToIntMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param expectedSize 想定する要素数。
+     */
+    public IntVector2ToIntMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param expectedSize 想定する要素数。
+     * @param loadFactor 負荷係数。{@code 0}より大きく{@code 1}より小さい値。
+     */
+    public IntVector2ToIntMap(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(tableSize(expectedSize, loadFactor));
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 値が存在しない場合に返す値を返す。
+     *
+     * @return 値が存在しない場合に返す値。
+     */
+    public int getDefaultReturnValue() {
+        return defaultReturnValue;
+    }
+
+    /**
+     * 値が存在しない場合に返す値を設定する。
+     *
+     * @param defaultReturnValue 値が存在しない場合に返す値。
+     */
+    public void setDefaultReturnValue(int defaultReturnValue) {
+        this.defaultReturnValue = defaultReturnValue;
+    }
+
+    /**
+     * キーが存在するかどうかを返す。
+     *
+     * @param x キーのx成分。
+     * @param y キーのy成分。
+     * @return キーが存在する場合は{@code true}。
+     */
+    public boolean containsKey(int x, int y) {
+        if (x == 0 && y == 0) {
+            return containsZeroKey;
+        }
+        return find(pack(x, y)) >= 0;
+    }
+
+    /**
+     * キーが存在するかどうかを返す。
+     *
+     * @param key キー。
+     * @return キーが存在する場合は{@code true}。
+     */
+    public boolean containsKey(IntVector2 key) {
+        return containsKey(key.getXAsInt(), key.getYAsInt());
+    }
+
+    /**
+     * キーに対応する値を返す。
+     *
+     * @param x キーのx成分。
+     * @param y キーのy成分。
+     * @return キーに対応する値。存在しない場合は{@link #getDefaultReturnValue()}。
+     */
+    public int get(int x, int y) {
+        return getOrDefault(x, y, defaultReturnValue);
+    }
+
+    /**
+     * キーに対応する値を返す。
+     *
+     * @param key キー。
+     * @return キーに対応する値。存在しない場合は{@link #getDefaultReturnValue()}。
+     */
+    public int get(IntVector2 key) {
+        return getOrDefault(key.getXAsInt(), key.getYAsInt(), defaultReturnValue);
+    }
+
+    /**
+     * キーに対応する値を返す。
+     *
+     * @param x キーのx成分。
+     * @param y キーのy成分。
+     * @param defaultValue キーが存在しない場合に返す値。
+     * @return キーに対応する値。存在しない場合は{@code defaultValue}。
+     */
+    public int getOrDefault(int x, int y, int defaultValue) {
+        if (x == 0 && y == 0) {
+            return containsZeroKey ? zeroValue : defaultValue;
+        }
+        int pos = find(pack(x, y));
+        return pos >= 0 ? values[pos] : defaultValue;
+    }
+
+    /**
+     * キーに値を対応付ける。
+     *
+     * @param x キーのx成分。
+     * @param y キーのy成分。
+     * @param value 値。
+     * @return 以前の値。存在しなかった場合は{@link #getDefaultReturnValue()}。
+     */
+    public int put(int x, int y, int value) {
+        if (x == 0 && y == 0) {
+            int old = containsZeroKey ? zeroValue : defaultReturnValue;
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return old;
+        }
+        long key = pack(x, y);
+        int pos = find(key);
+        if (pos >= 0) {
+            int old = values[pos];
+            values[pos] = value;
+            return old;
+        }
+        insert(-pos - 1, key, value);
+        return defaultReturnValue;
+    }
+
+    /**
+     * キーに値を対応付ける。
+     *
+     * @param key キー。
+     * @param value 値。
+     * @return 以前の値。存在しなかった場合は{@link #getDefaultReturnValue()}。
+     */
+    public int put(IntVector2 key, int value) {
+        return put(key.getXAsInt(), key.getYAsInt(), value);
+    }
+
+    /**
+     * キーに対応する値に加算する。
+     *
+     * キーが存在しない場合は、{@link #getDefaultReturnValue()}に加算した値を対応付けます。
+     * セルごとの計数などに使います。
+     *
+     * @param x キーのx成分。
+     * @param y キーのy成分。
+     * @param increment 加算する値。
+     * @return 加算する前の値。存在しなかった場合は{@link #getDefaultReturnValue()}。
+     */
+    public int addTo(int x, int y, int increment) {
+        if (x == 0 && y == 0) {
+            int old = containsZeroKey ? zeroValue : defaultReturnValue;
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            zeroValue = old + increment;
+            return old;
+        }
+        long key = pack(x, y);
+        int pos = find(key);
+        if (pos >= 0) {
+            int old = values[pos];
+            values[pos] = old + increment;
+            return old;
+        }
+        insert(-pos - 1, key, defaultReturnValue + increment);
+        return defaultReturnValue;
+    }
+
+    /**
+     * キーに対応する値に加算する。
+     *
+     * @param key キー。
+     * @param increment 加算する値。
+     * @return 加算する前の値。存在しなかった場合は{@link #getDefaultReturnValue()}。
+     */
+    public int addTo(IntVector2 key, int increment) {
+        return addTo(key.getXAsInt(), key.getYAsInt(), increment);
+    }
+
+    /**
+     * キーを削除する。
+     *
+     * @param x キーのx成分。
+     * @param y キーのy成分。
+     * @return 削除した値。存在しなかった場合は{@link #getDefaultReturnValue()}。
+     */
+    public int remove(int x, int y) {
+        if (x == 0 && y == 0) {
+            if (!containsZeroKey) {
+                return defaultReturnValue;
+            }
+            containsZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        int pos = find(pack(x, y));
+        if (pos < 0) {
+            return defaultReturnValue;
+        }
+        int old = values[pos];
+        size--;
+        shiftKeys(pos);
+        return old;
+    }
+
+    /**
+     * キーを削除する。
+     *
+     * @param key キー。
+     * @return 削除した値。存在しなかった場合は{@link #getDefaultReturnValue()}。
+     */
+    public int remove(IntVector2 key) {
+        return remove(key.getXAsInt(), key.getYAsInt());
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * ハッシュ表の大きさは変わりません。
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        size = 0;
+        containsZeroKey = false;
+        Arrays.fill(keys, 0);
+    }
+
+    /**
+     * 少なくとも指定した要素数を格納できるよう、必要に応じてハッシュ表を拡張する。
+     *
+     * @param expectedSize 想定する要素数。
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSize(expectedSize, loadFactor);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * 全ての要素に対して処理を行う。
+     *
+     * 順序は不定です。処理中にこのマップを変更してはいけません。
+     *
+     * @param action 処理。
+     */
+    public void forEach(EntryConsumer action) {
+        Objects.requireNonNull(action);
+        if (containsZeroKey) {
+            action.accept(0, 0, zeroValue);
+        }
+        for (int pos = keys.length; pos-- != 0;) {
+            long key = keys[pos];
+            if (key != 0) {
+                action.accept((int) (key >>> 32), (int) key, values[pos]);
+            }
+        }
+    }
+
+    /**
+     * キーの成分と値を受け取る処理。
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        /**
+         * 処理を行う。
+         *
+         * @param x キーのx成分。
+         * @param y キーのy成分。
+         * @param value 値。
+         */
+        void accept(int x, int y, int value);
+    }
+
+    private int find(long key) {
+        int pos = hash(key) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == key) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -pos - 1;
+    }
+
+    private void insert(int pos, long key, int value) {
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size > maxFill) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 削除したスロットを埋めるように、後続のキーを詰める。
+     *
+     * 線形探索のため、削除済みの印を残さずに済みます。
+     *
+     * @param pos 削除したスロット。
+     */
+    private void shiftKeys(int pos) {
+        for (;;) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            for (;;) {
+                if (keys[pos] == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = hash(keys[pos]) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("Capacity exceeded: " + newCapacity);
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = oldKeys.length; i-- != 0;) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int pos = hash(key) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        maxFill = Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    private static int tableSize(int expectedSize, float loadFactor) {
+        long required = Math.max(2, (long) Math.ceil(expectedSize / (double) loadFactor));
+        if (required > MAXIMUM_CAPACITY) {
+            throw new IllegalArgumentException("Too large expected size: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static int hash(long key) {
+        return PrimitiveHashCodes.mix(key);
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,630 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoublePoint4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint4Trait;
+
+/**
+ * 成分の更新を不可分に行える{@link MutableDoublePoint4}の実装。
+ *
+ * 成分ごとに独立した{@code volatile}なフィールドを持ち、{@link #updateX(DoubleUnaryOperator)}などの成分ごとの更新を比較交換（CAS）で不可分に行います。
+ * 全体を一度に比較交換することはできませんが、書き込み中の操作の数と完了した操作の数を持つ状態により、
+ * {@link #snapshot(MutableDoublePoint4)}は全ての成分が同時に持っていた値を返し、{@link #set(double, double, double, double)}の途中の値を返すことはありません。
+ * その代わり、全ての書き込みで状態を2回更新します。書き込みの多い間は{@link #snapshot(MutableDoublePoint4)}が再試行を繰り返すことがあります。
+ * 成分は{@link Double#doubleToRawLongBits(double)}によるビット列で保持し、比較交換もビット列で比較します。
+ * そのため{@code NaN}同士は等しく、{@code 0.0}と{@code -0.0}は等しくありません。
+ *
+ * 不可分なのはこのクラスで定義する操作と{@link #updateX(DoubleUnaryOperator)}などの成分ごとの更新、
+ * {@link #set(double, double, double, double)}だけで、
+ * {@link #calculate(DoubleUnaryOperator)}などインターフェースのデフォルトの実装による操作は不可分ではありません。
+ * {@link Object#equals(Object)}と{@link Object#hashCode()}は、{@link java.util.concurrent.atomic.AtomicLong}と同様に同一性に基づきます。
+ *
+ * @author misakura
+ */
+public class AtomicDoublePoint4 implements MutableDoublePoint4Trait {
+
+    private static final AtomicLongFieldUpdater<AtomicDoublePoint4> STATE = AtomicLongFieldUpdater.newUpdater(AtomicDoublePoint4.class, "state");
+
+    private static final AtomicLongFieldUpdater<AtomicDoublePoint4> X = AtomicLongFieldUpdater.newUpdater(AtomicDoublePoint4.class, "x");
+
+    private static final AtomicLongFieldUpdater<AtomicDoublePoint4> Y = AtomicLongFieldUpdater.newUpdater(AtomicDoublePoint4.class, "y");
+
+    private static final AtomicLongFieldUpdater<AtomicDoublePoint4> Z = AtomicLongFieldUpdater.newUpdater(AtomicDoublePoint4.class, "z");
+
+    private static final AtomicLongFieldUpdater<AtomicDoublePoint4> W = AtomicLongFieldUpdater.newUpdater(AtomicDoublePoint4.class, "w");
+
+    /**
+     * 状態に書き込み中の操作を1つ加える時の増分。状態の下位32ビットが書き込み中の操作の数です。
+     */
+    private static final long BEGIN = 1;
+
+    /**
+     * 状態の書き込み中の操作を1つ完了にする時の増分。状態の上位32ビットが完了した操作の数です。
+     */
+    private static final long END = (1L << 32) - 1;
+
+    /**
+     * x座標のビット列。
+     */
+    private volatile long x;
+
+    /**
+     * y座標のビット列。
+     */
+    private volatile long y;
+
+    /**
+     * z座標のビット列。
+     */
+    private volatile long z;
+
+    /**
+     * w座標のビット列。
+     */
+    private volatile long w;
+
+    /**
+     * 下位32ビットに書き込み中の操作の数、上位32ビットに完了した操作の数を持つ状態。
+     */
+    private volatile long state;
+
+    /**
+     * コンストラクタ。
+     */
+    public AtomicDoublePoint4() {
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @param z z座標。
+     * @param w w座標。
+     */
+    public AtomicDoublePoint4(double x, double y, double z, double w) {
+        this.x = Double.doubleToRawLongBits(x);
+        this.y = Double.doubleToRawLongBits(y);
+        this.z = Double.doubleToRawLongBits(z);
+        this.w = Double.doubleToRawLongBits(w);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param point 設定値を取得する点。
+     */
+    public AtomicDoublePoint4(DoublePoint4 point) {
+        this(point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble(), point.getWAsDouble());
+    }
+
+    @Override
+    public double getXAsDouble() {
+        return Double.longBitsToDouble(x);
+    }
+
+    @Override
+    public void setX(double x) {
+        begin();
+        X.set(this, Double.doubleToRawLongBits(x));
+        end();
+    }
+
+    /**
+     * このインスタンスの現在のx座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateX(DoubleUnaryOperator newValueOperator) {
+        updateAndGetX(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のx座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public double updateAndGetX(DoubleUnaryOperator newValueOperator) {
+        begin();
+        try {
+            for (;;) {
+                long current = x;
+                double next = newValueOperator.applyAsDouble(Double.longBitsToDouble(current));
+                if (X.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスの現在のx座標と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param x 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public double accumulateAndGetX(double x, DoubleBinaryOperator accumulatorFunction) {
+        begin();
+        try {
+            for (;;) {
+                long current = this.x;
+                double next = accumulatorFunction.applyAsDouble(Double.longBitsToDouble(current), x);
+                if (X.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのx座標に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public double addAndGetX(double delta) {
+        begin();
+        try {
+            for (;;) {
+                long current = x;
+                double next = Double.longBitsToDouble(current) + delta;
+                if (X.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのx座標が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedX 期待する値。
+     * @param newX 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetX(double expectedX, double newX) {
+        begin();
+        try {
+            return X.compareAndSet(this, Double.doubleToRawLongBits(expectedX), Double.doubleToRawLongBits(newX));
+        } finally {
+            end();
+        }
+    }
+
+    @Override
+    public double getYAsDouble() {
+        return Double.longBitsToDouble(y);
+    }
+
+    @Override
+    public void setY(double y) {
+        begin();
+        Y.set(this, Double.doubleToRawLongBits(y));
+        end();
+    }
+
+    /**
+     * このインスタンスの現在のy座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateY(DoubleUnaryOperator newValueOperator) {
+        updateAndGetY(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のy座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public double updateAndGetY(DoubleUnaryOperator newValueOperator) {
+        begin();
+        try {
+            for (;;) {
+                long current = y;
+                double next = newValueOperator.applyAsDouble(Double.longBitsToDouble(current));
+                if (Y.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスの現在のy座標と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param y 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public double accumulateAndGetY(double y, DoubleBinaryOperator accumulatorFunction) {
+        begin();
+        try {
+            for (;;) {
+                long current = this.y;
+                double next = accumulatorFunction.applyAsDouble(Double.longBitsToDouble(current), y);
+                if (Y.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのy座標に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public double addAndGetY(double delta) {
+        begin();
+        try {
+            for (;;) {
+                long current = y;
+                double next = Double.longBitsToDouble(current) + delta;
+                if (Y.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのy座標が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedY 期待する値。
+     * @param newY 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetY(double expectedY, double newY) {
+        begin();
+        try {
+            return Y.compareAndSet(this, Double.doubleToRawLongBits(expectedY), Double.doubleToRawLongBits(newY));
+        } finally {
+            end();
+        }
+    }
+
+    @Override
+    public double getZAsDouble() {
+        return Double.longBitsToDouble(z);
+    }
+
+    @Override
+    public void setZ(double z) {
+        begin();
+        Z.set(this, Double.doubleToRawLongBits(z));
+        end();
+    }
+
+    /**
+     * このインスタンスの現在のz座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateZ(DoubleUnaryOperator newValueOperator) {
+        updateAndGetZ(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のz座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public double updateAndGetZ(DoubleUnaryOperator newValueOperator) {
+        begin();
+        try {
+            for (;;) {
+                long current = z;
+                double next = newValueOperator.applyAsDouble(Double.longBitsToDouble(current));
+                if (Z.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスの現在のz座標と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param z 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public double accumulateAndGetZ(double z, DoubleBinaryOperator accumulatorFunction) {
+        begin();
+        try {
+            for (;;) {
+                long current = this.z;
+                double next = accumulatorFunction.applyAsDouble(Double.longBitsToDouble(current), z);
+                if (Z.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのz座標に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public double addAndGetZ(double delta) {
+        begin();
+        try {
+            for (;;) {
+                long current = z;
+                double next = Double.longBitsToDouble(current) + delta;
+                if (Z.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのz座標が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedZ 期待する値。
+     * @param newZ 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetZ(double expectedZ, double newZ) {
+        begin();
+        try {
+            return Z.compareAndSet(this, Double.doubleToRawLongBits(expectedZ), Double.doubleToRawLongBits(newZ));
+        } finally {
+            end();
+        }
+    }
+
+    @Override
+    public double getWAsDouble() {
+        return Double.longBitsToDouble(w);
+    }
+
+    @Override
+    public void setW(double w) {
+        begin();
+        W.set(this, Double.doubleToRawLongBits(w));
+        end();
+    }
+
+    /**
+     * このインスタンスの現在のw座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateW(DoubleUnaryOperator newValueOperator) {
+        updateAndGetW(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のw座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public double updateAndGetW(DoubleUnaryOperator newValueOperator) {
+        begin();
+        try {
+            for (;;) {
+                long current = w;
+                double next = newValueOperator.applyAsDouble(Double.longBitsToDouble(current));
+                if (W.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスの現在のw座標と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param w 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public double accumulateAndGetW(double w, DoubleBinaryOperator accumulatorFunction) {
+        begin();
+        try {
+            for (;;) {
+                long current = this.w;
+                double next = accumulatorFunction.applyAsDouble(Double.longBitsToDouble(current), w);
+                if (W.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのw座標に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public double addAndGetW(double delta) {
+        begin();
+        try {
+            for (;;) {
+                long current = w;
+                double next = Double.longBitsToDouble(current) + delta;
+                if (W.compareAndSet(this, current, Double.doubleToRawLongBits(next))) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのw座標が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedW 期待する値。
+     * @param newW 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetW(double expectedW, double newW) {
+        begin();
+        try {
+            return W.compareAndSet(this, Double.doubleToRawLongBits(expectedW), Double.doubleToRawLongBits(newW));
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * 全ての成分に値を不可分に設定する。
+     *
+     * @param x x座標の値。
+     * @param y y座標の値。
+     * @param z z座標の値。
+     * @param w w座標の値。
+     */
+    @Override
+    public void set(double x, double y, double z, double w) {
+        begin();
+        X.set(this, Double.doubleToRawLongBits(x));
+        Y.set(this, Double.doubleToRawLongBits(y));
+        Z.set(this, Double.doubleToRawLongBits(z));
+        W.set(this, Double.doubleToRawLongBits(w));
+        end();
+    }
+
+    /**
+     * 全ての成分が同時に持っていた値を取得する。
+     *
+     * 書き込み中の操作がない間に全ての成分を読み、その間に書き込みがなかった場合の値を返します。書き込みがあった場合は読み直します。
+     *
+     * @param destination 値の格納先。
+     */
+    public void snapshot(MutableDoublePoint4 destination) {
+        for (;;) {
+            long before = state;
+            if ((int) before == 0) {
+                long x = this.x;
+                long y = this.y;
+                long z = this.z;
+                long w = this.w;
+                if (state == before) {
+                    destination.set(Double.longBitsToDouble(x), Double.longBitsToDouble(y), Double.longBitsToDouble(z), Double.longBitsToDouble(w));
+                    return;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * このインスタンスの文字列表現を返す。
+     *
+     * {@link #snapshot(MutableDoublePoint4)}で得た値を、{@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        BareDoublePoint4 current = new BareDoublePoint4();
+        snapshot(current);
+        return new StringBuilder(128)
+                .append("AtomicDoublePoint4[")
+                .append("x=").append(current.x)
+                .append(",y=").append(current.y)
+                .append(",z=").append(current.z)
+                .append(",w=").append(current.w)
+                .append(']')
+                .toString();
+    }
+
+    private void begin() {
+        STATE.getAndAdd(this, BEGIN);
+    }
+
+    private void end() {
+        STATE.getAndAdd(this, END);
+    }
+}
@@ -0,0 +1,490 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.concurrent;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareIntPoint3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntPoint3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntPoint3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntPoint3Trait;
+
+/**
+ * 成分の更新を不可分に行える{@link MutableIntPoint3}の実装。
+ *
+ * 成分ごとに独立した{@code volatile}なフィールドを持ち、{@link #updateX(IntUnaryOperator)}などの成分ごとの更新を比較交換（CAS）で不可分に行います。
+ * 全体を一度に比較交換することはできませんが、書き込み中の操作の数と完了した操作の数を持つ状態により、
+ * {@link #snapshot(MutableIntPoint3)}は全ての成分が同時に持っていた値を返し、{@link #set(int, int, int)}の途中の値を返すことはありません。
+ * その代わり、全ての書き込みで状態を2回更新します。書き込みの多い間は{@link #snapshot(MutableIntPoint3)}が再試行を繰り返すことがあります。
+ *
+ * 不可分なのはこのクラスで定義する操作と{@link #updateX(IntUnaryOperator)}などの成分ごとの更新、
+ * {@link #set(int, int, int)}だけで、
+ * {@link #calculate(IntUnaryOperator)}などインターフェースのデフォルトの実装による操作は不可分ではありません。
+ * {@link Object#equals(Object)}と{@link Object#hashCode()}は、{@link java.util.concurrent.atomic.AtomicLong}と同様に同一性に基づきます。
+ *
+ * @author misakura
+ */
+public class AtomicIntPoint3 implements MutableIntPoint3Trait {
+
+    private static final AtomicLongFieldUpdater<AtomicIntPoint3> STATE = AtomicLongFieldUpdater.newUpdater(AtomicIntPoint3.class, "state");
+
+    private static final AtomicIntegerFieldUpdater<AtomicIntPoint3> X = AtomicIntegerFieldUpdater.newUpdater(AtomicIntPoint3.class, "x");
+
+    private static final AtomicIntegerFieldUpdater<AtomicIntPoint3> Y = AtomicIntegerFieldUpdater.newUpdater(AtomicIntPoint3.class, "y");
+
+    private static final AtomicIntegerFieldUpdater<AtomicIntPoint3> Z = AtomicIntegerFieldUpdater.newUpdater(AtomicIntPoint3.class, "z");
+
+    /**
+     * 状態に書き込み中の操作を1つ加える時の増分。状態の下位32ビットが書き込み中の操作の数です。
+     */
+    private static final long BEGIN = 1;
+
+    /**
+     * 状態の書き込み中の操作を1つ完了にする時の増分。状態の上位32ビットが完了した操作の数です。
+     */
+    private static final long END = (1L << 32) - 1;
+
+    /**
+     * x座標。
+     */
+    private volatile int x;
+
+    /**
+     * y座標。
+     */
+    private volatile int y;
+
+    /**
+     * z座標。
+     */
+    private volatile int z;
+
+    /**
+     * 下位32ビットに書き込み中の操作の数、上位32ビットに完了した操作の数を持つ状態。
+     */
+    private volatile long state;
+
+    /**
+     * コンストラクタ。
+     */
+    public AtomicIntPoint3() {
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @param z z座標。
+     */
+    public AtomicIntPoint3(int x, int y, int z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param point 設定値を取得する点。
+     */
+    public AtomicIntPoint3(IntPoint3 point) {
+        this(point.getXAsInt(), point.getYAsInt(), point.getZAsInt());
+    }
+
+    @Override
+    public int getXAsInt() {
+        return x;
+    }
+
+    @Override
+    public void setX(int x) {
+        begin();
+        X.set(this, x);
+        end();
+    }
+
+    /**
+     * このインスタンスの現在のx座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateX(IntUnaryOperator newValueOperator) {
+        updateAndGetX(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のx座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int updateAndGetX(IntUnaryOperator newValueOperator) {
+        begin();
+        try {
+            for (;;) {
+                int current = x;
+                int next = newValueOperator.applyAsInt(current);
+                if (X.compareAndSet(this, current, next)) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスの現在のx座標と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param x 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int accumulateAndGetX(int x, IntBinaryOperator accumulatorFunction) {
+        begin();
+        try {
+            for (;;) {
+                int current = this.x;
+                int next = accumulatorFunction.applyAsInt(current, x);
+                if (X.compareAndSet(this, current, next)) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのx座標に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public int addAndGetX(int delta) {
+        begin();
+        try {
+            return X.addAndGet(this, delta);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのx座標が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedX 期待する値。
+     * @param newX 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetX(int expectedX, int newX) {
+        begin();
+        try {
+            return X.compareAndSet(this, expectedX, newX);
+        } finally {
+            end();
+        }
+    }
+
+    @Override
+    public int getYAsInt() {
+        return y;
+    }
+
+    @Override
+    public void setY(int y) {
+        begin();
+        Y.set(this, y);
+        end();
+    }
+
+    /**
+     * このインスタンスの現在のy座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateY(IntUnaryOperator newValueOperator) {
+        updateAndGetY(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のy座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int updateAndGetY(IntUnaryOperator newValueOperator) {
+        begin();
+        try {
+            for (;;) {
+                int current = y;
+                int next = newValueOperator.applyAsInt(current);
+                if (Y.compareAndSet(this, current, next)) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスの現在のy座標と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param y 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int accumulateAndGetY(int y, IntBinaryOperator accumulatorFunction) {
+        begin();
+        try {
+            for (;;) {
+                int current = this.y;
+                int next = accumulatorFunction.applyAsInt(current, y);
+                if (Y.compareAndSet(this, current, next)) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのy座標に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public int addAndGetY(int delta) {
+        begin();
+        try {
+            return Y.addAndGet(this, delta);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのy座標が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedY 期待する値。
+     * @param newY 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetY(int expectedY, int newY) {
+        begin();
+        try {
+            return Y.compareAndSet(this, expectedY, newY);
+        } finally {
+            end();
+        }
+    }
+
+    @Override
+    public int getZAsInt() {
+        return z;
+    }
+
+    @Override
+    public void setZ(int z) {
+        begin();
+        Z.set(this, z);
+        end();
+    }
+
+    /**
+     * このインスタンスの現在のz座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateZ(IntUnaryOperator newValueOperator) {
+        updateAndGetZ(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のz座標を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int updateAndGetZ(IntUnaryOperator newValueOperator) {
+        begin();
+        try {
+            for (;;) {
+                int current = z;
+                int next = newValueOperator.applyAsInt(current);
+                if (Z.compareAndSet(this, current, next)) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスの現在のz座標と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param z 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int accumulateAndGetZ(int z, IntBinaryOperator accumulatorFunction) {
+        begin();
+        try {
+            for (;;) {
+                int current = this.z;
+                int next = accumulatorFunction.applyAsInt(current, z);
+                if (Z.compareAndSet(this, current, next)) {
+                    return next;
+                }
+            }
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのz座標に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public int addAndGetZ(int delta) {
+        begin();
+        try {
+            return Z.addAndGet(this, delta);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * このインスタンスのz座標が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedZ 期待する値。
+     * @param newZ 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetZ(int expectedZ, int newZ) {
+        begin();
+        try {
+            return Z.compareAndSet(this, expectedZ, newZ);
+        } finally {
+            end();
+        }
+    }
+
+    /**
+     * 全ての成分に値を不可分に設定する。
+     *
+     * @param x x座標の値。
+     * @param y y座標の値。
+     * @param z z座標の値。
+     */
+    @Override
+    public void set(int x, int y, int z) {
+        begin();
+        X.set(this, x);
+        Y.set(this, y);
+        Z.set(this, z);
+        end();
+    }
+
+    /**
+     * 全ての成分が同時に持っていた値を取得する。
+     *
+     * 書き込み中の操作がない間に全ての成分を読み、その間に書き込みがなかった場合の値を返します。書き込みがあった場合は読み直します。
+     *
+     * @param destination 値の格納先。
+     */
+    public void snapshot(MutableIntPoint3 destination) {
+        for (;;) {
+            long before = state;
+            if ((int) before == 0) {
+                int x = this.x;
+                int y = this.y;
+                int z = this.z;
+                if (state == before) {
+                    destination.set(x, y, z);
+                    return;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * このインスタンスの文字列表現を返す。
+     *
+     * {@link #snapshot(MutableIntPoint3)}で得た値を、{@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        BareIntPoint3 current = new BareIntPoint3();
+        snapshot(current);
+        return new StringBuilder(104)
+                .append("AtomicIntPoint3[")
+                .append("x=").append(current.x)
+                .append(",y=").append(current.y)
+                .append(",z=").append(current.z)
+                .append(']')
+                .toString();
+    }
+
+    private void begin() {
+        STATE.getAndAdd(this, BEGIN);
+    }
+
+    private void end() {
+        STATE.getAndAdd(this, END);
+    }
+}
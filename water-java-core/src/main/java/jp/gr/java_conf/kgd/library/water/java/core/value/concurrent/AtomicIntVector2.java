@@ -0,0 +1,339 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareIntVector2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntVector2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntVector2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntVector2Trait;
+
+/**
+ * 成分の更新を不可分に行える{@link MutableIntVector2}の実装。
+ *
+ * 2つの成分を1つの{@code long}に詰めて保持し、成分ごとの更新も全体の更新も、その{@code long}の比較交換（CAS）で不可分に行います。
+ * {@link #compareAndSet(int, int, int, int)}で全体を比較交換でき、{@link #snapshot(MutableIntVector2)}は常に一貫した値を返します。
+ *
+ * 不可分なのはこのクラスで定義する操作と{@link #updateX(IntUnaryOperator)}などの成分ごとの更新、
+ * {@link #set(int, int)}だけで、
+ * {@link #calculate(IntUnaryOperator)}などインターフェースのデフォルトの実装による操作は不可分ではありません。
+ * {@link Object#equals(Object)}と{@link Object#hashCode()}は、{@link java.util.concurrent.atomic.AtomicLong}と同様に同一性に基づきます。
+ *
+ * @author misakura
+ */
+public class AtomicIntVector2 implements MutableIntVector2Trait {
+
+    private static final AtomicLongFieldUpdater<AtomicIntVector2> VALUE = AtomicLongFieldUpdater.newUpdater(AtomicIntVector2.class, "value");
+
+    /**
+     * 上位32ビットにx成分、下位32ビットにy成分を詰めた値。
+     */
+    private volatile long value;
+
+    /**
+     * コンストラクタ。
+     */
+    public AtomicIntVector2() {
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param x x成分。
+     * @param y y成分。
+     */
+    public AtomicIntVector2(int x, int y) {
+        this.value = pack(x, y);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param vector 設定値を取得するベクトル。
+     */
+    public AtomicIntVector2(IntVector2 vector) {
+        this(vector.getXAsInt(), vector.getYAsInt());
+    }
+
+    @Override
+    public int getXAsInt() {
+        return (int) (value >>> 32);
+    }
+
+    @Override
+    public void setX(int x) {
+        for (;;) {
+            long current = value;
+            int next = x;
+            if (VALUE.compareAndSet(this, current, pack(next, (int) current))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * このインスタンスの現在のx成分を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateX(IntUnaryOperator newValueOperator) {
+        updateAndGetX(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のx成分を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int updateAndGetX(IntUnaryOperator newValueOperator) {
+        for (;;) {
+            long current = value;
+            int next = newValueOperator.applyAsInt((int) (current >>> 32));
+            if (VALUE.compareAndSet(this, current, pack(next, (int) current))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * このインスタンスの現在のx成分と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param x 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int accumulateAndGetX(int x, IntBinaryOperator accumulatorFunction) {
+        for (;;) {
+            long current = value;
+            int next = accumulatorFunction.applyAsInt((int) (current >>> 32), x);
+            if (VALUE.compareAndSet(this, current, pack(next, (int) current))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * このインスタンスのx成分に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public int addAndGetX(int delta) {
+        for (;;) {
+            long current = value;
+            int next = (int) (current >>> 32) + delta;
+            if (VALUE.compareAndSet(this, current, pack(next, (int) current))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * このインスタンスのx成分が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedX 期待する値。
+     * @param newX 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetX(int expectedX, int newX) {
+        for (;;) {
+            long current = value;
+            if ((int) (current >>> 32) != expectedX) {
+                return false;
+            }
+            int next = newX;
+            if (VALUE.compareAndSet(this, current, pack(next, (int) current))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public int getYAsInt() {
+        return (int) value;
+    }
+
+    @Override
+    public void setY(int y) {
+        for (;;) {
+            long current = value;
+            int next = y;
+            if (VALUE.compareAndSet(this, current, pack((int) (current >>> 32), next))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * このインスタンスの現在のy成分を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     */
+    @Override
+    public void updateY(IntUnaryOperator newValueOperator) {
+        updateAndGetY(newValueOperator);
+    }
+
+    /**
+     * このインスタンスの現在のy成分を用いて、新たな値を不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param newValueOperator 現在の設定値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int updateAndGetY(IntUnaryOperator newValueOperator) {
+        for (;;) {
+            long current = value;
+            int next = newValueOperator.applyAsInt((int) current);
+            if (VALUE.compareAndSet(this, current, pack((int) (current >>> 32), next))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * このインスタンスの現在のy成分と与えられた値に関数を適用した結果を、不可分に設定する。
+     *
+     * 他のスレッドとの競合で設定に失敗した場合は、関数を再び呼び出します。
+     *
+     * @param y 関数の右辺となる値。
+     * @param accumulatorFunction 現在の設定値と与えられた値を受け取り、新しい設定値を返す関数。副作用を持ってはいけません。
+     * @return 設定した値。
+     */
+    public int accumulateAndGetY(int y, IntBinaryOperator accumulatorFunction) {
+        for (;;) {
+            long current = value;
+            int next = accumulatorFunction.applyAsInt((int) current, y);
+            if (VALUE.compareAndSet(this, current, pack((int) (current >>> 32), next))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * このインスタンスのy成分に値を不可分に加える。
+     *
+     * @param delta 加える値。
+     * @return 加えた後の値。
+     */
+    public int addAndGetY(int delta) {
+        for (;;) {
+            long current = value;
+            int next = (int) current + delta;
+            if (VALUE.compareAndSet(this, current, pack((int) (current >>> 32), next))) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * このインスタンスのy成分が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedY 期待する値。
+     * @param newY 新しい値。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSetY(int expectedY, int newY) {
+        for (;;) {
+            long current = value;
+            if ((int) current != expectedY) {
+                return false;
+            }
+            int next = newY;
+            if (VALUE.compareAndSet(this, current, pack((int) (current >>> 32), next))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 全ての成分に値を不可分に設定する。
+     *
+     * @param x x成分の値。
+     * @param y y成分の値。
+     */
+    @Override
+    public void set(int x, int y) {
+        VALUE.set(this, pack(x, y));
+    }
+
+    /**
+     * 全ての成分が期待する値と等しい場合に限り、新しい値を不可分に設定する。
+     *
+     * @param expectedX 期待するx成分。
+     * @param expectedY 期待するy成分。
+     * @param newX 新しいx成分。
+     * @param newY 新しいy成分。
+     * @return 設定した場合は{@code true}。
+     */
+    public boolean compareAndSet(int expectedX, int expectedY, int newX, int newY) {
+        return VALUE.compareAndSet(this, pack(expectedX, expectedY), pack(newX, newY));
+    }
+
+    /**
+     * 全ての成分が同時に持っていた値を取得する。
+     *
+     * @param destination 値の格納先。
+     */
+    public void snapshot(MutableIntVector2 destination) {
+        long current = value;
+        destination.set((int) (current >>> 32), (int) current);
+    }
+
+    /**
+     * このインスタンスの文字列表現を返す。
+     *
+     * {@link #snapshot(MutableIntVector2)}で得た値を、{@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        BareIntVector2 current = new BareIntVector2();
+        snapshot(current);
+        return new StringBuilder(80)
+                .append("AtomicIntVector2[")
+                .append("x=").append(current.x)
+                .append(",y=").append(current.y)
+                .append(']')
+                .toString();
+    }
+
+    private static long pack(int x, int y) {
+        return (long) x << 32 | y & 0xFFFFFFFFL;
+    }
+}
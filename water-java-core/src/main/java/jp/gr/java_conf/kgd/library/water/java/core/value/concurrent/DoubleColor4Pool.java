@@ -0,0 +1,302 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.concurrent;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleColor4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleColor4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleColor4Trait;
+
+/**
+ * 一時的に使う{@link MutableDoubleColor4}のインスタンスを使い回すプール。
+ *
+ * 複数のスレッドから{@link #acquire()}で取り出し、{@link #release(MutableDoubleColor4)}で返せます。
+ * 返されたインスタンスは容量まで保持し、容量を超えた分は捨てます。取り出す時に保持しているインスタンスがなければ生成します。
+ * 取り出しと返却はロックを取らず、スレッドごとに異なる位置から保持用の枠を順に調べます。全ての枠を調べることがあるため、容量は同時に取り出す数の程度にしてください。
+ *
+ * 調査用の設定で生成すると、取り出すたびに返却を検出する包みのインスタンスを返し、返却した後に使った場合や二重に返却した場合に{@link IllegalStateException}を投げます。
+ * その代わり、取り出すたびに包みのインスタンスを生成し、全ての操作で返却済みかどうかを調べます。
+ *
+ * 1つのスレッドの中で一時的に使うだけであれば、{@link #scratch(ScratchArena)}で{@link ScratchArena}から取り出す方が速く、返却の必要もありません。
+ *
+ * @author misakura
+ */
+public class DoubleColor4Pool {
+
+    /**
+     * {@link ScratchArena}での型の番号。
+     */
+    private static final int KIND = ScratchArena.newKind();
+
+    /**
+     * 保持しているインスタンスの枠。空の枠は{@code null}です。
+     */
+    private final AtomicReferenceArray<BareDoubleColor4> slots;
+
+    /**
+     * 返却後の使用を検出する場合は{@code true}。
+     */
+    private final boolean debug;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param capacity 保持するインスタンスの最大数。
+     * @throws IllegalArgumentException {@code capacity}が正でない場合。
+     */
+    public DoubleColor4Pool(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param capacity 保持するインスタンスの最大数。
+     * @param debug 返却後の使用を検出する場合は{@code true}。
+     * @throws IllegalArgumentException {@code capacity}が正でない場合。
+     */
+    public DoubleColor4Pool(int capacity, boolean debug) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.debug = debug;
+    }
+
+    /**
+     * 現在のスレッドの{@link ScratchArena}から一時的なインスタンスを取り出す。
+     *
+     * @return 全ての成分が{@code 0}のインスタンス。
+     * @see #scratch(ScratchArena)
+     */
+    public static BareDoubleColor4 scratch() {
+        return scratch(ScratchArena.current());
+    }
+
+    /**
+     * {@link ScratchArena}から一時的なインスタンスを取り出す。
+     *
+     * 取り出したインスタンスは、{@link ScratchArena#reset(int)}で取り出す前の位置に戻すまで使えます。
+     *
+     * @param arena 現在のスレッドの領域。
+     * @return 全ての成分が{@code 0}のインスタンス。
+     */
+    public static BareDoubleColor4 scratch(ScratchArena arena) {
+        BareDoubleColor4 item = arena.take(KIND, BareDoubleColor4::new);
+        item.red = 0;
+        item.green = 0;
+        item.blue = 0;
+        item.alpha = 0;
+        return item;
+    }
+
+    /**
+     * インスタンスを取り出す。
+     *
+     * @return 全ての成分が{@code 0}のインスタンス。
+     */
+    public MutableDoubleColor4 acquire() {
+        BareDoubleColor4 item = poll();
+        if (item == null) {
+            item = new BareDoubleColor4();
+        } else {
+            item.red = 0;
+            item.green = 0;
+            item.blue = 0;
+            item.alpha = 0;
+        }
+        return debug ? new Guarded(this, item) : item;
+    }
+
+    /**
+     * 取り出したインスタンスを返す。
+     *
+     * 返した後は、そのインスタンスを使ってはいけません。
+     *
+     * @param item {@link #acquire()}で取り出したインスタンス。
+     * @throws IllegalArgumentException このプールの{@link #acquire()}が返す型のインスタンスでない場合。
+     *         調査用の設定では、このプールから取り出したインスタンスでない場合。
+     *         調査用でない設定では、他から得た同じ型のインスタンスは検出できず、そのまま受け入れます。
+     * @throws IllegalStateException 調査用の設定で、既に返したインスタンスを渡した場合。
+     */
+    public void release(MutableDoubleColor4 item) {
+        BareDoubleColor4 target;
+        if (debug) {
+            if (!(item instanceof Guarded) || ((Guarded) item).pool() != this) {
+                throw new IllegalArgumentException("Illegal item: " + item);
+            }
+            target = ((Guarded) item).detach();
+        } else {
+            if (!(item instanceof BareDoubleColor4)) {
+                throw new IllegalArgumentException("Illegal item: " + item);
+            }
+            target = (BareDoubleColor4) item;
+        }
+        offer(target);
+    }
+
+    /**
+     * 保持しているインスタンスの最大数を返す。
+     *
+     * @return 容量。
+     */
+    public int capacity() {
+        return slots.length();
+    }
+
+    private BareDoubleColor4 poll() {
+        AtomicReferenceArray<BareDoubleColor4> slots = this.slots;
+        int length = slots.length();
+        int index = start(length);
+        for (int i = 0; i < length; i++) {
+            BareDoubleColor4 item = slots.get(index);
+            if (item != null && slots.compareAndSet(index, item, null)) {
+                return item;
+            }
+            if (++index == length) {
+                index = 0;
+            }
+        }
+        return null;
+    }
+
+    private void offer(BareDoubleColor4 item) {
+        AtomicReferenceArray<BareDoubleColor4> slots = this.slots;
+        int length = slots.length();
+        int index = start(length);
+        for (int i = 0; i < length; i++) {
+            if (slots.get(index) == null && slots.compareAndSet(index, null, item)) {
+                return;
+            }
+            if (++index == length) {
+                index = 0;
+            }
+        }
+    }
+
+    /**
+     * 枠を調べ始める位置を、スレッドごとに散らして返す。
+     */
+    private static int start(int length) {
+        return (StripedProbe.current()[0] >>> 1) % length;
+    }
+
+    /**
+     * 返却後の使用を検出するための包み。
+     */
+    private static final class Guarded implements MutableDoubleColor4Trait {
+
+        private static final AtomicReferenceFieldUpdater<Guarded, BareDoubleColor4> TARGET = AtomicReferenceFieldUpdater.newUpdater(Guarded.class, BareDoubleColor4.class, "target");
+
+        /**
+         * 取り出し元のプール。
+         */
+        private final DoubleColor4Pool pool;
+
+        /**
+         * 包んでいるインスタンス。返却後は{@code null}です。
+         */
+        private volatile BareDoubleColor4 target;
+
+        Guarded(DoubleColor4Pool pool, BareDoubleColor4 target) {
+            this.pool = pool;
+            this.target = target;
+        }
+
+        DoubleColor4Pool pool() {
+            return pool;
+        }
+
+        /**
+         * 包んでいるインスタンスを不可分に外す。並行して返却された場合も、外せるのは1回だけです。
+         */
+        BareDoubleColor4 detach() {
+            BareDoubleColor4 current = TARGET.getAndSet(this, null);
+            if (current == null) {
+                throw new IllegalStateException("Already released");
+            }
+            return current;
+        }
+
+        private BareDoubleColor4 target() {
+            BareDoubleColor4 current = target;
+            if (current == null) {
+                throw new IllegalStateException("Already released");
+            }
+            return current;
+        }
+
+        @Override
+        public double getRedAsDouble() {
+            return target().red;
+        }
+
+        @Override
+        public double getGreenAsDouble() {
+            return target().green;
+        }
+
+        @Override
+        public double getBlueAsDouble() {
+            return target().blue;
+        }
+
+        @Override
+        public double getAlphaAsDouble() {
+            return target().alpha;
+        }
+
+        @Override
+        public void setRed(double red) {
+            target().red = red;
+        }
+
+        @Override
+        public void setGreen(double green) {
+            target().green = green;
+        }
+
+        @Override
+        public void setBlue(double blue) {
+            target().blue = blue;
+        }
+
+        @Override
+        public void setAlpha(double alpha) {
+            target().alpha = alpha;
+        }
+
+        @Override
+        public void set(double red, double green, double blue, double alpha) {
+            target().set(red, green, blue, alpha);
+        }
+
+        @Override
+        public String toString() {
+            BareDoubleColor4 current = target;
+            return current == null ? "Guarded[released]" : "Guarded[" + current + "]";
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.concurrent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * スレッドごとに一時的なインスタンスを使い回すための領域。
+ *
+ * {@link DoubleVector3Pool#scratch(ScratchArena)}などで取り出したインスタンスは、
+ * {@link #mark()}で記録した位置まで{@link #reset(int)}で戻すと、次に取り出す時に再び使われます。
+ * 取り出しは型ごとのスタックの先頭を進めるだけで、領域が足りない場合を除いてインスタンスを生成しません。
+ * 型によらず取り出した順に記録するため、1つの位置で全ての型の取り出しをまとめて戻せます。
+ *
+ * 次のように、{@code try}と{@code finally}で範囲を区切って使います。
+ * <pre>{@code
+ * ScratchArena arena = ScratchArena.current();
+ * int mark = arena.mark();
+ * try {
+ *     BareDoubleVector3 temporary = DoubleVector3Pool.scratch(arena);
+ *     ...
+ * } finally {
+ *     arena.reset(mark);
+ * }
+ * }</pre>
+ *
+ * 戻した後にインスタンスを参照し続けると、後で取り出した別の処理と値を共有してしまいます。
+ * 取り出したインスタンスを範囲の外へ渡したり、フィールドに保持したりしてはいけません。
+ * 領域は{@link #current()}を呼んだスレッド専用で、他のスレッドから使ってはいけません。
+ *
+ * @author misakura
+ */
+public final class ScratchArena {
+
+    private static final ThreadLocal<ScratchArena> CURRENT = ThreadLocal.withInitial(ScratchArena::new);
+
+    /**
+     * 次に割り当てる型の番号。
+     */
+    private static final AtomicInteger NEXT_KIND = new AtomicInteger();
+
+    /**
+     * 型の番号ごとの、使い回すインスタンスのスタック。
+     */
+    private Object[][] stacks = new Object[8][];
+
+    /**
+     * 型の番号ごとの、取り出し中のインスタンスの数。
+     */
+    private int[] counts = new int[8];
+
+    /**
+     * 取り出した順の、インスタンスの型の番号。
+     */
+    private int[] log = new int[64];
+
+    /**
+     * 取り出し中のインスタンスの数。
+     */
+    private int depth;
+
+    private ScratchArena() {
+    }
+
+    /**
+     * 現在のスレッドの領域を返す。
+     *
+     * @return 現在のスレッドの領域。
+     */
+    public static ScratchArena current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 現在の位置を返す。
+     *
+     * @return {@link #reset(int)}に渡す位置。
+     */
+    public int mark() {
+        return depth;
+    }
+
+    /**
+     * 位置を戻し、その位置より後に取り出したインスタンスを再び使えるようにする。
+     *
+     * @param mark {@link #mark()}で得た位置。
+     * @throws IllegalArgumentException 現在の位置より後の位置や、負の位置を渡した場合。
+     */
+    public void reset(int mark) {
+        if (mark < 0 || mark > depth) {
+            throw new IllegalArgumentException("Illegal mark: " + mark + ", Depth: " + depth);
+        }
+        int[] log = this.log;
+        int[] counts = this.counts;
+        for (int i = depth - 1; i >= mark; i--) {
+            counts[log[i]]--;
+        }
+        depth = mark;
+    }
+
+    /**
+     * 全ての取り出しを戻す。
+     */
+    public void reset() {
+        reset(0);
+    }
+
+    /**
+     * 型の番号を割り当てる。
+     *
+     * @return 新しい型の番号。
+     */
+    static int newKind() {
+        return NEXT_KIND.getAndIncrement();
+    }
+
+    /**
+     * インスタンスを取り出す。
+     *
+     * 使い回せるインスタンスがない場合は、{@code factory}で生成します。
+     *
+     * @param kind {@link #newKind()}で得た型の番号。
+     * @param factory インスタンスを生成する関数。
+     * @return インスタンス。値は以前に使われた時のままです。
+     */
+    @SuppressWarnings("unchecked")
+    <T> T take(int kind, Supplier<? extends T> factory) {
+        if (kind >= counts.length) {
+            int length = Math.max(kind + 1, counts.length + (counts.length >> 1));
+            stacks = Arrays.copyOf(stacks, length);
+            counts = Arrays.copyOf(counts, length);
+        }
+        Object[] stack = stacks[kind];
+        int count = counts[kind];
+        if (stack == null) {
+            stack = stacks[kind] = new Object[16];
+        } else if (count == stack.length) {
+            stack = stacks[kind] = Arrays.copyOf(stack, count + (count >> 1));
+        }
+        Object item = stack[count];
+        if (item == null) {
+            item = stack[count] = factory.get();
+        }
+        counts[kind] = count + 1;
+        if (depth == log.length) {
+            log = Arrays.copyOf(log, depth + (depth >> 1));
+        }
+        log[depth++] = kind;
+        return (T) item;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoublePoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint2Trait;
+
+/**
+ * シーケンスロックで全ての成分を一貫して読み出せる{@link MutableDoublePoint2}の実装。
+ *
+ * 書き込みは版数を奇数にしてから成分を書き換え、偶数に戻します。
+ * {@link #readInto(MutableDoublePoint2)}は版数が偶数の間に全ての成分を読み、読み終えた時に版数が変わっていなければその値を格納し、変わっていれば読み直します。
+ * そのため、読み込みはロックを取らず、インスタンスも生成せず、書き込みの途中の値を返すこともありません。
+ * 少数のスレッドが書き込み、多数のスレッドが頻繁に読み込む値（描画スレッドが更新するカメラの位置など）の共有に向いています。
+ *
+ * 書き込み同士は版数の比較交換（CAS）で排他しますが、書き込み中の他のスレッドを待つ間は回り続けるため、書き込むスレッドは1つにすることを推奨します。
+ * 書き込みが絶え間なく続くと、読み込みは再試行を繰り返します。
+ *
+ * 一貫して行われるのは{@link #set(double, double)}と{@link #readInto(MutableDoublePoint2)}、成分ごとの取得と設定だけで、
+ * {@link #calculate(java.util.function.DoubleUnaryOperator)}などインターフェースのデフォルトの実装による操作は、成分を1つずつ読み書きします。
+ * {@link Object#equals(Object)}と{@link Object#hashCode()}は、{@link java.util.concurrent.atomic.AtomicLong}と同様に同一性に基づきます。
+ *
+ * @author misakura
+ */
+public class SeqLockDoublePoint2 implements MutableDoublePoint2Trait {
+
+    private static final AtomicLongFieldUpdater<SeqLockDoublePoint2> VERSION = AtomicLongFieldUpdater.newUpdater(SeqLockDoublePoint2.class, "version");
+
+    /**
+     * x座標。
+     */
+    private volatile double x;
+
+    /**
+     * y座標。
+     */
+    private volatile double y;
+
+    /**
+     * 版数。書き込み中は奇数です。
+     */
+    private volatile long version;
+
+    /**
+     * コンストラクタ。
+     */
+    public SeqLockDoublePoint2() {
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     */
+    public SeqLockDoublePoint2(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param point 設定値を取得する点。
+     */
+    public SeqLockDoublePoint2(DoublePoint2 point) {
+        this(point.getXAsDouble(), point.getYAsDouble());
+    }
+
+    @Override
+    public double getXAsDouble() {
+        return x;
+    }
+
+    @Override
+    public void setX(double x) {
+        long writing = begin();
+        this.x = x;
+        end(writing);
+    }
+
+    @Override
+    public double getYAsDouble() {
+        return y;
+    }
+
+    @Override
+    public void setY(double y) {
+        long writing = begin();
+        this.y = y;
+        end(writing);
+    }
+
+    /**
+     * 全ての成分に値を設定する。
+     *
+     * 並行して{@link #readInto(MutableDoublePoint2)}で読み込むスレッドが、設定の途中の値を得ることはありません。
+     *
+     * @param x x座標の値。
+     * @param y y座標の値。
+     */
+    @Override
+    public void set(double x, double y) {
+        long writing = begin();
+        this.x = x;
+        this.y = y;
+        end(writing);
+    }
+
+    /**
+     * 全ての成分が同時に持っていた値を取得する。
+     *
+     * 書き込み中でない間に全ての成分を読み、その間に書き込みがなかった場合の値を格納します。書き込みがあった場合は読み直します。
+     *
+     * @param destination 値の格納先。
+     * @return 格納した値の版数。{@link #getVersion()}と比べることで、その後に値が変わったかどうかを調べられます。
+     */
+    public long readInto(MutableDoublePoint2 destination) {
+        for (;;) {
+            long before = version;
+            if ((before & 1) == 0) {
+                double x = this.x;
+                double y = this.y;
+                if (version == before) {
+                    destination.set(x, y);
+                    return before;
+                }
+            }
+        }
+    }
+
+    /**
+     * 現在の版数を取得する。
+     *
+     * 版数は書き込みのたびに2ずつ増え、書き込み中は奇数です。
+     *
+     * @return 版数。
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * このインスタンスの文字列表現を返す。
+     *
+     * {@link #readInto(MutableDoublePoint2)}で得た値を、{@code クラス名[フィールド名=値,...]}の形式で返します。
+     *
+     * @return 文字列表現。
+     */
+    @Override
+    public String toString() {
+        BareDoublePoint2 current = new BareDoublePoint2();
+        readInto(current);
+        return new StringBuilder(80)
+                .append("SeqLockDoublePoint2[")
+                .append("x=").append(current.x)
+                .append(",y=").append(current.y)
+                .append(']')
+                .toString();
+    }
+
+    /**
+     * 版数を奇数にして書き込みを始める。他のスレッドが書き込み中の場合は終わるまで待つ。
+     *
+     * @return 書き込み中の版数。
+     */
+    private long begin() {
+        for (;;) {
+            long current = version;
+            if ((current & 1) == 0 && VERSION.compareAndSet(this, current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 版数を偶数に戻して書き込みを終える。
+     *
+     * @param writing 書き込み中の版数。
+     */
+    private void end(long writing) {
+        VERSION.lazySet(this, writing + 1);
+    }
+}
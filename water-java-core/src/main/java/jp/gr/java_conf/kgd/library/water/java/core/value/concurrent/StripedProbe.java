@@ -0,0 +1,69 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.concurrent;
+
+/**
+ * スレッドごとに、複数のセルに分散して書き込む際のセルを選ぶための値を保持する。
+ *
+ * 初期値はスレッドIDから求め、セルの競合を検出したスレッドは{@link #advance(int[])}で値を変えて別のセルを選び直します。
+ * 値を変えられるよう、長さ{@code 1}の配列で保持します。
+ *
+ * @author misakura
+ */
+final class StripedProbe {
+
+    private static final ThreadLocal<int[]> PROBE = ThreadLocal.withInitial(() -> new int[] {initial()});
+
+    private StripedProbe() {
+    }
+
+    /**
+     * 現在のスレッドの値を保持する配列を返す。
+     *
+     * @return 長さ{@code 1}の配列。値は{@code 0}になりません。
+     */
+    static int[] current() {
+        return PROBE.get();
+    }
+
+    /**
+     * 値を疑似乱数で更新する。
+     *
+     * @param probe {@link #current()}で得た配列。
+     * @return 新しい値。
+     */
+    static int advance(int[] probe) {
+        int h = probe[0];
+        h ^= h << 13;
+        h ^= h >>> 17;
+        h ^= h << 5;
+        probe[0] = h;
+        return h;
+    }
+
+    private static int initial() {
+        int h = (int) (Thread.currentThread().getId() * 0x9E3779B97F4A7C15L >>> 32);
+        return h == 0 ? 1 : h;
+    }
+}
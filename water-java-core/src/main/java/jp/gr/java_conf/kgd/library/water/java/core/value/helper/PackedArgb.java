@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.helper;
+
+/**
+ * 1つの{@code int}に詰めたARGB形式の色を扱うための補助関数群。
+ *
+ * 上位から透明度、赤成分、緑成分、青成分の順に8ビットずつ格納します。（{@code 0xAARRGGBB}）
+ * この並びは{@code java.awt.image.BufferedImage#TYPE_INT_ARGB}のピクセルと同じです。
+ * 各成分は{@code 0}以上{@code 255}以下である必要があります。
+ *
+ * @author misakura
+ */
+public final class PackedArgb {
+
+    /**
+     * 成分の最大値。
+     */
+    public static final int MAX_COMPONENT = 0xFF;
+
+    private PackedArgb() {
+    }
+
+    /**
+     * 成分を1つの{@code int}に詰める。
+     *
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @param alpha 透明度。
+     * @return ARGB形式の値。
+     */
+    public static int pack(int red, int green, int blue, int alpha) {
+        checkComponent("red", red);
+        checkComponent("green", green);
+        checkComponent("blue", blue);
+        checkComponent("alpha", alpha);
+        return alpha << 24 | red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * 赤成分を取り出す。
+     *
+     * @param argb ARGB形式の値。
+     * @return 赤成分。
+     */
+    public static int red(int argb) {
+        return argb >>> 16 & 0xFF;
+    }
+
+    /**
+     * 緑成分を取り出す。
+     *
+     * @param argb ARGB形式の値。
+     * @return 緑成分。
+     */
+    public static int green(int argb) {
+        return argb >>> 8 & 0xFF;
+    }
+
+    /**
+     * 青成分を取り出す。
+     *
+     * @param argb ARGB形式の値。
+     * @return 青成分。
+     */
+    public static int blue(int argb) {
+        return argb & 0xFF;
+    }
+
+    /**
+     * 透明度を取り出す。
+     *
+     * @param argb ARGB形式の値。
+     * @return 透明度。
+     */
+    public static int alpha(int argb) {
+        return argb >>> 24;
+    }
+
+    /**
+     * 赤成分を置き換えた値を返す。
+     *
+     * @param argb ARGB形式の値。
+     * @param red 新しい赤成分。
+     * @return 置き換えた値。
+     */
+    public static int withRed(int argb, int red) {
+        checkComponent("red", red);
+        return argb & 0xFF00FFFF | red << 16;
+    }
+
+    /**
+     * 緑成分を置き換えた値を返す。
+     *
+     * @param argb ARGB形式の値。
+     * @param green 新しい緑成分。
+     * @return 置き換えた値。
+     */
+    public static int withGreen(int argb, int green) {
+        checkComponent("green", green);
+        return argb & 0xFFFF00FF | green << 8;
+    }
+
+    /**
+     * 青成分を置き換えた値を返す。
+     *
+     * @param argb ARGB形式の値。
+     * @param blue 新しい青成分。
+     * @return 置き換えた値。
+     */
+    public static int withBlue(int argb, int blue) {
+        checkComponent("blue", blue);
+        return argb & 0xFFFFFF00 | blue;
+    }
+
+    /**
+     * 透明度を置き換えた値を返す。
+     *
+     * @param argb ARGB形式の値。
+     * @param alpha 新しい透明度。
+     * @return 置き換えた値。
+     */
+    public static int withAlpha(int argb, int alpha) {
+        checkComponent("alpha", alpha);
+        return argb & 0x00FFFFFF | alpha << 24;
+    }
+
+    private static void checkComponent(String name, int value) {
+        if ((value & ~MAX_COMPONENT) != 0) {
+            throw new IllegalArgumentException("Illegal " + name + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.helper;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * プリミティブ配列の全要素に演算を適用する補助関数群。
+ *
+ * 演算子が{@link PrimitiveBinaryOperators}または{@link PrimitiveUnaryOperators}の定数である場合は、
+ * 演算を直接記述したループに切り替えます。JITによるループ展開やベクトル化が効くため、大量の要素を一度に処理する場合に有効です。
+ * それ以外の演算子の場合は、要素ごとに演算子を呼び出します。
+ *
+ * 入力と出力に同じ配列を渡すことができます。（その場で演算結果に置き換わります。）
+ *
+ * @author misakura
+ */
+public final class PrimitiveArrayOperations {
+
+    private PrimitiveArrayOperations() {
+    }
+
+    /**
+     * 2つの配列の要素ごとに二項演算を行う。（{@code destination[i] = left[i] op right[i]}）
+     *
+     * @param operator 演算子。
+     * @param left 左辺の配列。
+     * @param right 右辺の配列。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(IntBinaryOperator operator, int[] left, int[] right, int[] destination, int length) {
+        checkLength(length, left.length, right.length, destination.length);
+        if (operator instanceof PrimitiveBinaryOperators) {
+            switch ((PrimitiveBinaryOperators) operator) {
+                case PLUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] + right[i];
+                    }
+                    return;
+                case MINUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] - right[i];
+                    }
+                    return;
+                case MULTIPLY:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] * right[i];
+                    }
+                    return;
+                case DIVIDE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] / right[i];
+                    }
+                    return;
+                case MODULO:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] % right[i];
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsInt(left[i], right[i]);
+        }
+    }
+
+    /**
+     * 配列の各要素と定数とで二項演算を行う。（{@code destination[i] = left[i] op right}）
+     *
+     * @param operator 演算子。
+     * @param left 左辺の配列。
+     * @param right 右辺の定数。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(IntBinaryOperator operator, int[] left, int right, int[] destination, int length) {
+        checkLength(length, left.length, destination.length);
+        if (operator instanceof PrimitiveBinaryOperators) {
+            switch ((PrimitiveBinaryOperators) operator) {
+                case PLUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] + right;
+                    }
+                    return;
+                case MINUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] - right;
+                    }
+                    return;
+                case MULTIPLY:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] * right;
+                    }
+                    return;
+                case DIVIDE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] / right;
+                    }
+                    return;
+                case MODULO:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] % right;
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsInt(left[i], right);
+        }
+    }
+
+    /**
+     * 配列の各要素に単項演算を行う。（{@code destination[i] = op operand[i]}）
+     *
+     * @param operator 演算子。
+     * @param operand 演算対象の配列。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(IntUnaryOperator operator, int[] operand, int[] destination, int length) {
+        checkLength(length, operand.length, destination.length);
+        if (operator instanceof PrimitiveUnaryOperators) {
+            switch ((PrimitiveUnaryOperators) operator) {
+                case NEGATE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = -operand[i];
+                    }
+                    return;
+                case ABSOLUTE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = Math.abs(operand[i]);
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsInt(operand[i]);
+        }
+    }
+
+    /**
+     * 2つの配列の要素ごとに二項演算を行う。（{@code destination[i] = left[i] op right[i]}）
+     *
+     * @param operator 演算子。
+     * @param left 左辺の配列。
+     * @param right 右辺の配列。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(LongBinaryOperator operator, long[] left, long[] right, long[] destination, int length) {
+        checkLength(length, left.length, right.length, destination.length);
+        if (operator instanceof PrimitiveBinaryOperators) {
+            switch ((PrimitiveBinaryOperators) operator) {
+                case PLUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] + right[i];
+                    }
+                    return;
+                case MINUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] - right[i];
+                    }
+                    return;
+                case MULTIPLY:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] * right[i];
+                    }
+                    return;
+                case DIVIDE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] / right[i];
+                    }
+                    return;
+                case MODULO:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] % right[i];
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsLong(left[i], right[i]);
+        }
+    }
+
+    /**
+     * 配列の各要素と定数とで二項演算を行う。（{@code destination[i] = left[i] op right}）
+     *
+     * @param operator 演算子。
+     * @param left 左辺の配列。
+     * @param right 右辺の定数。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(LongBinaryOperator operator, long[] left, long right, long[] destination, int length) {
+        checkLength(length, left.length, destination.length);
+        if (operator instanceof PrimitiveBinaryOperators) {
+            switch ((PrimitiveBinaryOperators) operator) {
+                case PLUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] + right;
+                    }
+                    return;
+                case MINUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] - right;
+                    }
+                    return;
+                case MULTIPLY:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] * right;
+                    }
+                    return;
+                case DIVIDE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] / right;
+                    }
+                    return;
+                case MODULO:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] % right;
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsLong(left[i], right);
+        }
+    }
+
+    /**
+     * 配列の各要素に単項演算を行う。（{@code destination[i] = op operand[i]}）
+     *
+     * @param operator 演算子。
+     * @param operand 演算対象の配列。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(LongUnaryOperator operator, long[] operand, long[] destination, int length) {
+        checkLength(length, operand.length, destination.length);
+        if (operator instanceof PrimitiveUnaryOperators) {
+            switch ((PrimitiveUnaryOperators) operator) {
+                case NEGATE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = -operand[i];
+                    }
+                    return;
+                case ABSOLUTE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = Math.abs(operand[i]);
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsLong(operand[i]);
+        }
+    }
+
+    /**
+     * 2つの配列の要素ごとに二項演算を行う。（{@code destination[i] = left[i] op right[i]}）
+     *
+     * @param operator 演算子。
+     * @param left 左辺の配列。
+     * @param right 右辺の配列。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(DoubleBinaryOperator operator, double[] left, double[] right, double[] destination, int length) {
+        checkLength(length, left.length, right.length, destination.length);
+        if (operator instanceof PrimitiveBinaryOperators) {
+            switch ((PrimitiveBinaryOperators) operator) {
+                case PLUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] + right[i];
+                    }
+                    return;
+                case MINUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] - right[i];
+                    }
+                    return;
+                case MULTIPLY:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] * right[i];
+                    }
+                    return;
+                case DIVIDE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] / right[i];
+                    }
+                    return;
+                case MODULO:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] % right[i];
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsDouble(left[i], right[i]);
+        }
+    }
+
+    /**
+     * 配列の各要素と定数とで二項演算を行う。（{@code destination[i] = left[i] op right}）
+     *
+     * @param operator 演算子。
+     * @param left 左辺の配列。
+     * @param right 右辺の定数。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(DoubleBinaryOperator operator, double[] left, double right, double[] destination, int length) {
+        checkLength(length, left.length, destination.length);
+        if (operator instanceof PrimitiveBinaryOperators) {
+            switch ((PrimitiveBinaryOperators) operator) {
+                case PLUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] + right;
+                    }
+                    return;
+                case MINUS:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] - right;
+                    }
+                    return;
+                case MULTIPLY:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] * right;
+                    }
+                    return;
+                case DIVIDE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] / right;
+                    }
+                    return;
+                case MODULO:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = left[i] % right;
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsDouble(left[i], right);
+        }
+    }
+
+    /**
+     * 配列の各要素に単項演算を行う。（{@code destination[i] = op operand[i]}）
+     *
+     * @param operator 演算子。
+     * @param operand 演算対象の配列。
+     * @param destination 結果の格納先。
+     * @param length 演算する要素数。
+     */
+    public static void apply(DoubleUnaryOperator operator, double[] operand, double[] destination, int length) {
+        checkLength(length, operand.length, destination.length);
+        if (operator instanceof PrimitiveUnaryOperators) {
+            switch ((PrimitiveUnaryOperators) operator) {
+                case NEGATE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = -operand[i];
+                    }
+                    return;
+                case ABSOLUTE:
+                    for (int i = 0; i < length; i++) {
+                        destination[i] = Math.abs(operand[i]);
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            destination[i] = operator.applyAsDouble(operand[i]);
+        }
+    }
+
+    /**
+     * 要素数と2つの配列の長さを確認する。
+     *
+     * 呼び出しのたびに可変長引数の配列を確保しないよう、配列の数ごとに引数の数を固定しています。
+     */
+    private static void checkLength(int length, int firstLength, int secondLength) {
+        checkLength(length);
+        checkArrayLength(length, firstLength);
+        checkArrayLength(length, secondLength);
+    }
+
+    /**
+     * 要素数と3つの配列の長さを確認する。
+     */
+    private static void checkLength(int length, int firstLength, int secondLength, int thirdLength) {
+        checkLength(length, firstLength, secondLength);
+        checkArrayLength(length, thirdLength);
+    }
+
+    /**
+     * 要素数が負でないことを確認する。
+     */
+    private static void checkLength(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+    }
+
+    /**
+     * 配列が要素数以上の長さを持つことを確認する。
+     */
+    private static void checkArrayLength(int length, int arrayLength) {
+        if (arrayLength < length) {
+            throw new ArrayIndexOutOfBoundsException("Length: " + length + ", Array length: " + arrayLength);
+        }
+    }
+}
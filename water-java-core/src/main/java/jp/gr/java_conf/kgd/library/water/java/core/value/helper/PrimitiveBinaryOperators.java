@@ -30,6 +30,9 @@ import java.util.function.LongBinaryOperator;
 /**
  * 基本的な二項演算子。
  *
+ * 各定数は演算を直接実装しているため、呼び出しの度に別の関数オブジェクトを経由することはありません。
+ * また、{@link PrimitiveArrayOperations}は定数ごとに特化したループを用います。
+ *
  * @author misakura
  */
 public enum PrimitiveBinaryOperators implements IntBinaryOperator, LongBinaryOperator, DoubleBinaryOperator {
@@ -37,48 +40,100 @@ public enum PrimitiveBinaryOperators implements IntBinaryOperator, LongBinaryOpe
     /**
      * 加算
      */
-    PLUS((l, r) -> l + r, (l, r) -> l + r, (l, r) -> l + r),
+    PLUS {
+        @Override
+        public int applyAsInt(int left, int right) {
+            return left + right;
+        }
+
+        @Override
+        public long applyAsLong(long left, long right) {
+            return left + right;
+        }
+
+        @Override
+        public double applyAsDouble(double left, double right) {
+            return left + right;
+        }
+    },
+
     /**
      * 減算
      */
-    MINUS((l, r) -> l - r, (l, r) -> l - r, (l, r) -> l - r),
+    MINUS {
+        @Override
+        public int applyAsInt(int left, int right) {
+            return left - right;
+        }
+
+        @Override
+        public long applyAsLong(long left, long right) {
+            return left - right;
+        }
+
+        @Override
+        public double applyAsDouble(double left, double right) {
+            return left - right;
+        }
+    },
+
     /**
      * 乗算
      */
-    MULTIPLY((l, r) -> l * r, (l, r) -> l * r, (l, r) -> l * r),
+    MULTIPLY {
+        @Override
+        public int applyAsInt(int left, int right) {
+            return left * right;
+        }
+
+        @Override
+        public long applyAsLong(long left, long right) {
+            return left * right;
+        }
+
+        @Override
+        public double applyAsDouble(double left, double right) {
+            return left * right;
+        }
+    },
+
     /**
      * 除算
      */
-    DIVIDE((l, r) -> l / r, (l, r) -> l / r, (l, r) -> l / r),
-    /**
-     * 剰余
-     */
-    MODULO((l, r) -> l % r, (l, r) -> l % r, (l, r) -> l % r),;
-
-    private final IntBinaryOperator intBinaryOperator;
+    DIVIDE {
+        @Override
+        public int applyAsInt(int left, int right) {
+            return left / right;
+        }
 
-    private final LongBinaryOperator longBinaryOperator;
+        @Override
+        public long applyAsLong(long left, long right) {
+            return left / right;
+        }
 
-    private final DoubleBinaryOperator doubleBinaryOperator;
+        @Override
+        public double applyAsDouble(double left, double right) {
+            return left / right;
+        }
+    },
 
-    private PrimitiveBinaryOperators(IntBinaryOperator intBinaryOperator, LongBinaryOperator longBinaryOperator, DoubleBinaryOperator doubleBinaryOperator) {
-        this.intBinaryOperator = intBinaryOperator;
-        this.longBinaryOperator = longBinaryOperator;
-        this.doubleBinaryOperator = doubleBinaryOperator;
-    }
-
-    @Override
-    public int applyAsInt(int left, int right) {
-        return intBinaryOperator.applyAsInt(left, right);
-    }
+    /**
+     * 剰余
+     */
+    MODULO {
+        @Override
+        public int applyAsInt(int left, int right) {
+            return left % right;
+        }
 
-    @Override
-    public long applyAsLong(long left, long right) {
-        return longBinaryOperator.applyAsLong(left, right);
-    }
+        @Override
+        public long applyAsLong(long left, long right) {
+            return left % right;
+        }
 
-    @Override
-    public double applyAsDouble(double left, double right) {
-        return doubleBinaryOperator.applyAsDouble(left, right);
-    }
+        @Override
+        public double applyAsDouble(double left, double right) {
+            return left % right;
+        }
+    };
 }
@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.helper;
+
+/**
+ * 値オブジェクトのハッシュ値を計算するための補助関数群。
+ *
+ * 各成分のハッシュ値を{@link #combine(int, int)}で畳み込み、最後に{@link #finish(int)}で撹拌して使います。
+ * 座標のように小さな値が連続するデータでも、下位ビットが偏らないようにしています。
+ *
+ * @author misakura
+ */
+public final class PrimitiveHashCodes {
+
+    /**
+     * 畳み込みに用いる乗数。（黄金比に由来する奇数。）
+     */
+    private static final int MULTIPLIER = 0x9E3779B9;
+
+    private PrimitiveHashCodes() {
+    }
+
+    /**
+     * これまでのハッシュ値に成分のハッシュ値を畳み込む。
+     *
+     * @param hash これまでのハッシュ値。
+     * @param value 畳み込む成分のハッシュ値。
+     * @return 畳み込んだハッシュ値。
+     */
+    public static int combine(int hash, int value) {
+        return hash * MULTIPLIER + value;
+    }
+
+    /**
+     * 畳み込んだハッシュ値を撹拌し、最終的なハッシュ値を返す。
+     *
+     * MurmurHash3の最終化処理と同じ演算を行います。
+     *
+     * @param hash 畳み込んだハッシュ値。
+     * @return 撹拌したハッシュ値。
+     */
+    public static int finish(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * {@code long}値を撹拌し、ハッシュ値を返す。
+     *
+     * MurmurHash3の64ビットの最終化処理を行い、上位と下位を畳み込みます。
+     * 複数の成分を{@code long}に詰めたキーに使います。
+     *
+     * @param value 撹拌する値。
+     * @return 撹拌したハッシュ値。
+     */
+    public static int mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return (int) (value ^ (value >>> 32));
+    }
+}
@@ -30,6 +30,9 @@ import java.util.function.LongUnaryOperator;
 /**
  * 基本的な単項演算子。
  *
+ * 各定数は演算を直接実装しているため、呼び出しの度に別の関数オブジェクトを経由することはありません。
+ * また、{@link PrimitiveArrayOperations}は定数ごとに特化したループを用います。
+ *
  * @author misakura
  */
 public enum PrimitiveUnaryOperators implements IntUnaryOperator, LongUnaryOperator, DoubleUnaryOperator {
@@ -37,36 +40,40 @@ public enum PrimitiveUnaryOperators implements IntUnaryOperator, LongUnaryOperat
     /**
      * 符号反転
      */
-    NEGATE(v -> -v, v -> -v, v -> -v),
-    /**
-     * 絶対値
-     */
-    ABSOLUTE(v -> Math.abs(v), v -> Math.abs(v), v -> Math.abs(v)),;
-
-    private final IntUnaryOperator intUnaryOperator;
+    NEGATE {
+        @Override
+        public int applyAsInt(int operand) {
+            return -operand;
+        }
 
-    private final LongUnaryOperator longUnaryOperator;
+        @Override
+        public long applyAsLong(long operand) {
+            return -operand;
+        }
 
-    private final DoubleUnaryOperator doubleUnaryOperator;
+        @Override
+        public double applyAsDouble(double operand) {
+            return -operand;
+        }
+    },
 
-    private PrimitiveUnaryOperators(IntUnaryOperator intUnaryOperator, LongUnaryOperator longUnaryOperator, DoubleUnaryOperator doubleUnaryOperator) {
-        this.intUnaryOperator = intUnaryOperator;
-        this.longUnaryOperator = longUnaryOperator;
-        this.doubleUnaryOperator = doubleUnaryOperator;
-    }
-
-    @Override
-    public int applyAsInt(int operand) {
-        return intUnaryOperator.applyAsInt(operand);
-    }
+    /**
+     * 絶対値
+     */
+    ABSOLUTE {
+        @Override
+        public int applyAsInt(int operand) {
+            return Math.abs(operand);
+        }
 
-    @Override
-    public long applyAsLong(long operand) {
-        return longUnaryOperator.applyAsLong(operand);
-    }
+        @Override
+        public long applyAsLong(long operand) {
+            return Math.abs(operand);
+        }
 
-    @Override
-    public double applyAsDouble(double operand) {
-        return doubleUnaryOperator.applyAsDouble(operand);
-    }
+        @Override
+        public double applyAsDouble(double operand) {
+            return Math.abs(operand);
+        }
+    };
 }
@@ -0,0 +1,137 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.helper;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 等価なインスタンスを一つに正準化する、スレッドセーフなインターナ。
+ *
+ * 登録したインスタンスは弱参照で保持するため、どこからも参照されなくなればGCによって回収されます。
+ * 正準化されたインスタンス同士は{@code ==}で比較できます。
+ *
+ * @author misakura
+ * @param <T> 正準化する型。{@link Object#equals(Object)}と{@link Object#hashCode()}が値に基づいて実装されている必要があります。
+ */
+public final class WeakInterner<T> {
+
+    /**
+     * 登録済みのインスタンスへの弱参照。
+     */
+    private final ConcurrentHashMap<Entry<T>, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 回収済みの弱参照を受け取るキュー。
+     */
+    private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+
+    /**
+     * 引数と等価な正準インスタンスを返す。
+     *
+     * 等価なインスタンスが登録されていない場合は、引数自身を登録してそのまま返します。
+     *
+     * @param value 正準化するインスタンス。
+     * @return 引数と等価な正準インスタンス。
+     */
+    public T intern(T value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        expungeStaleEntries();
+
+        Entry<T> lookup = new Entry<>(value, null);
+        while (true) {
+            Entry<T> existing = entries.get(lookup);
+            if (existing == null) {
+                Entry<T> entry = new Entry<>(value, queue);
+                existing = entries.putIfAbsent(entry, entry);
+                if (existing == null) {
+                    return value;
+                }
+            }
+            T canonical = existing.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            entries.remove(existing, existing);
+        }
+    }
+
+    /**
+     * 現在登録されているインスタンスの数を返す。
+     *
+     * 回収待ちのインスタンスを含む場合があります。
+     *
+     * @return 登録数。
+     */
+    public int size() {
+        expungeStaleEntries();
+        return entries.size();
+    }
+
+    private void expungeStaleEntries() {
+        Object stale;
+        while ((stale = queue.poll()) != null) {
+            @SuppressWarnings("unchecked")
+            Entry<T> entry = (Entry<T>) stale;
+            entries.remove(entry, entry);
+        }
+    }
+
+    /**
+     * 参照先の値で比較される弱参照。
+     *
+     * 参照先が回収された後は、自分自身とのみ等しくなります。
+     *
+     * @param <T> 参照先の型。
+     */
+    private static final class Entry<T> extends WeakReference<T> {
+
+        private final int hash;
+
+        Entry(T value, ReferenceQueue<? super T> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Object value = get();
+            return value != null && value.equals(((Entry<?>) obj).get());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
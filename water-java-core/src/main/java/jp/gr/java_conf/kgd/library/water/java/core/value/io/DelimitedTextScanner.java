@@ -0,0 +1,356 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 区切り文字で区切られたテキストの行から、数値の欄を読み取る。
+ *
+ * バイト配列の範囲を先頭から1行ずつ読み、指定した欄の数値を成分の配列に格納します。
+ * 欄の区切りと数値の形式は{@link DoublePoint3TextReader}などの読み込み用のクラスに記載しています。
+ * {@link ByteBuffer#get(int)}で1バイトずつ読むと配列より数倍遅いため、{@link ByteBuffer}は呼び出し側で配列に写してから渡します。
+ *
+ * 数値は{@link String}を経由せずにバイト列から直接変換します。
+ * 有効数字が18桁以下で仮数が2<sup>53</sup>未満、10の指数の絶対値が22以下の場合は、
+ * どちらも{@code double}で正確に表せる仮数と10の累乗の乗算か除算の1回で、正しく丸めた値を得ます。
+ * それ以外のまれな場合に限り、{@link Double#parseDouble(String)}で変換します。
+ *
+ * @author misakura
+ */
+final class DelimitedTextScanner {
+
+    /**
+     * 仮数に保持する有効数字の最大の桁数。
+     *
+     * 19桁では{@code long}が桁あふれすることがあるため、必ず収まる18桁までとします。
+     */
+    private static final int MAX_DIGITS = 18;
+
+    /**
+     * 1回の演算で正しく丸められる仮数の上限。
+     */
+    private static final long MAX_FAST_MANTISSA = 1L << 53;
+
+    /**
+     * {@code double}で正確に表せる10の累乗。
+     */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    /**
+     * 指数として読み取る最大の絶対値。これより大きい指数は結果を変えません。
+     */
+    private static final int MAX_EXPONENT = 100000;
+
+    /**
+     * 読み込み元のバイト配列。
+     */
+    private final byte[] bytes;
+
+    /**
+     * 次に読む行の先頭の添字。
+     */
+    private int position;
+
+    /**
+     * 読み込む範囲の末尾の添字。
+     */
+    private final int limit;
+
+    /**
+     * 配列の添字{@code 0}の、テキストの先頭からのバイト位置。例外のメッセージに使います。
+     */
+    private final long base;
+
+    /**
+     * 欄の添字ごとの、値を格納する成分の添字。値を使わない欄は{@code -1}です。
+     */
+    private final int[] components;
+
+    /**
+     * 最後に読んだ行の成分の値。
+     */
+    private final double[] values;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param bytes 読み込み元のバイト配列。
+     * @param position 読み込む範囲の先頭の添字。行の先頭でなければなりません。
+     * @param limit 読み込む範囲の末尾の添字。
+     * @param base 配列の添字{@code 0}の、テキストの先頭からのバイト位置。
+     * @param components 欄の添字ごとの、値を格納する成分の添字。値を使わない欄は{@code -1}です。
+     * @param values 成分の値の格納先。
+     */
+    DelimitedTextScanner(byte[] bytes, int position, int limit, long base, int[] components, double[] values) {
+        this.bytes = bytes;
+        this.position = position;
+        this.limit = limit;
+        this.base = base;
+        this.components = components;
+        this.values = values;
+    }
+
+    /**
+     * 空行と{@code #}で始まる行を読み飛ばして次の行を読み、成分の値を格納する。
+     *
+     * @return 行を読んだ場合は{@code true}。範囲の末尾に達した場合は{@code false}。
+     * @throws IllegalArgumentException 欄が足りない場合や、数値の形式が正しくない場合。
+     */
+    boolean next() {
+        while (position < limit) {
+            int index = skipBlanks(position);
+            if (index == limit) {
+                position = limit;
+                return false;
+            }
+            byte c = bytes[index];
+            if (c == '\n' || c == '\r' || c == '#') {
+                position = nextLine(bytes, index, limit);
+                continue;
+            }
+            position = parseLine(index);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 指定した位置を含む行の次の行の先頭の添字を返す。
+     *
+     * @param bytes バイト配列。
+     * @param index 位置。
+     * @param limit 範囲の末尾の添字。
+     * @return 次の行の先頭の添字。範囲内に改行がなければ{@code limit}。
+     */
+    static int nextLine(byte[] bytes, int index, int limit) {
+        while (index < limit) {
+            if (bytes[index++] == '\n') {
+                return index;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * 指定した位置を含む行の次の行の先頭の添字を返す。
+     *
+     * @param buffer バッファ。
+     * @param index 位置。
+     * @param limit 範囲の末尾の添字。
+     * @return 次の行の先頭の添字。範囲内に改行がなければ{@code limit}。
+     */
+    static int nextLine(ByteBuffer buffer, int index, int limit) {
+        while (index < limit) {
+            if (buffer.get(index++) == '\n') {
+                return index;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * 範囲内の最後の改行の次の添字を返す。
+     *
+     * @param bytes バイト配列。
+     * @param from 範囲の先頭の添字。
+     * @param to 範囲の末尾の添字。
+     * @return 最後の改行の次の添字。範囲内に改行がなければ{@code -1}。
+     */
+    static int lastLineEnd(byte[] bytes, int from, int to) {
+        for (int index = to; index > from; index--) {
+            if (bytes[index - 1] == '\n') {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 範囲内の最後の改行の次の添字を返す。
+     *
+     * @param buffer バッファ。
+     * @param from 範囲の先頭の添字。
+     * @param to 範囲の末尾の添字。
+     * @return 最後の改行の次の添字。範囲内に改行がなければ{@code -1}。
+     */
+    static int lastLineEnd(ByteBuffer buffer, int from, int to) {
+        for (int index = to; index > from; index--) {
+            if (buffer.get(index - 1) == '\n') {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private int parseLine(int index) {
+        int lineStart = index;
+        for (int field = 0; field < components.length; field++) {
+            if (index == limit || isLineEnd(bytes[index])) {
+                throw new IllegalArgumentException("Missing field " + field + " at byte " + (base + lineStart));
+            }
+            int component = components[field];
+            index = component < 0 ? skipField(index) : parseNumber(index, component);
+            index = skipBlanks(index);
+            if (index < limit && isSeparator(bytes[index])) {
+                index = skipBlanks(index + 1);
+            }
+        }
+        return nextLine(bytes, index, limit);
+    }
+
+    private int parseNumber(int start, int component) {
+        int index = start;
+        byte c = bytes[index];
+        boolean negative = c == '-';
+        if (negative || c == '+') {
+            index++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        int digitStart = index;
+        for (; index < limit; index++) {
+            int digit = bytes[index] - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            if (digits < MAX_DIGITS) {
+                mantissa = mantissa * 10 + digit;
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+                truncated |= digit != 0;
+            }
+        }
+        int digitCount = index - digitStart;
+        if (index < limit && bytes[index] == '.') {
+            int fractionStart = ++index;
+            for (; index < limit; index++) {
+                int digit = bytes[index] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                if (digits < MAX_DIGITS) {
+                    mantissa = mantissa * 10 + digit;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                    exponent--;
+                } else {
+                    truncated |= digit != 0;
+                }
+            }
+            digitCount += index - fractionStart;
+        }
+        if (digitCount == 0) {
+            // NaNやInfinityなど。
+            int end = skipField(start);
+            values[component] = parseRare(start, end);
+            return end;
+        }
+        if (index < limit && (bytes[index] == 'e' || bytes[index] == 'E')) {
+            index++;
+            boolean negativeExponent = index < limit && bytes[index] == '-';
+            if (index < limit && (negativeExponent || bytes[index] == '+')) {
+                index++;
+            }
+            int exponentStart = index;
+            int value = 0;
+            for (; index < limit; index++) {
+                int digit = bytes[index] - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = Math.min(value * 10 + digit, MAX_EXPONENT);
+            }
+            if (index == exponentStart) {
+                throw malformed(start);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (index < limit && !isDelimiter(bytes[index])) {
+            throw malformed(start);
+        }
+        double value;
+        if (!truncated && mantissa < MAX_FAST_MANTISSA && exponent >= -22 && exponent <= 22) {
+            value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else if (mantissa == 0) {
+            value = 0;
+        } else {
+            value = Math.abs(parseRare(start, index));
+        }
+        values[component] = negative ? -value : value;
+        return index;
+    }
+
+    private double parseRare(int start, int end) {
+        try {
+            return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw malformed(start);
+        }
+    }
+
+    private IllegalArgumentException malformed(int index) {
+        return new IllegalArgumentException("Malformed number at byte " + (base + index));
+    }
+
+    private int skipField(int index) {
+        while (index < limit && !isDelimiter(bytes[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    private int skipBlanks(int index) {
+        while (index < limit) {
+            byte c = bytes[index];
+            if (c != ' ' && c != '\t') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isSeparator(byte c) {
+        return c == ',' || c == ';';
+    }
+
+    private static boolean isLineEnd(byte c) {
+        return c == '\n' || c == '\r';
+    }
+
+    private static boolean isDelimiter(byte c) {
+        return c == ' ' || c == '\t' || isSeparator(c) || isLineEnd(c);
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleColor3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleColor3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoubleColor3Array;
+
+/**
+ * {@link DoubleColor3}を、固定のリトルエンディアンのバイナリ形式で読み書きする。
+ *
+ * 1つの値は、赤成分、緑成分、青成分の順に各成分をリトルエンディアンで並べた{@link #BYTES}バイトです。
+ * {@link DoubleColor3Array}の一括の読み書きでは、成分ごとに全要素の値を続けて並べます。
+ * （全要素の赤成分、次に全要素の緑成分、の順。）
+ * 一括の形式は{@code 要素数 * BYTES}バイトで、要素数自体は含まないため、必要なら呼び出し側で別に記録してください。
+ *
+ * {@link ByteBuffer}は、設定されたバイト順に関わらずリトルエンディアンで読み書きし、バイト順の設定は変更しません。
+ * 一括の読み書きは{@link ByteBuffer#asDoubleBuffer()}のビューを通してまとめて複写します。
+ * どの操作も要素ごとにインスタンスを生成しません。
+ *
+ * @author misakura
+ */
+public final class DoubleColor3Codec {
+
+    /**
+     * 1つの値のバイト数。
+     */
+    public static final int BYTES = 3 * Double.BYTES;
+
+    private DoubleColor3Codec() {
+    }
+
+    /**
+     * 1つの値を、バッファの現在の位置に書き込む。
+     *
+     * @param buffer 書き込み先のバッファ。位置は{@link #BYTES}だけ進みます。
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @throws BufferOverflowException 残りが{@link #BYTES}未満の場合。（何も書き込みません。）
+     */
+    public static void write(ByteBuffer buffer, double red, double green, double blue) {
+        if (buffer.remaining() < BYTES) {
+            throw new BufferOverflowException();
+        }
+        boolean swap = buffer.order() != ByteOrder.LITTLE_ENDIAN;
+        buffer.putLong(order(Double.doubleToRawLongBits(red), swap));
+        buffer.putLong(order(Double.doubleToRawLongBits(green), swap));
+        buffer.putLong(order(Double.doubleToRawLongBits(blue), swap));
+    }
+
+    /**
+     * 1つの値を、バッファの現在の位置に書き込む。
+     *
+     * @param buffer 書き込み先のバッファ。位置は{@link #BYTES}だけ進みます。
+     * @param color 書き込む色。
+     * @throws BufferOverflowException 残りが{@link #BYTES}未満の場合。（何も書き込みません。）
+     */
+    public static void write(ByteBuffer buffer, DoubleColor3 color) {
+        write(buffer, color.getRedAsDouble(), color.getGreenAsDouble(), color.getBlueAsDouble());
+    }
+
+    /**
+     * バッファの現在の位置から1つの値を読み込む。
+     *
+     * @param buffer 読み込み元のバッファ。位置は{@link #BYTES}だけ進みます。
+     * @param destination 値の設定先。
+     * @throws BufferUnderflowException 残りが{@link #BYTES}未満の場合。（何も読み込みません。）
+     */
+    public static void read(ByteBuffer buffer, MutableDoubleColor3 destination) {
+        if (buffer.remaining() < BYTES) {
+            throw new BufferUnderflowException();
+        }
+        boolean swap = buffer.order() != ByteOrder.LITTLE_ENDIAN;
+        double red = Double.longBitsToDouble(order(buffer.getLong(), swap));
+        double green = Double.longBitsToDouble(order(buffer.getLong(), swap));
+        double blue = Double.longBitsToDouble(order(buffer.getLong(), swap));
+        destination.set(red, green, blue);
+    }
+
+    /**
+     * 1つの値を書き込む。
+     *
+     * @param output 書き込み先。
+     * @param red 赤成分。
+     * @param green 緑成分。
+     * @param blue 青成分。
+     * @throws IOException 書き込めなかった場合。
+     */
+    public static void write(DataOutput output, double red, double green, double blue) throws IOException {
+        output.writeLong(Long.reverseBytes(Double.doubleToRawLongBits(red)));
+        output.writeLong(Long.reverseBytes(Double.doubleToRawLongBits(green)));
+        output.writeLong(Long.reverseBytes(Double.doubleToRawLongBits(blue)));
+    }
+
+    /**
+     * 1つの値を書き込む。
+     *
+     * @param output 書き込み先。
+     * @param color 書き込む色。
+     * @throws IOException 書き込めなかった場合。
+     */
+    public static void write(DataOutput output, DoubleColor3 color) throws IOException {
+        write(output, color.getRedAsDouble(), color.getGreenAsDouble(), color.getBlueAsDouble());
+    }
+
+    /**
+     * 1つの値を読み込む。
+     *
+     * @param input 読み込み元。
+     * @param destination 値の設定先。
+     * @throws IOException 読み込めなかった場合。
+     */
+    public static void read(DataInput input, MutableDoubleColor3 destination) throws IOException {
+        double red = Double.longBitsToDouble(Long.reverseBytes(input.readLong()));
+        double green = Double.longBitsToDouble(Long.reverseBytes(input.readLong()));
+        double blue = Double.longBitsToDouble(Long.reverseBytes(input.readLong()));
+        destination.set(red, green, blue);
+    }
+
+    /**
+     * コンテナの全ての要素を、バッファの現在の位置に書き込む。
+     *
+     * @param buffer 書き込み先のバッファ。位置は{@code array.size() * BYTES}だけ進みます。
+     * @param array 書き込む要素を持つコンテナ。
+     * @throws BufferOverflowException 残りが足りない場合。（何も書き込みません。）
+     */
+    public static void write(ByteBuffer buffer, DoubleColor3Array array) {
+        int count = array.size();
+        if (buffer.remaining() < (long) count * BYTES) {
+            throw new BufferOverflowException();
+        }
+        DoubleBuffer view = view(buffer);
+        view.put(array.getRedArray(), 0, count);
+        view.put(array.getGreenArray(), 0, count);
+        view.put(array.getBlueArray(), 0, count);
+        buffer.position(buffer.position() + count * BYTES);
+    }
+
+    /**
+     * バッファの現在の位置から指定した数の要素を読み込み、コンテナの末尾に追加する。
+     *
+     * @param buffer 読み込み元のバッファ。位置は{@code count * BYTES}だけ進みます。
+     * @param destination 要素の追加先。
+     * @param count 読み込む要素数。
+     * @throws BufferUnderflowException 残りが足りない場合。（何も読み込みません。）
+     */
+    public static void read(ByteBuffer buffer, DoubleColor3Array destination, int count) {
+        checkCount(count);
+        if (buffer.remaining() < (long) count * BYTES) {
+            throw new BufferUnderflowException();
+        }
+        int index = destination.size();
+        destination.resize(index + count);
+        DoubleBuffer view = view(buffer);
+        view.get(destination.getRedArray(), index, count);
+        view.get(destination.getGreenArray(), index, count);
+        view.get(destination.getBlueArray(), index, count);
+        buffer.position(buffer.position() + count * BYTES);
+    }
+
+    /**
+     * コンテナの全ての要素を書き込む。
+     *
+     * @param output 書き込み先。
+     * @param array 書き込む要素を持つコンテナ。
+     * @throws IOException 書き込めなかった場合。
+     */
+    public static void write(DataOutput output, DoubleColor3Array array) throws IOException {
+        int count = array.size();
+        write(output, array.getRedArray(), count);
+        write(output, array.getGreenArray(), count);
+        write(output, array.getBlueArray(), count);
+    }
+
+    /**
+     * 指定した数の要素を読み込み、コンテナの末尾に追加する。
+     *
+     * @param input 読み込み元。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @param count 読み込む要素数。
+     * @throws IOException 読み込めなかった場合。
+     */
+    public static void read(DataInput input, DoubleColor3Array destination, int count) throws IOException {
+        checkCount(count);
+        int index = destination.size();
+        destination.resize(index + count);
+        try {
+            read(input, destination.getRedArray(), index, count);
+            read(input, destination.getGreenArray(), index, count);
+            read(input, destination.getBlueArray(), index, count);
+        } catch (IOException | RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+    }
+
+    /**
+     * コンテナの全ての要素を、作業用のバッファを通してチャネルに書き込む。
+     *
+     * ブロッキングモードのチャネルを想定しています。
+     *
+     * @param channel 書き込み先のチャネル。
+     * @param array 書き込む要素を持つコンテナ。
+     * @param scratch 作業用のバッファ。内容は上書きされます。直接バッファを使うと、チャネルへの複写が1回減ります。
+     * @throws IOException 書き込めなかった場合。
+     */
+    public static void write(WritableByteChannel channel, DoubleColor3Array array, ByteBuffer scratch) throws IOException {
+        DoubleBuffer view = scratchView(scratch);
+        int count = array.size();
+        write(channel, array.getRedArray(), count, scratch, view);
+        write(channel, array.getGreenArray(), count, scratch, view);
+        write(channel, array.getBlueArray(), count, scratch, view);
+    }
+
+    /**
+     * 作業用のバッファを通してチャネルから指定した数の要素を読み込み、コンテナの末尾に追加する。
+     *
+     * ブロッキングモードのチャネルを想定しています。
+     *
+     * @param channel 読み込み元のチャネル。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @param count 読み込む要素数。
+     * @param scratch 作業用のバッファ。内容は上書きされます。
+     * @throws IOException 読み込めなかった場合。
+     * @throws EOFException 要素数分のデータを読み込む前にチャネルが終端に達した場合。
+     */
+    public static void read(ReadableByteChannel channel, DoubleColor3Array destination, int count, ByteBuffer scratch) throws IOException {
+        checkCount(count);
+        DoubleBuffer view = scratchView(scratch);
+        int index = destination.size();
+        destination.resize(index + count);
+        try {
+            read(channel, destination.getRedArray(), index, count, scratch, view);
+            read(channel, destination.getGreenArray(), index, count, scratch, view);
+            read(channel, destination.getBlueArray(), index, count, scratch, view);
+        } catch (IOException | RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+    }
+
+    private static long order(long bits, boolean swap) {
+        return swap ? Long.reverseBytes(bits) : bits;
+    }
+
+    /**
+     * バッファの現在の位置からの、リトルエンディアンの型付きビューを返す。
+     */
+    private static DoubleBuffer view(ByteBuffer buffer) {
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /**
+     * 作業用のバッファ全体の、リトルエンディアンの型付きビューを返す。
+     */
+    private static DoubleBuffer scratchView(ByteBuffer scratch) {
+        if (scratch.capacity() < Double.BYTES) {
+            throw new IllegalArgumentException("Illegal scratch capacity: " + scratch.capacity());
+        }
+        ByteBuffer whole = scratch.duplicate();
+        whole.clear();
+        return whole.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    private static void write(DataOutput output, double[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            output.writeLong(Long.reverseBytes(Double.doubleToRawLongBits(values[i])));
+        }
+    }
+
+    private static void read(DataInput input, double[] values, int index, int count) throws IOException {
+        for (int i = index; i < index + count; i++) {
+            values[i] = Double.longBitsToDouble(Long.reverseBytes(input.readLong()));
+        }
+    }
+
+    private static void write(WritableByteChannel channel, double[] values, int count,
+            ByteBuffer scratch, DoubleBuffer view) throws IOException {
+        int chunk = view.capacity();
+        for (int offset = 0; offset < count; offset += chunk) {
+            int length = Math.min(chunk, count - offset);
+            view.clear();
+            view.put(values, offset, length);
+            scratch.clear();
+            scratch.limit(length * Double.BYTES);
+            while (scratch.hasRemaining()) {
+                channel.write(scratch);
+            }
+        }
+    }
+
+    private static void read(ReadableByteChannel channel, double[] values, int index, int count,
+            ByteBuffer scratch, DoubleBuffer view) throws IOException {
+        int chunk = view.capacity();
+        for (int offset = 0; offset < count; offset += chunk) {
+            int length = Math.min(chunk, count - offset);
+            scratch.clear();
+            scratch.limit(length * Double.BYTES);
+            while (scratch.hasRemaining()) {
+                if (channel.read(scratch) < 0) {
+                    throw new EOFException();
+                }
+            }
+            view.clear();
+            view.get(values, index + offset, length);
+        }
+    }
+
+    private static void checkCount(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Illegal count: " + count);
+        }
+    }
+}
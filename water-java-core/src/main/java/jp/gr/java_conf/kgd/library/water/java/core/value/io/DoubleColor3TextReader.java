@@ -0,0 +1,362 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleColor3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoubleColor3Array;
+
+/**
+ * 区切り文字で区切られたテキストから{@link DoubleColor3}を読み込む。
+ *
+ * CSVや、XYZ・PTS形式の点群のように、1行に1つの色を書いたテキストを読み込みます。
+ * 各成分を何番目の欄（{@code 0}から数えます）から読むかと、先頭で読み飛ばす行数を指定でき、それ以外の欄は無視します。
+ * <ul>
+ * <li>欄はカンマ、セミコロン、空白、タブのいずれかで区切ります。連続する空白とタブは1つの区切りとみなし、カンマやセミコロンの前後の空白は無視します。</li>
+ * <li>改行は{@code LF}か{@code CRLF}です。空行と{@code #}で始まる行は読み飛ばします。</li>
+ * <li>数値は{@link Double#parseDouble(String)}と同じ10進数の形式で、{@code NaN}と{@code Infinity}も読めます。</li>
+ * </ul>
+ * 数値は{@link String}を経由せずにバイト列から直接変換するため、行や欄ごとにインスタンスを生成しません。
+ * 形式が正しくない場合は、テキストの先頭からのバイト位置を含めた{@link IllegalArgumentException}を投げます。
+ *
+ * このクラスのインスタンスは不変で、複数のスレッドから同時に使えます。
+ *
+ * @author misakura
+ */
+public final class DoubleColor3TextReader {
+
+    /**
+     * チャネルから読み込む時のバッファの初期の大きさ。
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * ファイルを一度にマップする最大の大きさ。
+     */
+    private static final int WINDOW_SIZE = 1 << 30;
+
+    /**
+     * 並列に読み込む時に、1つのタスクが受け持つおおよそのバイト数。
+     */
+    private static final int PIECE_SIZE = 1 << 23;
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = 3;
+
+    /**
+     * 先頭で読み飛ばす行数。
+     */
+    private final int skipLines;
+
+    /**
+     * 欄の添字ごとの、値を格納する成分の添字。値を使わない欄は{@code -1}です。
+     */
+    private final int[] components;
+
+    /**
+     * コンストラクタ。
+     *
+     * 先頭の行から読み、赤成分、緑成分、青成分を順に先頭の欄から読みます。
+     */
+    public DoubleColor3TextReader() {
+        this(0, 0, 1, 2);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param skipLines 先頭で読み飛ばす行数。PTS形式の点の数の行などを読み飛ばすのに使います。
+     * @param redColumn 赤成分を読む欄の添字。
+     * @param greenColumn 緑成分を読む欄の添字。
+     * @param blueColumn 青成分を読む欄の添字。
+     */
+    public DoubleColor3TextReader(int skipLines, int redColumn, int greenColumn, int blueColumn) {
+        if (skipLines < 0) {
+            throw new IllegalArgumentException("Illegal skip lines: " + skipLines);
+        }
+        int[] columns = {redColumn, greenColumn, blueColumn};
+        int maxColumn = 0;
+        for (int column : columns) {
+            if (column < 0) {
+                throw new IllegalArgumentException("Illegal column: " + column);
+            }
+            maxColumn = Math.max(maxColumn, column);
+        }
+        this.skipLines = skipLines;
+        this.components = new int[maxColumn + 1];
+        Arrays.fill(components, -1);
+        for (int i = 0; i < DIMENSION; i++) {
+            if (components[columns[i]] >= 0) {
+                throw new IllegalArgumentException("Duplicate column: " + columns[i]);
+            }
+            components[columns[i]] = i;
+        }
+    }
+
+    /**
+     * バッファの現在の位置から限界までを読み込み、コンテナの末尾に追加する。
+     *
+     * @param buffer 読み込み元のバッファ。位置は限界まで進みます。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @return 追加した要素数。
+     */
+    public int read(ByteBuffer buffer, DoubleColor3Array destination) {
+        int index = destination.size();
+        try {
+            int from = skipHeader(buffer, buffer.position(), buffer.limit());
+            parse(buffer, from, buffer.limit(), 0, (bytes, start, end, base) -> parse(bytes, start, end, base, destination));
+        } catch (RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+        buffer.position(buffer.limit());
+        return destination.size() - index;
+    }
+
+    /**
+     * バッファの現在の位置から限界までを読み込み、1行ごとに値を設定したインスタンスを処理に渡す。
+     *
+     * @param buffer 読み込み元のバッファ。位置は限界まで進みます。
+     * @param color 値を設定するインスタンス。全ての行で同じインスタンスを使います。
+     * @param action 1行ごとの処理。
+     * @return 読み込んだ行数。
+     */
+    public long read(ByteBuffer buffer, MutableDoubleColor3 color, Consumer<? super MutableDoubleColor3> action) {
+        int from = skipHeader(buffer, buffer.position(), buffer.limit());
+        long count = parse(buffer, from, buffer.limit(), 0, (bytes, start, end, base) -> parse(bytes, start, end, base, color, action));
+        buffer.position(buffer.limit());
+        return count;
+    }
+
+    /**
+     * チャネルの終端までを読み込み、コンテナの末尾に追加する。
+     *
+     * @param channel 読み込み元のチャネル。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @return 追加した要素数。
+     * @throws IOException 読み込めなかった場合。
+     */
+    public int read(ReadableByteChannel channel, DoubleColor3Array destination) throws IOException {
+        int index = destination.size();
+        try {
+            read(channel, (bytes, from, to, base) -> parse(bytes, from, to, base, destination));
+        } catch (IOException | RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+        return destination.size() - index;
+    }
+
+    /**
+     * チャネルの終端までを読み込み、1行ごとに値を設定したインスタンスを処理に渡す。
+     *
+     * @param channel 読み込み元のチャネル。
+     * @param color 値を設定するインスタンス。全ての行で同じインスタンスを使います。
+     * @param action 1行ごとの処理。
+     * @return 読み込んだ行数。
+     * @throws IOException 読み込めなかった場合。
+     */
+    public long read(ReadableByteChannel channel, MutableDoubleColor3 color, Consumer<? super MutableDoubleColor3> action) throws IOException {
+        return read(channel, (bytes, from, to, base) -> parse(bytes, from, to, base, color, action));
+    }
+
+    /**
+     * ファイルの先頭から末尾までを、行の境界で分割して並列に読み込み、コンテナの末尾に追加する。
+     *
+     * ファイルを最大1GiBずつメモリにマップし、その中を行の境界で分割して共通の{@link java.util.concurrent.ForkJoinPool}で読み込みます。
+     * 要素はファイルの中の順に追加します。
+     *
+     * @param channel 読み込み元のファイルのチャネル。位置は使わず、変更もしません。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @return 追加した要素数。
+     * @throws IOException 読み込めなかった場合。
+     * @throws IllegalArgumentException 形式が正しくない場合や、1GiBより長い行がある場合。
+     */
+    public int readParallel(FileChannel channel, DoubleColor3Array destination) throws IOException {
+        int index = destination.size();
+        try {
+            long size = channel.size();
+            long position = 0;
+            int remainingSkipLines = skipLines;
+            while (position < size) {
+                int length = (int) Math.min(WINDOW_SIZE, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int from = 0;
+                for (; remainingSkipLines > 0 && from < length; remainingSkipLines--) {
+                    from = DelimitedTextScanner.nextLine(window, from, length);
+                }
+                int to = length;
+                if (position + length < size) {
+                    to = Math.max(from, DelimitedTextScanner.lastLineEnd(window, from, length));
+                    if (to == 0) {
+                        throw new IllegalArgumentException("Line too long at byte " + position);
+                    }
+                }
+                parseParallel(window, from, to, position, destination);
+                position += to;
+            }
+        } catch (IOException | RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+        return destination.size() - index;
+    }
+
+    /**
+     * チャネルの終端までを、行の境界で区切ったバッファの範囲ごとに処理する。
+     */
+    private long read(ReadableByteChannel channel, RangeParser parser) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long base = 0;
+        long count = 0;
+        int remainingSkipLines = skipLines;
+        boolean end = false;
+        while (!end) {
+            end = channel.read(buffer) < 0;
+            buffer.flip();
+            int from = 0;
+            int limit = buffer.limit();
+            for (; remainingSkipLines > 0 && from < limit; remainingSkipLines--) {
+                int next = DelimitedTextScanner.nextLine(buffer, from, limit);
+                if (buffer.get(next - 1) != '\n' && !end) {
+                    break;
+                }
+                from = next;
+            }
+            int to = from;
+            if (remainingSkipLines == 0) {
+                to = end ? limit : Math.max(from, DelimitedTextScanner.lastLineEnd(buffer, from, limit));
+                count += parser.parse(buffer.array(), from, to, base);
+            }
+            buffer.position(to);
+            buffer.compact();
+            base += to;
+            if (!buffer.hasRemaining()) {
+                // 1行がバッファに収まらないので広げる。
+                buffer.flip();
+                buffer = ByteBuffer.allocate(buffer.capacity() + (buffer.capacity() >> 1)).put(buffer);
+            }
+        }
+        return count;
+    }
+
+    private void parseParallel(ByteBuffer window, int from, int to, long base, DoubleColor3Array destination) {
+        int pieces = (int) (((long) to - from + PIECE_SIZE - 1) / PIECE_SIZE);
+        if (pieces <= 1) {
+            parse(window, from, to, base, (bytes, start, end, offset) -> parse(bytes, start, end, offset, destination));
+            return;
+        }
+        int[] bounds = new int[pieces + 1];
+        bounds[0] = from;
+        for (int i = 1; i < pieces; i++) {
+            bounds[i] = Math.max(bounds[i - 1], DelimitedTextScanner.nextLine(window, from + i * PIECE_SIZE - 1, to));
+        }
+        bounds[pieces] = to;
+        DoubleColor3Array[] parts = new DoubleColor3Array[pieces];
+        IntStream.range(0, pieces).parallel().forEach(i -> {
+            DoubleColor3Array part = new DoubleColor3Array();
+            parse(window, bounds[i], bounds[i + 1], base, (bytes, start, end, offset) -> parse(bytes, start, end, offset, part));
+            parts[i] = part;
+        });
+        for (DoubleColor3Array part : parts) {
+            destination.addAll(part);
+        }
+    }
+
+    /**
+     * バッファの範囲を処理する。
+     *
+     * 配列を持つバッファはその配列を、それ以外のバッファは行の境界で区切って配列に写したものを処理します。
+     */
+    private static long parse(ByteBuffer buffer, int from, int to, long base, RangeParser parser) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            return parser.parse(buffer.array(), offset + from, offset + to, base - offset);
+        }
+        ByteBuffer view = buffer.duplicate();
+        byte[] bytes = new byte[Math.min(to - from, PIECE_SIZE)];
+        long count = 0;
+        while (from < to) {
+            int length = Math.min(bytes.length, to - from);
+            view.limit(from + length).position(from);
+            view.get(bytes, 0, length);
+            int end = from + length == to ? length : DelimitedTextScanner.lastLineEnd(bytes, 0, length);
+            if (end < 0) {
+                // 1行が配列に収まらないので広げる。
+                bytes = new byte[bytes.length + (bytes.length >> 1)];
+                continue;
+            }
+            count += parser.parse(bytes, 0, end, base + from);
+            from += end;
+        }
+        return count;
+    }
+
+    private long parse(byte[] bytes, int from, int to, long base, DoubleColor3Array destination) {
+        double[] values = new double[DIMENSION];
+        DelimitedTextScanner scanner = new DelimitedTextScanner(bytes, from, to, base, components, values);
+        long count = 0;
+        while (scanner.next()) {
+            destination.add(values[0], values[1], values[2]);
+            count++;
+        }
+        return count;
+    }
+
+    private long parse(byte[] bytes, int from, int to, long base, MutableDoubleColor3 color, Consumer<? super MutableDoubleColor3> action) {
+        double[] values = new double[DIMENSION];
+        DelimitedTextScanner scanner = new DelimitedTextScanner(bytes, from, to, base, components, values);
+        long count = 0;
+        while (scanner.next()) {
+            color.set(values[0], values[1], values[2]);
+            action.accept(color);
+            count++;
+        }
+        return count;
+    }
+
+    private int skipHeader(ByteBuffer buffer, int from, int limit) {
+        for (int i = 0; i < skipLines; i++) {
+            from = DelimitedTextScanner.nextLine(buffer, from, limit);
+        }
+        return from;
+    }
+
+    /**
+     * バイト配列の範囲を読み込む処理。
+     */
+    private interface RangeParser {
+
+        long parse(byte[] bytes, int from, int to, long base);
+    }
+}
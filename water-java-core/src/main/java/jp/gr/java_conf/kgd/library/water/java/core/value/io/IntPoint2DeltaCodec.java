@@ -0,0 +1,556 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.io;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntPoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.IntPoint2Array;
+
+/**
+ * 隣り合う要素の差が小さい{@link IntPoint2}の列を、差分とジグザグ符号化した可変長整数で圧縮する。
+ *
+ * 列はブロックに分けて符号化します。各ブロックは以下の形式です。
+ * <ul>
+ * <li>可変長整数 本体のバイト数</li>
+ * <li>可変長整数 要素数（{@code 1}以上{@link #MAX_BLOCK_SIZE}以下）</li>
+ * <li>本体 先頭の要素の各成分の値と、2つ目以降の要素の直前の要素との各成分の差を、要素ごとに成分の順に、ジグザグ符号化した可変長整数で並べたもの</li>
+ * </ul>
+ * 各ブロックの先頭の要素は差ではなく値そのもの（キーフレーム）なので、ブロック単位で読み飛ばしたり、途中のブロックから復元したりできます。
+ * 差は{@code int}の範囲で桁あふれさせて計算するため、どのような値でも元通りに復元されます。
+ * 列全体の要素数は持たず、ブロックを終端まで並べたものを1つの列として扱います。
+ *
+ * {@link ByteBuffer}への一括の読み書きは静的メソッドで、ストリームへの逐次の読み書きは{@link Writer}と{@link Reader}で行います。
+ * どちらも要素ごとにインスタンスを生成しません。
+ *
+ * @author misakura
+ */
+public final class IntPoint2DeltaCodec {
+
+    /**
+     * 既定のブロックの要素数。
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    /**
+     * ブロックの要素数の最大値。
+     */
+    public static final int MAX_BLOCK_SIZE = 1 << 20;
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = 2;
+
+    /**
+     * 1つの成分の可変長整数の最大のバイト数。
+     */
+    private static final int MAX_COMPONENT_BYTES = 5;
+
+    /**
+     * ブロックの見出しの最大のバイト数。
+     */
+    private static final int MAX_HEADER_BYTES = 10;
+
+    private IntPoint2DeltaCodec() {
+    }
+
+    /**
+     * 符号化した結果の最大のバイト数を返す。
+     *
+     * @param count 要素数。
+     * @param blockSize ブロックの要素数。
+     * @return 最大のバイト数。
+     */
+    public static long maxEncodedBytes(long count, int blockSize) {
+        checkBlockSize(blockSize);
+        if (count < 0) {
+            throw new IllegalArgumentException("Illegal count: " + count);
+        }
+        long blocks = (count + blockSize - 1) / blockSize;
+        return blocks * MAX_HEADER_BYTES + count * DIMENSION * MAX_COMPONENT_BYTES;
+    }
+
+    /**
+     * コンテナの全ての要素を符号化し、バッファの現在の位置に書き込む。
+     *
+     * @param buffer 書き込み先のバッファ。
+     * @param points 符号化する要素を持つコンテナ。
+     * @param blockSize ブロックの要素数。
+     * @throws BufferOverflowException 残りが足りない場合。（位置は呼び出し前に戻します。）
+     */
+    public static void encode(ByteBuffer buffer, IntPoint2Array points, int blockSize) {
+        checkBlockSize(blockSize);
+        int size = points.size();
+        int[] x = points.getXArray();
+        int[] y = points.getYArray();
+        ByteBuffer payload = ByteBuffer.allocate(Math.min(size, blockSize) * DIMENSION * MAX_COMPONENT_BYTES);
+        int start = buffer.position();
+        try {
+            for (int from = 0; from < size; from += blockSize) {
+                int count = Math.min(blockSize, size - from);
+                payload.clear();
+                encodeBlock(payload, x, y, from, count);
+                payload.flip();
+                Varints.write(buffer, payload.remaining());
+                Varints.write(buffer, count);
+                buffer.put(payload);
+            }
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * バッファの現在の位置から終端までの全てのブロックを復元し、コンテナの末尾に追加する。
+     *
+     * @param buffer 読み込み元のバッファ。位置は終端まで進みます。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @throws BufferUnderflowException ブロックの途中で終端に達した場合。
+     * @throws IllegalArgumentException ブロックの形式が正しくない場合。
+     */
+    public static void decode(ByteBuffer buffer, IntPoint2Array destination) {
+        int index = destination.size();
+        try {
+            while (buffer.hasRemaining()) {
+                int payloadBytes = readPayloadBytes(buffer);
+                int count = readCount(buffer);
+                int start = buffer.position();
+                decodeBlock(buffer, 0, count, destination);
+                if (buffer.position() - start != payloadBytes) {
+                    throw new IllegalArgumentException("Corrupted block");
+                }
+            }
+        } catch (RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+    }
+
+    /**
+     * 指定した範囲の要素だけを復元し、コンテナの末尾に追加する。
+     *
+     * 範囲より前のブロックは、本体を復元せずに読み飛ばします。
+     *
+     * @param buffer 読み込み元のバッファ。位置は範囲の最後の要素を含むブロックの直後まで進みます。
+     * @param from 列の中での最初の要素の添字。
+     * @param count 復元する要素数。
+     * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+     * @throws IndexOutOfBoundsException 範囲が列の要素数を超える場合。
+     * @throws BufferUnderflowException ブロックの途中で終端に達した場合。
+     * @throws IllegalArgumentException ブロックの形式が正しくない場合。
+     */
+    public static void decode(ByteBuffer buffer, long from, int count, IntPoint2Array destination) {
+        if (from < 0 || count < 0) {
+            throw new IndexOutOfBoundsException("From: " + from + ", Count: " + count);
+        }
+        int index = destination.size();
+        try {
+            long seen = 0;
+            int remaining = count;
+            while (remaining > 0) {
+                if (!buffer.hasRemaining()) {
+                    throw new IndexOutOfBoundsException("Index: " + (from + count - 1) + ", Size: " + seen);
+                }
+                int payloadBytes = readPayloadBytes(buffer);
+                int blockCount = readCount(buffer);
+                int start = buffer.position();
+                if (seen + blockCount > from) {
+                    int skip = (int) Math.max(0, from - seen);
+                    int take = Math.min(blockCount - skip, remaining);
+                    decodeBlock(buffer, skip, take, destination);
+                    remaining -= take;
+                }
+                buffer.position(start + payloadBytes);
+                seen += blockCount;
+            }
+        } catch (RuntimeException e) {
+            destination.resize(index);
+            throw e;
+        }
+    }
+
+    /**
+     * バッファの現在の位置から終端までの要素数を、ブロックの見出しだけを読んで返す。
+     *
+     * @param buffer 読み込み元のバッファ。位置は変更しません。
+     * @return 要素数。
+     * @throws BufferUnderflowException ブロックの途中で終端に達した場合。
+     * @throws IllegalArgumentException ブロックの形式が正しくない場合。
+     */
+    public static long count(ByteBuffer buffer) {
+        ByteBuffer view = buffer.duplicate();
+        long total = 0;
+        while (view.hasRemaining()) {
+            int payloadBytes = readPayloadBytes(view);
+            total += readCount(view);
+            view.position(view.position() + payloadBytes);
+        }
+        return total;
+    }
+
+    private static void encodeBlock(ByteBuffer payload, int[] x, int[] y, int from, int count) {
+        int previousX = x[from];
+        int previousY = y[from];
+        Varints.write(payload, Varints.zigZag(previousX));
+        Varints.write(payload, Varints.zigZag(previousY));
+        for (int i = from + 1; i < from + count; i++) {
+            Varints.write(payload, Varints.zigZag(x[i] - previousX));
+            previousX = x[i];
+            Varints.write(payload, Varints.zigZag(y[i] - previousY));
+            previousY = y[i];
+        }
+    }
+
+    /**
+     * ブロックの本体の先頭から{@code skip + take}個の要素を復元し、後ろの{@code take}個をコンテナの末尾に追加する。
+     */
+    private static void decodeBlock(ByteBuffer payload, int skip, int take, IntPoint2Array destination) {
+        int index = destination.size() - skip;
+        destination.resize(index + skip + take);
+        int[] xArray = destination.getXArray();
+        int[] yArray = destination.getYArray();
+        int x = (int) Varints.unZigZag(Varints.read(payload));
+        int y = (int) Varints.unZigZag(Varints.read(payload));
+        int end = skip + take;
+        for (int i = 0; i < end; i++) {
+            if (i > 0) {
+                x += (int) Varints.unZigZag(Varints.read(payload));
+                y += (int) Varints.unZigZag(Varints.read(payload));
+            }
+            if (i >= skip) {
+                xArray[index + i] = x;
+                yArray[index + i] = y;
+            }
+        }
+    }
+
+    private static int readPayloadBytes(ByteBuffer buffer) {
+        long payloadBytes = Varints.read(buffer);
+        if (payloadBytes < 0 || payloadBytes > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return (int) payloadBytes;
+    }
+
+    private static int readCount(ByteBuffer buffer) {
+        return checkCount(Varints.read(buffer));
+    }
+
+    private static int checkCount(long count) {
+        if (count < 1 || count > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Illegal block size: " + count);
+        }
+        return (int) count;
+    }
+
+    private static void checkBlockSize(int blockSize) {
+        if (blockSize < 1 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Illegal block size: " + blockSize);
+        }
+    }
+
+    /**
+     * 要素を1つずつ符号化してストリームへ書き込む。
+     *
+     * 要素はブロックの要素数だけ溜まるか、{@link #flush()}か{@link #close()}を呼び出した時点でブロックとして書き込みます。
+     * 1バイトずつ書き込むことがあるため、必要ならバッファリングするストリームを渡してください。
+     */
+    public static final class Writer implements Flushable, Closeable {
+
+        /**
+         * 書き込み先。
+         */
+        private final OutputStream output;
+
+        /**
+         * ブロックの要素数。
+         */
+        private final int blockSize;
+
+        /**
+         * 書きかけのブロックの本体。
+         */
+        private final ByteBuffer payload;
+
+        /**
+         * 書きかけのブロックの要素数。
+         */
+        private int count;
+
+        /**
+         * 直前の要素のx座標。
+         */
+        private int previousX;
+
+        /**
+         * 直前の要素のy座標。
+         */
+        private int previousY;
+
+        /**
+         * コンストラクタ。
+         *
+         * ブロックの要素数は{@link #DEFAULT_BLOCK_SIZE}です。
+         *
+         * @param output 書き込み先。
+         */
+        public Writer(OutputStream output) {
+            this(output, DEFAULT_BLOCK_SIZE);
+        }
+
+        /**
+         * コンストラクタ。
+         *
+         * @param output 書き込み先。
+         * @param blockSize ブロックの要素数。
+         */
+        public Writer(OutputStream output, int blockSize) {
+            checkBlockSize(blockSize);
+            this.output = output;
+            this.blockSize = blockSize;
+            this.payload = ByteBuffer.allocate(blockSize * DIMENSION * MAX_COMPONENT_BYTES);
+        }
+
+        /**
+         * 要素を1つ書き込む。
+         *
+         * @param x x座標。
+         * @param y y座標。
+         * @throws IOException 書き込めなかった場合。
+         */
+        public void write(int x, int y) throws IOException {
+            if (count == 0) {
+                Varints.write(payload, Varints.zigZag(x));
+                Varints.write(payload, Varints.zigZag(y));
+            } else {
+                Varints.write(payload, Varints.zigZag(x - previousX));
+                Varints.write(payload, Varints.zigZag(y - previousY));
+            }
+            previousX = x;
+            previousY = y;
+            if (++count == blockSize) {
+                endBlock();
+            }
+        }
+
+        /**
+         * 要素を1つ書き込む。
+         *
+         * @param point 書き込む点。
+         * @throws IOException 書き込めなかった場合。
+         */
+        public void write(IntPoint2 point) throws IOException {
+            write(point.getXAsInt(), point.getYAsInt());
+        }
+
+        /**
+         * コンテナの全ての要素を書き込む。
+         *
+         * @param points 書き込む要素を持つコンテナ。
+         * @throws IOException 書き込めなかった場合。
+         */
+        public void writeAll(IntPoint2Array points) throws IOException {
+            int size = points.size();
+            int[] x = points.getXArray();
+            int[] y = points.getYArray();
+            for (int i = 0; i < size; i++) {
+                write(x[i], y[i]);
+            }
+        }
+
+        /**
+         * 書きかけのブロックを書き込んでから、ストリームをフラッシュする。
+         *
+         * 次に書き込む要素は新しいブロックの先頭になります。
+         *
+         * @throws IOException 書き込めなかった場合。
+         */
+        @Override
+        public void flush() throws IOException {
+            endBlock();
+            output.flush();
+        }
+
+        /**
+         * 書きかけのブロックを書き込んでから、ストリームを閉じる。
+         *
+         * @throws IOException 書き込めなかった場合や、閉じられなかった場合。
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                endBlock();
+            } finally {
+                output.close();
+            }
+        }
+
+        private void endBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            Varints.write(output, payload.position());
+            Varints.write(output, count);
+            output.write(payload.array(), 0, payload.position());
+            payload.clear();
+            count = 0;
+        }
+    }
+
+    /**
+     * ストリームからブロックごとに要素を復元する。
+     *
+     * 1バイトずつ読み込むことがあるため、必要ならバッファリングするストリームを渡してください。
+     */
+    public static final class Reader {
+
+        /**
+         * 読み込み元。
+         */
+        private final InputStream input;
+
+        /**
+         * 読み込んだブロックの本体。
+         */
+        private ByteBuffer payload = ByteBuffer.allocate(0);
+
+        /**
+         * コンストラクタ。
+         *
+         * @param input 読み込み元。
+         */
+        public Reader(InputStream input) {
+            this.input = input;
+        }
+
+        /**
+         * 次のブロックを復元し、コンテナの末尾に追加する。
+         *
+         * @param destination 要素の追加先。例外を投げた場合は、呼び出し前の要素数に戻します。
+         * @return 追加した要素数。ストリームの終端に達していた場合は{@code -1}。
+         * @throws EOFException ブロックの途中で終端に達した場合。
+         * @throws IOException 読み込めなかった場合や、ブロックの形式が正しくない場合。
+         */
+        public int readBlock(IntPoint2Array destination) throws IOException {
+            long payloadBytes = Varints.read(input);
+            if (payloadBytes < 0) {
+                return -1;
+            }
+            int count = readCount();
+            if (payloadBytes > MAX_BLOCK_SIZE * DIMENSION * MAX_COMPONENT_BYTES) {
+                throw new IOException("Corrupted block");
+            }
+            fill((int) payloadBytes);
+            int index = destination.size();
+            try {
+                decodeBlock(payload, 0, count, destination);
+                if (payload.hasRemaining()) {
+                    throw new IllegalArgumentException("Corrupted block");
+                }
+            } catch (RuntimeException e) {
+                destination.resize(index);
+                throw new IOException("Corrupted block", e);
+            }
+            return count;
+        }
+
+        /**
+         * 次のブロックを、本体を復元せずに読み飛ばす。
+         *
+         * @return 読み飛ばした要素数。ストリームの終端に達していた場合は{@code -1}。
+         * @throws EOFException ブロックの途中で終端に達した場合。
+         * @throws IOException 読み込めなかった場合や、ブロックの形式が正しくない場合。
+         */
+        public int skipBlock() throws IOException {
+            long payloadBytes = Varints.read(input);
+            if (payloadBytes < 0) {
+                return -1;
+            }
+            int count = readCount();
+            for (long remaining = payloadBytes; remaining > 0; ) {
+                long skipped = input.skip(remaining);
+                if (skipped <= 0) {
+                    if (input.read() < 0) {
+                        throw new EOFException();
+                    }
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+            return count;
+        }
+
+        /**
+         * 終端までの全てのブロックを復元し、コンテナの末尾に追加する。
+         *
+         * @param destination 要素の追加先。
+         * @return 追加した要素数。
+         * @throws IOException 読み込めなかった場合や、ブロックの形式が正しくない場合。
+         */
+        public long readAll(IntPoint2Array destination) throws IOException {
+            long total = 0;
+            for (int count = readBlock(destination); count >= 0; count = readBlock(destination)) {
+                total += count;
+            }
+            return total;
+        }
+
+        private int readCount() throws IOException {
+            long count = Varints.read(input);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            try {
+                return checkCount(count);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+        }
+
+        private void fill(int payloadBytes) throws IOException {
+            if (payload.capacity() < payloadBytes) {
+                payload = ByteBuffer.allocate(payloadBytes);
+            }
+            byte[] bytes = payload.array();
+            for (int offset = 0; offset < payloadBytes; ) {
+                int read = input.read(bytes, offset, payloadBytes - offset);
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                offset += read;
+            }
+            payload.clear();
+            payload.limit(payloadBytes);
+        }
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.io;
+
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint2Trait;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DirectBuffers;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoublePoint2Array;
+
+/**
+ * 多数の{@link DoublePoint2}を保持する、メモリマップされたファイル。
+ *
+ * {@link FileChannel#map}でファイルをそのままアドレス空間に割り当てるため、開く際に値の解析や複写を行いません。
+ * 読み込んだページはOSのページキャッシュに載り、同じファイルを開いた他のプロセスとも共有されます。
+ * 2GBを超えるファイルは、{@code 2^24}要素ごとのセグメントに分けてマップします。
+ *
+ * 使い終わったら{@link #close()}を呼び出してください。
+ * 閉じた後に、このファイルから取得したカーソルを使ってはいけません。
+ *
+ * @author misakura
+ */
+public class MappedDoublePoint2File implements AutoCloseable {
+
+    /**
+     * 1セグメントあたりの要素数の2を底とする対数。
+     */
+    private static final int SEGMENT_SHIFT = 24;
+
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = 2;
+
+    /**
+     * 成分の型記述子。
+     */
+    private static final char COMPONENT_TYPE = 'D';
+
+    /**
+     * 要素1つあたりのバイト数。
+     */
+    private static final int ELEMENT_BYTES = DIMENSION * Double.BYTES;
+
+    /**
+     * マップ元のファイル。
+     */
+    private final FileChannel channel;
+
+    /**
+     * 要素数。
+     */
+    private final long size;
+
+    /**
+     * 書き込み可能かどうか。
+     */
+    private final boolean writable;
+
+    /**
+     * セグメントごとのマップされたメモリ。閉じた後は{@code null}。
+     */
+    private MappedByteBuffer[] memories;
+
+    /**
+     * セグメントごとの型付きビュー。閉じた後は{@code null}。
+     */
+    private DoubleBuffer[] segments;
+
+    private MappedDoublePoint2File(FileChannel channel, long size, boolean writable) throws IOException {
+        this.channel = channel;
+        this.size = size;
+        this.writable = writable;
+        this.memories = MappedFiles.map(channel, writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, size, ELEMENT_BYTES, SEGMENT_SHIFT);
+        this.segments = new DoubleBuffer[memories.length];
+        for (int segment = 0; segment < memories.length; segment++) {
+            segments[segment] = memories[segment].asDoubleBuffer();
+        }
+    }
+
+    /**
+     * 既存のファイルを読み込み専用で開く。
+     *
+     * @param path ファイルのパス。
+     * @return 開いたファイル。
+     * @throws IOException 開けなかった場合や、形式が一致しない場合。
+     */
+    public static MappedDoublePoint2File open(Path path) throws IOException {
+        return open(path, false);
+    }
+
+    /**
+     * 既存のファイルを読み書き可能な状態で開く。
+     *
+     * @param path ファイルのパス。
+     * @return 開いたファイル。
+     * @throws IOException 開けなかった場合や、形式が一致しない場合。
+     */
+    public static MappedDoublePoint2File openWritable(Path path) throws IOException {
+        return open(path, true);
+    }
+
+    /**
+     * 指定した要素数のファイルを新たに作成し、読み書き可能な状態で開く。
+     *
+     * 既にファイルが存在する場合は上書きします。全ての値は{@code 0}で初期化されます。
+     *
+     * @param path ファイルのパス。
+     * @param size 要素数。
+     * @return 開いたファイル。
+     * @throws IOException 作成できなかった場合。
+     */
+    public static MappedDoublePoint2File create(Path path, long size) throws IOException {
+        if (size < 0) {
+            throw new IllegalArgumentException("Illegal size: " + size);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedFiles.writeHeader(channel, COMPONENT_TYPE, DIMENSION, size);
+            return new MappedDoublePoint2File(channel, size, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * コンテナの全ての要素をファイルに書き出す。
+     *
+     * @param path ファイルのパス。既にファイルが存在する場合は上書きします。
+     * @param array 書き出す要素を持つコンテナ。
+     * @throws IOException 書き出せなかった場合。
+     */
+    public static void write(Path path, DoublePoint2Array array) throws IOException {
+        int count = array.size();
+        double[] x = array.getXArray();
+        double[] y = array.getYArray();
+        try (MappedDoublePoint2File file = create(path, count)) {
+            for (int index = 0; index < count; index++) {
+                file.set(index, x[index], y[index]);
+            }
+            file.force();
+        }
+    }
+
+    private static MappedDoublePoint2File open(Path path, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = MappedFiles.readHeader(channel, COMPONENT_TYPE, DIMENSION, Double.BYTES);
+            return new MappedDoublePoint2File(channel, size, writable);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * 書き込み可能な状態で開いているかどうかを返す。
+     *
+     * @return 書き込み可能な場合は{@code true}。
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * 書き込んだ内容をストレージへ反映する。
+     */
+    public void force() {
+        if (!writable) {
+            return;
+        }
+        for (MappedByteBuffer memory : memories()) {
+            memory.force();
+        }
+    }
+
+    /**
+     * マップを解除してファイルを閉じる。
+     *
+     * 書き込んだ内容のストレージへの反映はOSに任されます。確実に反映する場合は先に{@link #force()}を呼び出してください。
+     * 閉じた後の操作は{@link IllegalStateException}を投げます。既に閉じている場合は何もしません。
+     *
+     * @throws IOException ファイルを閉じられなかった場合。
+     */
+    @Override
+    public void close() throws IOException {
+        MappedByteBuffer[] released = memories;
+        if (released == null) {
+            return;
+        }
+        segments = null;
+        memories = null;
+        for (MappedByteBuffer memory : released) {
+            DirectBuffers.free(memory);
+        }
+        channel.close();
+    }
+
+    /**
+     * 指定した要素のx座標を返す。
+     *
+     * @param index 要素の添字。
+     * @return x座標。
+     */
+    public double getX(long index) {
+        checkIndex(index);
+        return segments()[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK) * DIMENSION);
+    }
+
+    /**
+     * 指定した要素のy座標を返す。
+     *
+     * @param index 要素の添字。
+     * @return y座標。
+     */
+    public double getY(long index) {
+        checkIndex(index);
+        return segments()[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK) * DIMENSION + 1);
+    }
+
+    /**
+     * 指定した要素のx座標を設定する。
+     *
+     * @param index 要素の添字。
+     * @param x x座標。
+     * @throws java.nio.ReadOnlyBufferException 読み込み専用で開いている場合。
+     */
+    public void setX(long index, double x) {
+        checkIndex(index);
+        segments()[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK) * DIMENSION, x);
+    }
+
+    /**
+     * 指定した要素のy座標を設定する。
+     *
+     * @param index 要素の添字。
+     * @param y y座標。
+     * @throws java.nio.ReadOnlyBufferException 読み込み専用で開いている場合。
+     */
+    public void setY(long index, double y) {
+        checkIndex(index);
+        segments()[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK) * DIMENSION + 1, y);
+    }
+
+    /**
+     * 指定した要素の全ての次元に値を設定する。
+     *
+     * @param index 要素の添字。
+     * @param x x座標。
+     * @param y y座標。
+     * @throws java.nio.ReadOnlyBufferException 読み込み専用で開いている場合。
+     */
+    public void set(long index, double x, double y) {
+        checkIndex(index);
+        DoubleBuffer buffer = segments()[(int) (index >>> SEGMENT_SHIFT)];
+        int base = (int) (index & SEGMENT_MASK) * DIMENSION;
+        buffer.put(base, x);
+        buffer.put(base + 1, y);
+    }
+
+    /**
+     * 他の点インスタンスから全ての次元の値を取得し、指定した要素へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param point 設定値を取得する点。
+     * @throws java.nio.ReadOnlyBufferException 読み込み専用で開いている場合。
+     */
+    public void set(long index, DoublePoint2 point) {
+        set(index, point.getXAsDouble(), point.getYAsDouble());
+    }
+
+    /**
+     * 指定した要素の値を、渡された点へ設定する。
+     *
+     * @param index 要素の添字。
+     * @param destination 値の設定先。
+     */
+    public void get(long index, MutableDoublePoint2 destination) {
+        checkIndex(index);
+        DoubleBuffer buffer = segments()[(int) (index >>> SEGMENT_SHIFT)];
+        int base = (int) (index & SEGMENT_MASK) * DIMENSION;
+        destination.set(buffer.get(base), buffer.get(base + 1));
+    }
+
+    /**
+     * 先頭の要素の直前を指す新しいカーソルを返す。
+     *
+     * {@code while (cursor.next())}の形で全要素を走査できます。
+     *
+     * @return カーソル。
+     */
+    public Cursor cursor() {
+        return new Cursor(-1);
+    }
+
+    /**
+     * 指定した要素を指す新しいカーソルを返す。
+     *
+     * @param index 要素の添字。
+     * @return カーソル。
+     */
+    public Cursor cursor(long index) {
+        return new Cursor(index);
+    }
+
+    private MappedByteBuffer[] memories() {
+        MappedByteBuffer[] current = memories;
+        if (current == null) {
+            throw new IllegalStateException("Already closed");
+        }
+        return current;
+    }
+
+    private DoubleBuffer[] segments() {
+        DoubleBuffer[] current = segments;
+        if (current == null) {
+            throw new IllegalStateException("Already closed");
+        }
+        return current;
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * ファイルの1要素を{@link MutableDoublePoint2}として扱うためのカーソル。
+     *
+     * 値を保持せず、指している添字の要素をマップされたメモリから直接読み書きします。
+     * {@link #moveTo(long)}や{@link #next()}で添字を切り替えることで、1つのインスタンスを使い回して全要素を走査できます。
+     * 読み込み専用で開いている場合、ミューテータは{@link java.nio.ReadOnlyBufferException}を投げます。
+     * {@link #close()}の後の読み書きは、閉じる前に移動したカーソルでも{@link IllegalStateException}を投げます。
+     */
+    public final class Cursor implements MutableDoublePoint2Trait {
+
+        /**
+         * 指している要素の添字。
+         */
+        private long index;
+
+        /**
+         * 指している要素を含むセグメント。範囲外を指している場合は{@code null}。
+         */
+        private DoubleBuffer buffer;
+
+        /**
+         * セグメント内での要素の位置。
+         */
+        private int base;
+
+        private Cursor(long index) {
+            moveTo(index);
+        }
+
+        /**
+         * 指している要素の添字を返す。
+         *
+         * @return 要素の添字。
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        /**
+         * 指定した要素を指すよう移動する。
+         *
+         * @param index 要素の添字。
+         * @return このカーソル。
+         */
+        public Cursor moveTo(long index) {
+            this.index = index;
+            if (index < 0 || index >= size) {
+                buffer = null;
+                return this;
+            }
+            buffer = segments()[(int) (index >>> SEGMENT_SHIFT)];
+            base = (int) (index & SEGMENT_MASK) * DIMENSION;
+            return this;
+        }
+
+        /**
+         * 次の要素を指すよう移動する。
+         *
+         * @return 移動後の添字が{@link #size()}未満の場合は{@code true}。
+         */
+        public boolean next() {
+            moveTo(index + 1);
+            return buffer != null;
+        }
+
+        @Override
+        public double getXAsDouble() {
+            return buffer().get(base);
+        }
+
+        @Override
+        public double getYAsDouble() {
+            return buffer().get(base + 1);
+        }
+
+        @Override
+        public void setX(double x) {
+            buffer().put(base, x);
+        }
+
+        @Override
+        public void setY(double y) {
+            buffer().put(base + 1, y);
+        }
+
+        @Override
+        public void set(double x, double y) {
+            DoubleBuffer current = buffer();
+            current.put(base, x);
+            current.put(base + 1, y);
+        }
+
+        private DoubleBuffer buffer() {
+            // 閉じる前に移動したカーソルも、マップを解除したメモリを読み書きしないよう確認します。
+            segments();
+            DoubleBuffer current = buffer;
+            if (current == null) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return current;
+        }
+    }
+}
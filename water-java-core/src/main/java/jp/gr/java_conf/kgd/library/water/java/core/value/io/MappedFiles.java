@@ -0,0 +1,152 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * メモリマップファイルの共通処理。
+ *
+ * ファイルは{@value #HEADER_BYTES}バイトのヘッダと、要素ごとに全次元を並べたリトルエンディアンの本体からなります。
+ * ヘッダの内容は以下の通りです。（全てリトルエンディアン。）
+ * <ul>
+ * <li>{@code int} マジックナンバー（{@code "WATR"}）</li>
+ * <li>{@code int} 形式のバージョン</li>
+ * <li>{@code int} 成分の型（JVMの型記述子。{@code 'I'}、{@code 'J'}、{@code 'D'}のいずれか）</li>
+ * <li>{@code int} 次元数</li>
+ * <li>{@code long} 要素数</li>
+ * <li>{@code long} 予約領域</li>
+ * </ul>
+ *
+ * @author misakura
+ */
+final class MappedFiles {
+
+    /**
+     * マジックナンバー。リトルエンディアンで書き込むと{@code "WATR"}になります。
+     */
+    static final int MAGIC = 0x52544157;
+
+    /**
+     * 形式のバージョン。
+     */
+    static final int VERSION = 1;
+
+    /**
+     * ヘッダのバイト数。
+     */
+    static final int HEADER_BYTES = 32;
+
+    private MappedFiles() {
+    }
+
+    /**
+     * ヘッダを書き込む。
+     *
+     * @param channel 書き込み先。
+     * @param componentType 成分の型記述子。
+     * @param dimension 次元数。
+     * @param size 要素数。
+     * @throws IOException 書き込みに失敗した場合。
+     */
+    static void writeHeader(FileChannel channel, char componentType, int dimension, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(componentType).putInt(dimension).putLong(size).putLong(0L);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * ヘッダを読み込んで検証し、要素数を返す。
+     *
+     * @param channel 読み込み元。
+     * @param componentType 期待する成分の型記述子。
+     * @param dimension 期待する次元数。
+     * @param componentBytes 成分1つあたりのバイト数。
+     * @return 要素数。
+     * @throws IOException 読み込みに失敗した場合や、形式が一致しない場合。
+     */
+    static long readHeader(FileChannel channel, char componentType, int dimension, int componentBytes) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Truncated header");
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a mapped value file");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        int actualType = header.getInt();
+        int actualDimension = header.getInt();
+        if (actualType != componentType || actualDimension != dimension) {
+            throw new IOException("Type mismatch: expected " + componentType + dimension + " but was " + (char) actualType + actualDimension);
+        }
+        long size = header.getLong();
+        // 壊れたヘッダの要素数で掛け算が桁あふれしないよう、ファイルに収まる要素数と比べます。
+        long elementBytes = (long) dimension * componentBytes;
+        long fileSize = channel.size();
+        if (size < 0 || size > (fileSize - HEADER_BYTES) / elementBytes) {
+            throw new IOException("Truncated body: " + fileSize + " bytes, size " + size);
+        }
+        return size;
+    }
+
+    /**
+     * 本体をセグメントごとにマップする。
+     *
+     * 各セグメントは{@code 2^segmentShift}要素ごとに区切るため、要素がセグメントをまたぐことはありません。
+     *
+     * @param channel マップするファイル。
+     * @param mode マップのモード。
+     * @param size 要素数。
+     * @param elementBytes 要素1つあたりのバイト数。
+     * @param segmentShift 1セグメントあたりの要素数の2を底とする対数。
+     * @return リトルエンディアンに設定したセグメント。
+     * @throws IOException マップに失敗した場合。
+     */
+    static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long size, int elementBytes, int segmentShift) throws IOException {
+        long segmentSize = 1L << segmentShift;
+        int segmentCount = (int) ((size + segmentSize - 1) >>> segmentShift);
+        MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+        for (int segment = 0; segment < segmentCount; segment++) {
+            long first = (long) segment << segmentShift;
+            long elements = Math.min(segmentSize, size - first);
+            MappedByteBuffer buffer = channel.map(mode, HEADER_BYTES + first * elementBytes, elements * elementBytes);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            segments[segment] = buffer;
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * 可変長整数の共通処理。
+ *
+ * 値は下位から7ビットずつ、続きがあるバイトの最上位ビットを立てて並べます。（LEB128と同じ。）
+ * 符号付きの値はジグザグ符号化（{@code 0, -1, 1, -2, ...}を{@code 0, 1, 2, 3, ...}に対応させる変換）をしてから書き込みます。
+ *
+ * @author misakura
+ */
+final class Varints {
+
+    /**
+     * {@code long}の可変長整数の最大のバイト数。
+     */
+    static final int MAX_BYTES = 10;
+
+    private Varints() {
+    }
+
+    /**
+     * ジグザグ符号化する。
+     *
+     * @param value 符号付きの値。
+     * @return 符号化した値。
+     */
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * ジグザグ符号化した値を戻す。
+     *
+     * @param value 符号化した値。
+     * @return 符号付きの値。
+     */
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 可変長整数のバイト数を返す。
+     *
+     * @param value 値。符号なしとして扱います。
+     * @return バイト数。
+     */
+    static int sizeOf(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * バッファの現在の位置に可変長整数を書き込む。
+     *
+     * @param buffer 書き込み先。
+     * @param value 値。符号なしとして扱います。
+     */
+    static void write(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * 可変長整数を書き込む。
+     *
+     * @param output 書き込み先。
+     * @param value 値。符号なしとして扱います。
+     * @throws IOException 書き込めなかった場合。
+     */
+    static void write(OutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.write((int) (value | 0x80) & 0xFF);
+            value >>>= 7;
+        }
+        output.write((int) value);
+    }
+
+    /**
+     * バッファの現在の位置から可変長整数を読み込む。
+     *
+     * @param buffer 読み込み元。
+     * @return 値。
+     * @throws BufferUnderflowException 途中でバッファの終端に達した場合。
+     * @throws IllegalArgumentException {@value #MAX_BYTES}バイトを超えて続いている場合。
+     */
+    static long read(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 7 * MAX_BYTES; shift += 7) {
+            byte current = buffer.get();
+            value |= (long) (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * 可変長整数を読み込む。
+     *
+     * @param input 読み込み元。
+     * @return 値。最初のバイトを読み込む前に終端に達した場合は{@code -1}。
+     * @throws EOFException 途中で終端に達した場合。
+     * @throws IOException 読み込めなかった場合や、{@value #MAX_BYTES}バイトを超えて続いている場合。
+     */
+    static long read(InputStream input) throws IOException {
+        int current = input.read();
+        if (current < 0) {
+            return -1;
+        }
+        long value = 0;
+        for (int shift = 0; shift < 7 * MAX_BYTES; shift += 7) {
+            value |= (long) (current & 0x7F) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+            current = input.read();
+            if (current < 0) {
+                throw new EOFException();
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
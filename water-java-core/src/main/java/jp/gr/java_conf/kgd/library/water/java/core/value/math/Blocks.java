@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import java.util.stream.IntStream;
+
+/**
+ * 連続する要素をブロックに分けて処理する。
+ *
+ * @author misakura
+ */
+final class Blocks {
+
+    /**
+     * 1つのブロックの要素数。
+     */
+    static final int BLOCK_SIZE = 1 << 14;
+
+    /**
+     * 要素の範囲に対する処理。
+     */
+    @FunctionalInterface
+    interface RangeAction {
+
+        void run(int from, int to);
+    }
+
+    private Blocks() {
+    }
+
+    /**
+     * 要素の範囲を処理する。
+     *
+     * 並列に処理する場合は、ブロックごとに共通のForkJoinプールで処理します。
+     *
+     * @param length 要素数。
+     * @param parallel 並列に処理する場合は{@code true}。
+     * @param action 処理。
+     */
+    static void run(int length, boolean parallel, RangeAction action) {
+        if (!parallel || length <= BLOCK_SIZE) {
+            action.run(0, length);
+            return;
+        }
+        int blocks = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            int from = block * BLOCK_SIZE;
+            action.run(from, Math.min(from + BLOCK_SIZE, length));
+        });
+    }
+
+    /**
+     * 要素の範囲を、並列に処理しない場合も{@link #BLOCK_SIZE}ずつに分けて処理する。
+     *
+     * @param length 要素数。
+     * @param parallel 並列に処理する場合は{@code true}。
+     * @param action 処理。
+     */
+    static void runBlocks(int length, boolean parallel, RangeAction action) {
+        if (parallel && length > BLOCK_SIZE) {
+            run(length, true, action);
+            return;
+        }
+        for (int from = 0; from < length; from += BLOCK_SIZE) {
+            action.run(from, Math.min(from + BLOCK_SIZE, length));
+        }
+    }
+
+    static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + length + ", Array length: " + arrayLength);
+        }
+    }
+
+    static int checkSize(int sourceSize, int destinationSize) {
+        if (sourceSize != destinationSize) {
+            throw new IllegalArgumentException("Size mismatch: " + sourceSize + " and " + destinationSize);
+        }
+        return destinationSize;
+    }
+}
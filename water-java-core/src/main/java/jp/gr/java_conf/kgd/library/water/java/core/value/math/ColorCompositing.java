@@ -0,0 +1,644 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoubleColor4Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.IntColor4Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.PackedColorArray;
+
+/**
+ * 色の配列をまとめて合成する演算。
+ *
+ * 合成先の各要素を、合成元の同じ添字の要素と{@link CompositeMode}で合成した結果で置き換えます。
+ * 全ての演算は乗算済みの透明度（premultiplied alpha）を前提とします。
+ * 乗算されていないデータは{@link #premultiply}で変換してから合成し、必要なら{@link #unpremultiply}で戻してください。
+ *
+ * 整数の色は各成分{@code 0}以上{@code 255}以下の固定小数点として、{@code double}の色は{@code 0}以上{@code 1}以下として扱います。
+ * ARGB形式の配列の合成は、色成分が透明度以下である（正しく乗算済みの）ことを前提に2成分ずつまとめて計算するため、
+ * 前提を満たさない要素の結果は不定です。（他の要素には影響しません。）
+ * 合成方法の分岐は呼び出しごとに1度だけ行い、要素ごとにインスタンスの生成やインターフェース経由の呼び出しは行いません。
+ * {@code parallel}に{@code true}を指定すると、連続する要素（画像では行）のブロックごとに共通のForkJoinプールで並列に処理します。
+ *
+ * @author misakura
+ */
+public final class ColorCompositing {
+
+    private ColorCompositing() {
+    }
+
+    /**
+     * ARGB形式の配列を合成する。
+     *
+     * @param mode 合成方法。
+     * @param source 合成元の配列。
+     * @param sourceOffset 合成元の先頭の位置。
+     * @param destination 合成先の配列。
+     * @param destinationOffset 合成先の先頭の位置。
+     * @param length 要素数。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void composite(CompositeMode mode, int[] source, int sourceOffset,
+            int[] destination, int destinationOffset, int length, boolean parallel) {
+        Blocks.checkRange(source.length, sourceOffset, length);
+        Blocks.checkRange(destination.length, destinationOffset, length);
+        if (sourceOffset != destinationOffset) {
+            // 同じ添字で走査するループの方が最適化されやすいため、位置を揃えた一時的な配列で合成する
+            Blocks.runBlocks(length, parallel, (from, to) -> {
+                int[] sourceBlock = Arrays.copyOfRange(source, sourceOffset + from, sourceOffset + to);
+                int[] destinationBlock = Arrays.copyOfRange(destination, destinationOffset + from, destinationOffset + to);
+                composite(mode, sourceBlock, destinationBlock, 0, to - from);
+                System.arraycopy(destinationBlock, 0, destination, destinationOffset + from, to - from);
+            });
+            return;
+        }
+        Blocks.run(length, parallel, (from, to) -> composite(mode, source, destination, sourceOffset + from, sourceOffset + to));
+    }
+
+    /**
+     * {@link PackedColorArray}を合成する。
+     *
+     * 内部の配列を持たないコンテナは、ブロックごとに一時的な配列へ複写して合成します。
+     *
+     * @param mode 合成方法。
+     * @param source 合成元のコンテナ。
+     * @param destination 合成先のコンテナ。要素数が合成元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void composite(CompositeMode mode, PackedColorArray source, PackedColorArray destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        if (source.hasArray() && destination.hasArray()) {
+            composite(mode, source.getArray(), source.getArrayOffset(),
+                    destination.getArray(), destination.getArrayOffset(), size, parallel);
+            return;
+        }
+        Blocks.runBlocks(size, parallel, (from, to) -> {
+            int length = to - from;
+            int[] sourceBlock = new int[length];
+            int[] destinationBlock = new int[length];
+            read(source.getBuffer(), from, sourceBlock);
+            read(destination.getBuffer(), from, destinationBlock);
+            composite(mode, sourceBlock, destinationBlock, 0, length);
+            write(destination.getBuffer(), from, destinationBlock);
+        });
+    }
+
+    /**
+     * {@link IntColor4Array}を合成する。
+     *
+     * @param mode 合成方法。
+     * @param source 合成元のコンテナ。
+     * @param destination 合成先のコンテナ。要素数が合成元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void composite(CompositeMode mode, IntColor4Array source, IntColor4Array destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        int[] sr = source.getRedArray();
+        int[] sg = source.getGreenArray();
+        int[] sb = source.getBlueArray();
+        int[] sa = source.getAlphaArray();
+        int[] dr = destination.getRedArray();
+        int[] dg = destination.getGreenArray();
+        int[] db = destination.getBlueArray();
+        int[] da = destination.getAlphaArray();
+        switch (mode) {
+            case MULTIPLY:
+                Blocks.run(size, parallel, (from, to) -> multiply(sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+            case SCREEN:
+                Blocks.run(size, parallel, (from, to) -> screen(sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+            case OVERLAY:
+                Blocks.run(size, parallel, (from, to) -> overlay(sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+            case ADD:
+                Blocks.run(size, parallel, (from, to) -> add(sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+            default:
+                Blocks.run(size, parallel, (from, to) -> porterDuff(mode, sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+        }
+    }
+
+    /**
+     * {@link DoubleColor4Array}を合成する。
+     *
+     * @param mode 合成方法。
+     * @param source 合成元のコンテナ。
+     * @param destination 合成先のコンテナ。要素数が合成元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void composite(CompositeMode mode, DoubleColor4Array source, DoubleColor4Array destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        double[] sr = source.getRedArray();
+        double[] sg = source.getGreenArray();
+        double[] sb = source.getBlueArray();
+        double[] sa = source.getAlphaArray();
+        double[] dr = destination.getRedArray();
+        double[] dg = destination.getGreenArray();
+        double[] db = destination.getBlueArray();
+        double[] da = destination.getAlphaArray();
+        switch (mode) {
+            case MULTIPLY:
+                Blocks.run(size, parallel, (from, to) -> multiply(sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+            case SCREEN:
+                Blocks.run(size, parallel, (from, to) -> screen(sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+            case OVERLAY:
+                Blocks.run(size, parallel, (from, to) -> overlay(sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+            case ADD:
+                Blocks.run(size, parallel, (from, to) -> add(sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+            default:
+                Blocks.run(size, parallel, (from, to) -> porterDuff(mode, sr, sg, sb, sa, dr, dg, db, da, from, to));
+                break;
+        }
+    }
+
+    /**
+     * ARGB形式の配列の色成分に透明度を乗算する。
+     *
+     * @param argb ARGB形式の配列。
+     * @param offset 先頭の位置。
+     * @param length 要素数。
+     */
+    public static void premultiply(int[] argb, int offset, int length) {
+        Blocks.checkRange(argb.length, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            int value = argb[i];
+            int alpha = value >>> 24;
+            argb[i] = alpha << 24
+                    | div255((value >>> 16 & 0xFF) * alpha) << 16
+                    | div255((value >>> 8 & 0xFF) * alpha) << 8
+                    | div255((value & 0xFF) * alpha);
+        }
+    }
+
+    /**
+     * 透明度を乗算したARGB形式の配列を、乗算前に戻す。
+     *
+     * 透明度が{@code 0}の要素の色成分は{@code 0}になります。
+     *
+     * @param argb ARGB形式の配列。
+     * @param offset 先頭の位置。
+     * @param length 要素数。
+     */
+    public static void unpremultiply(int[] argb, int offset, int length) {
+        Blocks.checkRange(argb.length, offset, length);
+        for (int i = offset; i < offset + length; i++) {
+            int value = argb[i];
+            int alpha = value >>> 24;
+            argb[i] = alpha << 24
+                    | undivide(value >>> 16 & 0xFF, alpha) << 16
+                    | undivide(value >>> 8 & 0xFF, alpha) << 8
+                    | undivide(value & 0xFF, alpha);
+        }
+    }
+
+    /**
+     * {@link PackedColorArray}の色成分に透明度を乗算する。
+     *
+     * @param array 対象のコンテナ。
+     */
+    public static void premultiply(PackedColorArray array) {
+        if (array.hasArray()) {
+            premultiply(array.getArray(), array.getArrayOffset(), array.size());
+            return;
+        }
+        Blocks.runBlocks(array.size(), false, (from, to) -> {
+            int[] block = new int[to - from];
+            read(array.getBuffer(), from, block);
+            premultiply(block, 0, block.length);
+            write(array.getBuffer(), from, block);
+        });
+    }
+
+    /**
+     * 透明度を乗算した{@link PackedColorArray}を、乗算前に戻す。
+     *
+     * @param array 対象のコンテナ。
+     */
+    public static void unpremultiply(PackedColorArray array) {
+        if (array.hasArray()) {
+            unpremultiply(array.getArray(), array.getArrayOffset(), array.size());
+            return;
+        }
+        Blocks.runBlocks(array.size(), false, (from, to) -> {
+            int[] block = new int[to - from];
+            read(array.getBuffer(), from, block);
+            unpremultiply(block, 0, block.length);
+            write(array.getBuffer(), from, block);
+        });
+    }
+
+    /**
+     * {@link IntColor4Array}の色成分に透明度を乗算する。
+     *
+     * @param array 対象のコンテナ。
+     */
+    public static void premultiply(IntColor4Array array) {
+        int[] red = array.getRedArray();
+        int[] green = array.getGreenArray();
+        int[] blue = array.getBlueArray();
+        int[] alpha = array.getAlphaArray();
+        for (int i = 0; i < array.size(); i++) {
+            int a = alpha[i];
+            red[i] = div255(red[i] * a);
+            green[i] = div255(green[i] * a);
+            blue[i] = div255(blue[i] * a);
+        }
+    }
+
+    /**
+     * 透明度を乗算した{@link IntColor4Array}を、乗算前に戻す。
+     *
+     * @param array 対象のコンテナ。
+     */
+    public static void unpremultiply(IntColor4Array array) {
+        int[] red = array.getRedArray();
+        int[] green = array.getGreenArray();
+        int[] blue = array.getBlueArray();
+        int[] alpha = array.getAlphaArray();
+        for (int i = 0; i < array.size(); i++) {
+            int a = alpha[i];
+            red[i] = undivide(red[i], a);
+            green[i] = undivide(green[i], a);
+            blue[i] = undivide(blue[i], a);
+        }
+    }
+
+    /**
+     * {@link DoubleColor4Array}の色成分に透明度を乗算する。
+     *
+     * @param array 対象のコンテナ。
+     */
+    public static void premultiply(DoubleColor4Array array) {
+        double[] red = array.getRedArray();
+        double[] green = array.getGreenArray();
+        double[] blue = array.getBlueArray();
+        double[] alpha = array.getAlphaArray();
+        for (int i = 0; i < array.size(); i++) {
+            double a = alpha[i];
+            red[i] *= a;
+            green[i] *= a;
+            blue[i] *= a;
+        }
+    }
+
+    /**
+     * 透明度を乗算した{@link DoubleColor4Array}を、乗算前に戻す。
+     *
+     * 透明度が{@code 0}の要素の色成分は{@code 0}になります。
+     *
+     * @param array 対象のコンテナ。
+     */
+    public static void unpremultiply(DoubleColor4Array array) {
+        double[] red = array.getRedArray();
+        double[] green = array.getGreenArray();
+        double[] blue = array.getBlueArray();
+        double[] alpha = array.getAlphaArray();
+        for (int i = 0; i < array.size(); i++) {
+            double a = alpha[i];
+            double scale = a == 0 ? 0 : 1 / a;
+            red[i] *= scale;
+            green[i] *= scale;
+            blue[i] *= scale;
+        }
+    }
+
+    /**
+     * ARGB形式の配列の同じ範囲を合成する。
+     */
+    private static void composite(CompositeMode mode, int[] source, int[] destination, int from, int to) {
+        switch (mode) {
+            case SRC_OVER:
+                sourceOver(source, destination, from, to);
+                break;
+            case MULTIPLY:
+                multiply(source, destination, from, to);
+                break;
+            case SCREEN:
+                screen(source, destination, from, to);
+                break;
+            case OVERLAY:
+                overlay(source, destination, from, to);
+                break;
+            case ADD:
+                add(source, destination, from, to);
+                break;
+            default:
+                porterDuff(mode, source, destination, from, to);
+                break;
+        }
+    }
+
+    private static void read(IntBuffer buffer, int index, int[] destination) {
+        IntBuffer view = buffer.duplicate();
+        view.position(index);
+        view.get(destination);
+    }
+
+    private static void write(IntBuffer buffer, int index, int[] source) {
+        IntBuffer view = buffer.duplicate();
+        view.position(index);
+        view.put(source);
+    }
+
+    /**
+     * {@code value / 255}を丸めて返す。（{@code 0}以上{@code 65535}以下で正確。）
+     */
+    private static int div255(int value) {
+        value += 128;
+        return (value + (value >> 8)) >> 8;
+    }
+
+    /**
+     * 乗算済みの成分を透明度で割り、{@code 0}以上{@code 255}以下で返す。
+     */
+    private static int undivide(int component, int alpha) {
+        return alpha == 0 ? 0 : Math.min(255, (component * 255 + (alpha >> 1)) / alpha);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    /**
+     * 16ビットずつの2レーンのそれぞれについて、{@link #div255(int)}を計算する。
+     */
+    private static int div255Lanes(int lanes) {
+        lanes += 0x800080;
+        return (lanes + (lanes >>> 8 & 0xFF00FF)) >>> 8 & 0xFF00FF;
+    }
+
+    /**
+     * 8ビットずつの2レーンのそれぞれについて積を計算し、16ビットずつの2レーンで返す。
+     */
+    private static int productLanes(int a, int b) {
+        return (a & 0xFF0000) * (b >>> 16) | (a & 0xFF) * (b & 0xFF);
+    }
+
+    private static int pack(int alpha, int red, int green, int blue) {
+        return alpha << 24 | (red & 0xFF) << 16 | (green & 0xFF) << 8 | blue & 0xFF;
+    }
+
+    private static int multiply(int cs, int cd, int inverseAs, int inverseAd) {
+        return div255(cs * inverseAd + cd * inverseAs + cs * cd);
+    }
+
+    private static int screen(int cs, int cd) {
+        return cs + cd - div255(cs * cd);
+    }
+
+    private static int overlay(int cs, int cd, int as, int ad) {
+        // 画素ごとに変わる条件で分岐しないよう、符号のマスクで選択する
+        int multiplied = 2 * cs * cd;
+        int screened = as * ad - 2 * (ad - cd) * (as - cs);
+        int mask = ad - 2 * cd >> 31;
+        int blended = multiplied ^ ((multiplied ^ screened) & mask);
+        return div255(cs * (255 - ad) + cd * (255 - as) + blended);
+    }
+
+    private static double overlay(double cs, double cd, double as, double ad) {
+        double blended = 2 * cd <= ad ? 2 * cs * cd : as * ad - 2 * (ad - cd) * (as - cs);
+        return cs * (1 - ad) + cd * (1 - as) + blended;
+    }
+
+    private static void porterDuff(CompositeMode mode, int[] source, int[] destination, int from, int to) {
+        int sourceBase = mode.sourceBase * 255;
+        int sourceScale = mode.sourceScale;
+        int destinationBase = mode.destinationBase * 255;
+        int destinationScale = mode.destinationScale;
+        for (int i = from; i < to; i++) {
+            int s = source[i];
+            int d = destination[i];
+            int fa = sourceBase + sourceScale * (d >>> 24);
+            int fb = destinationBase + destinationScale * (s >>> 24);
+            // 赤と青、透明度と緑をそれぞれ16ビットずつの2レーンとしてまとめて計算する
+            int redBlue = div255Lanes((s & 0xFF00FF) * fa + (d & 0xFF00FF) * fb);
+            int alphaGreen = div255Lanes((s >>> 8 & 0xFF00FF) * fa + (d >>> 8 & 0xFF00FF) * fb);
+            destination[i] = alphaGreen << 8 | redBlue;
+        }
+    }
+
+    /**
+     * 最も多く使われる{@link CompositeMode#SRC_OVER}を、係数の計算を省いて行う。
+     */
+    private static void sourceOver(int[] source, int[] destination, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int s = source[i];
+            int d = destination[i];
+            int fb = 255 - (s >>> 24);
+            int redBlue = div255Lanes((d & 0xFF00FF) * fb);
+            int alphaGreen = div255Lanes((d >>> 8 & 0xFF00FF) * fb);
+            destination[i] = s + (alphaGreen << 8 | redBlue);
+        }
+    }
+
+    private static void multiply(int[] source, int[] destination, int from, int to) {
+        // 透明度についても同じ式がスクリーンと一致するため、4成分をまとめて計算する
+        for (int i = from; i < to; i++) {
+            int s = source[i];
+            int d = destination[i];
+            int inverseAs = 255 - (s >>> 24);
+            int inverseAd = 255 - (d >>> 24);
+            int sourceRedBlue = s & 0xFF00FF;
+            int sourceAlphaGreen = s >>> 8 & 0xFF00FF;
+            int destinationRedBlue = d & 0xFF00FF;
+            int destinationAlphaGreen = d >>> 8 & 0xFF00FF;
+            int redBlue = sourceRedBlue * inverseAd + destinationRedBlue * inverseAs
+                    + productLanes(sourceRedBlue, destinationRedBlue);
+            int alphaGreen = sourceAlphaGreen * inverseAd + destinationAlphaGreen * inverseAs
+                    + productLanes(sourceAlphaGreen, destinationAlphaGreen);
+            destination[i] = div255Lanes(alphaGreen) << 8 | div255Lanes(redBlue);
+        }
+    }
+
+    private static void screen(int[] source, int[] destination, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int s = source[i];
+            int d = destination[i];
+            int redBlue = div255Lanes(productLanes(s & 0xFF00FF, d & 0xFF00FF));
+            int alphaGreen = div255Lanes(productLanes(s >>> 8 & 0xFF00FF, d >>> 8 & 0xFF00FF));
+            destination[i] = s + d - (alphaGreen << 8 | redBlue);
+        }
+    }
+
+    private static void overlay(int[] source, int[] destination, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int s = source[i];
+            int d = destination[i];
+            int as = s >>> 24;
+            int ad = d >>> 24;
+            destination[i] = pack(
+                    screen(as, ad),
+                    overlay(s >>> 16 & 0xFF, d >>> 16 & 0xFF, as, ad),
+                    overlay(s >>> 8 & 0xFF, d >>> 8 & 0xFF, as, ad),
+                    overlay(s & 0xFF, d & 0xFF, as, ad));
+        }
+    }
+
+    private static void add(int[] source, int[] destination, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int s = source[i];
+            int d = destination[i];
+            destination[i] = pack(
+                    Math.min(255, (s >>> 24) + (d >>> 24)),
+                    Math.min(255, (s >>> 16 & 0xFF) + (d >>> 16 & 0xFF)),
+                    Math.min(255, (s >>> 8 & 0xFF) + (d >>> 8 & 0xFF)),
+                    Math.min(255, (s & 0xFF) + (d & 0xFF)));
+        }
+    }
+
+    private static void porterDuff(CompositeMode mode, int[] sr, int[] sg, int[] sb, int[] sa,
+            int[] dr, int[] dg, int[] db, int[] da, int from, int to) {
+        int sourceBase = mode.sourceBase * 255;
+        int sourceScale = mode.sourceScale;
+        int destinationBase = mode.destinationBase * 255;
+        int destinationScale = mode.destinationScale;
+        for (int i = from; i < to; i++) {
+            int as = sa[i];
+            int ad = da[i];
+            int fa = sourceBase + sourceScale * ad;
+            int fb = destinationBase + destinationScale * as;
+            dr[i] = clamp(div255(sr[i] * fa + dr[i] * fb));
+            dg[i] = clamp(div255(sg[i] * fa + dg[i] * fb));
+            db[i] = clamp(div255(sb[i] * fa + db[i] * fb));
+            da[i] = clamp(div255(as * fa + ad * fb));
+        }
+    }
+
+    private static void multiply(int[] sr, int[] sg, int[] sb, int[] sa,
+            int[] dr, int[] dg, int[] db, int[] da, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int as = sa[i];
+            int ad = da[i];
+            int inverseAs = 255 - as;
+            int inverseAd = 255 - ad;
+            dr[i] = clamp(multiply(sr[i], dr[i], inverseAs, inverseAd));
+            dg[i] = clamp(multiply(sg[i], dg[i], inverseAs, inverseAd));
+            db[i] = clamp(multiply(sb[i], db[i], inverseAs, inverseAd));
+            da[i] = clamp(screen(as, ad));
+        }
+    }
+
+    private static void screen(int[] sr, int[] sg, int[] sb, int[] sa,
+            int[] dr, int[] dg, int[] db, int[] da, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dr[i] = clamp(screen(sr[i], dr[i]));
+            dg[i] = clamp(screen(sg[i], dg[i]));
+            db[i] = clamp(screen(sb[i], db[i]));
+            da[i] = clamp(screen(sa[i], da[i]));
+        }
+    }
+
+    private static void overlay(int[] sr, int[] sg, int[] sb, int[] sa,
+            int[] dr, int[] dg, int[] db, int[] da, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int as = sa[i];
+            int ad = da[i];
+            dr[i] = clamp(overlay(sr[i], dr[i], as, ad));
+            dg[i] = clamp(overlay(sg[i], dg[i], as, ad));
+            db[i] = clamp(overlay(sb[i], db[i], as, ad));
+            da[i] = clamp(screen(as, ad));
+        }
+    }
+
+    private static void add(int[] sr, int[] sg, int[] sb, int[] sa,
+            int[] dr, int[] dg, int[] db, int[] da, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dr[i] = Math.min(255, sr[i] + dr[i]);
+            dg[i] = Math.min(255, sg[i] + dg[i]);
+            db[i] = Math.min(255, sb[i] + db[i]);
+            da[i] = Math.min(255, sa[i] + da[i]);
+        }
+    }
+
+    private static void porterDuff(CompositeMode mode, double[] sr, double[] sg, double[] sb, double[] sa,
+            double[] dr, double[] dg, double[] db, double[] da, int from, int to) {
+        double sourceBase = mode.sourceBase;
+        double sourceScale = mode.sourceScale;
+        double destinationBase = mode.destinationBase;
+        double destinationScale = mode.destinationScale;
+        for (int i = from; i < to; i++) {
+            double as = sa[i];
+            double ad = da[i];
+            double fa = sourceBase + sourceScale * ad;
+            double fb = destinationBase + destinationScale * as;
+            dr[i] = sr[i] * fa + dr[i] * fb;
+            dg[i] = sg[i] * fa + dg[i] * fb;
+            db[i] = sb[i] * fa + db[i] * fb;
+            da[i] = as * fa + ad * fb;
+        }
+    }
+
+    private static void multiply(double[] sr, double[] sg, double[] sb, double[] sa,
+            double[] dr, double[] dg, double[] db, double[] da, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double as = sa[i];
+            double ad = da[i];
+            double inverseAs = 1 - as;
+            double inverseAd = 1 - ad;
+            dr[i] = sr[i] * inverseAd + dr[i] * inverseAs + sr[i] * dr[i];
+            dg[i] = sg[i] * inverseAd + dg[i] * inverseAs + sg[i] * dg[i];
+            db[i] = sb[i] * inverseAd + db[i] * inverseAs + sb[i] * db[i];
+            da[i] = as + ad - as * ad;
+        }
+    }
+
+    private static void screen(double[] sr, double[] sg, double[] sb, double[] sa,
+            double[] dr, double[] dg, double[] db, double[] da, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dr[i] = sr[i] + dr[i] - sr[i] * dr[i];
+            dg[i] = sg[i] + dg[i] - sg[i] * dg[i];
+            db[i] = sb[i] + db[i] - sb[i] * db[i];
+            da[i] = sa[i] + da[i] - sa[i] * da[i];
+        }
+    }
+
+    private static void overlay(double[] sr, double[] sg, double[] sb, double[] sa,
+            double[] dr, double[] dg, double[] db, double[] da, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double as = sa[i];
+            double ad = da[i];
+            dr[i] = overlay(sr[i], dr[i], as, ad);
+            dg[i] = overlay(sg[i], dg[i], as, ad);
+            db[i] = overlay(sb[i], db[i], as, ad);
+            da[i] = as + ad - as * ad;
+        }
+    }
+
+    private static void add(double[] sr, double[] sg, double[] sb, double[] sa,
+            double[] dr, double[] dg, double[] db, double[] da, int from, int to) {
+        for (int i = from; i < to; i++) {
+            dr[i] = Math.min(1, sr[i] + dr[i]);
+            dg[i] = Math.min(1, sg[i] + dg[i]);
+            db[i] = Math.min(1, sb[i] + db[i]);
+            da[i] = Math.min(1, sa[i] + da[i]);
+        }
+    }
+}
@@ -0,0 +1,611 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import java.util.Arrays;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoubleColor3Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoubleColor4Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.IntColor3Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.IntColor4Array;
+
+/**
+ * 色の配列の色空間をまとめて変換する演算。
+ *
+ * 変換先の各要素を、変換元の同じ添字の要素を{@link ColorSpace}の間で変換した結果で置き換えます。
+ * 変換元と変換先に同じコンテナを指定すると、その場で変換します。透明度は変換せずに複写します。
+ * HSV、HSL、YCbCrはガンマ補正されたsRGBを、L*a*b*は線形なsRGBを経由して変換し、
+ * 必要な場合だけsRGBと線形なsRGBの間で変換します。
+ *
+ * {@code int}の色のsRGBと線形な値の間の変換には表を使います。
+ * sRGBから線形な値へは256要素の表で正確に、線形な値からsRGBへは値を4096段階に丸めてから表を引くため、
+ * 正確な丸めと比べて最大で{@code 1}だけ異なる場合があります。
+ * {@code double}の色では、{@code Math.pow}の代わりに多項式で近似します。
+ * 誤差の最大値は、sRGBから線形な値へが約{@code 3.1e-6}、線形な値からsRGBへが約{@code 1.4e-7}です。（各成分が{@code 0}以上{@code 1}以下の場合。）
+ * L*a*b*の立方根は、ニュートン法の一種で{@code 1e-12}程度の相対誤差まで求めます。
+ * 要素ごとの分岐は、条件式で選ぶ形にしてできるだけ減らしています。
+ * {@code parallel}に{@code true}を指定すると、連続する要素のブロックごとに共通のForkJoinプールで並列に処理します。
+ *
+ * @author misakura
+ */
+public final class ColorConversion {
+
+    /**
+     * 線形なsRGBの値を丸める段階の数から1を引いたもの。
+     */
+    private static final int LINEAR_STEPS = 4095;
+
+    /**
+     * {@code int}のsRGBの成分から、線形な値への表。
+     */
+    private static final double[] SRGB_TO_LINEAR = new double[256];
+
+    /**
+     * 線形な値を{@link #LINEAR_STEPS}倍して丸めた添字から、{@code int}のsRGBの成分への表。
+     */
+    private static final int[] LINEAR_TO_SRGB = new int[LINEAR_STEPS + 1];
+
+    private static final double SRGB_THRESHOLD = 0.04045;
+
+    private static final double LINEAR_THRESHOLD = 0.0031308;
+
+    /*
+     * ((c + 0.055) / 1.055)^2.4をcの7次式で近似した係数。（0.04045以上1以下）
+     */
+    private static final double TO_LINEAR_0 = 0.0008807194477081604;
+    private static final double TO_LINEAR_1 = 0.034307856006441116;
+    private static final double TO_LINEAR_2 = 0.4980811567586975;
+    private static final double TO_LINEAR_3 = 0.7859929423591777;
+    private static final double TO_LINEAR_4 = -0.6167091410022346;
+    private static final double TO_LINEAR_5 = 0.48196671798760315;
+    private static final double TO_LINEAR_6 = -0.23517610949486512;
+    private static final double TO_LINEAR_7 = 0.05065664459866615;
+
+    /*
+     * 1.055 * c^(1 / 2.4) - 0.055をc^(1 / 8)の5次式で近似した係数。（0.0031308以上1以下）
+     */
+    private static final double TO_SRGB_0 = -0.058258804966542274;
+    private static final double TO_SRGB_1 = 0.03321468328180106;
+    private static final double TO_SRGB_2 = -0.16371086937693033;
+    private static final double TO_SRGB_3 = 0.9102817903462351;
+    private static final double TO_SRGB_4 = 0.31235136233192323;
+    private static final double TO_SRGB_5 = -0.033878263369217995;
+
+    /**
+     * D65の白色点のX。
+     */
+    private static final double WHITE_X = 0.95047;
+
+    /**
+     * D65の白色点のZ。（Yは{@code 1}。）
+     */
+    private static final double WHITE_Z = 1.08883;
+
+    private static final double LAB_EPSILON = 216.0 / 24389;
+
+    private static final double LAB_KAPPA = 24389.0 / 27;
+
+    private static final double LAB_DELTA = 6.0 / 29;
+
+    /**
+     * 立方根の初期値を求めるため、ビット表現の3分の1に足す値。
+     */
+    private static final long CBRT_MAGIC = 0x2A9F7893L << 32;
+
+    static {
+        for (int i = 0; i < SRGB_TO_LINEAR.length; i++) {
+            double srgb = i / 255.0;
+            SRGB_TO_LINEAR[i] = srgb <= SRGB_THRESHOLD ? srgb / 12.92 : Math.pow((srgb + 0.055) / 1.055, 2.4);
+        }
+        for (int i = 0; i < LINEAR_TO_SRGB.length; i++) {
+            double linear = (double) i / LINEAR_STEPS;
+            double srgb = linear <= LINEAR_THRESHOLD ? linear * 12.92 : 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+            LINEAR_TO_SRGB[i] = (int) Math.round(srgb * 255);
+        }
+    }
+
+    private ColorConversion() {
+    }
+
+    /**
+     * 成分ごとの配列に格納した色を、その場で変換する。
+     *
+     * @param sourceSpace 変換元の色空間。
+     * @param destinationSpace 変換先の色空間。
+     * @param first 1つ目の成分の配列。
+     * @param second 2つ目の成分の配列。
+     * @param third 3つ目の成分の配列。
+     * @param offset 先頭の位置。
+     * @param length 要素数。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            double[] first, double[] second, double[] third, int offset, int length, boolean parallel) {
+        Blocks.checkRange(first.length, offset, length);
+        Blocks.checkRange(second.length, offset, length);
+        Blocks.checkRange(third.length, offset, length);
+        Blocks.run(length, parallel, (from, to) -> convert(sourceSpace, destinationSpace,
+                first, second, third, offset + from, offset + to));
+    }
+
+    /**
+     * {@link DoubleColor3Array}を変換する。
+     *
+     * @param sourceSpace 変換元の色空間。
+     * @param destinationSpace 変換先の色空間。
+     * @param source 変換元のコンテナ。
+     * @param destination 変換先のコンテナ。要素数が変換元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            DoubleColor3Array source, DoubleColor3Array destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        double[] sr = source.getRedArray();
+        double[] sg = source.getGreenArray();
+        double[] sb = source.getBlueArray();
+        double[] dr = destination.getRedArray();
+        double[] dg = destination.getGreenArray();
+        double[] db = destination.getBlueArray();
+        Blocks.run(size, parallel, (from, to) -> {
+            copy(sr, sg, sb, dr, dg, db, from, to);
+            convert(sourceSpace, destinationSpace, dr, dg, db, from, to);
+        });
+    }
+
+    /**
+     * {@link DoubleColor4Array}を変換する。
+     *
+     * @param sourceSpace 変換元の色空間。
+     * @param destinationSpace 変換先の色空間。
+     * @param source 変換元のコンテナ。
+     * @param destination 変換先のコンテナ。要素数が変換元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            DoubleColor4Array source, DoubleColor4Array destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        double[] sr = source.getRedArray();
+        double[] sg = source.getGreenArray();
+        double[] sb = source.getBlueArray();
+        double[] sa = source.getAlphaArray();
+        double[] dr = destination.getRedArray();
+        double[] dg = destination.getGreenArray();
+        double[] db = destination.getBlueArray();
+        double[] da = destination.getAlphaArray();
+        Blocks.run(size, parallel, (from, to) -> {
+            copy(sr, sg, sb, dr, dg, db, from, to);
+            if (sa != da) {
+                System.arraycopy(sa, from, da, from, to - from);
+            }
+            convert(sourceSpace, destinationSpace, dr, dg, db, from, to);
+        });
+    }
+
+    /**
+     * {@link IntColor3Array}を変換し、{@link DoubleColor3Array}に格納する。
+     *
+     * @param sourceSpace 変換元の色空間。
+     * @param destinationSpace 変換先の色空間。
+     * @param source 変換元のコンテナ。
+     * @param destination 変換先のコンテナ。要素数が変換元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            IntColor3Array source, DoubleColor3Array destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        int[] sr = source.getRedArray();
+        int[] sg = source.getGreenArray();
+        int[] sb = source.getBlueArray();
+        double[] dr = destination.getRedArray();
+        double[] dg = destination.getGreenArray();
+        double[] db = destination.getBlueArray();
+        boolean linearize = sourceSpace == ColorSpace.SRGB && destinationSpace.linear;
+        ColorSpace decodedSpace = linearize ? ColorSpace.LINEAR_SRGB : sourceSpace;
+        Blocks.run(size, parallel, (from, to) -> {
+            decode(sourceSpace, linearize, sr, sg, sb, from, dr, dg, db, from, to - from);
+            convert(decodedSpace, destinationSpace, dr, dg, db, from, to);
+        });
+    }
+
+    /**
+     * {@link DoubleColor3Array}を変換し、{@link IntColor3Array}に格納する。
+     *
+     * @param sourceSpace 変換元の色空間。
+     * @param destinationSpace 変換先の色空間。
+     * @param source 変換元のコンテナ。
+     * @param destination 変換先のコンテナ。要素数が変換元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            DoubleColor3Array source, IntColor3Array destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        double[] sr = source.getRedArray();
+        double[] sg = source.getGreenArray();
+        double[] sb = source.getBlueArray();
+        int[] dr = destination.getRedArray();
+        int[] dg = destination.getGreenArray();
+        int[] db = destination.getBlueArray();
+        boolean delinearize = destinationSpace == ColorSpace.SRGB && sourceSpace.linear;
+        ColorSpace encodedSpace = delinearize ? ColorSpace.LINEAR_SRGB : destinationSpace;
+        Blocks.runBlocks(size, parallel, (from, to) -> {
+            double[] first = Arrays.copyOfRange(sr, from, to);
+            double[] second = Arrays.copyOfRange(sg, from, to);
+            double[] third = Arrays.copyOfRange(sb, from, to);
+            convert(sourceSpace, encodedSpace, first, second, third, 0, to - from);
+            encode(destinationSpace, delinearize, first, second, third, 0, dr, dg, db, from, to - from);
+        });
+    }
+
+    /**
+     * {@link IntColor3Array}を変換する。
+     *
+     * @param sourceSpace 変換元の色空間。
+     * @param destinationSpace 変換先の色空間。
+     * @param source 変換元のコンテナ。
+     * @param destination 変換先のコンテナ。要素数が変換元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            IntColor3Array source, IntColor3Array destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        convert(sourceSpace, destinationSpace,
+                source.getRedArray(), source.getGreenArray(), source.getBlueArray(),
+                destination.getRedArray(), destination.getGreenArray(), destination.getBlueArray(), size, parallel);
+    }
+
+    /**
+     * {@link IntColor4Array}を変換する。
+     *
+     * @param sourceSpace 変換元の色空間。
+     * @param destinationSpace 変換先の色空間。
+     * @param source 変換元のコンテナ。
+     * @param destination 変換先のコンテナ。要素数が変換元と等しい必要があります。
+     * @param parallel 並列に処理する場合は{@code true}。
+     */
+    public static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            IntColor4Array source, IntColor4Array destination, boolean parallel) {
+        int size = Blocks.checkSize(source.size(), destination.size());
+        if (source.getAlphaArray() != destination.getAlphaArray()) {
+            System.arraycopy(source.getAlphaArray(), 0, destination.getAlphaArray(), 0, size);
+        }
+        convert(sourceSpace, destinationSpace,
+                source.getRedArray(), source.getGreenArray(), source.getBlueArray(),
+                destination.getRedArray(), destination.getGreenArray(), destination.getBlueArray(), size, parallel);
+    }
+
+    private static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            int[] sr, int[] sg, int[] sb, int[] dr, int[] dg, int[] db, int size, boolean parallel) {
+        if (sourceSpace == destinationSpace) {
+            Blocks.run(size, parallel, (from, to) -> {
+                System.arraycopy(sr, from, dr, from, to - from);
+                System.arraycopy(sg, from, dg, from, to - from);
+                System.arraycopy(sb, from, db, from, to - from);
+            });
+            return;
+        }
+        boolean linearize = sourceSpace == ColorSpace.SRGB && destinationSpace.linear;
+        boolean delinearize = destinationSpace == ColorSpace.SRGB && sourceSpace.linear;
+        ColorSpace decodedSpace = linearize ? ColorSpace.LINEAR_SRGB : sourceSpace;
+        ColorSpace encodedSpace = delinearize ? ColorSpace.LINEAR_SRGB : destinationSpace;
+        Blocks.runBlocks(size, parallel, (from, to) -> {
+            int length = to - from;
+            double[] first = new double[length];
+            double[] second = new double[length];
+            double[] third = new double[length];
+            decode(sourceSpace, linearize, sr, sg, sb, from, first, second, third, 0, length);
+            convert(decodedSpace, encodedSpace, first, second, third, 0, length);
+            encode(destinationSpace, delinearize, first, second, third, 0, dr, dg, db, from, length);
+        });
+    }
+
+    /**
+     * 成分ごとの配列の範囲を、その場で変換する。
+     */
+    private static void convert(ColorSpace sourceSpace, ColorSpace destinationSpace,
+            double[] x, double[] y, double[] z, int from, int to) {
+        if (sourceSpace == destinationSpace) {
+            return;
+        }
+        switch (sourceSpace) {
+            case HSV:
+                hsvToSrgb(x, y, z, from, to);
+                break;
+            case HSL:
+                hslToSrgb(x, y, z, from, to);
+                break;
+            case YCBCR:
+                yCbCrToSrgb(x, y, z, from, to);
+                break;
+            case LAB:
+                labToLinear(x, y, z, from, to);
+                break;
+            default:
+                break;
+        }
+        if (sourceSpace.linear && !destinationSpace.linear) {
+            linearToSrgb(x, from, to);
+            linearToSrgb(y, from, to);
+            linearToSrgb(z, from, to);
+        } else if (!sourceSpace.linear && destinationSpace.linear) {
+            srgbToLinear(x, from, to);
+            srgbToLinear(y, from, to);
+            srgbToLinear(z, from, to);
+        }
+        switch (destinationSpace) {
+            case HSV:
+                srgbToHsv(x, y, z, from, to);
+                break;
+            case HSL:
+                srgbToHsl(x, y, z, from, to);
+                break;
+            case YCBCR:
+                srgbToYCbCr(x, y, z, from, to);
+                break;
+            case LAB:
+                linearToLab(x, y, z, from, to);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void copy(double[] sr, double[] sg, double[] sb, double[] dr, double[] dg, double[] db, int from, int to) {
+        if (sr != dr) {
+            System.arraycopy(sr, from, dr, from, to - from);
+        }
+        if (sg != dg) {
+            System.arraycopy(sg, from, dg, from, to - from);
+        }
+        if (sb != db) {
+            System.arraycopy(sb, from, db, from, to - from);
+        }
+    }
+
+    /**
+     * {@code int}の色を{@code double}の色に戻す。
+     *
+     * {@code linearize}が{@code true}の場合は、sRGBの色を表で線形な値にします。
+     */
+    private static void decode(ColorSpace space, boolean linearize, int[] r, int[] g, int[] b, int sourceFrom,
+            double[] x, double[] y, double[] z, int destinationFrom, int length) {
+        if (linearize) {
+            for (int i = 0; i < length; i++) {
+                x[destinationFrom + i] = SRGB_TO_LINEAR[clampComponent(r[sourceFrom + i])];
+                y[destinationFrom + i] = SRGB_TO_LINEAR[clampComponent(g[sourceFrom + i])];
+                z[destinationFrom + i] = SRGB_TO_LINEAR[clampComponent(b[sourceFrom + i])];
+            }
+            return;
+        }
+        double firstInverse = 1 / space.firstScale;
+        double restInverse = 1 / space.restScale;
+        double firstOffset = space.firstOffset;
+        double restOffset = space.restOffset;
+        for (int i = 0; i < length; i++) {
+            x[destinationFrom + i] = (r[sourceFrom + i] - firstOffset) * firstInverse;
+            y[destinationFrom + i] = (g[sourceFrom + i] - restOffset) * restInverse;
+            z[destinationFrom + i] = (b[sourceFrom + i] - restOffset) * restInverse;
+        }
+    }
+
+    /**
+     * {@code double}の色を丸めて{@code int}の色にする。
+     *
+     * {@code delinearize}が{@code true}の場合は、線形な値を表でsRGBの色にします。
+     */
+    private static void encode(ColorSpace space, boolean delinearize, double[] x, double[] y, double[] z, int sourceFrom,
+            int[] r, int[] g, int[] b, int destinationFrom, int length) {
+        if (delinearize) {
+            for (int i = 0; i < length; i++) {
+                r[destinationFrom + i] = LINEAR_TO_SRGB[linearIndex(x[sourceFrom + i])];
+                g[destinationFrom + i] = LINEAR_TO_SRGB[linearIndex(y[sourceFrom + i])];
+                b[destinationFrom + i] = LINEAR_TO_SRGB[linearIndex(z[sourceFrom + i])];
+            }
+            return;
+        }
+        double firstScale = space.firstScale;
+        double restScale = space.restScale;
+        double firstOffset = space.firstOffset + 0.5;
+        double restOffset = space.restOffset + 0.5;
+        for (int i = 0; i < length; i++) {
+            r[destinationFrom + i] = round(x[sourceFrom + i] * firstScale + firstOffset);
+            g[destinationFrom + i] = round(y[sourceFrom + i] * restScale + restOffset);
+            b[destinationFrom + i] = round(z[sourceFrom + i] * restScale + restOffset);
+        }
+    }
+
+    private static int clampComponent(int component) {
+        return Math.max(0, Math.min(255, component));
+    }
+
+    /**
+     * {@code 0.5}を足した値を切り捨て、{@code 0}以上{@code 255}以下に収める。
+     */
+    private static int round(double value) {
+        return (int) Math.max(0, Math.min(255, value));
+    }
+
+    private static int linearIndex(double linear) {
+        return (int) Math.max(0, Math.min(LINEAR_STEPS, linear * LINEAR_STEPS + 0.5));
+    }
+
+    private static void srgbToLinear(double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double c = values[i];
+            double curve = ((((((TO_LINEAR_7 * c + TO_LINEAR_6) * c + TO_LINEAR_5) * c + TO_LINEAR_4) * c
+                    + TO_LINEAR_3) * c + TO_LINEAR_2) * c + TO_LINEAR_1) * c + TO_LINEAR_0;
+            values[i] = c <= SRGB_THRESHOLD ? c * (1 / 12.92) : curve;
+        }
+    }
+
+    private static void linearToSrgb(double[] values, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double c = values[i];
+            double root = Math.sqrt(Math.sqrt(Math.sqrt(c)));
+            double curve = ((((TO_SRGB_5 * root + TO_SRGB_4) * root + TO_SRGB_3) * root + TO_SRGB_2) * root
+                    + TO_SRGB_1) * root + TO_SRGB_0;
+            values[i] = c <= LINEAR_THRESHOLD ? c * 12.92 : curve;
+        }
+    }
+
+    private static void srgbToHsv(double[] x, double[] y, double[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double r = x[i];
+            double g = y[i];
+            double b = z[i];
+            double max = Math.max(r, Math.max(g, b));
+            double chroma = max - Math.min(r, Math.min(g, b));
+            x[i] = hue(r, g, b, max, chroma);
+            y[i] = max == 0 ? 0 : chroma / max;
+            z[i] = max;
+        }
+    }
+
+    private static void hsvToSrgb(double[] x, double[] y, double[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double h = x[i];
+            double s = y[i];
+            double v = z[i];
+            double base = v * (1 - s);
+            double scale = v * s;
+            x[i] = base + scale * ramp(h + 1);
+            y[i] = base + scale * ramp(h + 2.0 / 3);
+            z[i] = base + scale * ramp(h + 1.0 / 3);
+        }
+    }
+
+    private static void srgbToHsl(double[] x, double[] y, double[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double r = x[i];
+            double g = y[i];
+            double b = z[i];
+            double max = Math.max(r, Math.max(g, b));
+            double min = Math.min(r, Math.min(g, b));
+            double chroma = max - min;
+            double lightness = (max + min) * 0.5;
+            x[i] = hue(r, g, b, max, chroma);
+            y[i] = chroma == 0 ? 0 : chroma / (1 - Math.abs(2 * lightness - 1));
+            z[i] = lightness;
+        }
+    }
+
+    private static void hslToSrgb(double[] x, double[] y, double[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double h = x[i];
+            double lightness = z[i];
+            double chroma = (1 - Math.abs(2 * lightness - 1)) * y[i];
+            double base = lightness - chroma * 0.5;
+            x[i] = base + chroma * ramp(h + 1);
+            y[i] = base + chroma * ramp(h + 2.0 / 3);
+            z[i] = base + chroma * ramp(h + 1.0 / 3);
+        }
+    }
+
+    /**
+     * 色相を{@code 0}以上{@code 1}未満で返す。
+     */
+    private static double hue(double r, double g, double b, double max, double chroma) {
+        double inverse = chroma == 0 ? 0 : 1 / chroma;
+        double sector = r == max ? (g - b) * inverse : g == max ? 2 + (b - r) * inverse : 4 + (r - g) * inverse;
+        double hue = sector * (1.0 / 6);
+        return hue - Math.floor(hue);
+    }
+
+    /**
+     * 色相から1つの成分の重みを、{@code 0}以上{@code 1}以下で返す。
+     */
+    private static double ramp(double shiftedHue) {
+        double weight = Math.abs((shiftedHue - Math.floor(shiftedHue)) * 6 - 3) - 1;
+        return Math.max(0, Math.min(1, weight));
+    }
+
+    private static void srgbToYCbCr(double[] x, double[] y, double[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double r = x[i];
+            double g = y[i];
+            double b = z[i];
+            x[i] = 0.299 * r + 0.587 * g + 0.114 * b;
+            y[i] = -0.168736 * r - 0.331264 * g + 0.5 * b;
+            z[i] = 0.5 * r - 0.418688 * g - 0.081312 * b;
+        }
+    }
+
+    private static void yCbCrToSrgb(double[] x, double[] y, double[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double luma = x[i];
+            double cb = y[i];
+            double cr = z[i];
+            x[i] = luma + 1.402 * cr;
+            y[i] = luma - 0.344136 * cb - 0.714136 * cr;
+            z[i] = luma + 1.772 * cb;
+        }
+    }
+
+    private static void linearToLab(double[] x, double[] y, double[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double r = x[i];
+            double g = y[i];
+            double b = z[i];
+            double fx = labCurve((0.4124564 / WHITE_X) * r + (0.3575761 / WHITE_X) * g + (0.1804375 / WHITE_X) * b);
+            double fy = labCurve(0.2126729 * r + 0.7151522 * g + 0.0721750 * b);
+            double fz = labCurve((0.0193339 / WHITE_Z) * r + (0.1191920 / WHITE_Z) * g + (0.9503041 / WHITE_Z) * b);
+            x[i] = 116 * fy - 16;
+            y[i] = 500 * (fx - fy);
+            z[i] = 200 * (fy - fz);
+        }
+    }
+
+    private static void labToLinear(double[] x, double[] y, double[] z, int from, int to) {
+        for (int i = from; i < to; i++) {
+            double fy = (x[i] + 16) * (1.0 / 116);
+            double tx = WHITE_X * inverseLabCurve(fy + y[i] * (1.0 / 500));
+            double ty = inverseLabCurve(fy);
+            double tz = WHITE_Z * inverseLabCurve(fy - z[i] * (1.0 / 200));
+            x[i] = 3.2404542 * tx - 1.5371385 * ty - 0.4985314 * tz;
+            y[i] = -0.9692660 * tx + 1.8760108 * ty + 0.0415560 * tz;
+            z[i] = 0.0556434 * tx - 0.2040259 * ty + 1.0572252 * tz;
+        }
+    }
+
+    private static double labCurve(double t) {
+        double linear = (LAB_KAPPA * t + 16) * (1.0 / 116);
+        return t > LAB_EPSILON ? cbrt(t) : linear;
+    }
+
+    private static double inverseLabCurve(double f) {
+        double linear = (116 * f - 16) * (1 / LAB_KAPPA);
+        return f > LAB_DELTA ? f * f * f : linear;
+    }
+
+    /**
+     * 正の値の立方根を返す。
+     *
+     * ビット表現から求めた初期値を、Halley法で2回改善します。
+     */
+    private static double cbrt(double value) {
+        double root = Double.longBitsToDouble(Double.doubleToRawLongBits(value) / 3 + CBRT_MAGIC);
+        double cube = root * root * root;
+        root *= (cube + 2 * value) / (2 * cube + value);
+        cube = root * root * root;
+        return root * (cube + 2 * value) / (2 * cube + value);
+    }
+}
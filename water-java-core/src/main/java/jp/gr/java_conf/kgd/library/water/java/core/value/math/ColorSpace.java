@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+/**
+ * {@link ColorConversion}で使う色空間。
+ *
+ * 3つの成分は、色のコンテナの赤成分、緑成分、青成分の位置にこの順で格納します。
+ * {@code double}の色の各成分の範囲は色空間ごとに説明の通りです。
+ * {@code int}の色は各成分{@code 0}以上{@code 255}以下で、{@code double}の値を{@code 値 * scale + offset}で丸めたものとして扱います。
+ *
+ * @author misakura
+ */
+public enum ColorSpace {
+
+    /**
+     * ガンマ補正されたsRGB。（各成分{@code 0}以上{@code 1}以下）
+     */
+    SRGB(false, 255, 0, 255, 0),
+
+    /**
+     * 線形なsRGB。（各成分{@code 0}以上{@code 1}以下）
+     */
+    LINEAR_SRGB(true, 255, 0, 255, 0),
+
+    /**
+     * sRGBの色相、彩度、明度。（色相は1周を{@code 0}以上{@code 1}未満、他は{@code 0}以上{@code 1}以下）
+     */
+    HSV(false, 255, 0, 255, 0),
+
+    /**
+     * sRGBの色相、彩度、輝度。（色相は1周を{@code 0}以上{@code 1}未満、他は{@code 0}以上{@code 1}以下）
+     */
+    HSL(false, 255, 0, 255, 0),
+
+    /**
+     * ITU-R BT.601の係数によるフルレンジのYCbCr。（JPEGと同じ。Yは{@code 0}以上{@code 1}以下、Cb、Crは{@code -0.5}以上{@code 0.5}以下）
+     *
+     * {@code int}の色ではCb、Crに{@code 128}を足します。
+     */
+    YCBCR(false, 255, 0, 255, 128),
+
+    /**
+     * D65を白色点とするCIE L*a*b*。（L*は{@code 0}以上{@code 100}以下、a*、b*はおよそ{@code -128}以上{@code 127}以下）
+     *
+     * {@code int}の色ではL*を{@code 255 / 100}倍し、a*、b*に{@code 128}を足します。
+     */
+    LAB(true, 2.55, 0, 1, 128);
+
+    /**
+     * 線形なsRGBを経由して変換するかどうか。
+     */
+    final boolean linear;
+
+    /**
+     * {@code int}の色の1つ目の成分の倍率。
+     */
+    final double firstScale;
+
+    /**
+     * {@code int}の色の1つ目の成分のオフセット。
+     */
+    final double firstOffset;
+
+    /**
+     * {@code int}の色の2つ目と3つ目の成分の倍率。
+     */
+    final double restScale;
+
+    /**
+     * {@code int}の色の2つ目と3つ目の成分のオフセット。
+     */
+    final double restOffset;
+
+    private ColorSpace(boolean linear, double firstScale, double firstOffset, double restScale, double restOffset) {
+        this.linear = linear;
+        this.firstScale = firstScale;
+        this.firstOffset = firstOffset;
+        this.restScale = restScale;
+        this.restOffset = restOffset;
+    }
+}
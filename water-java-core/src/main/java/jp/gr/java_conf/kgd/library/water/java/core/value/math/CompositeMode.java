@@ -0,0 +1,166 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+/**
+ * {@link ColorCompositing}で使う合成方法。
+ *
+ * 説明中の{@code αs}と{@code αd}は合成元と合成先の透明度、{@code cs}と{@code cd}は乗算済みの色成分です。
+ * Porter-Duffの合成は、合成元に係数{@code Fa}を、合成先に係数{@code Fb}を掛けて足し合わせます。
+ * それ以外のブレンドは、W3C Compositing and Blending Level 1の分離可能なブレンドモードに従います。
+ *
+ * @author misakura
+ */
+public enum CompositeMode {
+
+    /**
+     * 両方を消す。（{@code Fa = 0, Fb = 0}）
+     */
+    CLEAR(0, 0, 0, 0),
+
+    /**
+     * 合成元で置き換える。（{@code Fa = 1, Fb = 0}）
+     */
+    SRC(1, 0, 0, 0),
+
+    /**
+     * 合成先を残す。（{@code Fa = 0, Fb = 1}）
+     */
+    DST(0, 0, 1, 0),
+
+    /**
+     * 合成元を合成先の上に重ねる。（{@code Fa = 1, Fb = 1 - αs}）
+     */
+    SRC_OVER(1, 0, 1, -1),
+
+    /**
+     * 合成先を合成元の上に重ねる。（{@code Fa = 1 - αd, Fb = 1}）
+     */
+    DST_OVER(1, -1, 1, 0),
+
+    /**
+     * 合成先の内側の合成元を残す。（{@code Fa = αd, Fb = 0}）
+     */
+    SRC_IN(0, 1, 0, 0),
+
+    /**
+     * 合成元の内側の合成先を残す。（{@code Fa = 0, Fb = αs}）
+     */
+    DST_IN(0, 0, 0, 1),
+
+    /**
+     * 合成先の外側の合成元を残す。（{@code Fa = 1 - αd, Fb = 0}）
+     */
+    SRC_OUT(1, -1, 0, 0),
+
+    /**
+     * 合成元の外側の合成先を残す。（{@code Fa = 0, Fb = 1 - αs}）
+     */
+    DST_OUT(0, 0, 1, -1),
+
+    /**
+     * 合成先の内側の合成元を、合成先の上に重ねる。（{@code Fa = αd, Fb = 1 - αs}）
+     */
+    SRC_ATOP(0, 1, 1, -1),
+
+    /**
+     * 合成元の内側の合成先を、合成元の上に重ねる。（{@code Fa = 1 - αd, Fb = αs}）
+     */
+    DST_ATOP(1, -1, 0, 1),
+
+    /**
+     * 互いの外側だけを残す。（{@code Fa = 1 - αd, Fb = 1 - αs}）
+     */
+    XOR(1, -1, 1, -1),
+
+    /**
+     * 乗算。（{@code B(Cs, Cd) = Cs * Cd}）
+     */
+    MULTIPLY,
+
+    /**
+     * スクリーン。（{@code B(Cs, Cd) = Cs + Cd - Cs * Cd}）
+     */
+    SCREEN,
+
+    /**
+     * オーバーレイ。合成先が暗い部分は乗算、明るい部分はスクリーンになります。
+     */
+    OVERLAY,
+
+    /**
+     * 加算。色成分と透明度をそれぞれ足し、最大値で飽和させます。
+     */
+    ADD;
+
+    /**
+     * Porter-Duffの合成かどうか。
+     */
+    final boolean porterDuff;
+
+    /**
+     * {@code Fa}の定数項。
+     */
+    final int sourceBase;
+
+    /**
+     * {@code Fa}の{@code αd}の係数。
+     */
+    final int sourceScale;
+
+    /**
+     * {@code Fb}の定数項。
+     */
+    final int destinationBase;
+
+    /**
+     * {@code Fb}の{@code αs}の係数。
+     */
+    final int destinationScale;
+
+    private CompositeMode() {
+        this.porterDuff = false;
+        this.sourceBase = 0;
+        this.sourceScale = 0;
+        this.destinationBase = 0;
+        this.destinationScale = 0;
+    }
+
+    private CompositeMode(int sourceBase, int sourceScale, int destinationBase, int destinationScale) {
+        this.porterDuff = true;
+        this.sourceBase = sourceBase;
+        this.sourceScale = sourceScale;
+        this.destinationBase = destinationBase;
+        this.destinationScale = destinationScale;
+    }
+
+    /**
+     * Porter-Duffの合成かどうかを返す。
+     *
+     * @return Porter-Duffの合成の場合は{@code true}。
+     */
+    public boolean isPorterDuff() {
+        return porterDuff;
+    }
+}
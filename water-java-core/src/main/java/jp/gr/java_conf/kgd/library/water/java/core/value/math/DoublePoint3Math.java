@@ -0,0 +1,247 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoublePoint3;
+
+/**
+ * {@link DoublePoint3}に対する演算。
+ *
+ * 全ての演算はインスタンスを生成しません。
+ * 結果が点となる演算は、呼び出し側が用意した{@link MutableDoublePoint3}に結果を設定するか、
+ * 第1引数の点をその場で書き換えます。
+ * 結果の設定先に引数と同じインスタンスを渡すこともできます。
+ *
+ * @author misakura
+ */
+public final class DoublePoint3Math {
+
+    private DoublePoint3Math() {
+    }
+
+    /**
+     * 2つの点の内積を返す。
+     *
+     * @param left 左辺の点。
+     * @param right 右辺の点。
+     * @return 内積。
+     */
+    public static double dot(DoublePoint3 left, DoublePoint3 right) {
+        return left.getXAsDouble() * right.getXAsDouble()
+                + left.getYAsDouble() * right.getYAsDouble()
+                + left.getZAsDouble() * right.getZAsDouble();
+    }
+
+    /**
+     * 点の長さの2乗を返す。
+     *
+     * @param point 対象の点。
+     * @return 長さの2乗。
+     */
+    public static double lengthSquared(DoublePoint3 point) {
+        return dot(point, point);
+    }
+
+    /**
+     * 点の長さを返す。
+     *
+     * @param point 対象の点。
+     * @return 長さ。
+     */
+    public static double length(DoublePoint3 point) {
+        return Math.sqrt(lengthSquared(point));
+    }
+
+    /**
+     * 2つの点の距離の2乗を返す。
+     *
+     * @param left 一方の点。
+     * @param right 他方の点。
+     * @return 距離の2乗。
+     */
+    public static double distanceSquared(DoublePoint3 left, DoublePoint3 right) {
+        double dx = left.getXAsDouble() - right.getXAsDouble();
+        double dy = left.getYAsDouble() - right.getYAsDouble();
+        double dz = left.getZAsDouble() - right.getZAsDouble();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * 2つの点の距離を返す。
+     *
+     * @param left 一方の点。
+     * @param right 他方の点。
+     * @return 距離。
+     */
+    public static double distance(DoublePoint3 left, DoublePoint3 right) {
+        return Math.sqrt(distanceSquared(left, right));
+    }
+
+    /**
+     * 2つの点の和を求める。
+     *
+     * @param left 左辺の点。
+     * @param right 右辺の点。
+     * @param destination 結果の設定先。
+     */
+    public static void add(DoublePoint3 left, DoublePoint3 right, MutableDoublePoint3 destination) {
+        destination.set(left.getXAsDouble() + right.getXAsDouble(),
+                left.getYAsDouble() + right.getYAsDouble(),
+                left.getZAsDouble() + right.getZAsDouble());
+    }
+
+    /**
+     * 点に他の点を加える。
+     *
+     * @param target 左辺であり、結果の設定先となる点。
+     * @param right 右辺の点。
+     */
+    public static void add(MutableDoublePoint3 target, DoublePoint3 right) {
+        add(target, right, target);
+    }
+
+    /**
+     * 2つの点の差を求める。
+     *
+     * @param left 左辺の点。
+     * @param right 右辺の点。
+     * @param destination 結果の設定先。
+     */
+    public static void subtract(DoublePoint3 left, DoublePoint3 right, MutableDoublePoint3 destination) {
+        destination.set(left.getXAsDouble() - right.getXAsDouble(),
+                left.getYAsDouble() - right.getYAsDouble(),
+                left.getZAsDouble() - right.getZAsDouble());
+    }
+
+    /**
+     * 点から他の点を引く。
+     *
+     * @param target 左辺であり、結果の設定先となる点。
+     * @param right 右辺の点。
+     */
+    public static void subtract(MutableDoublePoint3 target, DoublePoint3 right) {
+        subtract(target, right, target);
+    }
+
+    /**
+     * 点の全ての次元を定数倍する。
+     *
+     * @param point 対象の点。
+     * @param factor 倍率。
+     * @param destination 結果の設定先。
+     */
+    public static void scale(DoublePoint3 point, double factor, MutableDoublePoint3 destination) {
+        destination.set(point.getXAsDouble() * factor, point.getYAsDouble() * factor, point.getZAsDouble() * factor);
+    }
+
+    /**
+     * 点の全ての次元をその場で定数倍する。
+     *
+     * @param target 対象であり、結果の設定先となる点。
+     * @param factor 倍率。
+     */
+    public static void scale(MutableDoublePoint3 target, double factor) {
+        scale(target, factor, target);
+    }
+
+    /**
+     * 点の全ての次元の符号を反転する。
+     *
+     * @param point 対象の点。
+     * @param destination 結果の設定先。
+     */
+    public static void negate(DoublePoint3 point, MutableDoublePoint3 destination) {
+        destination.set(-point.getXAsDouble(), -point.getYAsDouble(), -point.getZAsDouble());
+    }
+
+    /**
+     * 点の全ての次元の符号をその場で反転する。
+     *
+     * @param target 対象であり、結果の設定先となる点。
+     */
+    public static void negate(MutableDoublePoint3 target) {
+        negate(target, target);
+    }
+
+    /**
+     * 点を長さ{@code 1}に正規化する。
+     *
+     * 長さが{@code 0}の場合は、全ての次元を{@code 0}とします。
+     *
+     * @param point 対象の点。
+     * @param destination 結果の設定先。
+     */
+    public static void normalize(DoublePoint3 point, MutableDoublePoint3 destination) {
+        double x = point.getXAsDouble();
+        double y = point.getYAsDouble();
+        double z = point.getZAsDouble();
+        double lengthSquared = x * x + y * y + z * z;
+        if (lengthSquared == 0) {
+            destination.set(0, 0, 0);
+            return;
+        }
+        double inverse = 1 / Math.sqrt(lengthSquared);
+        destination.set(x * inverse, y * inverse, z * inverse);
+    }
+
+    /**
+     * 点をその場で長さ{@code 1}に正規化する。
+     *
+     * 長さが{@code 0}の場合は、全ての次元を{@code 0}とします。
+     *
+     * @param target 対象であり、結果の設定先となる点。
+     */
+    public static void normalize(MutableDoublePoint3 target) {
+        normalize(target, target);
+    }
+
+    /**
+     * 2つの点を線形補間する。
+     *
+     * @param from 補間の始点。（{@code t}が{@code 0}の場合の値。）
+     * @param to 補間の終点。（{@code t}が{@code 1}の場合の値。）
+     * @param t 補間係数。
+     * @param destination 結果の設定先。
+     */
+    public static void lerp(DoublePoint3 from, DoublePoint3 to, double t, MutableDoublePoint3 destination) {
+        double x = from.getXAsDouble();
+        double y = from.getYAsDouble();
+        double z = from.getZAsDouble();
+        destination.set(x + (to.getXAsDouble() - x) * t,
+                y + (to.getYAsDouble() - y) * t,
+                z + (to.getZAsDouble() - z) * t);
+    }
+
+    /**
+     * 点をその場で他の点に向けて線形補間する。
+     *
+     * @param target 補間の始点であり、結果の設定先となる点。
+     * @param to 補間の終点。
+     * @param t 補間係数。
+     */
+    public static void lerp(MutableDoublePoint3 target, DoublePoint3 to, double t) {
+        lerp(target, to, t, target);
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleVector2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleVector2;
+
+/**
+ * {@link DoubleVector2}に対する演算。
+ *
+ * 全ての演算はインスタンスを生成しません。
+ * 結果がベクトルとなる演算は、呼び出し側が用意した{@link MutableDoubleVector2}に結果を設定するか、
+ * 第1引数のベクトルをその場で書き換えます。
+ * 結果の設定先に引数と同じインスタンスを渡すこともできます。
+ *
+ * @author misakura
+ */
+public final class DoubleVector2Math {
+
+    private DoubleVector2Math() {
+    }
+
+    /**
+     * 2つのベクトルの内積を返す。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @return 内積。
+     */
+    public static double dot(DoubleVector2 left, DoubleVector2 right) {
+        return left.getXAsDouble() * right.getXAsDouble()
+                + left.getYAsDouble() * right.getYAsDouble();
+    }
+
+    /**
+     * ベクトルの長さの2乗を返す。
+     *
+     * @param vector 対象のベクトル。
+     * @return 長さの2乗。
+     */
+    public static double lengthSquared(DoubleVector2 vector) {
+        return dot(vector, vector);
+    }
+
+    /**
+     * ベクトルの長さを返す。
+     *
+     * @param vector 対象のベクトル。
+     * @return 長さ。
+     */
+    public static double length(DoubleVector2 vector) {
+        return Math.sqrt(lengthSquared(vector));
+    }
+
+    /**
+     * 2つのベクトルの距離の2乗を返す。
+     *
+     * @param left 一方のベクトル。
+     * @param right 他方のベクトル。
+     * @return 距離の2乗。
+     */
+    public static double distanceSquared(DoubleVector2 left, DoubleVector2 right) {
+        double dx = left.getXAsDouble() - right.getXAsDouble();
+        double dy = left.getYAsDouble() - right.getYAsDouble();
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * 2つのベクトルの距離を返す。
+     *
+     * @param left 一方のベクトル。
+     * @param right 他方のベクトル。
+     * @return 距離。
+     */
+    public static double distance(DoubleVector2 left, DoubleVector2 right) {
+        return Math.sqrt(distanceSquared(left, right));
+    }
+
+    /**
+     * 2つのベクトルの和を求める。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void add(DoubleVector2 left, DoubleVector2 right, MutableDoubleVector2 destination) {
+        destination.set(left.getXAsDouble() + right.getXAsDouble(),
+                left.getYAsDouble() + right.getYAsDouble());
+    }
+
+    /**
+     * ベクトルに他のベクトルを加える。
+     *
+     * @param target 左辺であり、結果の設定先となるベクトル。
+     * @param right 右辺のベクトル。
+     */
+    public static void add(MutableDoubleVector2 target, DoubleVector2 right) {
+        add(target, right, target);
+    }
+
+    /**
+     * 2つのベクトルの差を求める。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void subtract(DoubleVector2 left, DoubleVector2 right, MutableDoubleVector2 destination) {
+        destination.set(left.getXAsDouble() - right.getXAsDouble(),
+                left.getYAsDouble() - right.getYAsDouble());
+    }
+
+    /**
+     * ベクトルから他のベクトルを引く。
+     *
+     * @param target 左辺であり、結果の設定先となるベクトル。
+     * @param right 右辺のベクトル。
+     */
+    public static void subtract(MutableDoubleVector2 target, DoubleVector2 right) {
+        subtract(target, right, target);
+    }
+
+    /**
+     * ベクトルの全ての次元を定数倍する。
+     *
+     * @param vector 対象のベクトル。
+     * @param factor 倍率。
+     * @param destination 結果の設定先。
+     */
+    public static void scale(DoubleVector2 vector, double factor, MutableDoubleVector2 destination) {
+        destination.set(vector.getXAsDouble() * factor, vector.getYAsDouble() * factor);
+    }
+
+    /**
+     * ベクトルの全ての次元をその場で定数倍する。
+     *
+     * @param target 対象であり、結果の設定先となるベクトル。
+     * @param factor 倍率。
+     */
+    public static void scale(MutableDoubleVector2 target, double factor) {
+        scale(target, factor, target);
+    }
+
+    /**
+     * ベクトルの全ての次元の符号を反転する。
+     *
+     * @param vector 対象のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void negate(DoubleVector2 vector, MutableDoubleVector2 destination) {
+        destination.set(-vector.getXAsDouble(), -vector.getYAsDouble());
+    }
+
+    /**
+     * ベクトルの全ての次元の符号をその場で反転する。
+     *
+     * @param target 対象であり、結果の設定先となるベクトル。
+     */
+    public static void negate(MutableDoubleVector2 target) {
+        negate(target, target);
+    }
+
+    /**
+     * ベクトルを長さ{@code 1}に正規化する。
+     *
+     * 長さが{@code 0}の場合は、全ての次元を{@code 0}とします。
+     *
+     * @param vector 対象のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void normalize(DoubleVector2 vector, MutableDoubleVector2 destination) {
+        double x = vector.getXAsDouble();
+        double y = vector.getYAsDouble();
+        double lengthSquared = x * x + y * y;
+        if (lengthSquared == 0) {
+            destination.set(0, 0);
+            return;
+        }
+        double inverse = 1 / Math.sqrt(lengthSquared);
+        destination.set(x * inverse, y * inverse);
+    }
+
+    /**
+     * ベクトルをその場で長さ{@code 1}に正規化する。
+     *
+     * 長さが{@code 0}の場合は、全ての次元を{@code 0}とします。
+     *
+     * @param target 対象であり、結果の設定先となるベクトル。
+     */
+    public static void normalize(MutableDoubleVector2 target) {
+        normalize(target, target);
+    }
+
+    /**
+     * 2つのベクトルを線形補間する。
+     *
+     * @param from 補間の始点。（{@code t}が{@code 0}の場合の値。）
+     * @param to 補間の終点。（{@code t}が{@code 1}の場合の値。）
+     * @param t 補間係数。
+     * @param destination 結果の設定先。
+     */
+    public static void lerp(DoubleVector2 from, DoubleVector2 to, double t, MutableDoubleVector2 destination) {
+        double x = from.getXAsDouble();
+        double y = from.getYAsDouble();
+        destination.set(x + (to.getXAsDouble() - x) * t,
+                y + (to.getYAsDouble() - y) * t);
+    }
+
+    /**
+     * ベクトルをその場で他のベクトルに向けて線形補間する。
+     *
+     * @param target 補間の始点であり、結果の設定先となるベクトル。
+     * @param to 補間の終点。
+     * @param t 補間係数。
+     */
+    public static void lerp(MutableDoubleVector2 target, DoubleVector2 to, double t) {
+        lerp(target, to, t, target);
+    }
+}
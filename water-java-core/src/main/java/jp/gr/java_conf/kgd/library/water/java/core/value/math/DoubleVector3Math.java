@@ -0,0 +1,274 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableDoubleVector3;
+
+/**
+ * {@link DoubleVector3}に対する演算。
+ *
+ * 全ての演算はインスタンスを生成しません。
+ * 結果がベクトルとなる演算は、呼び出し側が用意した{@link MutableDoubleVector3}に結果を設定するか、
+ * 第1引数のベクトルをその場で書き換えます。
+ * 結果の設定先に引数と同じインスタンスを渡すこともできます。
+ *
+ * @author misakura
+ */
+public final class DoubleVector3Math {
+
+    private DoubleVector3Math() {
+    }
+
+    /**
+     * 2つのベクトルの内積を返す。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @return 内積。
+     */
+    public static double dot(DoubleVector3 left, DoubleVector3 right) {
+        return left.getXAsDouble() * right.getXAsDouble()
+                + left.getYAsDouble() * right.getYAsDouble()
+                + left.getZAsDouble() * right.getZAsDouble();
+    }
+
+    /**
+     * ベクトルの長さの2乗を返す。
+     *
+     * @param vector 対象のベクトル。
+     * @return 長さの2乗。
+     */
+    public static double lengthSquared(DoubleVector3 vector) {
+        return dot(vector, vector);
+    }
+
+    /**
+     * ベクトルの長さを返す。
+     *
+     * @param vector 対象のベクトル。
+     * @return 長さ。
+     */
+    public static double length(DoubleVector3 vector) {
+        return Math.sqrt(lengthSquared(vector));
+    }
+
+    /**
+     * 2つのベクトルの距離の2乗を返す。
+     *
+     * @param left 一方のベクトル。
+     * @param right 他方のベクトル。
+     * @return 距離の2乗。
+     */
+    public static double distanceSquared(DoubleVector3 left, DoubleVector3 right) {
+        double dx = left.getXAsDouble() - right.getXAsDouble();
+        double dy = left.getYAsDouble() - right.getYAsDouble();
+        double dz = left.getZAsDouble() - right.getZAsDouble();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * 2つのベクトルの距離を返す。
+     *
+     * @param left 一方のベクトル。
+     * @param right 他方のベクトル。
+     * @return 距離。
+     */
+    public static double distance(DoubleVector3 left, DoubleVector3 right) {
+        return Math.sqrt(distanceSquared(left, right));
+    }
+
+    /**
+     * 2つのベクトルの和を求める。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void add(DoubleVector3 left, DoubleVector3 right, MutableDoubleVector3 destination) {
+        destination.set(left.getXAsDouble() + right.getXAsDouble(),
+                left.getYAsDouble() + right.getYAsDouble(),
+                left.getZAsDouble() + right.getZAsDouble());
+    }
+
+    /**
+     * ベクトルに他のベクトルを加える。
+     *
+     * @param target 左辺であり、結果の設定先となるベクトル。
+     * @param right 右辺のベクトル。
+     */
+    public static void add(MutableDoubleVector3 target, DoubleVector3 right) {
+        add(target, right, target);
+    }
+
+    /**
+     * 2つのベクトルの差を求める。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void subtract(DoubleVector3 left, DoubleVector3 right, MutableDoubleVector3 destination) {
+        destination.set(left.getXAsDouble() - right.getXAsDouble(),
+                left.getYAsDouble() - right.getYAsDouble(),
+                left.getZAsDouble() - right.getZAsDouble());
+    }
+
+    /**
+     * ベクトルから他のベクトルを引く。
+     *
+     * @param target 左辺であり、結果の設定先となるベクトル。
+     * @param right 右辺のベクトル。
+     */
+    public static void subtract(MutableDoubleVector3 target, DoubleVector3 right) {
+        subtract(target, right, target);
+    }
+
+    /**
+     * ベクトルの全ての次元を定数倍する。
+     *
+     * @param vector 対象のベクトル。
+     * @param factor 倍率。
+     * @param destination 結果の設定先。
+     */
+    public static void scale(DoubleVector3 vector, double factor, MutableDoubleVector3 destination) {
+        destination.set(vector.getXAsDouble() * factor, vector.getYAsDouble() * factor, vector.getZAsDouble() * factor);
+    }
+
+    /**
+     * ベクトルの全ての次元をその場で定数倍する。
+     *
+     * @param target 対象であり、結果の設定先となるベクトル。
+     * @param factor 倍率。
+     */
+    public static void scale(MutableDoubleVector3 target, double factor) {
+        scale(target, factor, target);
+    }
+
+    /**
+     * ベクトルの全ての次元の符号を反転する。
+     *
+     * @param vector 対象のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void negate(DoubleVector3 vector, MutableDoubleVector3 destination) {
+        destination.set(-vector.getXAsDouble(), -vector.getYAsDouble(), -vector.getZAsDouble());
+    }
+
+    /**
+     * ベクトルの全ての次元の符号をその場で反転する。
+     *
+     * @param target 対象であり、結果の設定先となるベクトル。
+     */
+    public static void negate(MutableDoubleVector3 target) {
+        negate(target, target);
+    }
+
+    /**
+     * ベクトルを長さ{@code 1}に正規化する。
+     *
+     * 長さが{@code 0}の場合は、全ての次元を{@code 0}とします。
+     *
+     * @param vector 対象のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void normalize(DoubleVector3 vector, MutableDoubleVector3 destination) {
+        double x = vector.getXAsDouble();
+        double y = vector.getYAsDouble();
+        double z = vector.getZAsDouble();
+        double lengthSquared = x * x + y * y + z * z;
+        if (lengthSquared == 0) {
+            destination.set(0, 0, 0);
+            return;
+        }
+        double inverse = 1 / Math.sqrt(lengthSquared);
+        destination.set(x * inverse, y * inverse, z * inverse);
+    }
+
+    /**
+     * ベクトルをその場で長さ{@code 1}に正規化する。
+     *
+     * 長さが{@code 0}の場合は、全ての次元を{@code 0}とします。
+     *
+     * @param target 対象であり、結果の設定先となるベクトル。
+     */
+    public static void normalize(MutableDoubleVector3 target) {
+        normalize(target, target);
+    }
+
+    /**
+     * 2つのベクトルを線形補間する。
+     *
+     * @param from 補間の始点。（{@code t}が{@code 0}の場合の値。）
+     * @param to 補間の終点。（{@code t}が{@code 1}の場合の値。）
+     * @param t 補間係数。
+     * @param destination 結果の設定先。
+     */
+    public static void lerp(DoubleVector3 from, DoubleVector3 to, double t, MutableDoubleVector3 destination) {
+        double x = from.getXAsDouble();
+        double y = from.getYAsDouble();
+        double z = from.getZAsDouble();
+        destination.set(x + (to.getXAsDouble() - x) * t,
+                y + (to.getYAsDouble() - y) * t,
+                z + (to.getZAsDouble() - z) * t);
+    }
+
+    /**
+     * ベクトルをその場で他のベクトルに向けて線形補間する。
+     *
+     * @param target 補間の始点であり、結果の設定先となるベクトル。
+     * @param to 補間の終点。
+     * @param t 補間係数。
+     */
+    public static void lerp(MutableDoubleVector3 target, DoubleVector3 to, double t) {
+        lerp(target, to, t, target);
+    }
+
+    /**
+     * 2つのベクトルの外積を求める。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void cross(DoubleVector3 left, DoubleVector3 right, MutableDoubleVector3 destination) {
+        double lx = left.getXAsDouble();
+        double ly = left.getYAsDouble();
+        double lz = left.getZAsDouble();
+        double rx = right.getXAsDouble();
+        double ry = right.getYAsDouble();
+        double rz = right.getZAsDouble();
+        destination.set(ly * rz - lz * ry, lz * rx - lx * rz, lx * ry - ly * rx);
+    }
+
+    /**
+     * ベクトルをその場で他のベクトルとの外積に置き換える。
+     *
+     * @param target 左辺であり、結果の設定先となるベクトル。
+     * @param right 右辺のベクトル。
+     */
+    public static void cross(MutableDoubleVector3 target, DoubleVector3 right) {
+        cross(target, right, target);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntPoint4;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntPoint4;
+
+/**
+ * {@link IntPoint4}に対する演算。
+ *
+ * 全ての演算はインスタンスを生成しません。
+ * 結果が点となる演算は、呼び出し側が用意した{@link MutableIntPoint4}に結果を設定するか、
+ * 第1引数の点をその場で書き換えます。
+ * 結果の設定先に引数と同じインスタンスを渡すこともできます。
+ *
+ * @author misakura
+ */
+public final class IntPoint4Math {
+
+    private IntPoint4Math() {
+    }
+
+    /**
+     * 2つの点の内積を返す。
+     *
+     * @param left 左辺の点。
+     * @param right 右辺の点。
+     * @return 内積。
+     */
+    public static long dot(IntPoint4 left, IntPoint4 right) {
+        return (long) left.getXAsInt() * right.getXAsInt()
+                + (long) left.getYAsInt() * right.getYAsInt()
+                + (long) left.getZAsInt() * right.getZAsInt()
+                + (long) left.getWAsInt() * right.getWAsInt();
+    }
+
+    /**
+     * 点の長さの2乗を返す。
+     *
+     * @param point 対象の点。
+     * @return 長さの2乗。
+     */
+    public static long lengthSquared(IntPoint4 point) {
+        return dot(point, point);
+    }
+
+    /**
+     * 点の長さを返す。
+     *
+     * @param point 対象の点。
+     * @return 長さ。
+     */
+    public static double length(IntPoint4 point) {
+        return Math.sqrt(lengthSquared(point));
+    }
+
+    /**
+     * 2つの点の距離の2乗を返す。
+     *
+     * @param left 一方の点。
+     * @param right 他方の点。
+     * @return 距離の2乗。
+     */
+    public static long distanceSquared(IntPoint4 left, IntPoint4 right) {
+        long dx = (long) left.getXAsInt() - right.getXAsInt();
+        long dy = (long) left.getYAsInt() - right.getYAsInt();
+        long dz = (long) left.getZAsInt() - right.getZAsInt();
+        long dw = (long) left.getWAsInt() - right.getWAsInt();
+        return dx * dx + dy * dy + dz * dz + dw * dw;
+    }
+
+    /**
+     * 2つの点の距離を返す。
+     *
+     * @param left 一方の点。
+     * @param right 他方の点。
+     * @return 距離。
+     */
+    public static double distance(IntPoint4 left, IntPoint4 right) {
+        return Math.sqrt(distanceSquared(left, right));
+    }
+
+    /**
+     * 2つの点の和を求める。
+     *
+     * @param left 左辺の点。
+     * @param right 右辺の点。
+     * @param destination 結果の設定先。
+     */
+    public static void add(IntPoint4 left, IntPoint4 right, MutableIntPoint4 destination) {
+        destination.set(left.getXAsInt() + right.getXAsInt(),
+                left.getYAsInt() + right.getYAsInt(),
+                left.getZAsInt() + right.getZAsInt(),
+                left.getWAsInt() + right.getWAsInt());
+    }
+
+    /**
+     * 点に他の点を加える。
+     *
+     * @param target 左辺であり、結果の設定先となる点。
+     * @param right 右辺の点。
+     */
+    public static void add(MutableIntPoint4 target, IntPoint4 right) {
+        add(target, right, target);
+    }
+
+    /**
+     * 2つの点の差を求める。
+     *
+     * @param left 左辺の点。
+     * @param right 右辺の点。
+     * @param destination 結果の設定先。
+     */
+    public static void subtract(IntPoint4 left, IntPoint4 right, MutableIntPoint4 destination) {
+        destination.set(left.getXAsInt() - right.getXAsInt(),
+                left.getYAsInt() - right.getYAsInt(),
+                left.getZAsInt() - right.getZAsInt(),
+                left.getWAsInt() - right.getWAsInt());
+    }
+
+    /**
+     * 点から他の点を引く。
+     *
+     * @param target 左辺であり、結果の設定先となる点。
+     * @param right 右辺の点。
+     */
+    public static void subtract(MutableIntPoint4 target, IntPoint4 right) {
+        subtract(target, right, target);
+    }
+
+    /**
+     * 点の全ての次元を定数倍する。
+     *
+     * @param point 対象の点。
+     * @param factor 倍率。
+     * @param destination 結果の設定先。
+     */
+    public static void scale(IntPoint4 point, int factor, MutableIntPoint4 destination) {
+        destination.set(point.getXAsInt() * factor, point.getYAsInt() * factor, point.getZAsInt() * factor, point.getWAsInt() * factor);
+    }
+
+    /**
+     * 点の全ての次元をその場で定数倍する。
+     *
+     * @param target 対象であり、結果の設定先となる点。
+     * @param factor 倍率。
+     */
+    public static void scale(MutableIntPoint4 target, int factor) {
+        scale(target, factor, target);
+    }
+
+    /**
+     * 点の全ての次元の符号を反転する。
+     *
+     * @param point 対象の点。
+     * @param destination 結果の設定先。
+     */
+    public static void negate(IntPoint4 point, MutableIntPoint4 destination) {
+        destination.set(-point.getXAsInt(), -point.getYAsInt(), -point.getZAsInt(), -point.getWAsInt());
+    }
+
+    /**
+     * 点の全ての次元の符号をその場で反転する。
+     *
+     * @param target 対象であり、結果の設定先となる点。
+     */
+    public static void negate(MutableIntPoint4 target) {
+        negate(target, target);
+    }
+}
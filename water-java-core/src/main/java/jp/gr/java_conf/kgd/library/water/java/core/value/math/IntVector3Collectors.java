@@ -0,0 +1,383 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import java.util.stream.Collector;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareDoubleVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.BareIntVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntVector3;
+
+/**
+ * {@link IntVector3}のストリームを集約する{@link Collector}。
+ *
+ * 途中の結果はプリミティブ配列に蓄え、要素ごとにインスタンスを生成しません。結果のインスタンスは集約の最後に1つだけ生成します。
+ * 全ての{@link Collector}は並列ストリームで使え、スレッドごとの途中の結果を結合します。
+ * {@link jp.gr.java_conf.kgd.library.water.java.core.value.array.IntVector3Array#parallelCursorStream()}と組み合わせると、
+ * 多数のベクトルの集約を全てのプロセッサで行えます。
+ *
+ * 要素の{@link IntVector3}は集約の間だけ参照するため、使い回されるインスタンスを流しても構いません。
+ *
+ * @author misakura
+ */
+public final class IntVector3Collectors {
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = 3;
+
+    private IntVector3Collectors() {
+    }
+
+    /**
+     * 成分ごとの総和を求める{@link Collector}を返す。
+     *
+     * {@link java.util.stream.Collectors#summingInt(java.util.function.ToIntFunction)}と同様に、桁あふれは検出しません。
+     *
+     * @return 総和を求める{@link Collector}。空のストリームの総和は全ての成分が{@code 0}です。
+     */
+    public static Collector<IntVector3, ?, BareIntVector3> summing() {
+        return Collector.of(
+                () -> new int[DIMENSION],
+                (sum, vector) -> {
+                    sum[0] += vector.getXAsInt();
+                    sum[1] += vector.getYAsInt();
+                    sum[2] += vector.getZAsInt();
+                },
+                (left, right) -> {
+                    for (int i = 0; i < DIMENSION; i++) {
+                        left[i] += right[i];
+                    }
+                    return left;
+                },
+                sum -> new BareIntVector3(sum[0], sum[1], sum[2]),
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 成分ごとの平均を求める{@link Collector}を返す。
+     *
+     * 総和は{@link #summing()}と異なり{@code double}の補正付きの加算で求めるため、桁あふれしません。
+     *
+     * @return 平均を求める{@link Collector}。空のストリームの平均は全ての成分が{@code 0}です。
+     */
+    public static Collector<IntVector3, ?, BareDoubleVector3> averaging() {
+        return Collector.of(
+                () -> new double[DIMENSION * 3 + 1],
+                (sum, vector) -> {
+                    addToSum(sum, 0, vector.getXAsInt());
+                    addToSum(sum, 1, vector.getYAsInt());
+                    addToSum(sum, 2, vector.getZAsInt());
+                    sum[DIMENSION * 3]++;
+                },
+                (left, right) -> {
+                    combineSums(left, right);
+                    left[DIMENSION * 3] += right[DIMENSION * 3];
+                    return left;
+                },
+                sum -> {
+                    double count = sum[DIMENSION * 3];
+                    if (count == 0) {
+                        return new BareDoubleVector3();
+                    }
+                    return new BareDoubleVector3(finalSum(sum, 0) / count, finalSum(sum, 1) / count, finalSum(sum, 2) / count);
+                },
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 成分ごとの最小値を求める{@link Collector}を返す。
+     *
+     * 結果の各成分は、別々の要素から得た値のことがあります。
+     *
+     * @return 最小値を求める{@link Collector}。空のストリームの最小値は全ての成分が{@code Integer.MAX_VALUE}です。
+     */
+    public static Collector<IntVector3, ?, BareIntVector3> minimizing() {
+        return Collector.of(
+                IntVector3Collectors::newMinimum,
+                IntVector3Collectors::accumulateMinimum,
+                (left, right) -> {
+                    accumulateMinimum(left, right);
+                    return left;
+                },
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 成分ごとの最大値を求める{@link Collector}を返す。
+     *
+     * 結果の各成分は、別々の要素から得た値のことがあります。
+     *
+     * @return 最大値を求める{@link Collector}。空のストリームの最大値は全ての成分が{@code Integer.MIN_VALUE}です。
+     */
+    public static Collector<IntVector3, ?, BareIntVector3> maximizing() {
+        return Collector.of(
+                IntVector3Collectors::newMaximum,
+                IntVector3Collectors::accumulateMaximum,
+                (left, right) -> {
+                    accumulateMaximum(left, right);
+                    return left;
+                },
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 全ての要素を含む、軸に沿った最小の範囲を求める{@link Collector}を返す。
+     *
+     * @return 範囲を求める{@link Collector}。
+     */
+    public static Collector<IntVector3, ?, Bounds> bounding() {
+        return Collector.of(
+                Bounds::new,
+                Bounds::accept,
+                Bounds::combine,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 成分ごとの母分散を求める{@link Collector}を返す。
+     *
+     * 平均との差の2乗和を逐次更新する方法（Welfordの方法）で求めるため、平均から離れた値が多い場合も桁落ちしにくくなっています。
+     * 途中の結果の結合には、要素数で重み付けした公式（Chanらの方法）を使います。
+     *
+     * @return 母分散を求める{@link Collector}。空のストリームの母分散は全ての成分が{@code NaN}です。
+     */
+    public static Collector<IntVector3, ?, BareDoubleVector3> variance() {
+        return Collector.of(
+                () -> new double[DIMENSION * 2 + 1],
+                (moments, vector) -> {
+                    double count = ++moments[0];
+                    double delta;
+                    delta = vector.getXAsInt() - moments[1];
+                    moments[1] += delta / count;
+                    moments[4] += delta * (vector.getXAsInt() - moments[1]);
+                    delta = vector.getYAsInt() - moments[2];
+                    moments[2] += delta / count;
+                    moments[5] += delta * (vector.getYAsInt() - moments[2]);
+                    delta = vector.getZAsInt() - moments[3];
+                    moments[3] += delta / count;
+                    moments[6] += delta * (vector.getZAsInt() - moments[3]);
+                },
+                IntVector3Collectors::combineMoments,
+                moments -> new BareDoubleVector3(moments[4] / moments[0], moments[5] / moments[0], moments[6] / moments[0]),
+                Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * 全ての要素を含む、軸に沿った最小の範囲。
+     *
+     * {@link #bounding()}の結果です。
+     */
+    public static final class Bounds {
+
+        private final BareIntVector3 minimum = newMinimum();
+
+        private final BareIntVector3 maximum = newMaximum();
+
+        private long count;
+
+        Bounds() {
+        }
+
+        /**
+         * 範囲に含めた要素の数を返す。
+         *
+         * @return 要素の数。
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * 範囲が空かどうかを返す。
+         *
+         * @return 要素を1つも含めていない場合は{@code true}。
+         */
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        /**
+         * 範囲の最小の角を取得する。
+         *
+         * 空の範囲の場合、全ての成分が{@code Integer.MAX_VALUE}です。
+         *
+         * @param destination 値の格納先。
+         */
+        public void getMinimum(MutableIntVector3 destination) {
+            destination.set(minimum);
+        }
+
+        /**
+         * 範囲の最大の角を取得する。
+         *
+         * 空の範囲の場合、全ての成分が{@code Integer.MIN_VALUE}です。
+         *
+         * @param destination 値の格納先。
+         */
+        public void getMaximum(MutableIntVector3 destination) {
+            destination.set(maximum);
+        }
+
+        /**
+         * 範囲の大きさ（最大の角から最小の角を引いた値）を取得する。
+         *
+         * 空の範囲の場合、全ての成分が{@code 0}です。
+         * 大きさが{@code int}で表せないほど広い成分は、{@code Integer.MAX_VALUE}に飽和させます。
+         *
+         * @param destination 値の格納先。
+         */
+        public void getExtent(MutableIntVector3 destination) {
+            if (count == 0) {
+                destination.set(0, 0, 0);
+                return;
+            }
+            destination.set(extent(minimum.x, maximum.x), extent(minimum.y, maximum.y), extent(minimum.z, maximum.z));
+        }
+
+        /**
+         * 最小値から最大値までの大きさを求める。桁あふれする場合は{@code Integer.MAX_VALUE}に飽和させる。
+         */
+        private static int extent(int minimum, int maximum) {
+            return (int) Math.min((long) maximum - minimum, Integer.MAX_VALUE);
+        }
+
+        void accept(IntVector3 vector) {
+            accumulateMinimum(minimum, vector);
+            accumulateMaximum(maximum, vector);
+            count++;
+        }
+
+        Bounds combine(Bounds other) {
+            accumulateMinimum(minimum, other.minimum);
+            accumulateMaximum(maximum, other.maximum);
+            count += other.count;
+            return this;
+        }
+
+        /**
+         * この範囲の文字列表現を返す。
+         *
+         * @return 文字列表現。
+         */
+        @Override
+        public String toString() {
+            return "Bounds[minimum=" + minimum + ",maximum=" + maximum + ",count=" + count + "]";
+        }
+    }
+
+    private static BareIntVector3 newMinimum() {
+        int value = Integer.MAX_VALUE;
+        return new BareIntVector3(value, value, value);
+    }
+
+    private static BareIntVector3 newMaximum() {
+        int value = Integer.MIN_VALUE;
+        return new BareIntVector3(value, value, value);
+    }
+
+    private static void accumulateMinimum(BareIntVector3 minimum, IntVector3 vector) {
+        minimum.x = Math.min(minimum.x, vector.getXAsInt());
+        minimum.y = Math.min(minimum.y, vector.getYAsInt());
+        minimum.z = Math.min(minimum.z, vector.getZAsInt());
+    }
+
+    private static void accumulateMaximum(BareIntVector3 maximum, IntVector3 vector) {
+        maximum.x = Math.max(maximum.x, vector.getXAsInt());
+        maximum.y = Math.max(maximum.y, vector.getYAsInt());
+        maximum.z = Math.max(maximum.z, vector.getZAsInt());
+    }
+
+    /**
+     * 総和を持つ配列に値を加える。
+     *
+     * 配列の添字{@code index}が補正付きの総和、{@code DIMENSION + index}が丸め誤差の補正値、
+     * {@code DIMENSION * 2 + index}が補正しない単純な総和です。
+     */
+    private static void addToSum(double[] sum, int index, double value) {
+        sumWithCompensation(sum, index, value);
+        sum[DIMENSION * 2 + index] += value;
+    }
+
+    /**
+     * {@link #addToSum(double[], int, double)}の配列を結合する。
+     */
+    private static void combineSums(double[] left, double[] right) {
+        for (int i = 0; i < DIMENSION; i++) {
+            sumWithCompensation(left, i, right[i]);
+            sumWithCompensation(left, i, -right[DIMENSION + i]);
+            left[DIMENSION * 2 + i] += right[DIMENSION * 2 + i];
+        }
+    }
+
+    /**
+     * {@link #addToSum(double[], int, double)}の配列から総和を求める。
+     *
+     * 無限大を加えると補正値が{@code NaN}になるため、{@link java.util.stream.Collectors#summingDouble(java.util.function.ToDoubleFunction)}と同様に、
+     * 補正付きの総和が{@code NaN}で単純な総和が無限大の場合は単純な総和を返します。
+     */
+    private static double finalSum(double[] sum, int index) {
+        double total = sum[index] - sum[DIMENSION + index];
+        if (Double.isNaN(total) && Double.isInfinite(sum[DIMENSION * 2 + index])) {
+            return sum[DIMENSION * 2 + index];
+        }
+        return total;
+    }
+
+    /**
+     * 補正付きの総和に値を加える。
+     *
+     * 配列の添字{@code index}が総和、{@code DIMENSION + index}が丸め誤差の補正値です。
+     */
+    private static void sumWithCompensation(double[] sum, int index, double value) {
+        double corrected = value - sum[DIMENSION + index];
+        double current = sum[index];
+        double next = current + corrected;
+        sum[DIMENSION + index] = (next - current) - corrected;
+        sum[index] = next;
+    }
+
+    /**
+     * 要素数、平均、平均との差の2乗和を持つ配列を結合する。
+     */
+    private static double[] combineMoments(double[] left, double[] right) {
+        double leftCount = left[0];
+        double rightCount = right[0];
+        if (rightCount == 0) {
+            return left;
+        }
+        if (leftCount == 0) {
+            return right;
+        }
+        double count = leftCount + rightCount;
+        for (int i = 1; i <= DIMENSION; i++) {
+            double delta = right[i] - left[i];
+            left[i] += delta * rightCount / count;
+            left[DIMENSION + i] += right[DIMENSION + i] + delta * delta * leftCount * rightCount / count;
+        }
+        left[0] = count;
+        return left;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.math;
+
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntVector3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntVector3;
+
+/**
+ * {@link IntVector3}に対する演算。
+ *
+ * 全ての演算はインスタンスを生成しません。
+ * 結果がベクトルとなる演算は、呼び出し側が用意した{@link MutableIntVector3}に結果を設定するか、
+ * 第1引数のベクトルをその場で書き換えます。
+ * 結果の設定先に引数と同じインスタンスを渡すこともできます。
+ *
+ * @author misakura
+ */
+public final class IntVector3Math {
+
+    private IntVector3Math() {
+    }
+
+    /**
+     * 2つのベクトルの内積を返す。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @return 内積。
+     */
+    public static long dot(IntVector3 left, IntVector3 right) {
+        return (long) left.getXAsInt() * right.getXAsInt()
+                + (long) left.getYAsInt() * right.getYAsInt()
+                + (long) left.getZAsInt() * right.getZAsInt();
+    }
+
+    /**
+     * ベクトルの長さの2乗を返す。
+     *
+     * @param vector 対象のベクトル。
+     * @return 長さの2乗。
+     */
+    public static long lengthSquared(IntVector3 vector) {
+        return dot(vector, vector);
+    }
+
+    /**
+     * ベクトルの長さを返す。
+     *
+     * @param vector 対象のベクトル。
+     * @return 長さ。
+     */
+    public static double length(IntVector3 vector) {
+        return Math.sqrt(lengthSquared(vector));
+    }
+
+    /**
+     * 2つのベクトルの距離の2乗を返す。
+     *
+     * @param left 一方のベクトル。
+     * @param right 他方のベクトル。
+     * @return 距離の2乗。
+     */
+    public static long distanceSquared(IntVector3 left, IntVector3 right) {
+        long dx = (long) left.getXAsInt() - right.getXAsInt();
+        long dy = (long) left.getYAsInt() - right.getYAsInt();
+        long dz = (long) left.getZAsInt() - right.getZAsInt();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * 2つのベクトルの距離を返す。
+     *
+     * @param left 一方のベクトル。
+     * @param right 他方のベクトル。
+     * @return 距離。
+     */
+    public static double distance(IntVector3 left, IntVector3 right) {
+        return Math.sqrt(distanceSquared(left, right));
+    }
+
+    /**
+     * 2つのベクトルの和を求める。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void add(IntVector3 left, IntVector3 right, MutableIntVector3 destination) {
+        destination.set(left.getXAsInt() + right.getXAsInt(),
+                left.getYAsInt() + right.getYAsInt(),
+                left.getZAsInt() + right.getZAsInt());
+    }
+
+    /**
+     * ベクトルに他のベクトルを加える。
+     *
+     * @param target 左辺であり、結果の設定先となるベクトル。
+     * @param right 右辺のベクトル。
+     */
+    public static void add(MutableIntVector3 target, IntVector3 right) {
+        add(target, right, target);
+    }
+
+    /**
+     * 2つのベクトルの差を求める。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void subtract(IntVector3 left, IntVector3 right, MutableIntVector3 destination) {
+        destination.set(left.getXAsInt() - right.getXAsInt(),
+                left.getYAsInt() - right.getYAsInt(),
+                left.getZAsInt() - right.getZAsInt());
+    }
+
+    /**
+     * ベクトルから他のベクトルを引く。
+     *
+     * @param target 左辺であり、結果の設定先となるベクトル。
+     * @param right 右辺のベクトル。
+     */
+    public static void subtract(MutableIntVector3 target, IntVector3 right) {
+        subtract(target, right, target);
+    }
+
+    /**
+     * ベクトルの全ての次元を定数倍する。
+     *
+     * @param vector 対象のベクトル。
+     * @param factor 倍率。
+     * @param destination 結果の設定先。
+     */
+    public static void scale(IntVector3 vector, int factor, MutableIntVector3 destination) {
+        destination.set(vector.getXAsInt() * factor, vector.getYAsInt() * factor, vector.getZAsInt() * factor);
+    }
+
+    /**
+     * ベクトルの全ての次元をその場で定数倍する。
+     *
+     * @param target 対象であり、結果の設定先となるベクトル。
+     * @param factor 倍率。
+     */
+    public static void scale(MutableIntVector3 target, int factor) {
+        scale(target, factor, target);
+    }
+
+    /**
+     * ベクトルの全ての次元の符号を反転する。
+     *
+     * @param vector 対象のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void negate(IntVector3 vector, MutableIntVector3 destination) {
+        destination.set(-vector.getXAsInt(), -vector.getYAsInt(), -vector.getZAsInt());
+    }
+
+    /**
+     * ベクトルの全ての次元の符号をその場で反転する。
+     *
+     * @param target 対象であり、結果の設定先となるベクトル。
+     */
+    public static void negate(MutableIntVector3 target) {
+        negate(target, target);
+    }
+
+    /**
+     * 2つのベクトルの外積を求める。
+     *
+     * @param left 左辺のベクトル。
+     * @param right 右辺のベクトル。
+     * @param destination 結果の設定先。
+     */
+    public static void cross(IntVector3 left, IntVector3 right, MutableIntVector3 destination) {
+        int lx = left.getXAsInt();
+        int ly = left.getYAsInt();
+        int lz = left.getZAsInt();
+        int rx = right.getXAsInt();
+        int ry = right.getYAsInt();
+        int rz = right.getZAsInt();
+        destination.set(ly * rz - lz * ry, lz * rx - lx * rz, lx * ry - ly * rx);
+    }
+
+    /**
+     * ベクトルをその場で他のベクトルとの外積に置き換える。
+     *
+     * @param target 左辺であり、結果の設定先となるベクトル。
+     * @param right 右辺のベクトル。
+     */
+    public static void cross(MutableIntVector3 target, IntVector3 right) {
+        cross(target, right, target);
+    }
+}
@@ -0,0 +1,1317 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.spatial;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoubleSize3;
+
+/**
+ * {@link DoublePoint3}と{@link DoubleSize3}で表される箱を索引付けするR木。
+ *
+ * 箱は位置を最小の角とし、各軸の大きさだけ広がる閉区間の直積です。
+ * 要素は呼び出し側が決める非負の整数IDで識別し、箱とともに登録します。
+ *
+ * 静的なデータは{@link #load}でSTR（Sort-Tile-Recursive）法により一括構築し、
+ * 動的なデータは{@link #insert}でR*木と同じ方法（重なりを考慮した部分木の選択、強制再挿入、周長に基づく分割）により追加します。
+ * 節点は固定長のスロットとしてプリミティブ配列に詰めて格納するため、走査時のキャッシュ効率が良くなります。
+ *
+ * 問い合わせは見つかった要素のIDを{@link IntConsumer}に渡すか、呼び出し側が用意した配列に書き込むため、結果ごとにインスタンスを生成しません。
+ * 問い合わせは状態を変更しないため、更新と同時でなければ複数のスレッドから行えます。
+ *
+ * @author misakura
+ */
+public class DoubleBox3RTree {
+
+    /**
+     * 節点が持つスロットの最大数。
+     */
+    public static final int MAX_ENTRIES = 16;
+
+    /**
+     * 根以外の節点が持つスロットの最小数。
+     */
+    private static final int MIN_ENTRIES = 6;
+
+    /**
+     * 溢れた節点から強制再挿入するスロットの数。
+     */
+    private static final int REINSERT_COUNT = 5;
+
+    /**
+     * 節点の初期容量。
+     */
+    private static final int DEFAULT_NODE_CAPACITY = 16;
+
+    /**
+     * 節点やスロットが存在しないことを表す値。
+     */
+    private static final int NONE = -1;
+
+    /**
+     * 境界を一時的に計算するための予約されたスロット。（節点{@code 0}の先頭。）
+     */
+    private static final int SCRATCH = 0;
+
+    /**
+     * スロットごとのx座標の最小値。
+     */
+    private double[] minX;
+
+    /**
+     * スロットごとのx座標の最大値。
+     */
+    private double[] maxX;
+
+    /**
+     * スロットごとのy座標の最小値。
+     */
+    private double[] minY;
+
+    /**
+     * スロットごとのy座標の最大値。
+     */
+    private double[] maxY;
+
+    /**
+     * スロットごとのz座標の最小値。
+     */
+    private double[] minZ;
+
+    /**
+     * スロットごとのz座標の最大値。
+     */
+    private double[] maxZ;
+
+    /**
+     * スロットごとの子。葉では要素のID、それ以外では子の節点。
+     */
+    private int[] children;
+
+    /**
+     * 節点ごとの使用中のスロット数。
+     */
+    private int[] counts;
+
+    /**
+     * 節点ごとの高さ。葉は{@code 0}。
+     */
+    private int[] levels;
+
+    /**
+     * 節点ごとの親。解放済みの節点では次の空き節点。
+     */
+    private int[] parents;
+
+    /**
+     * 一度でも使った節点の数。
+     */
+    private int nodeCount;
+
+    /**
+     * 空き節点のリストの先頭。
+     */
+    private int freeNode;
+
+    /**
+     * 根。
+     */
+    private int root;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * 現在の挿入で強制再挿入を行った高さのビット集合。
+     */
+    private int reinsertedLevels;
+
+    /**
+     * コンストラクタ。
+     */
+    public DoubleBox3RTree() {
+        allocateNodes(DEFAULT_NODE_CAPACITY);
+        clear();
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * 内部配列の大きさは変わりません。
+     */
+    public void clear() {
+        nodeCount = 1;
+        freeNode = NONE;
+        size = 0;
+        root = newNode(0);
+    }
+
+    /**
+     * 全ての要素を削除し、配列の先頭から指定した数の箱で索引を一括構築する。
+     *
+     * 各要素のIDは配列の添字になります。
+     *
+     * @param x 位置のx座標の配列。
+     * @param y 位置のy座標の配列。
+     * @param z 位置のz座標の配列。
+     * @param width 幅の配列。
+     * @param height 高さの配列。
+     * @param depth 奥行の配列。
+     * @param length 要素数。
+     */
+    public void load(double[] x, double[] y, double[] z, double[] width, double[] height, double[] depth, int length) {
+        if (length < 0 || x.length < length || width.length < length || y.length < length || height.length < length || z.length < length || depth.length < length) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+        EntryList entries = new EntryList(length);
+        for (int i = 0; i < length; i++) {
+            checkSize(width[i], height[i], depth[i]);
+            entries.add(i, x[i], y[i], z[i], x[i] + width[i], y[i] + height[i], z[i] + depth[i], 0);
+        }
+        load(entries);
+    }
+
+    /**
+     * 全ての要素を削除し、配列の全ての箱で索引を一括構築する。
+     *
+     * 各要素のIDは配列の添字になります。
+     *
+     * @param points 位置の配列。
+     * @param sizes 大きさの配列。{@code points}と同じ長さ。
+     */
+    public void load(DoublePoint3[] points, DoubleSize3[] sizes) {
+        if (points.length != sizes.length) {
+            throw new IllegalArgumentException("Arrays differ in length");
+        }
+        EntryList entries = new EntryList(points.length);
+        for (int i = 0; i < points.length; i++) {
+            DoublePoint3 point = points[i];
+            DoubleSize3 size = sizes[i];
+            double x = point.getXAsDouble();
+            double y = point.getYAsDouble();
+            double z = point.getZAsDouble();
+            double width = size.getWidthAsDouble();
+            double height = size.getHeightAsDouble();
+            double depth = size.getDepthAsDouble();
+            checkSize(width, height, depth);
+            entries.add(i, x, y, z, x + width, y + height, z + depth, 0);
+        }
+        load(entries);
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param id 要素のID。
+     * @param x 位置のx座標。
+     * @param y 位置のy座標。
+     * @param z 位置のz座標。
+     * @param width 幅。
+     * @param height 高さ。
+     * @param depth 奥行。
+     */
+    public void insert(int id, double x, double y, double z, double width, double height, double depth) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Illegal id: " + id);
+        }
+        checkSize(width, height, depth);
+        reinsertedLevels = 0;
+        insert(id, x, y, z, x + width, y + height, z + depth, 0);
+        size++;
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param id 要素のID。
+     * @param point 位置。
+     * @param size 大きさ。
+     */
+    public void insert(int id, DoublePoint3 point, DoubleSize3 size) {
+        insert(id, point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble(), size.getWidthAsDouble(), size.getHeightAsDouble(), size.getDepthAsDouble());
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * 追加した時と同じIDと箱を指定します。
+     * 節点の要素数が下限を下回った場合は、その節点を取り除いて残りを再挿入します。
+     *
+     * @param id 要素のID。
+     * @param x 位置のx座標。
+     * @param y 位置のy座標。
+     * @param z 位置のz座標。
+     * @param width 幅。
+     * @param height 高さ。
+     * @param depth 奥行。
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(int id, double x, double y, double z, double width, double height, double depth) {
+        int slot = findEntry(root, id, x, y, z, x + width, y + height, z + depth);
+        if (slot == NONE) {
+            return false;
+        }
+        int leaf = slot / MAX_ENTRIES;
+        removeSlot(leaf, slot);
+        condense(leaf);
+        size--;
+        return true;
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * @param id 要素のID。
+     * @param point 位置。
+     * @param size 大きさ。
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(int id, DoublePoint3 point, DoubleSize3 size) {
+        return remove(id, point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble(), size.getWidthAsDouble(), size.getHeightAsDouble(), size.getDepthAsDouble());
+    }
+
+    /**
+     * 箱と交差する（境界の接触を含む）要素を探す。
+     *
+     * @param x 位置のx座標。
+     * @param y 位置のy座標。
+     * @param z 位置のz座標。
+     * @param width 幅。
+     * @param height 高さ。
+     * @param depth 奥行。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchIntersecting(double x, double y, double z, double width, double height, double depth, IntConsumer action) {
+        return searchIntersecting(root, x, y, z, x + width, y + height, z + depth, Objects.requireNonNull(action));
+    }
+
+    /**
+     * 箱と交差する（境界の接触を含む）要素を探す。
+     *
+     * @param point 位置。
+     * @param size 大きさ。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchIntersecting(DoublePoint3 point, DoubleSize3 size, IntConsumer action) {
+        return searchIntersecting(point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble(), size.getWidthAsDouble(), size.getHeightAsDouble(), size.getDepthAsDouble(), action);
+    }
+
+    /**
+     * 箱に含まれる要素を探す。
+     *
+     * @param x 位置のx座標。
+     * @param y 位置のy座標。
+     * @param z 位置のz座標。
+     * @param width 幅。
+     * @param height 高さ。
+     * @param depth 奥行。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchContained(double x, double y, double z, double width, double height, double depth, IntConsumer action) {
+        return searchContained(root, x, y, z, x + width, y + height, z + depth, Objects.requireNonNull(action));
+    }
+
+    /**
+     * 箱に含まれる要素を探す。
+     *
+     * @param point 位置。
+     * @param size 大きさ。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchContained(DoublePoint3 point, DoubleSize3 size, IntConsumer action) {
+        return searchContained(point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble(), size.getWidthAsDouble(), size.getHeightAsDouble(), size.getDepthAsDouble(), action);
+    }
+
+    /**
+     * 点を含む要素を探す。（当たり判定。）
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @param z z座標。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchContaining(double x, double y, double z, IntConsumer action) {
+        return searchContaining(root, x, y, z, Objects.requireNonNull(action));
+    }
+
+    /**
+     * 点を含む要素を探す。（当たり判定。）
+     *
+     * @param point 点。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int searchContaining(DoublePoint3 point, IntConsumer action) {
+        return searchContaining(point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble(), action);
+    }
+
+    /**
+     * 点に最も近い要素を探す。
+     *
+     * 点を含む箱の距離は{@code 0}です。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @param z z座標。
+     * @return 最も近い要素のID。要素が存在しない場合は{@code -1}。
+     */
+    public int nearest(double x, double y, double z) {
+        int slot = searchNearest(root, x, y, z, NONE);
+        return slot == NONE ? NONE : children[slot];
+    }
+
+    /**
+     * 点に最も近い要素を探す。
+     *
+     * @param point 点。
+     * @return 最も近い要素のID。要素が存在しない場合は{@code -1}。
+     */
+    public int nearest(DoublePoint3 point) {
+        return nearest(point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble());
+    }
+
+    /**
+     * 点に近い順に{@code k}個の要素を探す。
+     *
+     * 結果は距離の昇順に、配列の先頭から書き込みます。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @param z z座標。
+     * @param k 探す要素数。
+     * @param resultIds 見つかった要素のIDの書き込み先。長さは{@code k}以上。
+     * @param resultDistancesSquared 見つかった要素までの距離の2乗の書き込み先。長さは{@code k}以上。
+     * @return 見つかった要素数。（{@code k}と要素数の小さい方。）
+     */
+    public int nearest(double x, double y, double z, int k, int[] resultIds, double[] resultDistancesSquared) {
+        if (k < 0 || resultIds.length < k || resultDistancesSquared.length < k) {
+            throw new IllegalArgumentException("Illegal k: " + k);
+        }
+        if (k == 0) {
+            return 0;
+        }
+        int count = searchNearest(root, x, y, z, k, resultIds, resultDistancesSquared, 0);
+        // 最大ヒープを整列し、昇順にする
+        for (int end = count - 1; end > 0; end--) {
+            swap(resultIds, resultDistancesSquared, 0, end);
+            siftDown(resultIds, resultDistancesSquared, 0, end);
+        }
+        return count;
+    }
+
+    /**
+     * 点に近い順に{@code k}個の要素を探す。
+     *
+     * @param point 点。
+     * @param k 探す要素数。
+     * @param resultIds 見つかった要素のIDの書き込み先。長さは{@code k}以上。
+     * @param resultDistancesSquared 見つかった要素までの距離の2乗の書き込み先。長さは{@code k}以上。
+     * @return 見つかった要素数。（{@code k}と要素数の小さい方。）
+     */
+    public int nearest(DoublePoint3 point, int k, int[] resultIds, double[] resultDistancesSquared) {
+        return nearest(point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble(), k, resultIds, resultDistancesSquared);
+    }
+
+    private static void checkSize(double width, double height, double depth) {
+        if (!(width >= 0)) {
+            throw new IllegalArgumentException("Illegal width: " + width);
+        }
+        if (!(height >= 0)) {
+            throw new IllegalArgumentException("Illegal height: " + height);
+        }
+        if (!(depth >= 0)) {
+            throw new IllegalArgumentException("Illegal depth: " + depth);
+        }
+    }
+
+    private void allocateNodes(int capacity) {
+        minX = new double[capacity * MAX_ENTRIES];
+        maxX = new double[capacity * MAX_ENTRIES];
+        minY = new double[capacity * MAX_ENTRIES];
+        maxY = new double[capacity * MAX_ENTRIES];
+        minZ = new double[capacity * MAX_ENTRIES];
+        maxZ = new double[capacity * MAX_ENTRIES];
+        children = new int[capacity * MAX_ENTRIES];
+        counts = new int[capacity];
+        levels = new int[capacity];
+        parents = new int[capacity];
+    }
+
+    private void growNodes() {
+        int capacity = counts.length + (counts.length >> 1);
+        minX = Arrays.copyOf(minX, capacity * MAX_ENTRIES);
+        maxX = Arrays.copyOf(maxX, capacity * MAX_ENTRIES);
+        minY = Arrays.copyOf(minY, capacity * MAX_ENTRIES);
+        maxY = Arrays.copyOf(maxY, capacity * MAX_ENTRIES);
+        minZ = Arrays.copyOf(minZ, capacity * MAX_ENTRIES);
+        maxZ = Arrays.copyOf(maxZ, capacity * MAX_ENTRIES);
+        children = Arrays.copyOf(children, capacity * MAX_ENTRIES);
+        counts = Arrays.copyOf(counts, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+    }
+
+    private int newNode(int level) {
+        int node;
+        if (freeNode != NONE) {
+            node = freeNode;
+            freeNode = parents[node];
+        } else {
+            if (nodeCount == counts.length) {
+                growNodes();
+            }
+            node = nodeCount++;
+        }
+        counts[node] = 0;
+        levels[node] = level;
+        parents[node] = NONE;
+        return node;
+    }
+
+    private void releaseNode(int node) {
+        counts[node] = 0;
+        parents[node] = freeNode;
+        freeNode = node;
+    }
+
+    private void setSlot(int slot, int child, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        children[slot] = child;
+        minX[slot] = lowerX;
+        maxX[slot] = upperX;
+        minY[slot] = lowerY;
+        maxY[slot] = upperY;
+        minZ[slot] = lowerZ;
+        maxZ[slot] = upperZ;
+    }
+
+    private void copySlot(int from, int to) {
+        children[to] = children[from];
+        minX[to] = minX[from];
+        maxX[to] = maxX[from];
+        minY[to] = minY[from];
+        maxY[to] = maxY[from];
+        minZ[to] = minZ[from];
+        maxZ[to] = maxZ[from];
+    }
+
+    /**
+     * 空きのある節点にスロットを追加する。
+     */
+    private void addEntry(int node, int child, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        setSlot(node * MAX_ENTRIES + counts[node]++, child, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+        if (levels[node] > 0) {
+            parents[child] = node;
+        }
+    }
+
+    private void removeSlot(int node, int slot) {
+        int last = node * MAX_ENTRIES + --counts[node];
+        if (slot != last) {
+            copySlot(last, slot);
+        }
+    }
+
+    private int slotOf(int parent, int node) {
+        int slot = parent * MAX_ENTRIES;
+        while (children[slot] != node) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * 節点の全てのスロットを囲む境界を指定したスロットに書き込む。
+     */
+    private void computeBounds(int node, int slot) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        double lowerX = minX[from];
+        double upperX = maxX[from];
+        double lowerY = minY[from];
+        double upperY = maxY[from];
+        double lowerZ = minZ[from];
+        double upperZ = maxZ[from];
+        for (int i = from + 1; i < to; i++) {
+            lowerX = Math.min(lowerX, minX[i]);
+            upperX = Math.max(upperX, maxX[i]);
+            lowerY = Math.min(lowerY, minY[i]);
+            upperY = Math.max(upperY, maxY[i]);
+            lowerZ = Math.min(lowerZ, minZ[i]);
+            upperZ = Math.max(upperZ, maxZ[i]);
+        }
+        minX[slot] = lowerX;
+        maxX[slot] = upperX;
+        minY[slot] = lowerY;
+        maxY[slot] = upperY;
+        minZ[slot] = lowerZ;
+        maxZ[slot] = upperZ;
+    }
+
+    /**
+     * 節点から根までの境界を、追加された境界を含むように広げる。
+     */
+    private void enlargeUpward(int node, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        while (node != root) {
+            int parent = parents[node];
+            int slot = slotOf(parent, node);
+            if (minX[slot] <= lowerX && maxX[slot] >= upperX
+                    && minY[slot] <= lowerY && maxY[slot] >= upperY
+                    && minZ[slot] <= lowerZ && maxZ[slot] >= upperZ) {
+                return;
+            }
+            minX[slot] = Math.min(minX[slot], lowerX);
+            maxX[slot] = Math.max(maxX[slot], upperX);
+            minY[slot] = Math.min(minY[slot], lowerY);
+            maxY[slot] = Math.max(maxY[slot], upperY);
+            minZ[slot] = Math.min(minZ[slot], lowerZ);
+            maxZ[slot] = Math.max(maxZ[slot], upperZ);
+            node = parent;
+        }
+    }
+
+    /**
+     * 節点から根までの境界を計算し直す。
+     */
+    private void refreshUpward(int node) {
+        while (node != root) {
+            int parent = parents[node];
+            computeBounds(node, slotOf(parent, node));
+            node = parent;
+        }
+    }
+
+    private void insert(int child, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ, int level) {
+        int node = root;
+        while (levels[node] > level) {
+            node = children[chooseSubtree(node, lowerX, lowerY, lowerZ, upperX, upperY, upperZ)];
+        }
+        if (counts[node] < MAX_ENTRIES) {
+            addEntry(node, child, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+            enlargeUpward(node, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+        } else {
+            overflow(node, child, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+        }
+    }
+
+    /**
+     * 境界を追加する子のスロットを選ぶ。
+     *
+     * 子が葉の場合は兄弟との重なりの増加が最小のものを、それ以外では面積の増加が最小のものを選びます。
+     */
+    private int chooseSubtree(int node, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        boolean leafParent = levels[node] == 1;
+        int best = from;
+        double bestOverlap = Double.POSITIVE_INFINITY;
+        double bestEnlargement = Double.POSITIVE_INFINITY;
+        double bestArea = Double.POSITIVE_INFINITY;
+        for (int slot = from; slot < to; slot++) {
+            double area = 1;
+            double enlarged = 1;
+            double grownLowerX = Math.min(minX[slot], lowerX);
+            double grownUpperX = Math.max(maxX[slot], upperX);
+            area *= maxX[slot] - minX[slot];
+            enlarged *= grownUpperX - grownLowerX;
+            double grownLowerY = Math.min(minY[slot], lowerY);
+            double grownUpperY = Math.max(maxY[slot], upperY);
+            area *= maxY[slot] - minY[slot];
+            enlarged *= grownUpperY - grownLowerY;
+            double grownLowerZ = Math.min(minZ[slot], lowerZ);
+            double grownUpperZ = Math.max(maxZ[slot], upperZ);
+            area *= maxZ[slot] - minZ[slot];
+            enlarged *= grownUpperZ - grownLowerZ;
+            double enlargement = enlarged - area;
+            double overlap = 0;
+            // 広げる必要がなければ重なりも増えない
+            if (leafParent && enlargement > 0) {
+                for (int other = from; other < to; other++) {
+                    if (other != slot) {
+                        overlap += overlap(other, grownLowerX, grownLowerY, grownLowerZ, grownUpperX, grownUpperY, grownUpperZ)
+                                - overlap(other, minX[slot], minY[slot], minZ[slot], maxX[slot], maxY[slot], maxZ[slot]);
+                    }
+                }
+            }
+            if (overlap < bestOverlap
+                    || overlap == bestOverlap && (enlargement < bestEnlargement
+                    || enlargement == bestEnlargement && area < bestArea)) {
+                best = slot;
+                bestOverlap = overlap;
+                bestEnlargement = enlargement;
+                bestArea = area;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * スロットと境界が重なる部分の面積を返す。
+     */
+    private double overlap(int slot, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        double overlap = 1;
+        overlap *= Math.max(0, Math.min(maxX[slot], upperX) - Math.max(minX[slot], lowerX));
+        overlap *= Math.max(0, Math.min(maxY[slot], upperY) - Math.max(minY[slot], lowerY));
+        overlap *= Math.max(0, Math.min(maxZ[slot], upperZ) - Math.max(minZ[slot], lowerZ));
+        return overlap;
+    }
+
+    /**
+     * 満杯の節点への追加を、強制再挿入か分割で処理する。
+     *
+     * 強制再挿入は1回の挿入につき高さごとに1度だけ行います。
+     */
+    private void overflow(int node, int child, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        int level = levels[node];
+        if (node != root && (reinsertedLevels & (1 << level)) == 0) {
+            reinsertedLevels |= 1 << level;
+            reinsert(node, child, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+        } else {
+            split(node, child, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+        }
+    }
+
+    private EntryList gather(int node, int child, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        EntryList entries = new EntryList(MAX_ENTRIES + 1);
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        for (int slot = from; slot < to; slot++) {
+            entries.add(children[slot], minX[slot], minY[slot], minZ[slot], maxX[slot], maxY[slot], maxZ[slot], 0);
+        }
+        entries.add(child, lowerX, lowerY, lowerZ, upperX, upperY, upperZ, 0);
+        return entries;
+    }
+
+    /**
+     * 節点の中心から遠いスロットを取り除き、挿入し直す。
+     */
+    private void reinsert(int node, int child, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        int level = levels[node];
+        EntryList entries = gather(node, child, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+        int count = entries.count;
+        double centerX = 0;
+        double centerY = 0;
+        double centerZ = 0;
+        for (int i = 0; i < count; i++) {
+            centerX += entries.center(i, 0);
+            centerY += entries.center(i, 1);
+            centerZ += entries.center(i, 2);
+        }
+        int[] order = new int[count];
+        double[] keys = new double[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            double dX = entries.center(i, 0) - centerX / count;
+            double dY = entries.center(i, 1) - centerY / count;
+            double dZ = entries.center(i, 2) - centerZ / count;
+            keys[i] = dX * dX + dY * dY + dZ * dZ;
+        }
+        sort(order, keys, 0, count);
+
+        int keep = count - REINSERT_COUNT;
+        counts[node] = 0;
+        for (int i = 0; i < keep; i++) {
+            entries.addTo(this, node, order[i]);
+        }
+        refreshUpward(node);
+        // 中心に近いものから挿入し直す
+        for (int i = keep; i < count; i++) {
+            int e = order[i];
+            insert(entries.children[e], entries.minX[e], entries.minY[e], entries.minZ[e], entries.maxX[e], entries.maxY[e], entries.maxZ[e], level);
+        }
+    }
+
+    /**
+     * 節点を2つに分割し、新しい節点を親に追加する。
+     */
+    private void split(int node, int child, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        int level = levels[node];
+        EntryList entries = gather(node, child, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+        int[] order = new int[entries.count];
+        int splitIndex = entries.chooseSplit(order);
+
+        int sibling = newNode(level);
+        counts[node] = 0;
+        for (int i = 0; i < splitIndex; i++) {
+            entries.addTo(this, node, order[i]);
+        }
+        for (int i = splitIndex; i < entries.count; i++) {
+            entries.addTo(this, sibling, order[i]);
+        }
+
+        if (node == root) {
+            int newRoot = newNode(level + 1);
+            computeBounds(node, SCRATCH);
+            addEntry(newRoot, node, minX[SCRATCH], minY[SCRATCH], minZ[SCRATCH], maxX[SCRATCH], maxY[SCRATCH], maxZ[SCRATCH]);
+            computeBounds(sibling, SCRATCH);
+            addEntry(newRoot, sibling, minX[SCRATCH], minY[SCRATCH], minZ[SCRATCH], maxX[SCRATCH], maxY[SCRATCH], maxZ[SCRATCH]);
+            root = newRoot;
+            return;
+        }
+        int parent = parents[node];
+        computeBounds(node, slotOf(parent, node));
+        computeBounds(sibling, SCRATCH);
+        if (counts[parent] < MAX_ENTRIES) {
+            addEntry(parent, sibling, minX[SCRATCH], minY[SCRATCH], minZ[SCRATCH], maxX[SCRATCH], maxY[SCRATCH], maxZ[SCRATCH]);
+            refreshUpward(parent);
+        } else {
+            overflow(parent, sibling, minX[SCRATCH], minY[SCRATCH], minZ[SCRATCH], maxX[SCRATCH], maxY[SCRATCH], maxZ[SCRATCH]);
+        }
+    }
+
+    private int findEntry(int node, int id, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        if (levels[node] == 0) {
+            for (int slot = from; slot < to; slot++) {
+                if (children[slot] == id
+                        && minX[slot] == lowerX && maxX[slot] == upperX
+                    && minY[slot] == lowerY && maxY[slot] == upperY
+                    && minZ[slot] == lowerZ && maxZ[slot] == upperZ) {
+                    return slot;
+                }
+            }
+        } else {
+            for (int slot = from; slot < to; slot++) {
+                if (minX[slot] <= lowerX && maxX[slot] >= upperX
+                    && minY[slot] <= lowerY && maxY[slot] >= upperY
+                    && minZ[slot] <= lowerZ && maxZ[slot] >= upperZ) {
+                    int found = findEntry(children[slot], id, lowerX, lowerY, lowerZ, upperX, upperY, upperZ);
+                    if (found != NONE) {
+                        return found;
+                    }
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 要素を削除した葉から根まで、下限を下回った節点を取り除いて境界を縮め、取り除いた節点のスロットを挿入し直す。
+     */
+    private void condense(int node) {
+        EntryList orphans = null;
+        while (node != root) {
+            int parent = parents[node];
+            int slot = slotOf(parent, node);
+            if (counts[node] < MIN_ENTRIES) {
+                if (orphans == null) {
+                    orphans = new EntryList(MAX_ENTRIES);
+                }
+                int from = node * MAX_ENTRIES;
+                int to = from + counts[node];
+                for (int s = from; s < to; s++) {
+                    orphans.add(children[s], minX[s], minY[s], minZ[s], maxX[s], maxY[s], maxZ[s], levels[node]);
+                }
+                removeSlot(parent, slot);
+                releaseNode(node);
+            } else {
+                computeBounds(node, slot);
+            }
+            node = parent;
+        }
+        if (levels[root] > 0 && counts[root] == 1) {
+            int oldRoot = root;
+            root = children[oldRoot * MAX_ENTRIES];
+            parents[root] = NONE;
+            releaseNode(oldRoot);
+        }
+        if (orphans != null) {
+            // 再挿入中は強制再挿入を行わない
+            reinsertedLevels = -1;
+            for (int i = 0; i < orphans.count; i++) {
+                insert(orphans.children[i], orphans.minX[i], orphans.minY[i], orphans.minZ[i], orphans.maxX[i], orphans.maxY[i], orphans.maxZ[i], orphans.levels[i]);
+            }
+        }
+    }
+
+    private int searchIntersecting(int node, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ, IntConsumer action) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        int found = 0;
+        if (levels[node] == 0) {
+            for (int slot = from; slot < to; slot++) {
+                if (minX[slot] <= upperX && maxX[slot] >= lowerX
+                    && minY[slot] <= upperY && maxY[slot] >= lowerY
+                    && minZ[slot] <= upperZ && maxZ[slot] >= lowerZ) {
+                    action.accept(children[slot]);
+                    found++;
+                }
+            }
+        } else {
+            for (int slot = from; slot < to; slot++) {
+                if (minX[slot] <= upperX && maxX[slot] >= lowerX
+                    && minY[slot] <= upperY && maxY[slot] >= lowerY
+                    && minZ[slot] <= upperZ && maxZ[slot] >= lowerZ) {
+                    found += searchIntersecting(children[slot], lowerX, lowerY, lowerZ, upperX, upperY, upperZ, action);
+                }
+            }
+        }
+        return found;
+    }
+
+    private int searchContained(int node, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ, IntConsumer action) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        int found = 0;
+        if (levels[node] == 0) {
+            for (int slot = from; slot < to; slot++) {
+                if (minX[slot] >= lowerX && maxX[slot] <= upperX
+                    && minY[slot] >= lowerY && maxY[slot] <= upperY
+                    && minZ[slot] >= lowerZ && maxZ[slot] <= upperZ) {
+                    action.accept(children[slot]);
+                    found++;
+                }
+            }
+        } else {
+            for (int slot = from; slot < to; slot++) {
+                if (minX[slot] <= upperX && maxX[slot] >= lowerX
+                    && minY[slot] <= upperY && maxY[slot] >= lowerY
+                    && minZ[slot] <= upperZ && maxZ[slot] >= lowerZ) {
+                    found += searchContained(children[slot], lowerX, lowerY, lowerZ, upperX, upperY, upperZ, action);
+                }
+            }
+        }
+        return found;
+    }
+
+    private int searchContaining(int node, double x, double y, double z, IntConsumer action) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        int found = 0;
+        if (levels[node] == 0) {
+            for (int slot = from; slot < to; slot++) {
+                if (minX[slot] <= x && maxX[slot] >= x
+                    && minY[slot] <= y && maxY[slot] >= y
+                    && minZ[slot] <= z && maxZ[slot] >= z) {
+                    action.accept(children[slot]);
+                    found++;
+                }
+            }
+        } else {
+            for (int slot = from; slot < to; slot++) {
+                if (minX[slot] <= x && maxX[slot] >= x
+                    && minY[slot] <= y && maxY[slot] >= y
+                    && minZ[slot] <= z && maxZ[slot] >= z) {
+                    found += searchContaining(children[slot], x, y, z, action);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * スロットの境界と点の距離の2乗を返す。
+     */
+    private double distanceSquared(int slot, double x, double y, double z) {
+        double dX = Math.max(0, Math.max(minX[slot] - x, x - maxX[slot]));
+        double dY = Math.max(0, Math.max(minY[slot] - y, y - maxY[slot]));
+        double dZ = Math.max(0, Math.max(minZ[slot] - z, z - maxZ[slot]));
+        return dX * dX + dY * dY + dZ * dZ;
+    }
+
+    /**
+     * 最も近い要素のスロットを探す。
+     */
+    private int searchNearest(int node, double x, double y, double z, int best) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        boolean leaf = levels[node] == 0;
+        double bestDistance = best == NONE ? Double.POSITIVE_INFINITY : distanceSquared(best, x, y, z);
+        for (int slot = from; slot < to; slot++) {
+            double d = distanceSquared(slot, x, y, z);
+            if (d < bestDistance) {
+                if (leaf) {
+                    best = slot;
+                    bestDistance = d;
+                } else {
+                    int candidate = searchNearest(children[slot], x, y, z, best);
+                    if (candidate != best) {
+                        best = candidate;
+                        bestDistance = distanceSquared(best, x, y, z);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 近い要素を最大ヒープに集める。
+     */
+    private int searchNearest(int node, double x, double y, double z, int k, int[] ids, double[] distances, int count) {
+        int from = node * MAX_ENTRIES;
+        int to = from + counts[node];
+        boolean leaf = levels[node] == 0;
+        for (int slot = from; slot < to; slot++) {
+            double d = distanceSquared(slot, x, y, z);
+            if (count == k && d >= distances[0]) {
+                continue;
+            }
+            if (!leaf) {
+                count = searchNearest(children[slot], x, y, z, k, ids, distances, count);
+            } else if (count < k) {
+                ids[count] = children[slot];
+                distances[count] = d;
+                siftUp(ids, distances, count++);
+            } else {
+                ids[0] = children[slot];
+                distances[0] = d;
+                siftDown(ids, distances, 0, count);
+            }
+        }
+        return count;
+    }
+
+    private static void siftUp(int[] ids, double[] distances, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (distances[parent] >= distances[index]) {
+                return;
+            }
+            swap(ids, distances, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] ids, double[] distances, int index, int count) {
+        while (true) {
+            int child = (index << 1) + 1;
+            if (child >= count) {
+                return;
+            }
+            if (child + 1 < count && distances[child + 1] > distances[child]) {
+                child++;
+            }
+            if (distances[index] >= distances[child]) {
+                return;
+            }
+            swap(ids, distances, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] ids, double[] distances, int i, int j) {
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+    }
+
+    /**
+     * STR法で索引を構築する。
+     */
+    private void load(EntryList entries) {
+        clear();
+        int total = entries.count;
+        int level = 0;
+        while (entries.count > MAX_ENTRIES) {
+            int count = entries.count;
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            tile(entries, order, new double[count], 0, count, 0);
+
+            EntryList parentEntries = new EntryList((count + MAX_ENTRIES - 1) / MAX_ENTRIES);
+            for (int start = 0; start < count; start += MAX_ENTRIES) {
+                int node = newNode(level);
+                int end = Math.min(start + MAX_ENTRIES, count);
+                for (int i = start; i < end; i++) {
+                    entries.addTo(this, node, order[i]);
+                }
+                computeBounds(node, SCRATCH);
+                parentEntries.add(node, minX[SCRATCH], minY[SCRATCH], minZ[SCRATCH], maxX[SCRATCH], maxY[SCRATCH], maxZ[SCRATCH], 0);
+            }
+            entries = parentEntries;
+            level++;
+        }
+        levels[root] = level;
+        for (int i = 0; i < entries.count; i++) {
+            entries.addTo(this, root, i);
+        }
+        size = total;
+    }
+
+    /**
+     * 範囲の要素を軸ごとの中心で整列し、{@link #MAX_ENTRIES}個ずつの組がまとまるようにスライスへ分ける。
+     */
+    private static void tile(EntryList entries, int[] order, double[] keys, int from, int to, int axis) {
+        for (int i = from; i < to; i++) {
+            keys[i] = entries.center(order[i], axis);
+        }
+        sort(order, keys, from, to);
+        if (axis == 2) {
+            return;
+        }
+        int pages = (to - from + MAX_ENTRIES - 1) / MAX_ENTRIES;
+        int slices = (int) Math.ceil(Math.pow(pages, 1.0 / (3 - axis)));
+        int sliceSize = MAX_ENTRIES * ((pages + slices - 1) / slices);
+        for (int start = from; start < to; start += sliceSize) {
+            tile(entries, order, keys, start, Math.min(start + sliceSize, to), axis + 1);
+        }
+    }
+
+    /**
+     * キーの昇順に、キーと添字を並べ替える。
+     */
+    private static void sort(int[] order, double[] keys, int from, int to) {
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            // 3つの中央値を枢軸にする
+            if (keys[middle] < keys[from]) {
+                swap(order, keys, middle, from);
+            }
+            if (keys[to - 1] < keys[from]) {
+                swap(order, keys, to - 1, from);
+            }
+            if (keys[to - 1] < keys[middle]) {
+                swap(order, keys, to - 1, middle);
+            }
+            double pivot = keys[middle];
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(order, keys, i++, j--);
+                }
+            }
+            // 小さい方を再帰し、大きい方を繰り返す
+            if (j + 1 - from < to - i) {
+                sort(order, keys, from, j + 1);
+                from = i;
+            } else {
+                sort(order, keys, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            int index = order[i];
+            double key = keys[i];
+            int j = i - 1;
+            while (j >= from && keys[j] > key) {
+                order[j + 1] = order[j];
+                keys[j + 1] = keys[j];
+                j--;
+            }
+            order[j + 1] = index;
+            keys[j + 1] = key;
+        }
+    }
+
+    /**
+     * 節点の外で一時的に保持するスロットの列。
+     */
+    private static final class EntryList {
+
+        int[] children;
+        double[] minX;
+        double[] maxX;
+        double[] minY;
+        double[] maxY;
+        double[] minZ;
+        double[] maxZ;
+        int[] levels;
+        int count;
+
+        EntryList(int capacity) {
+            capacity = Math.max(capacity, 1);
+            children = new int[capacity];
+            minX = new double[capacity];
+            maxX = new double[capacity];
+            minY = new double[capacity];
+            maxY = new double[capacity];
+            minZ = new double[capacity];
+            maxZ = new double[capacity];
+            levels = new int[capacity];
+        }
+
+        void add(int child, double lowerX, double lowerY, double lowerZ, double upperX, double upperY, double upperZ, int level) {
+            if (count == children.length) {
+                int capacity = count + (count >> 1) + 1;
+                children = Arrays.copyOf(children, capacity);
+                minX = Arrays.copyOf(minX, capacity);
+                maxX = Arrays.copyOf(maxX, capacity);
+                minY = Arrays.copyOf(minY, capacity);
+                maxY = Arrays.copyOf(maxY, capacity);
+                minZ = Arrays.copyOf(minZ, capacity);
+                maxZ = Arrays.copyOf(maxZ, capacity);
+                levels = Arrays.copyOf(levels, capacity);
+            }
+            children[count] = child;
+            minX[count] = lowerX;
+            maxX[count] = upperX;
+            minY[count] = lowerY;
+            maxY[count] = upperY;
+            minZ[count] = lowerZ;
+            maxZ[count] = upperZ;
+            levels[count] = level;
+            count++;
+        }
+
+        void addTo(DoubleBox3RTree tree, int node, int i) {
+            tree.addEntry(node, children[i], minX[i], minY[i], minZ[i], maxX[i], maxY[i], maxZ[i]);
+        }
+
+        double lower(int i, int axis) {
+            return axis == 0 ? minX[i] : axis == 1 ? minY[i] : minZ[i];
+        }
+
+        double upper(int i, int axis) {
+            return axis == 0 ? maxX[i] : axis == 1 ? maxY[i] : maxZ[i];
+        }
+
+        double center(int i, int axis) {
+            return (lower(i, axis) + upper(i, axis)) * 0.5;
+        }
+
+        /**
+         * R*木の方法で分割を選ぶ。
+         *
+         * 周長の合計が最小の軸を選び、その軸で重なりが最小（同じなら面積の合計が最小）の分け方を選びます。
+         * {@code order}は選んだ順に並べ替えられ、先頭から戻り値の数だけが1つ目の組になります。
+         */
+        int chooseSplit(int[] order) {
+            double[] keys = new double[count];
+            int bestAxis = 0;
+            double bestMargin = Double.POSITIVE_INFINITY;
+            for (int axis = 0; axis < 3; axis++) {
+                double margin = 0;
+                for (int side = 0; side < 2; side++) {
+                    sortAlong(order, keys, axis, side == 1);
+                    for (int k = MIN_ENTRIES; k <= count - MIN_ENTRIES; k++) {
+                        margin += margin(bounds(order, 0, k)) + margin(bounds(order, k, count));
+                    }
+                }
+                if (margin < bestMargin) {
+                    bestMargin = margin;
+                    bestAxis = axis;
+                }
+            }
+
+            int bestSide = 0;
+            int bestIndex = MIN_ENTRIES;
+            double bestOverlap = Double.POSITIVE_INFINITY;
+            double bestArea = Double.POSITIVE_INFINITY;
+            for (int side = 0; side < 2; side++) {
+                sortAlong(order, keys, bestAxis, side == 1);
+                for (int k = MIN_ENTRIES; k <= count - MIN_ENTRIES; k++) {
+                    double[] first = bounds(order, 0, k);
+                    double[] second = bounds(order, k, count);
+                    double overlap = 1;
+                    for (int axis = 0; axis < 3; axis++) {
+                        overlap *= Math.max(0, Math.min(first[axis + 3], second[axis + 3])
+                                - Math.max(first[axis], second[axis]));
+                    }
+                    double area = area(first) + area(second);
+                    if (overlap < bestOverlap || overlap == bestOverlap && area < bestArea) {
+                        bestOverlap = overlap;
+                        bestArea = area;
+                        bestSide = side;
+                        bestIndex = k;
+                    }
+                }
+            }
+            sortAlong(order, keys, bestAxis, bestSide == 1);
+            return bestIndex;
+        }
+
+        private void sortAlong(int[] order, double[] keys, int axis, boolean byUpper) {
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+                keys[i] = byUpper ? upper(i, axis) : lower(i, axis);
+            }
+            sort(order, keys, 0, count);
+        }
+
+        /**
+         * 組を囲む境界を、各軸の最小値、各軸の最大値の順に返す。
+         */
+        private double[] bounds(int[] order, int from, int to) {
+            double[] bounds = new double[6];
+            for (int axis = 0; axis < 3; axis++) {
+                bounds[axis] = Double.POSITIVE_INFINITY;
+                bounds[axis + 3] = Double.NEGATIVE_INFINITY;
+            }
+            for (int i = from; i < to; i++) {
+                int e = order[i];
+                for (int axis = 0; axis < 3; axis++) {
+                    bounds[axis] = Math.min(bounds[axis], lower(e, axis));
+                    bounds[axis + 3] = Math.max(bounds[axis + 3], upper(e, axis));
+                }
+            }
+            return bounds;
+        }
+
+        private static double margin(double[] bounds) {
+            double margin = 0;
+            for (int axis = 0; axis < 3; axis++) {
+                margin += bounds[axis + 3] - bounds[axis];
+            }
+            return margin;
+        }
+
+        private static double area(double[] bounds) {
+            double area = 1;
+            for (int axis = 0; axis < 3; axis++) {
+                area *= bounds[axis + 3] - bounds[axis];
+            }
+            return area;
+        }
+    }
+}
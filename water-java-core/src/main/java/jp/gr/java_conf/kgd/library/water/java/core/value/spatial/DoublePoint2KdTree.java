@@ -0,0 +1,566 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.spatial;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoublePoint2Array;
+
+/**
+ * {@link DoublePoint2}の集合に対する静的なk-d木。
+ *
+ * 構築後に要素を追加・削除することはできません。
+ * 節点は保持せず、座標を並べ替えた配列そのものを木として扱います。
+ * 範囲の中央の要素が節点となり、分割する軸は深さごとにx座標、y座標の順に巡回します。
+ * 要素数が{@link #LEAF_SIZE}以下の範囲は葉として線形に走査します。
+ *
+ * 構築時の中央値の選択は、大きな範囲ほどfork/joinで並列に行います。
+ * 問い合わせの結果は、構築に用いた配列の添字として呼び出し側が用意した配列に書き込むため、インスタンスを生成しません。
+ * 構築後は不変であるため、複数のスレッドから同時に問い合わせることができます。
+ *
+ * @author misakura
+ */
+public class DoublePoint2KdTree {
+
+    /**
+     * 葉として線形に走査する範囲の最大の要素数。
+     */
+    public static final int LEAF_SIZE = 8;
+
+    /**
+     * 並列に構築する範囲の最小の要素数。
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    /**
+     * 次元数。
+     */
+    private static final int DIMENSION = 2;
+
+    /**
+     * 木の順に並べた座標。（要素ごとにx座標、y座標の順で並びます。）
+     */
+    private final double[] coordinates;
+
+    /**
+     * 木の順に並べた、各要素の構築時の添字。
+     */
+    private final int[] indices;
+
+    private DoublePoint2KdTree(double[] coordinates, int[] indices) {
+        this.coordinates = coordinates;
+        this.indices = indices;
+    }
+
+    /**
+     * 配列の先頭から指定した数の要素でk-d木を構築する。
+     *
+     * 引数の配列は変更しません。
+     *
+     * @param x x座標の配列。
+     * @param y y座標の配列。
+     * @param length 要素数。
+     * @return 構築したk-d木。
+     */
+    public static DoublePoint2KdTree build(double[] x, double[] y, int length) {
+        if (length < 0 || x.length < length || y.length < length) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+        double[] coordinates = new double[length * DIMENSION];
+        for (int i = 0; i < length; i++) {
+            coordinates[i * DIMENSION] = x[i];
+            coordinates[i * DIMENSION + 1] = y[i];
+        }
+        return build(coordinates, length);
+    }
+
+    /**
+     * コンテナの全ての要素でk-d木を構築する。
+     *
+     * @param array 要素のコンテナ。
+     * @return 構築したk-d木。
+     */
+    public static DoublePoint2KdTree build(DoublePoint2Array array) {
+        return build(array.getXArray(), array.getYArray(), array.size());
+    }
+
+    /**
+     * 配列の全ての要素でk-d木を構築する。
+     *
+     * @param points 要素の配列。
+     * @return 構築したk-d木。
+     */
+    public static DoublePoint2KdTree build(DoublePoint2[] points) {
+        double[] coordinates = new double[points.length * DIMENSION];
+        for (int i = 0; i < points.length; i++) {
+            DoublePoint2 point = points[i];
+            coordinates[i * DIMENSION] = point.getXAsDouble();
+            coordinates[i * DIMENSION + 1] = point.getYAsDouble();
+        }
+        return build(coordinates, points.length);
+    }
+
+    private static DoublePoint2KdTree build(double[] coordinates, int length) {
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = i;
+        }
+        BuildTask task = new BuildTask(coordinates, indices, 0, length, 0);
+        if (length > PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            task.compute();
+        }
+        return new DoublePoint2KdTree(coordinates, indices);
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * 最も近い要素を探す。
+     *
+     * @param x 基準のx座標。
+     * @param y 基準のy座標。
+     * @return 最も近い要素の添字。要素が存在しない場合は{@code -1}。
+     */
+    public int nearest(double x, double y) {
+        int position = searchNearest(0, indices.length, 0, x, y, -1);
+        return position < 0 ? -1 : indices[position];
+    }
+
+    /**
+     * 最も近い要素を探す。
+     *
+     * @param point 基準の点。
+     * @return 最も近い要素の添字。要素が存在しない場合は{@code -1}。
+     */
+    public int nearest(DoublePoint2 point) {
+        return nearest(point.getXAsDouble(), point.getYAsDouble());
+    }
+
+    /**
+     * 近い順に{@code k}個の要素を探す。
+     *
+     * 結果は距離の昇順に、配列の先頭から書き込みます。
+     *
+     * @param x 基準のx座標。
+     * @param y 基準のy座標。
+     * @param k 探す要素数。
+     * @param resultIndices 見つかった要素の添字の書き込み先。長さは{@code k}以上。
+     * @param resultDistancesSquared 見つかった要素までの距離の2乗の書き込み先。長さは{@code k}以上。
+     * @return 見つかった要素数。（{@code k}と要素数の小さい方。）
+     */
+    public int nearest(double x, double y, int k, int[] resultIndices, double[] resultDistancesSquared) {
+        if (k < 0 || resultIndices.length < k || resultDistancesSquared.length < k) {
+            throw new IllegalArgumentException("Illegal k: " + k);
+        }
+        if (k == 0) {
+            return 0;
+        }
+        int count = searchNearest(0, indices.length, 0, x, y, k, resultIndices, resultDistancesSquared, 0);
+        // 最大ヒープを整列し、昇順にする
+        for (int end = count - 1; end > 0; end--) {
+            swap(resultIndices, resultDistancesSquared, 0, end);
+            siftDown(resultIndices, resultDistancesSquared, 0, end);
+        }
+        return count;
+    }
+
+    /**
+     * 近い順に{@code k}個の要素を探す。
+     *
+     * @param point 基準の点。
+     * @param k 探す要素数。
+     * @param resultIndices 見つかった要素の添字の書き込み先。長さは{@code k}以上。
+     * @param resultDistancesSquared 見つかった要素までの距離の2乗の書き込み先。長さは{@code k}以上。
+     * @return 見つかった要素数。（{@code k}と要素数の小さい方。）
+     * @see #nearest(double, double, int, int[], double[])
+     */
+    public int nearest(DoublePoint2 point, int k, int[] resultIndices, double[] resultDistancesSquared) {
+        return nearest(point.getXAsDouble(), point.getYAsDouble(), k, resultIndices, resultDistancesSquared);
+    }
+
+    /**
+     * 基準からの距離が半径以下の要素を探す。
+     *
+     * 結果の順序は不定です。
+     * 見つかった要素数が配列の長さを超えた場合、書き込むのは配列の長さまでですが、戻り値は見つかった全ての要素数になります。
+     *
+     * @param x 基準のx座標。
+     * @param y 基準のy座標。
+     * @param radius 半径。
+     * @param resultIndices 見つかった要素の添字の書き込み先。
+     * @param resultDistancesSquared 見つかった要素までの距離の2乗の書き込み先。不要な場合は{@code null}。
+     * @return 見つかった要素数。
+     */
+    public int withinRadius(double x, double y, double radius, int[] resultIndices, double[] resultDistancesSquared) {
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException("Illegal radius: " + radius);
+        }
+        if (resultDistancesSquared != null && resultDistancesSquared.length < resultIndices.length) {
+            throw new IllegalArgumentException("Result arrays differ in length");
+        }
+        return searchRadius(0, indices.length, 0, x, y, radius * radius, resultIndices, resultDistancesSquared, 0);
+    }
+
+    /**
+     * 基準からの距離が半径以下の要素を探す。
+     *
+     * 結果の順序は不定です。
+     *
+     * @param x 基準のx座標。
+     * @param y 基準のy座標。
+     * @param radius 半径。
+     * @param action 見つかった要素の添字を受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int withinRadius(double x, double y, double radius, IntConsumer action) {
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException("Illegal radius: " + radius);
+        }
+        return searchRadius(0, indices.length, 0, x, y, radius * radius, Objects.requireNonNull(action));
+    }
+
+    /**
+     * 基準からの距離が半径以下の要素を探す。
+     *
+     * @param center 基準の点。
+     * @param radius 半径。
+     * @param resultIndices 見つかった要素の添字の書き込み先。
+     * @param resultDistancesSquared 見つかった要素までの距離の2乗の書き込み先。不要な場合は{@code null}。
+     * @return 見つかった要素数。
+     * @see #withinRadius(double, double, double, int[], double[])
+     */
+    public int withinRadius(DoublePoint2 center, double radius, int[] resultIndices, double[] resultDistancesSquared) {
+        return withinRadius(center.getXAsDouble(), center.getYAsDouble(), radius, resultIndices, resultDistancesSquared);
+    }
+
+    /**
+     * 基準からの距離が半径以下の要素を探す。
+     *
+     * @param center 基準の点。
+     * @param radius 半径。
+     * @param action 見つかった要素の添字を受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int withinRadius(DoublePoint2 center, double radius, IntConsumer action) {
+        return withinRadius(center.getXAsDouble(), center.getYAsDouble(), radius, action);
+    }
+
+    /**
+     * 範囲から最近傍を探す。
+     *
+     * @return これまでに見つかった最も近い要素の位置。存在しない場合は{@code -1}。
+     */
+    private int searchNearest(int low, int high, int depth, double x, double y, int best) {
+        double bestDistance = best < 0 ? Double.POSITIVE_INFINITY : distanceSquared(best, x, y);
+        if (high - low <= LEAF_SIZE) {
+            for (int i = low; i < high; i++) {
+                double distance = distanceSquared(i, x, y);
+                if (distance < bestDistance) {
+                    best = i;
+                    bestDistance = distance;
+                }
+            }
+            return best;
+        }
+        int middle = (low + high) >>> 1;
+        int axis = depth % DIMENSION;
+        double difference = (axis == 0 ? x : y) - coordinates[middle * DIMENSION + axis];
+        double distance = distanceSquared(middle, x, y);
+        if (distance < bestDistance) {
+            best = middle;
+        }
+        int nearLow = difference < 0 ? low : middle + 1;
+        int nearHigh = difference < 0 ? middle : high;
+        int farLow = difference < 0 ? middle + 1 : low;
+        int farHigh = difference < 0 ? high : middle;
+        best = searchNearest(nearLow, nearHigh, depth + 1, x, y, best);
+        if (difference * difference < distanceSquared(best, x, y)) {
+            best = searchNearest(farLow, farHigh, depth + 1, x, y, best);
+        }
+        return best;
+    }
+
+    /**
+     * 範囲から近傍を探し、結果の最大ヒープを更新する。
+     *
+     * @return 最大ヒープの要素数。
+     */
+    private int searchNearest(int low, int high, int depth, double x, double y, int k, int[] heapIndices, double[] heapDistances, int count) {
+        if (high - low <= LEAF_SIZE) {
+            for (int i = low; i < high; i++) {
+                count = offer(i, distanceSquared(i, x, y), k, heapIndices, heapDistances, count);
+            }
+            return count;
+        }
+        int middle = (low + high) >>> 1;
+        int axis = depth % DIMENSION;
+        double difference = (axis == 0 ? x : y) - coordinates[middle * DIMENSION + axis];
+        count = offer(middle, distanceSquared(middle, x, y), k, heapIndices, heapDistances, count);
+        int nearLow = difference < 0 ? low : middle + 1;
+        int nearHigh = difference < 0 ? middle : high;
+        int farLow = difference < 0 ? middle + 1 : low;
+        int farHigh = difference < 0 ? high : middle;
+        count = searchNearest(nearLow, nearHigh, depth + 1, x, y, k, heapIndices, heapDistances, count);
+        if (count < k || difference * difference < heapDistances[0]) {
+            count = searchNearest(farLow, farHigh, depth + 1, x, y, k, heapIndices, heapDistances, count);
+        }
+        return count;
+    }
+
+    private int offer(int position, double distanceSquared, int k, int[] heapIndices, double[] heapDistances, int count) {
+        if (count < k) {
+            heapIndices[count] = indices[position];
+            heapDistances[count] = distanceSquared;
+            siftUp(heapIndices, heapDistances, count);
+            return count + 1;
+        }
+        if (distanceSquared < heapDistances[0]) {
+            heapIndices[0] = indices[position];
+            heapDistances[0] = distanceSquared;
+            siftDown(heapIndices, heapDistances, 0, count);
+        }
+        return count;
+    }
+
+    private int searchRadius(int low, int high, int depth, double x, double y, double radiusSquared, int[] resultIndices, double[] resultDistances, int count) {
+        if (high - low <= LEAF_SIZE) {
+            for (int i = low; i < high; i++) {
+                count = accept(i, distanceSquared(i, x, y), radiusSquared, resultIndices, resultDistances, count);
+            }
+            return count;
+        }
+        int middle = (low + high) >>> 1;
+        int axis = depth % DIMENSION;
+        double difference = (axis == 0 ? x : y) - coordinates[middle * DIMENSION + axis];
+        count = accept(middle, distanceSquared(middle, x, y), radiusSquared, resultIndices, resultDistances, count);
+        if (difference <= 0 || difference * difference <= radiusSquared) {
+            count = searchRadius(low, middle, depth + 1, x, y, radiusSquared, resultIndices, resultDistances, count);
+        }
+        if (difference >= 0 || difference * difference <= radiusSquared) {
+            count = searchRadius(middle + 1, high, depth + 1, x, y, radiusSquared, resultIndices, resultDistances, count);
+        }
+        return count;
+    }
+
+    private int accept(int position, double distanceSquared, double radiusSquared, int[] resultIndices, double[] resultDistances, int count) {
+        if (distanceSquared > radiusSquared) {
+            return count;
+        }
+        if (count < resultIndices.length) {
+            resultIndices[count] = indices[position];
+            if (resultDistances != null) {
+                resultDistances[count] = distanceSquared;
+            }
+        }
+        return count + 1;
+    }
+
+    private int searchRadius(int low, int high, int depth, double x, double y, double radiusSquared, IntConsumer action) {
+        int count = 0;
+        if (high - low <= LEAF_SIZE) {
+            for (int i = low; i < high; i++) {
+                if (distanceSquared(i, x, y) <= radiusSquared) {
+                    action.accept(indices[i]);
+                    count++;
+                }
+            }
+            return count;
+        }
+        int middle = (low + high) >>> 1;
+        int axis = depth % DIMENSION;
+        double difference = (axis == 0 ? x : y) - coordinates[middle * DIMENSION + axis];
+        if (distanceSquared(middle, x, y) <= radiusSquared) {
+            action.accept(indices[middle]);
+            count++;
+        }
+        if (difference <= 0 || difference * difference <= radiusSquared) {
+            count += searchRadius(low, middle, depth + 1, x, y, radiusSquared, action);
+        }
+        if (difference >= 0 || difference * difference <= radiusSquared) {
+            count += searchRadius(middle + 1, high, depth + 1, x, y, radiusSquared, action);
+        }
+        return count;
+    }
+
+    private double distanceSquared(int position, double x, double y) {
+        int base = position * DIMENSION;
+        double dx = coordinates[base] - x;
+        double dy = coordinates[base + 1] - y;
+        return dx * dx + dy * dy;
+    }
+
+    private static void siftUp(int[] heapIndices, double[] heapDistances, int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heapDistances[parent] >= heapDistances[position]) {
+                return;
+            }
+            swap(heapIndices, heapDistances, parent, position);
+            position = parent;
+        }
+    }
+
+    private static void siftDown(int[] heapIndices, double[] heapDistances, int position, int count) {
+        for (;;) {
+            int child = position * 2 + 1;
+            if (child >= count) {
+                return;
+            }
+            if (child + 1 < count && heapDistances[child + 1] > heapDistances[child]) {
+                child++;
+            }
+            if (heapDistances[position] >= heapDistances[child]) {
+                return;
+            }
+            swap(heapIndices, heapDistances, position, child);
+            position = child;
+        }
+    }
+
+    private static void swap(int[] heapIndices, double[] heapDistances, int i, int j) {
+        int index = heapIndices[i];
+        heapIndices[i] = heapIndices[j];
+        heapIndices[j] = index;
+        double distance = heapDistances[i];
+        heapDistances[i] = heapDistances[j];
+        heapDistances[j] = distance;
+    }
+
+    /**
+     * 範囲の中央値を選んで分割し、左右の範囲を再帰的に構築する処理。
+     */
+    private static final class BuildTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[] coordinates;
+
+        private final int[] indices;
+
+        private final int low;
+
+        private final int high;
+
+        private final int depth;
+
+        BuildTask(double[] coordinates, int[] indices, int low, int high, int depth) {
+            this.coordinates = coordinates;
+            this.indices = indices;
+            this.low = low;
+            this.high = high;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            build(low, high, depth);
+        }
+
+        private void build(int low, int high, int depth) {
+            while (high - low > LEAF_SIZE) {
+                int middle = (low + high) >>> 1;
+                select(low, high - 1, middle, depth % DIMENSION);
+                if (high - low > PARALLEL_THRESHOLD) {
+                    invokeAll(new BuildTask(coordinates, indices, low, middle, depth + 1),
+                            new BuildTask(coordinates, indices, middle + 1, high, depth + 1));
+                    return;
+                }
+                build(low, middle, depth + 1);
+                low = middle + 1;
+                depth++;
+            }
+        }
+
+        /**
+         * {@code k}番目の要素が軸の値の順で正しい位置に来るよう、範囲を部分的に並べ替える。
+         *
+         * Hoareの分割による選択アルゴリズムです。同じ値が多い場合も偏りません。
+         */
+        private void select(int left, int right, int k, int axis) {
+            while (right > left) {
+                int middle = (left + right) >>> 1;
+                double pivot = medianOfThree(value(left, axis), value(middle, axis), value(right, axis));
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (value(i, axis) < pivot) {
+                        i++;
+                    }
+                    while (value(j, axis) > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i, j);
+                        i++;
+                        j--;
+                    }
+                }
+                if (k <= j) {
+                    right = j;
+                } else if (k >= i) {
+                    left = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private double value(int position, int axis) {
+            return coordinates[position * DIMENSION + axis];
+        }
+
+        private void swap(int i, int j) {
+            int baseI = i * DIMENSION;
+            int baseJ = j * DIMENSION;
+            double x = coordinates[baseI];
+            coordinates[baseI] = coordinates[baseJ];
+            coordinates[baseJ] = x;
+            double y = coordinates[baseI + 1];
+            coordinates[baseI + 1] = coordinates[baseJ + 1];
+            coordinates[baseJ + 1] = y;
+            int index = indices[i];
+            indices[i] = indices[j];
+            indices[j] = index;
+        }
+
+        private static double medianOfThree(double a, double b, double c) {
+            if (a < b) {
+                return b < c ? b : Math.max(a, c);
+            }
+            return a < c ? a : Math.max(b, c);
+        }
+    }
+}
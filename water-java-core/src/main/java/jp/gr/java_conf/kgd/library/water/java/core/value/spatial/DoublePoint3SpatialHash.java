@@ -0,0 +1,574 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.spatial;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import jp.gr.java_conf.kgd.library.water.java.core.value.DoublePoint3;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.DoublePoint3Array;
+import jp.gr.java_conf.kgd.library.water.java.core.value.helper.PrimitiveHashCodes;
+
+/**
+ * 空間を一様な格子に分割し、{@link DoublePoint3}の位置を持つ要素をハッシュ表で管理する空間索引。
+ *
+ * 要素は呼び出し側が決める非負の整数IDで識別します。（{@link DoublePoint3Array}の添字などを想定しています。）
+ * 格子の各セルはハッシュ表のバケットに対応付けられ、同じバケットの要素は連結リストでつながります。
+ * セルの大きさは、問い合わせる範囲の大きさと同程度にすると効率が良くなります。
+ *
+ * 移動する要素を多数扱う場合は、毎フレーム{@link #build(DoublePoint3Array)}で作り直すか、{@link #move(int, double, double, double)}で更新します。
+ * 範囲の問い合わせは見つかった要素のIDを{@link IntConsumer}に渡すため、リストを生成しません。
+ * 結果を配列で受け取る場合は、再利用可能な{@link IdBuffer}を渡します。
+ *
+ * 問い合わせは状態を変更しないため、更新と同時でなければ複数のスレッドから行えます。
+ *
+ * @author misakura
+ */
+public class DoublePoint3SpatialHash {
+
+    /**
+     * 要素数を指定しなかった場合に想定する要素数。
+     */
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * ハッシュ表の最大の大きさ。
+     */
+    private static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+
+    /**
+     * セルの座標の上限。
+     *
+     * 範囲を走査する際に桁あふれしないよう、セルの座標をこの範囲に丸めます。
+     */
+    private static final int CELL_LIMIT = 1 << 30;
+
+    /**
+     * 要素が存在しないことを表す値。
+     */
+    private static final int NONE = -1;
+
+    /**
+     * セルの大きさ。
+     */
+    private final double cellSize;
+
+    /**
+     * セルの大きさの逆数。
+     */
+    private final double inverseCellSize;
+
+    /**
+     * IDごとのx座標。
+     */
+    private double[] x;
+
+    /**
+     * IDごとのy座標。
+     */
+    private double[] y;
+
+    /**
+     * IDごとのz座標。
+     */
+    private double[] z;
+
+    /**
+     * IDごとの、同じバケットの次の要素。
+     */
+    private int[] next;
+
+    /**
+     * IDごとの、同じバケットの前の要素。
+     */
+    private int[] previous;
+
+    /**
+     * IDごとの、所属するバケット。存在しない要素は{@link #NONE}。
+     */
+    private int[] bucketOf;
+
+    /**
+     * バケットごとの先頭の要素。
+     */
+    private int[] heads;
+
+    /**
+     * セルのハッシュ値からバケットを求めるためのマスク。
+     */
+    private int mask;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     *
+     * @param cellSize セルの大きさ。
+     */
+    public DoublePoint3SpatialHash(double cellSize) {
+        this(cellSize, DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param cellSize セルの大きさ。
+     * @param expectedSize 想定する要素数。
+     */
+    public DoublePoint3SpatialHash(double cellSize, int expectedSize) {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize)) {
+            throw new IllegalArgumentException("Illegal cell size: " + cellSize);
+        }
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Illegal expected size: " + expectedSize);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1 / cellSize;
+        this.x = new double[expectedSize];
+        this.y = new double[expectedSize];
+        this.z = new double[expectedSize];
+        this.next = new int[expectedSize];
+        this.previous = new int[expectedSize];
+        this.bucketOf = new int[expectedSize];
+        Arrays.fill(bucketOf, NONE);
+        allocateTable(tableSize(expectedSize));
+    }
+
+    /**
+     * セルの大きさを返す。
+     *
+     * @return セルの大きさ。
+     */
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 要素が存在するかどうかを返す。
+     *
+     * @param id 要素のID。
+     * @return 要素が存在する場合は{@code true}。
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < bucketOf.length && bucketOf[id] != NONE;
+    }
+
+    /**
+     * 少なくとも指定した数のIDを扱えるよう、必要に応じて内部配列を拡張する。
+     *
+     * @param minCapacity 必要な容量。（IDの最大値より{@code 1}大きい値。）
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new OutOfMemoryError("Required capacity overflow");
+        }
+        int oldCapacity = bucketOf.length;
+        if (minCapacity <= oldCapacity) {
+            return;
+        }
+        int newCapacity = Math.max(oldCapacity + (oldCapacity >> 1), DEFAULT_EXPECTED_SIZE);
+        if (newCapacity - minCapacity < 0) {
+            newCapacity = minCapacity;
+        }
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        z = Arrays.copyOf(z, newCapacity);
+        next = Arrays.copyOf(next, newCapacity);
+        previous = Arrays.copyOf(previous, newCapacity);
+        bucketOf = Arrays.copyOf(bucketOf, newCapacity);
+        Arrays.fill(bucketOf, oldCapacity, newCapacity, NONE);
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param id 要素のID。
+     * @param x x座標。
+     * @param y y座標。
+     * @param z z座標。
+     */
+    public void insert(int id, double x, double y, double z) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Illegal id: " + id);
+        }
+        ensureCapacity(id + 1);
+        if (bucketOf[id] != NONE) {
+            throw new IllegalArgumentException("Already exists: " + id);
+        }
+        this.x[id] = x;
+        this.y[id] = y;
+        this.z[id] = z;
+        link(id, bucket(x, y, z));
+        if (++size > heads.length && heads.length < MAXIMUM_TABLE_SIZE) {
+            rehash(heads.length << 1);
+        }
+    }
+
+    /**
+     * 要素を追加する。
+     *
+     * @param id 要素のID。
+     * @param point 位置。
+     */
+    public void insert(int id, DoublePoint3 point) {
+        insert(id, point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble());
+    }
+
+    /**
+     * 要素を削除する。
+     *
+     * @param id 要素のID。
+     * @return 要素が存在した場合は{@code true}。
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        unlink(id);
+        bucketOf[id] = NONE;
+        size--;
+        return true;
+    }
+
+    /**
+     * 要素を移動する。
+     *
+     * 移動先が同じバケットであれば、連結リストは更新しません。
+     *
+     * @param id 要素のID。
+     * @param x 移動先のx座標。
+     * @param y 移動先のy座標。
+     * @param z 移動先のz座標。
+     */
+    public void move(int id, double x, double y, double z) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("Not found: " + id);
+        }
+        this.x[id] = x;
+        this.y[id] = y;
+        this.z[id] = z;
+        int bucket = bucket(x, y, z);
+        if (bucket != bucketOf[id]) {
+            unlink(id);
+            link(id, bucket);
+        }
+    }
+
+    /**
+     * 要素を移動する。
+     *
+     * @param id 要素のID。
+     * @param point 移動先。
+     */
+    public void move(int id, DoublePoint3 point) {
+        move(id, point.getXAsDouble(), point.getYAsDouble(), point.getZAsDouble());
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * 内部配列とハッシュ表の大きさは変わりません。
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(heads, NONE);
+        Arrays.fill(bucketOf, NONE);
+        size = 0;
+    }
+
+    /**
+     * 全ての要素を削除し、配列の先頭から指定した数の要素で索引を作り直す。
+     *
+     * 各要素のIDは配列の添字になります。
+     *
+     * @param x x座標の配列。
+     * @param y y座標の配列。
+     * @param z z座標の配列。
+     * @param length 要素数。
+     */
+    public void build(double[] x, double[] y, double[] z, int length) {
+        if (length < 0 || x.length < length || y.length < length || z.length < length) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+        clear();
+        ensureCapacity(length);
+        int tableSize = tableSize(length);
+        if (tableSize > heads.length) {
+            allocateTable(tableSize);
+        }
+        System.arraycopy(x, 0, this.x, 0, length);
+        System.arraycopy(y, 0, this.y, 0, length);
+        System.arraycopy(z, 0, this.z, 0, length);
+        for (int id = 0; id < length; id++) {
+            bucketOf[id] = bucket(x[id], y[id], z[id]);
+        }
+        linkAll(length);
+    }
+
+    /**
+     * 全ての要素を削除し、コンテナの全ての要素で索引を作り直す。
+     *
+     * 各要素のIDはコンテナの添字になります。
+     *
+     * @param array 要素の位置を格納したコンテナ。
+     */
+    public void build(DoublePoint3Array array) {
+        build(array.getXArray(), array.getYArray(), array.getZArray(), array.size());
+    }
+
+    /**
+     * 全ての要素を削除し、配列の全ての要素で索引を作り直す。
+     *
+     * 各要素のIDは配列の添字になります。
+     *
+     * @param points 要素の位置の配列。
+     */
+    public void build(DoublePoint3[] points) {
+        clear();
+        ensureCapacity(points.length);
+        int tableSize = tableSize(points.length);
+        if (tableSize > heads.length) {
+            allocateTable(tableSize);
+        }
+        for (int id = 0; id < points.length; id++) {
+            DoublePoint3 point = points[id];
+            x[id] = point.getXAsDouble();
+            y[id] = point.getYAsDouble();
+            z[id] = point.getZAsDouble();
+            bucketOf[id] = bucket(x[id], y[id], z[id]);
+        }
+        linkAll(points.length);
+    }
+
+    /**
+     * 直方体の範囲（境界を含む）にある要素を探す。
+     *
+     * @param minX 範囲のx座標の最小値。
+     * @param minY 範囲のy座標の最小値。
+     * @param minZ 範囲のz座標の最小値。
+     * @param maxX 範囲のx座標の最大値。
+     * @param maxY 範囲のy座標の最大値。
+     * @param maxZ 範囲のz座標の最大値。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int queryBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, IntConsumer action) {
+        return search(minX, minY, minZ, maxX, maxY, maxZ, 0, 0, 0, Double.POSITIVE_INFINITY, action);
+    }
+
+    /**
+     * 中心からの距離が半径以下の要素を探す。
+     *
+     * @param x 中心のx座標。
+     * @param y 中心のy座標。
+     * @param z 中心のz座標。
+     * @param radius 半径。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int queryRadius(double x, double y, double z, double radius, IntConsumer action) {
+        if (!(radius >= 0)) {
+            throw new IllegalArgumentException("Illegal radius: " + radius);
+        }
+        return search(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius, x, y, z, radius * radius, action);
+    }
+
+    /**
+     * 中心からの距離が半径以下の要素を探す。
+     *
+     * @param center 中心。
+     * @param radius 半径。
+     * @param action 見つかった要素のIDを受け取る処理。
+     * @return 見つかった要素数。
+     */
+    public int queryRadius(DoublePoint3 center, double radius, IntConsumer action) {
+        return queryRadius(center.getXAsDouble(), center.getYAsDouble(), center.getZAsDouble(), radius, action);
+    }
+
+    /**
+     * 範囲にあり、中心からの距離の2乗が上限以下の要素を探す。
+     *
+     * 範囲が覆うセルの数がバケット数より多い場合は、セルを辿らずに全てのバケットを走査します。
+     * ハッシュ値が衝突したセルの要素を重複して報告しないよう、要素が現在のセルにあることも確かめます。
+     */
+    private int search(double minX, double minY, double minZ, double maxX, double maxY, double maxZ, double centerX, double centerY, double centerZ, double radiusSquared, IntConsumer action) {
+        Objects.requireNonNull(action);
+        if (size == 0 || !(minX <= maxX) || !(minY <= maxY) || !(minZ <= maxZ)) {
+            return 0;
+        }
+        int minCellX = cell(minX);
+        int maxCellX = cell(maxX);
+        int minCellY = cell(minY);
+        int maxCellY = cell(maxY);
+        int minCellZ = cell(minZ);
+        int maxCellZ = cell(maxZ);
+        double cellCount = ((double) maxCellX - minCellX + 1) * ((double) maxCellY - minCellY + 1) * ((double) maxCellZ - minCellZ + 1);
+        int count = 0;
+        if (cellCount > heads.length) {
+            for (int bucket = 0; bucket < heads.length; bucket++) {
+                for (int id = heads[bucket]; id != NONE; id = next[id]) {
+                    if (x[id] >= minX && x[id] <= maxX
+                            && y[id] >= minY && y[id] <= maxY
+                            && z[id] >= minZ && z[id] <= maxZ
+                            && distanceSquared(id, centerX, centerY, centerZ) <= radiusSquared) {
+                        action.accept(id);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    for (int id = heads[bucket(cellX, cellY, cellZ)]; id != NONE; id = next[id]) {
+                        if (x[id] >= minX && x[id] <= maxX
+                                && y[id] >= minY && y[id] <= maxY
+                                && z[id] >= minZ && z[id] <= maxZ
+                                && cell(x[id]) == cellX && cell(y[id]) == cellY && cell(z[id]) == cellZ
+                                && distanceSquared(id, centerX, centerY, centerZ) <= radiusSquared) {
+                            action.accept(id);
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private double distanceSquared(int id, double x, double y, double z) {
+        double dx = this.x[id] - x;
+        double dy = this.y[id] - y;
+        double dz = this.z[id] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void link(int id, int bucket) {
+        int head = heads[bucket];
+        next[id] = head;
+        previous[id] = NONE;
+        if (head != NONE) {
+            previous[head] = id;
+        }
+        heads[bucket] = id;
+        bucketOf[id] = bucket;
+    }
+
+    /**
+     * 先頭から指定した数の要素を、{@link #bucketOf}に設定済みのバケットにつなげる。
+     *
+     * バケットの計算と連結を分けることで、連結の際のランダムアクセスを減らしています。
+     * 後ろから連結するため、各バケットの要素はIDの昇順に並びます。
+     *
+     * @param length 要素数。
+     */
+    private void linkAll(int length) {
+        for (int id = length; id-- != 0;) {
+            int bucket = bucketOf[id];
+            int head = heads[bucket];
+            next[id] = head;
+            previous[id] = NONE;
+            if (head != NONE) {
+                previous[head] = id;
+            }
+            heads[bucket] = id;
+        }
+        size = length;
+    }
+
+    private void unlink(int id) {
+        int before = previous[id];
+        int after = next[id];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            heads[bucketOf[id]] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+    }
+
+    private void rehash(int newTableSize) {
+        allocateTable(newTableSize);
+        for (int id = 0; id < bucketOf.length; id++) {
+            if (bucketOf[id] != NONE) {
+                link(id, bucket(x[id], y[id], z[id]));
+            }
+        }
+    }
+
+    private void allocateTable(int tableSize) {
+        heads = new int[tableSize];
+        Arrays.fill(heads, NONE);
+        mask = tableSize - 1;
+    }
+
+    private int cell(double value) {
+        double cell = Math.floor(value * inverseCellSize);
+        return (int) Math.max(-CELL_LIMIT, Math.min(CELL_LIMIT, cell));
+    }
+
+    private int bucket(double x, double y, double z) {
+        return bucket(cell(x), cell(y), cell(z));
+    }
+
+    private int bucket(int cellX, int cellY, int cellZ) {
+        int hash = cellX;
+        hash = PrimitiveHashCodes.combine(hash, cellY);
+        hash = PrimitiveHashCodes.combine(hash, cellZ);
+        return PrimitiveHashCodes.finish(hash) & mask;
+    }
+
+    private static int tableSize(int expectedSize) {
+        if (expectedSize >= MAXIMUM_TABLE_SIZE) {
+            return MAXIMUM_TABLE_SIZE;
+        }
+        return Math.max(Integer.highestOneBit(Math.max(expectedSize, 1) - 1) << 1, DEFAULT_EXPECTED_SIZE);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.spatial;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * 空間索引の問い合わせ結果を受け取る、再利用可能な可変長の{@code int}配列。
+ *
+ * {@link IntConsumer}として問い合わせに渡すと、見つかった要素のIDが末尾に追加されます。
+ * {@link #clear()}しても内部配列は解放されないため、毎フレーム同じインスタンスを使い回すことで割り当てを避けられます。
+ *
+ * @author misakura
+ */
+public class IdBuffer implements IntConsumer {
+
+    /**
+     * 容量を指定しなかった場合の初期容量。
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * IDの配列。
+     */
+    private int[] ids;
+
+    /**
+     * 格納している要素数。
+     */
+    private int size;
+
+    /**
+     * コンストラクタ。
+     */
+    public IdBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * コンストラクタ。
+     *
+     * @param initialCapacity 初期容量。
+     */
+    public IdBuffer(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        this.ids = new int[initialCapacity];
+    }
+
+    /**
+     * 格納している要素数を返す。
+     *
+     * @return 要素数。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 要素を格納していないかどうかを返す。
+     *
+     * @return 要素数が{@code 0}の場合は{@code true}。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 指定した位置のIDを返す。
+     *
+     * @param index 位置。
+     * @return ID。
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return ids[index];
+    }
+
+    /**
+     * IDを末尾に追加する。
+     *
+     * @param id ID。
+     */
+    public void add(int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(size + (size >> 1), DEFAULT_CAPACITY));
+        }
+        ids[size++] = id;
+    }
+
+    /**
+     * IDを末尾に追加する。
+     *
+     * {@link #add(int)}と同じです。
+     *
+     * @param id ID。
+     */
+    @Override
+    public void accept(int id) {
+        add(id);
+    }
+
+    /**
+     * 全ての要素を削除する。
+     *
+     * 内部配列の容量は変わりません。
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * 格納しているIDを新しい配列にコピーして返す。
+     *
+     * @return IDの配列。
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * 内部配列を返す。
+     *
+     * 有効な要素は先頭から{@link #size()}個です。
+     * 返した配列は、以降の追加で別の配列に置き換わることがあります。
+     *
+     * @return 内部配列。
+     */
+    public int[] getArray() {
+        return ids;
+    }
+}
@@ -0,0 +1,420 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 misakura.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package jp.gr.java_conf.kgd.library.water.java.core.value.spatial;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import jp.gr.java_conf.kgd.library.water.java.core.value.MutableIntPoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntPoint2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.IntSize2;
+import jp.gr.java_conf.kgd.library.water.java.core.value.array.IntPoint2Array;
+
+/**
+ * {@link IntPoint2}とモートン符号（Z階数）の変換と、モートン順による整列と検索。
+ *
+ * モートン符号は各軸の座標のビットを交互に並べた{@code long}値です。
+ * 符号の大小は{@code long}の通常の比較に一致するため、符号で整列した点の列は空間的に近いものが近くに並びます。
+ * そのため、近傍を走査する処理のキャッシュ効率が良くなり、ファイルや索引のキーとしても使えます。
+ *
+ * 座標は{@code int}の全ての値を扱えます。
+ * 全ての変換は分岐のないビット演算で行います。
+ *
+ * @author misakura
+ */
+public final class IntPoint2Morton {
+
+    /**
+     * 符号化できる座標の最小値。
+     */
+    public static final int MIN_COORDINATE = Integer.MIN_VALUE;
+
+    /**
+     * 符号化できる座標の最大値。
+     */
+    public static final int MAX_COORDINATE = Integer.MAX_VALUE;
+
+    /**
+     * 1軸あたりのビット数。
+     */
+    private static final int BITS_PER_AXIS = 32;
+
+    /**
+     * 符号全体のビット数。
+     */
+    private static final int BITS = BITS_PER_AXIS * 2;
+
+    /**
+     * x座標のビットの位置。他の軸はこれを軸の番号だけずらした位置。
+     */
+    private static final long X_MASK = 0x5555555555555555L;
+
+    /**
+     * 符号の大小を{@code long}の比較に一致させるために反転するビット。
+     */
+    private static final long FLIP = Long.MIN_VALUE;
+
+    private IntPoint2Morton() {
+    }
+
+    /**
+     * 座標をモートン符号に変換する。
+     *
+     * @param x x座標。
+     * @param y y座標。
+     * @return モートン符号。
+     */
+    public static long encode(int x, int y) {
+        return (spread((long) x - MIN_COORDINATE)
+                | spread((long) y - MIN_COORDINATE) << 1) ^ FLIP;
+    }
+
+    /**
+     * 点をモートン符号に変換する。
+     *
+     * @param point 点。
+     * @return モートン符号。
+     */
+    public static long encode(IntPoint2 point) {
+        return encode(point.getXAsInt(), point.getYAsInt());
+    }
+
+    /**
+     * モートン符号からx座標を取り出す。
+     *
+     * @param code モートン符号。
+     * @return x座標。
+     */
+    public static int decodeX(long code) {
+        return (int) (compact((code ^ FLIP)) + MIN_COORDINATE);
+    }
+
+    /**
+     * モートン符号からy座標を取り出す。
+     *
+     * @param code モートン符号。
+     * @return y座標。
+     */
+    public static int decodeY(long code) {
+        return (int) (compact((code ^ FLIP) >>> 1) + MIN_COORDINATE);
+    }
+
+    /**
+     * モートン符号を点に戻す。
+     *
+     * @param code モートン符号。
+     * @param destination 結果の設定先。
+     */
+    public static void decode(long code, MutableIntPoint2 destination) {
+        destination.set(decodeX(code), decodeY(code));
+    }
+
+    /**
+     * 配列の先頭から指定した数の座標をまとめてモートン符号に変換する。
+     *
+     * @param x x座標の配列。
+     * @param y y座標の配列。
+     * @param codes モートン符号の書き込み先。
+     * @param length 要素数。
+     */
+    public static void encode(int[] x, int[] y, long[] codes, int length) {
+        checkLength(length, x.length, y.length, codes.length);
+        for (int i = 0; i < length; i++) {
+            codes[i] = encode(x[i], y[i]);
+        }
+    }
+
+    /**
+     * 配列の全ての点をまとめてモートン符号に変換する。
+     *
+     * @param array 点の配列。
+     * @param codes モートン符号の書き込み先。長さは{@code array.size()}以上。
+     */
+    public static void encode(IntPoint2Array array, long[] codes) {
+        encode(array.getXArray(), array.getYArray(), codes, array.size());
+    }
+
+    /**
+     * 配列の先頭から指定した数のモートン符号をまとめて座標に戻す。
+     *
+     * @param codes モートン符号の配列。
+     * @param x x座標の書き込み先。
+     * @param y y座標の書き込み先。
+     * @param length 要素数。
+     */
+    public static void decode(long[] codes, int[] x, int[] y, int length) {
+        checkLength(length, x.length, y.length, codes.length);
+        for (int i = 0; i < length; i++) {
+            long code = codes[i];
+            x[i] = decodeX(code);
+            y[i] = decodeY(code);
+        }
+    }
+
+    /**
+     * 配列の先頭から指定した数の点をモートン順に並べ替える。
+     *
+     * 並べ替えた点のモートン符号を{@code codes}に書き込むため、そのまま{@link #searchBox}に使えます。
+     * 符号は基数ソートで整列し、全ての要素で等しい桁は飛ばします。
+     *
+     * @param x x座標の配列。
+     * @param y y座標の配列。
+     * @param codes モートン符号の書き込み先。
+     * @param length 要素数。
+     */
+    public static void sort(int[] x, int[] y, long[] codes, int length) {
+        encode(x, y, codes, length);
+        int[] order = new int[length];
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+        radixSort(codes, order, length);
+        permute(x, order, length);
+        permute(y, order, length);
+    }
+
+    /**
+     * 配列の全ての点をモートン順に並べ替える。
+     *
+     * @param array 点の配列。
+     * @return 並べ替えた点のモートン符号。
+     */
+    public static long[] sort(IntPoint2Array array) {
+        long[] codes = new long[array.size()];
+        sort(array.getXArray(), array.getYArray(), codes, array.size());
+        return codes;
+    }
+
+    /**
+     * 昇順に整列したモートン符号の範囲から、箱に含まれる符号を探す。
+     *
+     * 箱は位置を最小の角とし、各軸の大きさだけ広がる閉区間の直積です。
+     * 箱の外に出た符号からは、箱の中で次に大きい符号（BIGMIN）を求めて二分探索で読み飛ばすため、
+     * 箱の角の符号の間にある全ての符号を調べることはありません。
+     *
+     * @param codes 昇順に整列したモートン符号の配列。
+     * @param from 範囲の先頭の添字。（この添字を含む。）
+     * @param to 範囲の末尾の添字。（この添字を含まない。）
+     * @param x 位置のx座標。
+     * @param y 位置のy座標。
+     * @param width 幅。
+     * @param height 高さ。
+     * @param action 見つかった符号の添字を受け取る処理。
+     * @return 見つかった符号の数。
+     */
+    public static int searchBox(long[] codes, int from, int to, int x, int y, int width, int height, IntConsumer action) {
+        if (from < 0 || to > codes.length || from > to) {
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), Length: " + codes.length);
+        }
+        Objects.requireNonNull(action);
+        long lowerX = Math.max(x, MIN_COORDINATE);
+        long upperX = Math.min((long) x + width, MAX_COORDINATE);
+        long lowerY = Math.max(y, MIN_COORDINATE);
+        long upperY = Math.min((long) y + height, MAX_COORDINATE);
+        if (lowerX > upperX || lowerY > upperY) {
+            return 0;
+        }
+        // 符号を反転する前の値で扱う
+        long zmin = spread(lowerX - MIN_COORDINATE) | spread(lowerY - MIN_COORDINATE) << 1;
+        long zmax = spread(upperX - MIN_COORDINATE) | spread(upperY - MIN_COORDINATE) << 1;
+        long last = zmax ^ FLIP;
+
+        int found = 0;
+        int index = lowerBound(codes, from, to, zmin ^ FLIP);
+        while (index < to && codes[index] <= last) {
+            long current = codes[index] ^ FLIP;
+            if (contains(current, zmin, zmax)) {
+                action.accept(index);
+                found++;
+                index++;
+            } else {
+                index = lowerBound(codes, index + 1, to, nextInBox(current, zmin, zmax) ^ FLIP);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 昇順に整列したモートン符号の配列から、箱に含まれる符号を探す。
+     *
+     * @param codes 昇順に整列したモートン符号の配列。
+     * @param point 位置。
+     * @param size 大きさ。
+     * @param action 見つかった符号の添字を受け取る処理。
+     * @return 見つかった符号の数。
+     */
+    public static int searchBox(long[] codes, IntPoint2 point, IntSize2 size, IntConsumer action) {
+        return searchBox(codes, 0, codes.length, point.getXAsInt(), point.getYAsInt(), size.getWidthAsInt(), size.getHeightAsInt(), action);
+    }
+
+    private static void checkLength(int length, int xLength, int yLength, int codesLength) {
+        if (length < 0 || xLength < length || yLength < length || codesLength < length) {
+            throw new IllegalArgumentException("Illegal length: " + length);
+        }
+    }
+
+    /**
+     * 下位{@link #BITS_PER_AXIS}ビットを2ビットおきに広げる。
+     */
+    private static long spread(long value) {
+        value &= 0xFFFFFFFFL;
+        value = (value | value << 16) & 0x0000FFFF0000FFFFL;
+        value = (value | value << 8) & 0x00FF00FF00FF00FFL;
+        value = (value | value << 4) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | value << 2) & 0x3333333333333333L;
+        value = (value | value << 1) & 0x5555555555555555L;
+        return value;
+    }
+
+    /**
+     * {@link #spread(long)}の逆変換。
+     */
+    private static long compact(long value) {
+        value &= 0x5555555555555555L;
+        value = (value | value >>> 1) & 0x3333333333333333L;
+        value = (value | value >>> 2) & 0x0F0F0F0F0F0F0F0FL;
+        value = (value | value >>> 4) & 0x00FF00FF00FF00FFL;
+        value = (value | value >>> 8) & 0x0000FFFF0000FFFFL;
+        value = (value | value >>> 16) & 0x00000000FFFFFFFFL;
+        return value;
+    }
+
+    /**
+     * 反転前の符号が、反転前の2つの角の符号で表される箱に含まれるかどうかを返す。
+     */
+    private static boolean contains(long z, long zmin, long zmax) {
+        long xMask = X_MASK;
+        long yMask = X_MASK << 1;
+        return Long.compareUnsigned(z & xMask, zmin & xMask) >= 0
+                && Long.compareUnsigned(z & xMask, zmax & xMask) <= 0
+                && Long.compareUnsigned(z & yMask, zmin & yMask) >= 0
+                && Long.compareUnsigned(z & yMask, zmax & yMask) <= 0;
+    }
+
+    /**
+     * 箱の外にある反転前の符号より大きく、箱に含まれる最小の反転前の符号（BIGMIN）を返す。
+     *
+     * Tropf and Herzog, "Multidimensional Range Search in Dynamically Balanced Trees" (1981)の方法です。
+     */
+    private static long nextInBox(long z, long zmin, long zmax) {
+        long bigmin = 0;
+        for (int bit = BITS - 1; bit >= 0; bit--) {
+            long mask = 1L << bit;
+            // 同じ軸の下位ビット
+            long lower = X_MASK << (bit % 2) & (mask - 1);
+            boolean minBit = (zmin & mask) != 0;
+            boolean maxBit = (zmax & mask) != 0;
+            if ((z & mask) == 0) {
+                if (minBit) {
+                    return zmin;
+                }
+                if (maxBit) {
+                    bigmin = zmin & ~(mask | lower) | mask;
+                    zmax = zmax & ~(mask | lower) | lower;
+                }
+            } else {
+                if (!maxBit) {
+                    return bigmin;
+                }
+                if (!minBit) {
+                    zmin = zmin & ~(mask | lower) | mask;
+                }
+            }
+        }
+        return bigmin;
+    }
+
+    /**
+     * 範囲で{@code key}以上となる最初の添字を返す。
+     */
+    private static int lowerBound(long[] codes, int from, int to, long key) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (codes[middle] < key) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * 符号と添字を、符号の昇順に8ビットずつの基数ソートで並べ替える。
+     */
+    private static void radixSort(long[] codes, int[] order, int length) {
+        if (length < 2) {
+            return;
+        }
+        long differentBits = 0;
+        for (int i = 1; i < length; i++) {
+            differentBits |= codes[i] ^ codes[0];
+        }
+        long[] codeBuffer = new long[length];
+        int[] orderBuffer = new int[length];
+        long[] sourceCodes = codes;
+        int[] sourceOrder = order;
+        int[] counts = new int[256];
+        for (int shift = 0; shift < 64; shift += 8) {
+            if ((differentBits >>> shift & 0xFF) == 0) {
+                continue;
+            }
+            // 最上位の桁は符号ビットを反転して数える
+            int flip = shift == 56 ? 0x80 : 0;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < length; i++) {
+                counts[(int) (sourceCodes[i] >>> shift) & 0xFF ^ flip]++;
+            }
+            int offset = 0;
+            for (int digit = 0; digit < 256; digit++) {
+                int count = counts[digit];
+                counts[digit] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < length; i++) {
+                int position = counts[(int) (sourceCodes[i] >>> shift) & 0xFF ^ flip]++;
+                codeBuffer[position] = sourceCodes[i];
+                orderBuffer[position] = sourceOrder[i];
+            }
+            long[] swapCodes = sourceCodes;
+            sourceCodes = codeBuffer;
+            codeBuffer = swapCodes;
+            int[] swapOrder = sourceOrder;
+            sourceOrder = orderBuffer;
+            orderBuffer = swapOrder;
+        }
+        if (sourceCodes != codes) {
+            System.arraycopy(sourceCodes, 0, codes, 0, length);
+            System.arraycopy(sourceOrder, 0, order, 0, length);
+        }
+    }
+
+    private static void permute(int[] values, int[] order, int length) {
+        int[] permuted = new int[length];
+        for (int i = 0; i < length; i++) {
+            permuted[i] = values[order[i]];
+        }
+        System.arraycopy(permuted, 0, values, 0, length);
+    }
+}